@@ -0,0 +1,143 @@
+package com.example.geoservice.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 基准测试回归检查
+ * <p>
+ * 将 JMH 的 JSON 结果与基线比较，任一基准超出容忍度时以非零状态码退出，用于在 CI 中拦截性能回退：
+ * 1. 每次操作分配的字节数（gc.alloc.rate.norm）与硬件无关，默认参与检查
+ * 2. 平均耗时和吞吐量受运行环境影响较大，只有显式设置耗时容忍度时才参与检查；
+ *    单位以 /op 结尾的耗时越低越好，吞吐量（如 ops/s）越高越好
+ * 3. 基线文件不存在或要求更新时，根据本次结果生成精简的基线文件
+ * </p>
+ *
+ * <pre>
+ * 用法: BenchmarkRegressionGate &lt;结果文件&gt; &lt;基线文件&gt; &lt;分配容忍度&gt; &lt;耗时容忍度&gt; [update]
+ * </pre>
+ */
+public final class BenchmarkRegressionGate {
+    /**
+     * 分配字节数的绝对容差，避免极小的分配量因对齐等原因被误判为回退
+     */
+    private static final double ALLOC_SLACK_BYTES = 16;
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private BenchmarkRegressionGate() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 4) {
+            System.err.println("用法: BenchmarkRegressionGate <结果文件> <基线文件> <分配容忍度> <耗时容忍度> [update]");
+            System.exit(2);
+        }
+        File resultFile = new File(args[0]);
+        File baselineFile = new File(args[1]);
+        double allocTolerance = Double.parseDouble(args[2]);
+        double scoreTolerance = Double.parseDouble(args[3]);
+        boolean update = args.length > 4 && Boolean.parseBoolean(args[4]);
+
+        Map<String, JsonNode> results = summarize(OBJECT_MAPPER.readTree(resultFile));
+        if (update || !baselineFile.exists()) {
+            ArrayNode baseline = OBJECT_MAPPER.createArrayNode();
+            results.values().forEach(baseline::add);
+            OBJECT_MAPPER.writerWithDefaultPrettyPrinter().writeValue(baselineFile, baseline);
+            System.out.println("已根据本次结果生成基线: " + baselineFile);
+            return;
+        }
+
+        Map<String, JsonNode> baseline = new LinkedHashMap<>();
+        for (JsonNode entry : OBJECT_MAPPER.readTree(baselineFile)) {
+            baseline.put(entry.path("key").asText(), entry);
+        }
+
+        int regressions = 0;
+        for (Map.Entry<String, JsonNode> entry : results.entrySet()) {
+            JsonNode expected = baseline.get(entry.getKey());
+            if (expected == null) {
+                System.out.println("[新增] " + entry.getKey());
+                continue;
+            }
+            JsonNode actual = entry.getValue();
+            double allocLimit = expected.path("allocBytesPerOp").asDouble() * (1 + allocTolerance) + ALLOC_SLACK_BYTES;
+            boolean allocRegressed = actual.path("allocBytesPerOp").asDouble() > allocLimit;
+            boolean scoreRegressed = scoreTolerance > 0 && scoreRegressed(actual, expected, scoreTolerance);
+            if (allocRegressed || scoreRegressed) {
+                regressions++;
+            }
+            System.out.printf("[%s] %s: %.1f B/op (基线 %.1f), %.3f %s (基线 %.3f)%n",
+                    allocRegressed || scoreRegressed ? "回退" : "通过",
+                    entry.getKey(),
+                    actual.path("allocBytesPerOp").asDouble(), expected.path("allocBytesPerOp").asDouble(),
+                    actual.path("score").asDouble(), actual.path("scoreUnit").asText(),
+                    expected.path("score").asDouble());
+        }
+        if (regressions > 0) {
+            System.err.println(regressions + " 项基准测试超出容忍度");
+            System.exit(1);
+        }
+    }
+
+    /**
+     * 从 JMH 结果中提取每个基准的耗时和分配字节数
+     *
+     * @param jmhResult JMH 输出的 JSON 结果
+     * @return 以基准名称和参数为键的精简结果，保持原有顺序
+     */
+    private static Map<String, JsonNode> summarize(JsonNode jmhResult) {
+        Map<String, JsonNode> summary = new LinkedHashMap<>();
+        for (JsonNode run : jmhResult) {
+            String key = key(run.path("benchmark").asText(), run.path("params"));
+            ObjectNode entry = OBJECT_MAPPER.createObjectNode();
+            entry.put("key", key);
+            entry.put("score", run.path("primaryMetric").path("score").asDouble());
+            entry.put("scoreUnit", run.path("primaryMetric").path("scoreUnit").asText());
+            entry.put("allocBytesPerOp", allocBytesPerOp(run.path("secondaryMetrics")));
+            summary.put(key, entry);
+        }
+        return summary;
+    }
+
+    private static boolean scoreRegressed(JsonNode actual, JsonNode expected, double tolerance) {
+        double actualScore = actual.path("score").asDouble();
+        double expectedScore = expected.path("score").asDouble();
+        if (actual.path("scoreUnit").asText().endsWith("/op")) {
+            return actualScore > expectedScore * (1 + tolerance);
+        }
+        return actualScore * (1 + tolerance) < expectedScore;
+    }
+
+    private static String key(String benchmark, JsonNode params) {
+        Map<String, String> sorted = new TreeMap<>();
+        Iterator<Map.Entry<String, JsonNode>> fields = params.fields();
+        while (fields.hasNext()) {
+            Map.Entry<String, JsonNode> field = fields.next();
+            sorted.put(field.getKey(), field.getValue().asText());
+        }
+        String name = benchmark.substring(benchmark.lastIndexOf('.', benchmark.lastIndexOf('.') - 1) + 1);
+        return sorted.isEmpty() ? name : name + sorted;
+    }
+
+    private static double allocBytesPerOp(JsonNode secondaryMetrics) {
+        Iterator<Map.Entry<String, JsonNode>> metrics = secondaryMetrics.fields();
+        while (metrics.hasNext()) {
+            Map.Entry<String, JsonNode> metric = metrics.next();
+            // 旧版本 JMH 的指标名带有前缀 ·
+            if (metric.getKey().endsWith("gc.alloc.rate.norm")) {
+                return metric.getValue().path("score").asDouble();
+            }
+        }
+        return 0;
+    }
+}
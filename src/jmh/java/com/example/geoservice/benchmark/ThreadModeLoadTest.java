@@ -0,0 +1,207 @@
+package com.example.geoservice.benchmark;
+
+import com.example.geoservice.GeoServiceApplication;
+import com.example.geoservice.config.VirtualThreads;
+import com.sun.net.httpserver.HttpServer;
+import okhttp3.ConnectionPool;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 线程模式负载测试
+ * <p>
+ * 对比平台线程和虚拟线程两种模式下服务能同时处理的请求数：
+ * 1. 在本地启动一个模拟百度地图的服务商，每次驾车距离请求固定延迟后返回
+ * 2. 按各模式分别启动服务，关闭缓存、合并、限流和舱壁，使每个请求都阻塞在服务商调用上
+ * 3. 固定数量的客户端持续发出起终点随机的驾车距离请求，预热后统计吞吐量和耗时分位数
+ * 4. 平台线程模式下同时处理的请求数受 Tomcat 线程数（默认 200）限制，吞吐量约为线程数除以服务商延迟；
+ * 虚拟线程模式下只受客户端并发数限制，当前 JVM 不支持虚拟线程时跳过该模式
+ * 5. 模拟服务商使用不加密的 HTTP/1.1，不覆盖 OkHttp 4.9 的 HTTP/2 在 synchronized 块中等待响应导致的虚拟线程固定；
+ * 服务在开启虚拟线程时已改为只使用 HTTP/1.1
+ * </p>
+ *
+ * <pre>
+ * 用法: ThreadModeLoadTest [并发数] [持续秒数] [服务商延迟毫秒] [模式,...]
+ * </pre>
+ */
+public final class ThreadModeLoadTest {
+    private static final MediaType JSON = MediaType.get("application/json");
+
+    private static final byte[] DIRECTION_RESPONSE =
+            "{\"status\":0,\"message\":\"ok\",\"result\":{\"routes\":[{\"distance\":12345}]}}".getBytes(StandardCharsets.UTF_8);
+
+    private static final int WARM_UP_SECONDS = 3;
+
+    private ThreadModeLoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int concurrency = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        int durationSeconds = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        int latencyMillis = args.length > 2 ? Integer.parseInt(args[2]) : 200;
+        List<String> modes = args.length > 3 ? Arrays.asList(args[3].split(",")) : Arrays.asList("platform", "virtual");
+
+        HttpServer provider = startProvider(concurrency, latencyMillis);
+        List<String> report = new ArrayList<>();
+        try {
+            for (String mode : modes) {
+                boolean virtual = "virtual".equals(mode);
+                if (virtual && !VirtualThreads.isSupported()) {
+                    report.add(String.format("%-10s 跳过：虚拟线程需要 JDK 21，当前为 %s", mode, System.getProperty("java.version")));
+                    continue;
+                }
+                ConfigurableApplicationContext context = startService(provider.getAddress().getPort(), concurrency, virtual);
+                try {
+                    int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+                    report.add(String.format("%-10s %s", mode, run(port, concurrency, durationSeconds)));
+                } finally {
+                    context.close();
+                }
+            }
+        } finally {
+            provider.stop(0);
+        }
+
+        System.out.printf("%n并发数 %d，服务商延迟 %d ms，统计 %d 秒%n", concurrency, latencyMillis, durationSeconds);
+        report.forEach(System.out::println);
+    }
+
+    private static HttpServer startProvider(int concurrency, int latencyMillis) throws IOException {
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), concurrency * 2);
+        server.createContext("/", exchange -> {
+            try {
+                Thread.sleep(latencyMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, DIRECTION_RESPONSE.length);
+            try (OutputStream body = exchange.getResponseBody()) {
+                body.write(DIRECTION_RESPONSE);
+            }
+        });
+        server.setExecutor(VirtualThreads.isSupported()
+                ? VirtualThreads.newThreadPerTaskExecutor("provider-")
+                : Executors.newCachedThreadPool());
+        server.start();
+        return server;
+    }
+
+    private static ConfigurableApplicationContext startService(int providerPort, int concurrency, boolean virtual) {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("server.port", 0);
+        properties.put("server.tomcat.max-connections", concurrency * 2);
+        properties.put("server.tomcat.accept-count", concurrency);
+        properties.put("spring.main.banner-mode", "off");
+        properties.put("spring.jmx.enabled", false);
+        properties.put("logging.level.root", "WARN");
+        properties.put("map.provider", "baidu");
+        properties.put("map.baidu.api-key", "load-test");
+        properties.put("map.baidu.base-url", "http://127.0.0.1:" + providerPort);
+        properties.put("map.cache.distance.enabled", false);
+        properties.put("map.coalesce.enabled", false);
+        properties.put("map.rate-limit.enabled", false);
+        properties.put("map.resilience.enabled", false);
+        properties.put("map.http.http2-enabled", false);
+        properties.put("map.http.max-idle-connections", concurrency);
+        properties.put("map.executor.virtual-threads", virtual);
+        // 以命令行参数传入，优先级高于 application.properties
+        String[] args = properties.entrySet().stream()
+                .map(entry -> "--" + entry.getKey() + "=" + entry.getValue())
+                .toArray(String[]::new);
+        return new SpringApplicationBuilder(GeoServiceApplication.class).run(args);
+    }
+
+    private static String run(int port, int concurrency, int durationSeconds) throws InterruptedException {
+        OkHttpClient client = new OkHttpClient.Builder()
+                .connectionPool(new ConnectionPool(concurrency, 5, TimeUnit.MINUTES))
+                .readTimeout(30, TimeUnit.SECONDS)
+                .build();
+        String url = "http://127.0.0.1:" + port + "/api/geo/distance";
+        long warmUpEnd = System.nanoTime() + TimeUnit.SECONDS.toNanos(WARM_UP_SECONDS);
+        long end = warmUpEnd + TimeUnit.SECONDS.toNanos(durationSeconds);
+        AtomicLong errors = new AtomicLong();
+        long[][] latencies = new long[concurrency][];
+        CountDownLatch done = new CountDownLatch(concurrency);
+
+        ExecutorService clients = Executors.newFixedThreadPool(concurrency);
+        for (int i = 0; i < concurrency; i++) {
+            int index = i;
+            clients.execute(() -> {
+                long[] samples = new long[1024];
+                int count = 0;
+                try {
+                    long now;
+                    while ((now = System.nanoTime()) < end) {
+                        boolean ok = post(client, url);
+                        long elapsed = System.nanoTime() - now;
+                        if (now < warmUpEnd) {
+                            continue;
+                        }
+                        if (!ok) {
+                            errors.incrementAndGet();
+                            continue;
+                        }
+                        if (count == samples.length) {
+                            samples = Arrays.copyOf(samples, count * 2);
+                        }
+                        samples[count++] = elapsed;
+                    }
+                } finally {
+                    latencies[index] = Arrays.copyOf(samples, count);
+                    done.countDown();
+                }
+            });
+        }
+        done.await();
+        clients.shutdown();
+        client.connectionPool().evictAll();
+
+        long[] all = Arrays.stream(latencies).flatMapToLong(Arrays::stream).sorted().toArray();
+        if (all.length == 0) {
+            return String.format("没有成功的请求，错误数 %d", errors.get());
+        }
+        return String.format("吞吐量 %.0f 请求/秒，p50 %.0f ms，p99 %.0f ms，最大 %.0f ms，错误数 %d",
+                all.length / (double) durationSeconds,
+                percentile(all, 0.50), percentile(all, 0.99), all[all.length - 1] / 1e6, errors.get());
+    }
+
+    private static boolean post(OkHttpClient client, String url) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        String body = String.format("[{\"lat\":%.6f,\"lng\":%.6f},{\"lat\":%.6f,\"lng\":%.6f}]",
+                30 + random.nextDouble(), 114 + random.nextDouble(), 30 + random.nextDouble(), 114 + random.nextDouble());
+        Request request = new Request.Builder().url(url).post(RequestBody.create(body, JSON)).build();
+        try (Response response = client.newCall(request).execute()) {
+            response.body().string();
+            return response.isSuccessful();
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private static double percentile(long[] sorted, double quantile) {
+        return sorted[Math.min(sorted.length - 1, (int) (sorted.length * quantile))] / 1e6;
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.geoservice.geo;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 地址规范化基准测试
+ * <p>
+ * 对一组写法各异的地址生成规范化键和发送给服务商的地址，结果以每秒处理的地址数表示
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AddressNormalizerBenchmark {
+    private static final String[] ADDRESSES = {
+            "北京市朝阳区建国路88号",
+            "北京 朝阳区 建国路 88 号",
+            "北京市朝阳区建国路８８号",
+            "上海市浦东新区世纪大道1号三单元一二零一室",
+            "广东省深圳市南山区科技园科苑路15号",
+            "浙江杭州西湖文三路478号华星时代广场A座",
+            "新疆维吾尔自治区乌鲁木齐市天山区解放北路一百号",
+            "1600 Amphitheatre Parkway, Mountain View, CA"
+    };
+
+    @Benchmark
+    @OperationsPerInvocation(8)
+    public void key(Blackhole blackhole) {
+        for (String address : ADDRESSES) {
+            blackhole.consume(AddressNormalizer.key(address));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(8)
+    public void clean(Blackhole blackhole) {
+        for (String address : ADDRESSES) {
+            blackhole.consume(AddressNormalizer.clean(address));
+        }
+    }
+}
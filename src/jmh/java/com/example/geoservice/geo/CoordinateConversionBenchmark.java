@@ -0,0 +1,63 @@
+package com.example.geoservice.geo;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 坐标系批量转换基准测试
+ * <p>
+ * 在中国境内随机生成一批 GPS 坐标，测量每个坐标的平均转换耗时；
+ * 批量转换在数组上原地进行，每次操作前从原始坐标复制，复制的耗时也计入结果
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CoordinateConversionBenchmark {
+    private static final int BATCH_SIZE = 10_000;
+
+    @Param({"GCJ02", "WGS84", "BD09"})
+    private CoordinateSystem source;
+
+    @Param({"GCJ02", "WGS84", "BD09"})
+    private CoordinateSystem target;
+
+    private final double[] lats = new double[BATCH_SIZE];
+    private final double[] lngs = new double[BATCH_SIZE];
+    private final double[] workLats = new double[BATCH_SIZE];
+    private final double[] workLngs = new double[BATCH_SIZE];
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            lats[i] = 20 + random.nextDouble() * 20;
+            lngs[i] = 100 + random.nextDouble() * 20;
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public double[] convert() {
+        System.arraycopy(lats, 0, workLats, 0, BATCH_SIZE);
+        System.arraycopy(lngs, 0, workLngs, 0, BATCH_SIZE);
+        CoordinateConverter.convert(source, target, workLats, workLngs);
+        return workLats;
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.geoservice.model;
+
+import com.example.geoservice.geo.CoordinateSystem;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 批量坐标序列化基准测试
+ * <p>
+ * 对照逐个对象的 {@code List<Location>} JSON 与按列存放的 {@link LocationBatch}
+ * 在 JSON、Smile、CBOR 三种格式下的反序列化耗时和内存分配
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LocationBatchSerializationBenchmark {
+    private static final int BATCH_SIZE = 1_000;
+
+    private static final TypeReference<List<Location>> LOCATION_LIST = new TypeReference<List<Location>>() {
+    };
+
+    @Param({"json", "smile", "cbor"})
+    private String format;
+
+    private ObjectMapper objectMapper;
+    private byte[] listPayload;
+    private byte[] batchPayload;
+
+    @Setup
+    public void setUp() throws IOException {
+        if ("smile".equals(format)) {
+            objectMapper = new ObjectMapper(new SmileFactory());
+        } else if ("cbor".equals(format)) {
+            objectMapper = new ObjectMapper(new CBORFactory());
+        } else {
+            objectMapper = new ObjectMapper();
+        }
+        Random random = new Random(42);
+        List<Location> locations = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            Location location = new Location();
+            location.setLat(20 + random.nextDouble() * 20);
+            location.setLng(100 + random.nextDouble() * 20);
+            locations.add(location);
+        }
+        listPayload = objectMapper.writeValueAsBytes(locations);
+        batchPayload = objectMapper.writeValueAsBytes(LocationBatch.of(locations, CoordinateSystem.WGS84));
+    }
+
+    @Benchmark
+    public List<Location> readList() throws IOException {
+        return objectMapper.readValue(listPayload, LOCATION_LIST);
+    }
+
+    @Benchmark
+    public LocationBatch readBatch() throws IOException {
+        return objectMapper.readValue(batchPayload, LocationBatch.class);
+    }
+}
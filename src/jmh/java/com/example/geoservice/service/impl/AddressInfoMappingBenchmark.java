@@ -0,0 +1,90 @@
+package com.example.geoservice.service.impl;
+
+import com.example.geoservice.model.AddressInfo;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * 地址信息映射基准测试
+ * <p>
+ * 1. 服务商响应中的单条结果映射为 {@link AddressInfo}
+ * 2. 地址信息列表序列化为接口响应，以及从持久化缓存反序列化
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AddressInfoMappingBenchmark {
+
+    private static final TypeReference<List<AddressInfo>> ADDRESS_LIST = new TypeReference<List<AddressInfo>>() {
+    };
+
+    @Param({"baidu", "google", "tencent"})
+    private String provider;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private Function<JsonNode, AddressInfo> mapper;
+    private JsonNode result;
+    private List<AddressInfo> addressInfoList;
+    private byte[] serialized;
+
+    @Setup
+    public void setUp() throws IOException {
+        byte[] response = BenchmarkFixtures.load(provider + "-geocode.json");
+        JsonNode root = objectMapper.readTree(response);
+        AbstractMapService service = BenchmarkFixtures.provider(provider);
+        switch (provider) {
+            case "google":
+                mapper = ((GoogleMapService) service)::toAddressInfo;
+                result = root.path("results").path(0);
+                break;
+            case "tencent":
+                mapper = ((TencentMapService) service)::toAddressInfo;
+                result = root.path("result");
+                break;
+            default:
+                mapper = ((BaiduMapService) service)::toAddressInfo;
+                result = root.path("result");
+        }
+        try (JsonParser parser = objectMapper.getFactory().createParser(response)) {
+            addressInfoList = service.parseGeocode(parser);
+        }
+        serialized = objectMapper.writeValueAsBytes(addressInfoList);
+    }
+
+    @Benchmark
+    public AddressInfo toAddressInfo() {
+        return mapper.apply(result);
+    }
+
+    @Benchmark
+    public byte[] serialize() throws IOException {
+        return objectMapper.writeValueAsBytes(addressInfoList);
+    }
+
+    @Benchmark
+    public List<AddressInfo> deserialize() throws IOException {
+        return objectMapper.readValue(serialized, ADDRESS_LIST);
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.geoservice.service.impl;
+
+import com.example.geoservice.config.MapServiceProperties;
+import com.example.geoservice.model.Location;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * 基准测试公共数据
+ * <p>
+ * 提供配置好密钥的服务商实例，以及 fixtures 目录下按各服务商响应格式准备的响应样本
+ * </p>
+ */
+final class BenchmarkFixtures {
+
+    private BenchmarkFixtures() {
+    }
+
+    /**
+     * 创建服务商实例，不注入缓存和共享HTTP客户端，基准测试不会发起任何网络请求
+     *
+     * @param provider 服务商名称
+     * @return 服务商实例
+     */
+    static AbstractMapService provider(String provider) {
+        MapServiceProperties properties = new MapServiceProperties();
+        properties.getGoogle().setApiKey("benchmark-google-key");
+        properties.getBaidu().setApiKey("benchmark-baidu-key");
+        properties.getTencent().setApiKey("benchmark-tencent-key");
+        properties.getTencent().setSecretKey("benchmark-tencent-secret");
+        switch (provider) {
+            case "google":
+                return new GoogleMapService(properties);
+            case "tencent":
+                return new TencentMapService(properties);
+            case "baidu":
+                return new BaiduMapService(properties);
+            default:
+                throw new IllegalArgumentException("不支持的地图服务提供商: " + provider);
+        }
+    }
+
+    /**
+     * 创建位置坐标
+     *
+     * @param lat 纬度
+     * @param lng 经度
+     * @return 位置坐标
+     */
+    static Location location(double lat, double lng) {
+        Location location = new Location();
+        location.setLat(lat);
+        location.setLng(lng);
+        return location;
+    }
+
+    /**
+     * 读取响应样本
+     *
+     * @param name 样本文件名，例如 baidu-driving.json
+     * @return 样本内容
+     * @throws IOException 当样本不存在或读取失败时抛出
+     */
+    static byte[] load(String name) throws IOException {
+        try (InputStream in = BenchmarkFixtures.class.getResourceAsStream("/fixtures/" + name)) {
+            if (in == null) {
+                throw new IOException("响应样本不存在: " + name);
+            }
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int n;
+            while ((n = in.read(buffer)) != -1) {
+                out.write(buffer, 0, n);
+            }
+            return out.toByteArray();
+        }
+    }
+}
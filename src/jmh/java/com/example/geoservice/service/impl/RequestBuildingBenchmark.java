@@ -0,0 +1,56 @@
+package com.example.geoservice.service.impl;
+
+import com.example.geoservice.model.Location;
+import okhttp3.Request;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 请求构建基准测试
+ * <p>
+ * 覆盖各服务商驾车距离和地址解析请求的完整构建过程，包括地址拼接和腾讯地图签名
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RequestBuildingBenchmark {
+
+    @Param({"baidu", "google", "tencent"})
+    private String provider;
+
+    private AbstractMapService service;
+    private Location origin;
+    private Location destination;
+
+    @Setup
+    public void setUp() {
+        service = BenchmarkFixtures.provider(provider);
+        origin = BenchmarkFixtures.location(39.915123, 116.404456);
+        destination = BenchmarkFixtures.location(39.975789, 116.458012);
+    }
+
+    @Benchmark
+    public Request buildDrivingDistanceRequest() {
+        return service.buildDrivingDistanceRequest(origin, destination);
+    }
+
+    @Benchmark
+    public Request buildGeocodeRequest() {
+        return service.buildGeocodeRequest("北京市东城区王府井大街1号");
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.geoservice.service.impl;
+
+import com.example.geoservice.model.AddressInfo;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonPointer;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 响应解析基准测试
+ * <p>
+ * 使用各服务商的响应样本测量解析开销：
+ * 1. 当前的流式解析实现（parseDrivingDistance、parseGeocode）
+ * 2. 作为对照的整体读成字符串再构建 JsonNode 树的解析方式
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ResponseParsingBenchmark {
+
+    @Param({"baidu", "google", "tencent"})
+    private String provider;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private AbstractMapService service;
+    private byte[] drivingResponse;
+    private byte[] geocodeResponse;
+    private JsonPointer distancePointer;
+
+    @Setup
+    public void setUp() throws IOException {
+        service = BenchmarkFixtures.provider(provider);
+        drivingResponse = BenchmarkFixtures.load(provider + "-driving.json");
+        geocodeResponse = BenchmarkFixtures.load(provider + "-geocode.json");
+        distancePointer = JsonPointer.compile("google".equals(provider)
+                ? "/routes/0/legs/0/distance/value"
+                : "/result/routes/0/distance");
+    }
+
+    @Benchmark
+    public double parseDrivingDistance() throws IOException {
+        try (JsonParser parser = objectMapper.getFactory().createParser(drivingResponse)) {
+            return service.parseDrivingDistance(parser);
+        }
+    }
+
+    @Benchmark
+    public double parseDrivingDistanceTree() throws IOException {
+        JsonNode root = objectMapper.readTree(new String(drivingResponse, StandardCharsets.UTF_8));
+        return root.at(distancePointer).asDouble();
+    }
+
+    @Benchmark
+    public List<AddressInfo> parseGeocode() throws IOException {
+        try (JsonParser parser = objectMapper.getFactory().createParser(geocodeResponse)) {
+            return service.parseGeocode(parser);
+        }
+    }
+
+    @Benchmark
+    public JsonNode parseGeocodeTree() throws IOException {
+        return objectMapper.readTree(new String(geocodeResponse, StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.geoservice.service.impl;
+
+import com.example.geoservice.model.Location;
+import okhttp3.HttpUrl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 请求地址与签名基准测试
+ * <p>
+ * 拆开测量请求构建中的两个主要步骤：
+ * 1. 在预编译的请求模板上追加坐标参数
+ * 2. 腾讯地图对完整请求地址计算 MD5 签名
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UrlSigningBenchmark {
+
+    private TencentMapService tencentService;
+    private RequestTemplate template;
+    private String unsignedUrl;
+    private Location origin;
+    private Location destination;
+
+    @Setup
+    public void setUp() {
+        tencentService = (TencentMapService) BenchmarkFixtures.provider("tencent");
+        origin = BenchmarkFixtures.location(39.915123, 116.404456);
+        destination = BenchmarkFixtures.location(39.975789, 116.458012);
+        unsignedUrl = HttpUrl.parse("https://apis.map.qq.com/ws/direction/v1/driving")
+                .newBuilder()
+                .addQueryParameter("from", origin.getLat() + "," + origin.getLng())
+                .addQueryParameter("to", destination.getLat() + "," + destination.getLng())
+                .addQueryParameter("key", "benchmark-tencent-key")
+                .addQueryParameter("output", "json")
+                .addQueryParameter("language", "zh-CN")
+                .build()
+                .toString();
+        template = new RequestTemplate("https://api.map.baidu.com", "/direction/v2/driving",
+                "ak", "benchmark-baidu-key", "output", "json");
+    }
+
+    @Benchmark
+    public HttpUrl buildUrl() {
+        return template.newUrl()
+                .addEncodedQueryParameter("origin", RequestTemplate.location(origin))
+                .addEncodedQueryParameter("destination", RequestTemplate.location(destination))
+                .build();
+    }
+
+    @Benchmark
+    public String calculateSignature() {
+        return tencentService.calculateSignature(unsignedUrl);
+    }
+}
@@ -0,0 +1,180 @@
+package com.example.geoservice.service.local;
+
+import com.example.geoservice.model.AddressInfo;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * 本地逆地址解析基准测试
+ * <p>
+ * 测量查找坐标所在行政区划，以及一次完整逆地址解析（最近地址加行政区划）的平均耗时：
+ * 1. 环境变量 BOUNDARY_FILE 指定行政区划数据（格式同 map.local.boundary-file），查询坐标在其边界范围内随机选取；
+ *    未指定时生成 10 x 10 个区县和包含它们的一个省，每个区县边界 2000 个顶点，省边界 8000 个顶点，
+ *    顶点数与真实的区县边界相当
+ * 2. 地址索引为边界范围内随机生成的 10000 个地址，大部分查询在最大距离内找不到地址，返回所在行政区划
+ * 3. 边界导入和建立索引的耗时不计入结果，在启动时输出
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LocalReverseGeocoderBenchmark {
+    private static final int DISTRICT_COLUMNS = 10;
+    private static final int SIDE_VERTICES = 500;
+    private static final double MIN_LAT = 30.0;
+    private static final double MIN_LNG = 120.0;
+    private static final double DISTRICT_SIZE = 0.1;
+    private static final int ADDRESS_COUNT = 10000;
+    private static final int QUERY_COUNT = 1000;
+    private static final double MAX_DISTANCE = 100;
+
+    private Path directory;
+    private BoundaryIndex boundaries;
+    private LocalReverseGeocoder geocoder;
+    private double[][] queries;
+    private int next;
+
+    @Setup
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("reverse-geocode-benchmark");
+        String boundaryFile = System.getenv("BOUNDARY_FILE");
+        Path csv = boundaryFile == null || boundaryFile.isEmpty()
+                ? generateBoundaries(directory.resolve("boundary.csv"))
+                : Paths.get(boundaryFile);
+        long start = System.nanoTime();
+        boundaries = BoundaryIndex.load(csv);
+        System.out.printf("%n行政区划: %s，%d 个边界，导入耗时 %d ms%n",
+                csv, boundaries.size(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+
+        double[] extent = extent(csv);
+        Random random = new Random(42);
+        List<String> lines = new ArrayList<>();
+        lines.add("lat,lng,address");
+        for (int i = 0; i < ADDRESS_COUNT; i++) {
+            double[] point = randomPoint(random, extent);
+            lines.add(point[0] + "," + point[1] + ",测试路" + i + "号");
+        }
+        Path addresses = directory.resolve("poi.csv");
+        Files.write(addresses, lines, StandardCharsets.UTF_8);
+        Path index = directory.resolve("geocode.idx");
+        LocalIndexBuilder.build(addresses, index);
+        geocoder = new LocalReverseGeocoder(LocalGeocodeIndex.open(index), boundaries, MAX_DISTANCE);
+
+        queries = new double[QUERY_COUNT][];
+        for (int i = 0; i < QUERY_COUNT; i++) {
+            queries[i] = randomPoint(random, extent);
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        geocoder = null;
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path path : (Iterable<Path>) files::iterator) {
+                Files.deleteIfExists(path);
+            }
+        }
+        Files.deleteIfExists(directory);
+    }
+
+    @Benchmark
+    public int findBoundary() {
+        double[] query = nextQuery();
+        return boundaries.find(query[0], query[1]);
+    }
+
+    @Benchmark
+    public List<AddressInfo> reverseGeocode() {
+        double[] query = nextQuery();
+        return geocoder.reverseGeocode(query[0], query[1]);
+    }
+
+    private double[] nextQuery() {
+        double[] query = queries[next];
+        next = next + 1 == queries.length ? 0 : next + 1;
+        return query;
+    }
+
+    /**
+     * 生成区县和省的边界：区县为相邻的正方形，省为包含全部区县的正方形，每条边按顶点数等分
+     */
+    private static Path generateBoundaries(Path csv) throws IOException {
+        List<String> lines = new ArrayList<>();
+        lines.add("province,city,district,wkt");
+        for (int row = 0; row < DISTRICT_COLUMNS; row++) {
+            for (int column = 0; column < DISTRICT_COLUMNS; column++) {
+                lines.add("测试省,测试市,区县" + (row * DISTRICT_COLUMNS + column) + "," + square(
+                        MIN_LAT + row * DISTRICT_SIZE, MIN_LNG + column * DISTRICT_SIZE, DISTRICT_SIZE, SIDE_VERTICES));
+            }
+        }
+        lines.add("测试省,,," + square(MIN_LAT, MIN_LNG, DISTRICT_SIZE * DISTRICT_COLUMNS, SIDE_VERTICES * 4));
+        Files.write(csv, lines, StandardCharsets.UTF_8);
+        return csv;
+    }
+
+    private static String square(double lat, double lng, double size, int sideVertices) {
+        StringBuilder wkt = new StringBuilder("\"POLYGON ((");
+        double[][] corners = {{lng, lat}, {lng + size, lat}, {lng + size, lat + size}, {lng, lat + size}};
+        for (int side = 0; side < 4; side++) {
+            double[] from = corners[side];
+            double[] to = corners[(side + 1) % 4];
+            for (int i = 0; i < sideVertices; i++) {
+                double t = (double) i / sideVertices;
+                wkt.append(from[0] + (to[0] - from[0]) * t).append(' ')
+                        .append(from[1] + (to[1] - from[1]) * t).append(", ");
+            }
+        }
+        return wkt.append(lng).append(' ').append(lat).append("))\"").toString();
+    }
+
+    /**
+     * 行政区划数据中所有坐标的范围：最小纬度、最小经度、最大纬度、最大经度
+     */
+    private static double[] extent(Path csv) throws IOException {
+        double[] extent = {90, 180, -90, -180};
+        try (Stream<String> lines = Files.lines(csv, StandardCharsets.UTF_8)) {
+            lines.skip(1).forEach(line -> {
+                for (String wkt : LocalIndexBuilder.parseCsvLine(line)) {
+                    for (float[] ring : BoundaryIndex.parseWkt(wkt)) {
+                        for (int i = 0; i < ring.length; i += 2) {
+                            extent[0] = Math.min(extent[0], ring[i + 1]);
+                            extent[1] = Math.min(extent[1], ring[i]);
+                            extent[2] = Math.max(extent[2], ring[i + 1]);
+                            extent[3] = Math.max(extent[3], ring[i]);
+                        }
+                    }
+                }
+            });
+        }
+        return extent;
+    }
+
+    private static double[] randomPoint(Random random, double[] extent) {
+        return new double[]{
+                extent[0] + (extent[2] - extent[0]) * random.nextDouble(),
+                extent[1] + (extent[3] - extent[1]) * random.nextDouble()};
+    }
+}
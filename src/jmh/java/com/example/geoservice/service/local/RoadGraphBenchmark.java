@@ -0,0 +1,200 @@
+package com.example.geoservice.service.local;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * 本地道路网络基准测试
+ * <p>
+ * 测量匹配最近路口加上一次最短路径查询的平均耗时，以及 10 x 10 距离矩阵中每个元素的平均耗时：
+ * 1. 环境变量 ROAD_IMPORT 指定导入的道路数据（格式同 map.road.import-file），未指定时生成一个 100 x 100 的随机网格路网
+ * 2. 环境变量 ROAD_ANSWERS 指定记录下来的服务商结果（origin_lat,origin_lng,destination_lat,destination_lng,distance，
+ *    坐标系与道路数据相同），启动时输出本地距离与服务商距离的相对误差分布，并以这些起终点作为查询；
+ *    未指定时在路口中随机选取起终点，只测量速度
+ * 3. 预处理耗时与路网规模有关，不计入结果，在启动时输出
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RoadGraphBenchmark {
+    private static final int GRID_WIDTH = 100;
+    private static final int QUERY_COUNT = 1000;
+    private static final int MATRIX_SIZE = 10;
+    private static final double MAX_SNAP_DISTANCE = 500;
+
+    private Path directory;
+    private RoadGraph graph;
+    private double[][] queries;
+    private int[] matrixSources;
+    private int[] matrixTargets;
+    private int next;
+
+    @Setup
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("road-benchmark");
+        String roads = System.getenv("ROAD_IMPORT");
+        Path csv = roads == null || roads.isEmpty() ? generateGrid(directory.resolve("grid.csv")) : Paths.get(roads);
+        Path file = directory.resolve("road.graph");
+        long start = System.nanoTime();
+        int nodes = RoadGraphBuilder.build(csv, file);
+        graph = RoadGraph.open(file);
+        System.out.printf("%n道路网络: %s，%d 个路口，预处理耗时 %d ms%n",
+                csv, nodes, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+
+        String answers = System.getenv("ROAD_ANSWERS");
+        queries = answers == null || answers.isEmpty() ? randomQueries() : recordedQueries(Paths.get(answers));
+        Random random = new Random(7);
+        matrixSources = new int[MATRIX_SIZE];
+        matrixTargets = new int[MATRIX_SIZE];
+        for (int i = 0; i < MATRIX_SIZE; i++) {
+            matrixSources[i] = snap(queries[random.nextInt(queries.length)], 0);
+            matrixTargets[i] = snap(queries[random.nextInt(queries.length)], 2);
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        graph = null;
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path path : (Iterable<Path>) files::iterator) {
+                Files.deleteIfExists(path);
+            }
+        }
+        Files.deleteIfExists(directory);
+    }
+
+    @Benchmark
+    public double distance() {
+        double[] query = queries[next];
+        next = next + 1 == queries.length ? 0 : next + 1;
+        return graph.distance(snap(query, 0), snap(query, 2));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(MATRIX_SIZE * MATRIX_SIZE)
+    public double[][] matrix() {
+        return graph.distances(matrixSources, matrixTargets);
+    }
+
+    private int snap(double[] query, int offset) {
+        PointGrid.Neighbor nearest = graph.nearest(query[offset], query[offset + 1], MAX_SNAP_DISTANCE);
+        return nearest == null ? 0 : nearest.getId();
+    }
+
+    /**
+     * 生成网格路网：相邻路口间距约 100 米，长度在直线距离的 1 到 1.5 倍之间随机，十分之一的道路缺失、二十分之一为单行
+     */
+    private static Path generateGrid(Path csv) throws IOException {
+        Random random = new Random(42);
+        List<String> lines = new ArrayList<>();
+        lines.add("from_lat,from_lng,to_lat,to_lng,length,oneway");
+        for (int y = 0; y < GRID_WIDTH; y++) {
+            for (int x = 0; x < GRID_WIDTH; x++) {
+                for (int[] next : new int[][]{{x + 1, y}, {x, y + 1}}) {
+                    if (next[0] >= GRID_WIDTH || next[1] >= GRID_WIDTH || random.nextInt(10) == 0) {
+                        continue;
+                    }
+                    lines.add(gridLat(y) + "," + gridLng(x) + "," + gridLat(next[1]) + "," + gridLng(next[0]) + ","
+                            + (100 + random.nextInt(50)) + "," + (random.nextInt(20) == 0 ? "yes" : ""));
+                }
+            }
+        }
+        Files.write(csv, lines, StandardCharsets.UTF_8);
+        return csv;
+    }
+
+    private static double gridLat(int y) {
+        return 31.0 + y * 0.0009;
+    }
+
+    private static double gridLng(int x) {
+        return 121.0 + x * 0.00105;
+    }
+
+    private static double[][] randomQueries() {
+        Random random = new Random(42);
+        double[][] result = new double[QUERY_COUNT][];
+        for (int i = 0; i < QUERY_COUNT; i++) {
+            result[i] = new double[]{
+                    gridLat(random.nextInt(GRID_WIDTH)), gridLng(random.nextInt(GRID_WIDTH)),
+                    gridLat(random.nextInt(GRID_WIDTH)), gridLng(random.nextInt(GRID_WIDTH))};
+        }
+        return result;
+    }
+
+    /**
+     * 读取记录的服务商结果，输出本地距离的相对误差分布，返回起终点都在路网覆盖范围内的查询
+     */
+    private double[][] recordedQueries(Path answers) throws IOException {
+        List<double[]> result = new ArrayList<>();
+        List<Double> errors = new ArrayList<>();
+        int skipped = 0;
+        try (BufferedReader reader = Files.newBufferedReader(answers, StandardCharsets.UTF_8)) {
+            reader.readLine();
+            String line;
+            while ((line = reader.readLine()) != null) {
+                List<String> fields = LocalIndexBuilder.parseCsvLine(line);
+                if (fields.size() < 5) {
+                    continue;
+                }
+                double[] query = new double[4];
+                for (int i = 0; i < 4; i++) {
+                    query[i] = Double.parseDouble(fields.get(i).trim());
+                }
+                double expected = Double.parseDouble(fields.get(4).trim());
+                PointGrid.Neighbor from = graph.nearest(query[0], query[1], MAX_SNAP_DISTANCE);
+                PointGrid.Neighbor to = graph.nearest(query[2], query[3], MAX_SNAP_DISTANCE);
+                double distance = from == null || to == null ? -1 : graph.distance(from.getId(), to.getId());
+                if (distance < 0 || expected <= 0) {
+                    skipped++;
+                    continue;
+                }
+                distance += from.getDistance() + to.getDistance();
+                errors.add((distance - expected) / expected);
+                result.add(query);
+            }
+        }
+        if (result.isEmpty()) {
+            throw new IOException("记录的服务商结果都不在道路网络覆盖范围内: " + answers);
+        }
+        double[] sorted = new double[errors.size()];
+        double bias = 0;
+        for (int i = 0; i < sorted.length; i++) {
+            sorted[i] = Math.abs(errors.get(i));
+            bias += errors.get(i);
+        }
+        Arrays.sort(sorted);
+        System.out.printf("与服务商结果比较: %d 对，跳过 %d 对；相对误差中位数 %.2f%%，P95 %.2f%%，平均偏差 %+.2f%%%n",
+                sorted.length, skipped, 100 * sorted[sorted.length / 2],
+                100 * sorted[(int) Math.min(sorted.length - 1, Math.ceil(sorted.length * 0.95) - 1)],
+                100 * bias / sorted.length);
+        return result.toArray(new double[0][]);
+    }
+}
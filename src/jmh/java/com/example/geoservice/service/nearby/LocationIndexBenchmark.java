@@ -0,0 +1,92 @@
+package com.example.geoservice.service.nearby;
+
+import com.example.geoservice.geo.GeoMath;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 最近位置索引基准测试
+ * <p>
+ * 在中国境内随机登记 5000 个位置，测量查询最近的若干个位置、移动一个位置的平均耗时，
+ * 并与逐个计算距离后排序的方式对照
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LocationIndexBenchmark {
+    private static final int SIZE = 5000;
+    private static final int QUERY_COUNT = 1024;
+
+    @Param({"1", "10"})
+    private int count;
+
+    private final LocationIndex index = new LocationIndex();
+    private final double[] lats = new double[SIZE];
+    private final double[] lngs = new double[SIZE];
+    private final double[] queries = new double[QUERY_COUNT * 2];
+    private final Random random = new Random(7);
+    private int next;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        for (int i = 0; i < SIZE; i++) {
+            lats[i] = 20 + random.nextDouble() * 20;
+            lngs[i] = 100 + random.nextDouble() * 20;
+            index.put("depot-" + i, lats[i], lngs[i]);
+        }
+        for (int i = 0; i < queries.length; i += 2) {
+            queries[i] = 20 + random.nextDouble() * 20;
+            queries[i + 1] = 100 + random.nextDouble() * 20;
+        }
+    }
+
+    @Benchmark
+    public List<LocationIndex.Neighbor> nearest() {
+        int i = next;
+        next = (next + 2) & (queries.length - 1);
+        return index.nearest(queries[i], queries[i + 1], count);
+    }
+
+    @Benchmark
+    public int[] linearScan() {
+        int i = next;
+        next = (next + 2) & (queries.length - 1);
+        double[] distances = new double[SIZE];
+        Integer[] order = new Integer[SIZE];
+        for (int j = 0; j < SIZE; j++) {
+            distances[j] = GeoMath.haversine(queries[i], queries[i + 1], lats[j], lngs[j]);
+            order[j] = j;
+        }
+        Arrays.sort(order, (a, b) -> Double.compare(distances[a], distances[b]));
+        int[] result = new int[count];
+        for (int j = 0; j < count; j++) {
+            result[j] = order[j];
+        }
+        return result;
+    }
+
+    @Benchmark
+    public boolean move() {
+        int i = random.nextInt(SIZE);
+        return index.put("depot-" + i, lats[i] + random.nextDouble() * 0.2 - 0.1, lngs[i] + random.nextDouble() * 0.2 - 0.1);
+    }
+}
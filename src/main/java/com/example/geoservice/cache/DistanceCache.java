@@ -0,0 +1,258 @@
+package com.example.geoservice.cache;
+
+import com.example.geoservice.config.MapServiceProperties;
+import com.example.geoservice.geo.GeoHash;
+import com.example.geoservice.geo.GeoMath;
+import com.example.geoservice.model.Location;
+import com.example.geoservice.service.ProviderCall;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedOperation;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 驾车距离缓存
+ * <p>
+ * 按空间量化后的起终点缓存驾车距离：
+ * 1. 起点和终点分别按 GeoHash 网格量化，同一网格内的坐标共享缓存键
+ * 2. 命中时还要求起终点与缓存条目的原始坐标相距不超过误差容忍度，
+ *    因此返回距离的误差不超过两倍容忍度
+ * 3. 缓存键包含服务商名称，各服务商结果互不混用
+ * 4. 按条目数和写入时间淘汰，通过 JMX 和 Micrometer 暴露命中率和内存占用
+ * </p>
+ */
+@Component
+@ManagedResource(objectName = "com.example.geoservice:type=Cache,name=distance", description = "驾车距离缓存")
+public class DistanceCache implements MeterBinder {
+    /**
+     * 单个缓存条目的估算内存占用（字节），包括键、值以及缓存内部节点
+     */
+    static final long ESTIMATED_ENTRY_BYTES = 160;
+
+    /**
+     * 驾车距离缓存配置
+     */
+    private final MapServiceProperties.DistanceCacheProperties properties;
+
+    /**
+     * 量化网格的 GeoHash 精度等级
+     */
+    private final int precision;
+
+    private final Cache<Key, Entry> cache;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * 构造函数
+     *
+     * @param properties 地图服务配置
+     */
+    public DistanceCache(MapServiceProperties properties) {
+        this.properties = properties.getCache().getDistance();
+        this.precision = this.properties.getPrecision() > 0
+                ? this.properties.getPrecision()
+                : GeoHash.precisionForMeters(this.properties.getToleranceMeters());
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(this.properties.getMaximumSize())
+                .expireAfterWrite(this.properties.getTtl())
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * 获取驾车距离，缓存未命中时调用服务商并回填缓存
+     *
+     * @param provider    服务商名称
+     * @param origin      起点位置
+     * @param destination 终点位置
+     * @param loader      缓存未命中时的服务商调用
+     * @return 驾车距离，单位：米
+     * @throws IOException 当网络请求失败时抛出
+     */
+    public double get(String provider, Location origin, Location destination, ProviderCall<Double> loader) throws IOException {
+        if (!properties.isEnabled()) {
+            return loader.call();
+        }
+        Double cached = getIfPresent(provider, origin, destination);
+        if (cached != null) {
+            return cached;
+        }
+        double distance = loader.call();
+        put(provider, origin, destination, distance);
+        return distance;
+    }
+
+    /**
+     * 查找缓存的驾车距离
+     *
+     * @param provider    服务商名称
+     * @param origin      起点位置
+     * @param destination 终点位置
+     * @return 缓存的驾车距离，未命中、超出误差容忍度或缓存未启用时返回 null
+     */
+    public Double getIfPresent(String provider, Location origin, Location destination) {
+        if (!properties.isEnabled()) {
+            return null;
+        }
+        Entry entry = cache.getIfPresent(key(provider, origin, destination));
+        if (entry != null && entry.matches(origin, destination, properties.getToleranceMeters())) {
+            hits.increment();
+            return entry.distance;
+        }
+        misses.increment();
+        return null;
+    }
+
+    /**
+     * 写入驾车距离
+     *
+     * @param provider    服务商名称
+     * @param origin      起点位置
+     * @param destination 终点位置
+     * @param distance    驾车距离，单位：米
+     */
+    public void put(String provider, Location origin, Location destination, double distance) {
+        if (properties.isEnabled()) {
+            cache.put(key(provider, origin, destination), new Entry(origin, destination, distance));
+        }
+    }
+
+    private Key key(String provider, Location origin, Location destination) {
+        return new Key(provider,
+                GeoHash.encode(origin.getLat(), origin.getLng(), precision),
+                GeoHash.encode(destination.getLat(), destination.getLng(), precision));
+    }
+
+    /**
+     * 获取量化网格的精度等级
+     *
+     * @return GeoHash 精度等级
+     */
+    public int getPrecision() {
+        return precision;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        // Caffeine 自身的命中统计不包括超出误差容忍度的情况，这里额外暴露实际的命中和未命中次数
+        CaffeineCacheMetrics.monitor(registry, cache, "distance");
+        FunctionCounter.builder("map.cache.distance.hits", hits, LongAdder::sum)
+                .description("缓存命中次数")
+                .register(registry);
+        FunctionCounter.builder("map.cache.distance.misses", misses, LongAdder::sum)
+                .description("缓存未命中次数（包括超出误差容忍度的情况）")
+                .register(registry);
+        Gauge.builder("map.cache.distance.estimated.memory", this, DistanceCache::getEstimatedMemoryBytes)
+                .description("缓存估算内存占用")
+                .baseUnit("bytes")
+                .register(registry);
+    }
+
+    @ManagedAttribute(description = "缓存命中次数")
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    @ManagedAttribute(description = "缓存未命中次数（包括超出误差容忍度的情况）")
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    @ManagedAttribute(description = "缓存命中率")
+    public double getHitRatio() {
+        long hitCount = hits.sum();
+        long total = hitCount + misses.sum();
+        return total == 0 ? 0.0 : (double) hitCount / total;
+    }
+
+    @ManagedAttribute(description = "缓存淘汰条目数")
+    public long getEvictionCount() {
+        return cache.stats().evictionCount();
+    }
+
+    @ManagedAttribute(description = "缓存当前条目数（估算值）")
+    public long getSize() {
+        return cache.estimatedSize();
+    }
+
+    @ManagedAttribute(description = "缓存估算内存占用（字节）")
+    public long getEstimatedMemoryBytes() {
+        return cache.estimatedSize() * ESTIMATED_ENTRY_BYTES;
+    }
+
+    @ManagedOperation(description = "清空缓存")
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    /**
+     * 缓存键：服务商名称与量化后的起终点网格
+     */
+    private static final class Key {
+        private final String provider;
+        private final long origin;
+        private final long destination;
+
+        private Key(String provider, long origin, long destination) {
+            this.provider = provider;
+            this.origin = origin;
+            this.destination = destination;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return origin == other.origin && destination == other.destination && provider.equals(other.provider);
+        }
+
+        @Override
+        public int hashCode() {
+            int result = provider.hashCode();
+            result = 31 * result + Long.hashCode(origin);
+            result = 31 * result + Long.hashCode(destination);
+            return result;
+        }
+    }
+
+    /**
+     * 缓存条目：首次查询时的原始起终点坐标与驾车距离
+     */
+    private static final class Entry {
+        private final double originLat;
+        private final double originLng;
+        private final double destinationLat;
+        private final double destinationLng;
+        private final double distance;
+
+        private Entry(Location origin, Location destination, double distance) {
+            this.originLat = origin.getLat();
+            this.originLng = origin.getLng();
+            this.destinationLat = destination.getLat();
+            this.destinationLng = destination.getLng();
+            this.distance = distance;
+        }
+
+        private boolean matches(Location origin, Location destination, double toleranceMeters) {
+            return GeoMath.haversine(originLat, originLng, origin.getLat(), origin.getLng()) <= toleranceMeters
+                    && GeoMath.haversine(destinationLat, destinationLng, destination.getLat(), destination.getLng()) <= toleranceMeters;
+        }
+    }
+}
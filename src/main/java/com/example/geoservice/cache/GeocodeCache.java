@@ -0,0 +1,196 @@
+package com.example.geoservice.cache;
+
+import com.example.geoservice.config.MapServiceProperties;
+import com.example.geoservice.geo.AddressNormalizer;
+import com.example.geoservice.model.AddressInfo;
+import com.example.geoservice.service.ProviderCall;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedOperation;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 地址解析结果缓存
+ * <p>
+ * 位于地图服务商调用之前的多级缓存：
+ * 1. 第一级为进程内有界缓存，按条目数和写入时间淘汰
+ * 2. 第二级为可选的本地持久化缓存，进程重启后依然有效
+ * 3. 缓存键由服务商名称和 {@link AddressNormalizer} 规范化后的地址组成，各服务商结果互不混用
+ * 4. 通过 JMX 和 Micrometer 暴露命中、未命中和淘汰计数
+ * </p>
+ */
+@Component
+@ManagedResource(objectName = "com.example.geoservice:type=Cache,name=geocode", description = "地址解析结果缓存")
+public class GeocodeCache implements MeterBinder {
+    /**
+     * 地址解析缓存配置
+     */
+    private final MapServiceProperties.GeocodeCacheProperties properties;
+
+    /**
+     * 进程内缓存
+     */
+    private final Cache<String, List<AddressInfo>> memoryCache;
+
+    /**
+     * 本地持久化缓存，未启用时为 null
+     */
+    private final GeocodeDiskStore diskStore;
+
+    private final LongAdder diskHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * 构造函数
+     *
+     * @param properties 地图服务配置
+     */
+    public GeocodeCache(MapServiceProperties properties) {
+        this.properties = properties.getCache().getGeocode();
+        this.memoryCache = Caffeine.newBuilder()
+                .maximumSize(this.properties.getMaximumSize())
+                .expireAfterWrite(this.properties.getTtl())
+                .recordStats()
+                .build();
+        MapServiceProperties.PersistentCacheProperties persistent = this.properties.getPersistent();
+        this.diskStore = persistent.isEnabled()
+                ? new GeocodeDiskStore(persistent.getDirectory(), persistent.getTtl())
+                : null;
+    }
+
+    /**
+     * 获取地址解析结果，缓存未命中时调用服务商并回填各级缓存
+     * <p>
+     * 空结果不写入缓存，避免把服务商的临时异常长期固化下来
+     * </p>
+     *
+     * @param provider 服务商名称
+     * @param address  原始地址字符串
+     * @param loader   缓存未命中时的服务商调用
+     * @return 地址信息列表
+     * @throws IOException 当网络请求失败时抛出
+     */
+    public List<AddressInfo> get(String provider, String address, ProviderCall<List<AddressInfo>> loader) throws IOException {
+        if (!properties.isEnabled()) {
+            return loader.call();
+        }
+        List<AddressInfo> cached = getIfPresent(provider, address);
+        if (cached != null) {
+            return cached;
+        }
+        List<AddressInfo> results = loader.call();
+        put(provider, address, results);
+        return results;
+    }
+
+    /**
+     * 从各级缓存中查找地址解析结果，持久化缓存命中时回填内存缓存
+     *
+     * @param provider 服务商名称
+     * @param address  原始地址字符串
+     * @return 缓存的地址信息列表，未命中或缓存未启用时返回 null
+     */
+    public List<AddressInfo> getIfPresent(String provider, String address) {
+        if (!properties.isEnabled()) {
+            return null;
+        }
+        String key = cacheKey(provider, address);
+        List<AddressInfo> cached = memoryCache.getIfPresent(key);
+        if (cached != null) {
+            return cached;
+        }
+        if (diskStore != null) {
+            cached = diskStore.get(key);
+            if (cached != null) {
+                diskHits.increment();
+                cached = Collections.unmodifiableList(cached);
+                memoryCache.put(key, cached);
+                return cached;
+            }
+        }
+        misses.increment();
+        return null;
+    }
+
+    /**
+     * 将地址解析结果写入各级缓存，空结果不写入
+     *
+     * @param provider 服务商名称
+     * @param address  原始地址字符串
+     * @param results  地址信息列表
+     */
+    public void put(String provider, String address, List<AddressInfo> results) {
+        if (!properties.isEnabled() || results == null || results.isEmpty()) {
+            return;
+        }
+        String key = cacheKey(provider, address);
+        List<AddressInfo> unmodifiable = Collections.unmodifiableList(results);
+        memoryCache.put(key, unmodifiable);
+        if (diskStore != null) {
+            diskStore.put(key, unmodifiable);
+        }
+    }
+
+    /**
+     * 生成缓存键
+     *
+     * @param provider 服务商名称
+     * @param address  原始地址字符串
+     * @return 服务商名称与规范化地址组成的缓存键
+     */
+    static String cacheKey(String provider, String address) {
+        return provider + '|' + AddressNormalizer.key(address);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, memoryCache, "geocode");
+        FunctionCounter.builder("map.cache.geocode.disk.hits", diskHits, LongAdder::sum)
+                .description("持久化缓存命中次数")
+                .register(registry);
+        FunctionCounter.builder("map.cache.geocode.misses", misses, LongAdder::sum)
+                .description("各级缓存均未命中的次数")
+                .register(registry);
+    }
+
+    @ManagedAttribute(description = "内存缓存命中次数")
+    public long getMemoryHitCount() {
+        return memoryCache.stats().hitCount();
+    }
+
+    @ManagedAttribute(description = "持久化缓存命中次数")
+    public long getDiskHitCount() {
+        return diskHits.sum();
+    }
+
+    @ManagedAttribute(description = "各级缓存均未命中的次数")
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    @ManagedAttribute(description = "内存缓存淘汰条目数")
+    public long getEvictionCount() {
+        return memoryCache.stats().evictionCount();
+    }
+
+    @ManagedAttribute(description = "内存缓存当前条目数（估算值）")
+    public long getSize() {
+        return memoryCache.estimatedSize();
+    }
+
+    @ManagedOperation(description = "清空内存缓存")
+    public void invalidateAll() {
+        memoryCache.invalidateAll();
+    }
+}
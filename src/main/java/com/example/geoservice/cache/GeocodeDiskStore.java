@@ -0,0 +1,113 @@
+package com.example.geoservice.cache;
+
+import com.example.geoservice.model.AddressInfo;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * 地址解析结果的本地持久化存储
+ * <p>
+ * 作为内存缓存之后的第二级缓存，进程重启后依然有效：
+ * 1. 每个缓存键对应一个 JSON 文件，文件名为键的 SHA-1 摘要
+ * 2. 按摘要前两位分目录，避免单目录文件过多
+ * 3. 先写临时文件再原子替换，读取时丢弃已过期的条目
+ * </p>
+ */
+@Slf4j
+class GeocodeDiskStore {
+    private final Path directory;
+    private final Duration ttl;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    GeocodeDiskStore(String directory, Duration ttl) {
+        this.directory = Paths.get(directory);
+        this.ttl = ttl;
+    }
+
+    /**
+     * 读取缓存条目
+     *
+     * @param key 缓存键
+     * @return 缓存的地址信息列表，不存在、已过期或读取失败时返回 null
+     */
+    List<AddressInfo> get(String key) {
+        Path file = fileFor(key);
+        if (!Files.exists(file)) {
+            return null;
+        }
+        try {
+            Entry entry = objectMapper.readValue(file.toFile(), Entry.class);
+            // 摘要冲突或已过期时视为未命中
+            if (!key.equals(entry.getKey()) || entry.getExpiresAt() < System.currentTimeMillis()) {
+                Files.deleteIfExists(file);
+                return null;
+            }
+            return entry.getResults();
+        } catch (IOException e) {
+            log.warn("读取地址解析持久化缓存失败: {}", file, e);
+            return null;
+        }
+    }
+
+    /**
+     * 写入缓存条目，失败时仅记录日志，不影响主流程
+     *
+     * @param key     缓存键
+     * @param results 地址信息列表
+     */
+    void put(String key, List<AddressInfo> results) {
+        Path file = fileFor(key);
+        Entry entry = new Entry();
+        entry.setKey(key);
+        entry.setExpiresAt(System.currentTimeMillis() + ttl.toMillis());
+        entry.setResults(results);
+        try {
+            Files.createDirectories(file.getParent());
+            Path tmp = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+            objectMapper.writeValue(tmp.toFile(), entry);
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.warn("写入地址解析持久化缓存失败: {}", file, e);
+        }
+    }
+
+    private Path fileFor(String key) {
+        String hash = sha1Hex(key);
+        return directory.resolve(hash.substring(0, 2)).resolve(hash + ".json");
+    }
+
+    private static String sha1Hex(String value) {
+        try {
+            byte[] bytes = MessageDigest.getInstance("SHA-1").digest(value.getBytes(StandardCharsets.UTF_8));
+            StringBuilder result = new StringBuilder(bytes.length * 2);
+            for (byte b : bytes) {
+                result.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return result.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-1算法不可用", e);
+        }
+    }
+
+    /**
+     * 持久化的缓存条目
+     */
+    @Data
+    static class Entry {
+        private String key;
+        private long expiresAt;
+        private List<AddressInfo> results;
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.geoservice.config;
+
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 线程池配置类
+ * <p>
+ * 提供并发调用地图服务商使用的线程池：
+ * 1. 固定线程数，空闲线程超时后回收
+ * 2. 有界等待队列，队列满时由调用线程执行，形成背压
+ * 3. 线程数、队列长度和已完成任务数通过 Micrometer 暴露
+ * 4. 开启 map.executor.virtual-threads 时，服务商调用和 Tomcat 请求处理都改为每个任务一个虚拟线程，
+ * 阻塞在服务商响应上的请求不再占用平台线程，并发数由舱壁和限流控制
+ * </p>
+ */
+@Configuration
+public class ExecutorConfig {
+
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService mapServiceExecutor(MapServiceProperties properties) {
+        MapServiceProperties.ExecutorProperties executor = properties.getExecutor();
+        if (executor.isVirtualThreads()) {
+            return VirtualThreads.newThreadPerTaskExecutor("map-service-");
+        }
+        ThreadPoolExecutor threadPool = new ThreadPoolExecutor(
+                executor.getPoolSize(), executor.getPoolSize(),
+                60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(executor.getQueueCapacity()),
+                new CustomizableThreadFactory("map-service-"),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+        threadPool.allowCoreThreadTimeOut(true);
+        return threadPool;
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "map.executor", name = "virtual-threads", havingValue = "true")
+    public TomcatProtocolHandlerCustomizer<?> virtualThreadProtocolHandlerCustomizer() {
+        ExecutorService executor = VirtualThreads.newThreadPerTaskExecutor("http-handler-");
+        return protocolHandler -> protocolHandler.setExecutor(executor);
+    }
+
+    @Bean
+    public MeterBinder mapServiceExecutorMetrics(@Qualifier("mapServiceExecutor") ExecutorService mapServiceExecutor) {
+        return new ExecutorServiceMetrics(mapServiceExecutor, "mapServiceExecutor", Tags.empty());
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.geoservice.config;
+
+import lombok.extern.slf4j.Slf4j;
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * HTTP客户端配置类
+ * <p>
+ * 提供所有地图服务商共享的 OkHttpClient：
+ * 1. 共享连接池，按配置控制空闲连接数和保活时间
+ * 2. 调度器限制异步调用（enqueue）的总并发数和单主机并发数，开启虚拟线程时异步回调也在虚拟线程中执行；
+ *    同步调用（execute）不经过调度器排队，不受这两个上限限制，并发数由调用线程数（Tomcat 线程、map.executor.pool-size）和舱壁限制
+ * 3. 连接、读、写以及单次调用的超时时间
+ * 4. 服务商支持时优先使用 HTTP/2；开启虚拟线程时只使用 HTTP/1.1：OkHttp 4.9 的 HTTP/2 流在 synchronized 块中
+ *    等待响应头和数据，JDK 21 上虚拟线程会在整个等待期间固定在载体线程上，并发数退化为载体线程数
+ * </p>
+ */
+@Slf4j
+@Configuration
+public class HttpClientConfig {
+
+    @Bean
+    public OkHttpClient mapHttpClient(MapServiceProperties properties) {
+        MapServiceProperties.HttpProperties http = properties.getHttp();
+
+        Dispatcher dispatcher = properties.getExecutor().isVirtualThreads()
+                ? new Dispatcher(VirtualThreads.newThreadPerTaskExecutor("okhttp-dispatcher-"))
+                : new Dispatcher();
+        dispatcher.setMaxRequests(http.getMaxRequests());
+        dispatcher.setMaxRequestsPerHost(http.getMaxRequestsPerHost());
+
+        return new OkHttpClient.Builder()
+                .dispatcher(dispatcher)
+                .connectionPool(new ConnectionPool(http.getMaxIdleConnections(),
+                        http.getKeepAlive().toMillis(), TimeUnit.MILLISECONDS))
+                .protocols(protocols(properties))
+                .connectTimeout(http.getConnectTimeout().toMillis(), TimeUnit.MILLISECONDS)
+                .readTimeout(http.getReadTimeout().toMillis(), TimeUnit.MILLISECONDS)
+                .writeTimeout(http.getWriteTimeout().toMillis(), TimeUnit.MILLISECONDS)
+                .callTimeout(http.getCallTimeout().toMillis(), TimeUnit.MILLISECONDS)
+                .build();
+    }
+
+    /**
+     * 获取 OkHttp 使用的协议，开启虚拟线程时不使用 HTTP/2
+     */
+    static List<Protocol> protocols(MapServiceProperties properties) {
+        if (!properties.getHttp().isHttp2Enabled()) {
+            return Collections.singletonList(Protocol.HTTP_1_1);
+        }
+        if (properties.getExecutor().isVirtualThreads()) {
+            log.warn("开启虚拟线程时 HTTP/2 的响应等待会固定载体线程，已改为只使用 HTTP/1.1；"
+                    + "可配置 map.http.http2-enabled=false 消除此警告");
+            return Collections.singletonList(Protocol.HTTP_1_1);
+        }
+        return Arrays.asList(Protocol.HTTP_2, Protocol.HTTP_1_1);
+    }
+}
@@ -0,0 +1,167 @@
+package com.example.geoservice.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.HttpUrl;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedOperation;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.io.IOException;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * HTTP客户端监控与预热
+ * <p>
+ * 1. 通过 JMX 和 Micrometer 暴露连接池和调度器的使用情况，用于按 QPS 调整连接池大小；
+ *    调度器只限制异步调用的并发数，同步调用不排队，但计入正在执行的调用数
+ * 2. 启动完成后向已配置 API 密钥的服务商发起一次请求，提前建立连接
+ * </p>
+ */
+@Slf4j
+@Component
+@ManagedResource(objectName = "com.example.geoservice:type=HttpClient,name=map", description = "地图服务商HTTP客户端")
+public class HttpClientMonitor implements MeterBinder {
+    /**
+     * 地图服务配置属性
+     */
+    private final MapServiceProperties properties;
+
+    /**
+     * 共享的HTTP客户端
+     */
+    private final OkHttpClient httpClient;
+
+    /**
+     * 构造函数
+     *
+     * @param properties 地图服务配置
+     * @param httpClient 共享的HTTP客户端
+     */
+    public HttpClientMonitor(MapServiceProperties properties, OkHttpClient httpClient) {
+        this.properties = properties;
+        this.httpClient = httpClient;
+    }
+
+    /**
+     * 应用启动完成后预热连接
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (properties.getHttp().isWarmUp()) {
+            warmUp();
+        }
+    }
+
+    /**
+     * 向已配置 API 密钥的服务商主机发起 HEAD 请求，使连接池中保留可复用的连接
+     * <p>
+     * 预热请求异步执行，失败时仅记录日志
+     * </p>
+     */
+    @ManagedOperation(description = "预热到各服务商的连接")
+    public void warmUp() {
+        Set<String> baseUrls = new LinkedHashSet<>();
+        if (StringUtils.hasText(properties.getGoogle().getApiKey())) {
+            baseUrls.add(properties.getGoogle().getBaseUrl());
+        }
+        if (StringUtils.hasText(properties.getTencent().getApiKey())) {
+            baseUrls.add(properties.getTencent().getBaseUrl());
+        }
+        if (StringUtils.hasText(properties.getBaidu().getApiKey())) {
+            baseUrls.add(properties.getBaidu().getBaseUrl());
+        }
+        for (String baseUrl : baseUrls) {
+            HttpUrl url = HttpUrl.parse(baseUrl);
+            if (url == null) {
+                log.warn("服务商地址无效，跳过连接预热: {}", baseUrl);
+                continue;
+            }
+            Request request = new Request.Builder().url(url.resolve("/")).head().build();
+            httpClient.newCall(request).enqueue(new Callback() {
+                @Override
+                public void onFailure(Call call, IOException e) {
+                    log.warn("连接预热失败: {}", url.host(), e);
+                }
+
+                @Override
+                public void onResponse(Call call, Response response) {
+                    response.close();
+                    log.info("连接预热完成: {} ({})", url.host(), response.protocol());
+                }
+            });
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("map.http.connections", this, HttpClientMonitor::getIdleConnectionCount)
+                .description("连接池中的连接数")
+                .tag("state", "idle")
+                .register(registry);
+        Gauge.builder("map.http.connections", this, HttpClientMonitor::getActiveConnectionCount)
+                .description("连接池中的连接数")
+                .tag("state", "active")
+                .register(registry);
+        Gauge.builder("map.http.calls", this, HttpClientMonitor::getRunningCallCount)
+                .description("正在执行的调用数（含同步调用）和等待调度器执行的异步调用数")
+                .tag("state", "running")
+                .register(registry);
+        Gauge.builder("map.http.calls", this, HttpClientMonitor::getQueuedCallCount)
+                .description("正在执行的调用数（含同步调用）和等待调度器执行的异步调用数")
+                .tag("state", "queued")
+                .register(registry);
+    }
+
+    @ManagedAttribute(description = "连接池中的连接总数")
+    public int getConnectionCount() {
+        return httpClient.connectionPool().connectionCount();
+    }
+
+    @ManagedAttribute(description = "连接池中的空闲连接数")
+    public int getIdleConnectionCount() {
+        return httpClient.connectionPool().idleConnectionCount();
+    }
+
+    @ManagedAttribute(description = "连接池中正在使用的连接数")
+    public int getActiveConnectionCount() {
+        return getConnectionCount() - getIdleConnectionCount();
+    }
+
+    @ManagedAttribute(description = "正在执行的调用数（同步和异步）")
+    public int getRunningCallCount() {
+        return httpClient.dispatcher().runningCallsCount();
+    }
+
+    @ManagedAttribute(description = "等待调度器执行的异步调用数")
+    public int getQueuedCallCount() {
+        return httpClient.dispatcher().queuedCallsCount();
+    }
+
+    /**
+     * 调度器的并发利用率
+     * <p>
+     * OkHttp 只能给出同步和异步调用的合计数，而 map.http.max-requests 只限制异步调用，
+     * 同步调用不经过调度器排队；因此有同步调用在执行时该值可能大于 1，
+     * 只有同时存在排队的异步调用（{@link #getQueuedCallCount()} 大于 0）才说明异步调用达到了上限
+     * </p>
+     *
+     * @return 正在执行的调用数（同步和异步）与异步调用最大并发请求数之比
+     */
+    @ManagedAttribute(description = "正在执行的调用数（同步和异步）/ 异步调用的最大并发请求数，同步调用不受该上限限制，可能大于 1")
+    public double getDispatcherUtilization() {
+        return (double) httpClient.dispatcher().runningCallsCount() / httpClient.dispatcher().getMaxRequests();
+    }
+}
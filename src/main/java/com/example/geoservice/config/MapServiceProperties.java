@@ -1,24 +1,51 @@
 package com.example.geoservice.config;
 
+import com.example.geoservice.geo.CoordinateSystem;
+import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.stereotype.Component;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
 @Data
 @Component
 @ConfigurationProperties(prefix = "map")
 public class MapServiceProperties {
     private String provider = "google"; // 默认使用 Google Maps
     private String language = "zh"; // 默认使用中文
+    private CoordinateSystem coordinateSystem = CoordinateSystem.GCJ02; // 接口返回结果和缓存使用的坐标系，未标明坐标系的请求坐标也视为该坐标系
     private GoogleMapProperties google = new GoogleMapProperties();
     private TencentMapProperties tencent = new TencentMapProperties();
     private BaiduMapProperties baidu = new BaiduMapProperties();
+    private CacheProperties cache = new CacheProperties();
+    private HttpProperties http = new HttpProperties();
+    private ExecutorProperties executor = new ExecutorProperties();
+    private BulkProperties bulk = new BulkProperties();
+    private HedgeProperties hedge = new HedgeProperties();
+    private RoutingProperties routing = new RoutingProperties();
+    private ResilienceProperties resilience = new ResilienceProperties();
+    private RateLimitProperties rateLimit = new RateLimitProperties();
+    private CoalesceProperties coalesce = new CoalesceProperties();
+    private LocalProperties local = new LocalProperties();
+    private RoadProperties road = new RoadProperties();
+    private NearbyProperties nearby = new NearbyProperties();
+    private EstimateProperties estimate = new EstimateProperties();
 
     @Data
     public static class GoogleMapProperties {
         private String apiKey;
         private String baseUrl = "https://maps.googleapis.com/maps/api";
         private String language = "zh-CN";
+        private MatrixProperties matrix = new MatrixProperties(25, 25, 100);
+        private int maxWaypoints = 25; // 路线规划单次请求最多途经点数（不含起点和终点）
+        private QuotaProperties quota = new QuotaProperties(0, 0, 0, "America/Los_Angeles"); // 按太平洋时间零点重置配额
     }
 
     @Data
@@ -27,6 +54,9 @@ public class MapServiceProperties {
         private String secretKey;
         private String baseUrl = "https://apis.map.qq.com/ws";
         private String language = "zh-CN";
+        private MatrixProperties matrix = new MatrixProperties(50, 50, 625);
+        private int maxWaypoints = 30; // 路线规划单次请求最多途经点数（不含起点和终点）
+        private QuotaProperties quota = new QuotaProperties(0, 0, 0, "Asia/Shanghai");
     }
 
     @Data
@@ -34,5 +64,213 @@ public class MapServiceProperties {
         private String apiKey;
         private String baseUrl = "https://api.map.baidu.com";
         private String language = "zh-CN";
+        private MatrixProperties matrix = new MatrixProperties(50, 50, 50);
+        private int maxWaypoints = 18; // 路线规划单次请求最多途经点数（不含起点和终点）
+        private QuotaProperties quota = new QuotaProperties(0, 0, 0, "Asia/Shanghai");
+    }
+
+    /**
+     * 距离矩阵接口的单次请求限制，超出时自动拆分为多个请求
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class MatrixProperties {
+        private int maxOrigins; // 单次请求最多起点数
+        private int maxDestinations; // 单次请求最多终点数
+        private int maxElements; // 单次请求最多起终点对数
+    }
+
+    /**
+     * 服务商 API 密钥的调用频率和每日配额
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class QuotaProperties {
+        private double qps; // 每秒请求数上限，0 表示不限制
+        private int burst; // 允许的突发请求数，0 表示与每秒请求数相同
+        private long dailyLimit; // 每日调用配额，0 表示不限制
+        private String zone; // 每日配额重置所在的时区
+    }
+
+    @Data
+    public static class RateLimitProperties {
+        private boolean enabled = true;
+        private Duration maxWait = Duration.ofMillis(200); // 交互请求排队等待令牌的最长时间，超出时直接失败
+        private Duration bulkMaxWait = Duration.ofSeconds(30); // 批量请求等待空闲令牌的最长时间
+        private double bulkReserveRatio = 0.2; // 为交互请求保留的突发令牌和每日配额比例，批量请求不能使用
+        private String quotaDirectory = "data/quota"; // 每日配额用量的持久化目录
+        private Duration quotaFlushInterval = Duration.ofSeconds(10); // 配额用量写入磁盘的间隔
+    }
+
+    @Data
+    public static class CoalesceProperties {
+        private boolean enabled = true; // 合并同一服务商的相同并发请求，只调用服务商一次
+    }
+
+    @Data
+    public static class EstimateProperties {
+        private double defaultCircuity = 1.3; // 尚未学到绕行系数时，驾车距离与测地线距离之比的默认值
+        private double learningRate = 0.05; // 绕行系数按服务商返回的距离指数加权平均的权重
+        private int minSamples = 5; // 网格或区域学到的样本数达到该值后才使用其绕行系数
+        private double minDistance = 1000; // 测地线距离短于该值（米）的服务商结果绕行比例波动大，不参与学习
+        private double maxCircuity = 3.0; // 绕行比例超过该值的服务商结果（例如需要绕行轮渡）视为异常，不参与学习
+    }
+
+    @Data
+    public static class LocalProperties {
+        private boolean enabled = false; // 默认关闭本地地址解析
+        private String indexFile = "data/local/geocode.idx"; // 内存映射的本地地址索引
+        private String importFile; // 导入的地址/POI 数据（CSV），比索引新时在启动时重建索引
+        private int maxResults = 5; // 最多返回的匹配地址数
+        private double minConfidence = 0.3; // 置信度低于该值的匹配不返回
+        private boolean firstTier = false; // 是否在调用服务商之前先查询本地索引
+        private double acceptConfidence = 0.8; // 作为第一级时，最佳匹配的置信度达到该值才不再调用服务商
+        private String boundaryFile; // 行政区划边界（带 WKT 列的 CSV），用于逆地址解析
+        private double reverseMaxDistance = 100; // 逆地址解析时地址与坐标的最大距离（米）
+        private CoordinateSystem coordinateSystem = CoordinateSystem.GCJ02; // 导入的地址和边界数据使用的坐标系
+    }
+
+    @Data
+    public static class RoadProperties {
+        private boolean enabled = false; // 默认关闭本地道路网络
+        private String graphFile = "data/road/road.graph"; // 内存映射的预处理道路网络
+        private String importFile; // 导入的道路数据（CSV），比道路网络文件新时在启动时重新预处理
+        private double maxSnapDistance = 500; // 位置与最近路口的最大距离（米），超出时视为不在道路网络覆盖范围内
+        private CoordinateSystem coordinateSystem = CoordinateSystem.WGS84; // 导入的道路数据使用的坐标系，OSM 数据为 WGS-84
+        private String geocodingProvider = "google"; // 地址解析和逆地址解析使用的服务商：google、tencent、baidu 或 local
+    }
+
+    @Data
+    public static class NearbyProperties {
+        private int maxSets = 100; // 最多登记的位置集合数
+        private int maxLocations = 100000; // 单个位置集合最多的位置数
+        private int candidates = 10; // 按直线距离选出、再按驾车距离排序的候选位置数，不少于返回的位置数
+        private int maxCandidates = 100; // 单次查询允许的最多候选位置数，即一次距离矩阵请求的终点数
+    }
+
+    @Data
+    public static class HttpProperties {
+        private int maxRequests = 256; // 异步调用的最大并发请求数，同步调用不受此限制
+        private int maxRequestsPerHost = 64; // 异步调用对单个服务商主机的最大并发请求数
+        private int maxIdleConnections = 32; // 连接池保留的最大空闲连接数
+        private Duration keepAlive = Duration.ofMinutes(5); // 空闲连接保活时间
+        private Duration connectTimeout = Duration.ofSeconds(3);
+        private Duration readTimeout = Duration.ofSeconds(5);
+        private Duration writeTimeout = Duration.ofSeconds(5);
+        private Duration callTimeout = Duration.ofSeconds(10); // 单次调用的总超时时间，包括重定向
+        private boolean http2Enabled = true; // 服务商支持时优先使用 HTTP/2，开启虚拟线程时不生效
+        private boolean warmUp = false; // 启动时预先建立到各服务商的连接
+    }
+
+    @Data
+    public static class ExecutorProperties {
+        private int poolSize = 32; // 并发调用服务商的线程数
+        private int queueCapacity = 1000; // 等待队列长度，队列满时由调用线程执行
+        private boolean virtualThreads = false; // 使用虚拟线程处理 Tomcat 请求和服务商调用，需要 JDK 21，开启后忽略线程数和队列长度
+    }
+
+    @Data
+    public static class BulkProperties {
+        private int concurrency = 8; // 单个批次同时进行的服务商调用数
+        private int maxBatchSize = 10000; // 非流式接口单批次最多地址数
+        private int dedupWindow = 10000; // 批次内去重窗口，也是流式处理时待输出结果的上限
+    }
+
+    @Data
+    public static class HedgeProperties {
+        private boolean enabled = false; // 默认关闭对冲请求
+        private String secondary = "tencent"; // 对冲请求发往的服务商，不能与 map.provider 相同
+        private double percentile = 0.95; // 主服务商超过该百分位耗时仍未响应时发出对冲请求
+        private Duration initialDelay = Duration.ofMillis(500); // 耗时样本不足时使用的对冲延迟
+        private Duration minDelay = Duration.ofMillis(20);
+        private Duration maxDelay = Duration.ofSeconds(2);
+        private int windowSize = 1000; // 统计耗时分布使用的最近调用数
+        private double budgetRatio = 0.1; // 对冲请求数与主请求数之比的上限，不超过1，保证配额消耗不超过两倍
+    }
+
+    @Data
+    public static class RoutingProperties {
+        private boolean enabled = false; // 默认关闭动态路由，固定使用 map.provider
+        private List<String> providers = new ArrayList<>(); // 参与路由的服务商，为空时使用所有已配置 API 密钥的服务商
+        private RoutingStrategy strategy = RoutingStrategy.BEST; // 路由策略
+        private Map<String, Double> weights = new HashMap<>(); // 各服务商的权重，默认为1
+        private List<String> chinaProviders = new ArrayList<>(Arrays.asList("baidu", "tencent")); // 中国境内坐标优先使用的服务商
+        private List<String> overseasProviders = new ArrayList<>(Arrays.asList("google")); // 中国境外坐标优先使用的服务商
+        private Duration decay = Duration.ofSeconds(5); // 耗时和错误率滑动平均的时间常数，越小对服务商状态变化越敏感
+        private double maxErrorRate = 0.5; // 错误率超过该值时暂时摘除服务商
+        private int minRequests = 5; // 统计错误率所需的最少调用数
+        private Duration ejectionTime = Duration.ofSeconds(10); // 服务商被摘除的时长，之后重新参与路由
+        private Duration probeInterval = Duration.ofSeconds(30); // 服务商超过该时长没有样本时分配一个探测请求，为0时不探测
+    }
+
+    /**
+     * 动态路由策略
+     */
+    public enum RoutingStrategy {
+        BEST, // 总是选择综合耗时和错误率后代价最低的服务商
+        WEIGHTED // 按权重除以代价的比例随机选择，所有健康的服务商都会分到流量
+    }
+
+    @Data
+    public static class ResilienceProperties {
+        private boolean enabled = true;
+        private CircuitBreakerProperties circuitBreaker = new CircuitBreakerProperties();
+        private BulkheadProperties bulkhead = new BulkheadProperties();
+        private RetryProperties retry = new RetryProperties();
+    }
+
+    @Data
+    public static class CircuitBreakerProperties {
+        private double failureRateThreshold = 0.5; // 最近调用的失败率超过该值时打开熔断器
+        private int slidingWindowSize = 20; // 统计失败率使用的最近调用数
+        private int minimumCalls = 10; // 统计失败率所需的最少调用数
+        private Duration openDuration = Duration.ofSeconds(10); // 熔断器打开的时长，之后放行少量试探调用
+        private int halfOpenCalls = 3; // 试探调用数，全部成功时关闭熔断器
+    }
+
+    @Data
+    public static class BulkheadProperties {
+        private int maxConcurrentCalls = 64; // 对单个服务商的最大并发调用数
+        private Duration maxWait = Duration.ZERO; // 并发数已满时的最长等待时间，0 表示立即失败
+    }
+
+    @Data
+    public static class RetryProperties {
+        private int maxAttempts = 2; // 最多调用次数（包括首次调用），1 表示不重试
+        private Duration initialBackoff = Duration.ofMillis(50); // 首次重试的退避上限，之后每次翻倍
+        private Duration maxBackoff = Duration.ofSeconds(1);
+        private double budgetRatio = 0.1; // 重试数与调用数之比的上限，避免服务商故障时重试放大流量
+    }
+
+    @Data
+    public static class CacheProperties {
+        private GeocodeCacheProperties geocode = new GeocodeCacheProperties();
+        private DistanceCacheProperties distance = new DistanceCacheProperties();
+    }
+
+    @Data
+    public static class GeocodeCacheProperties {
+        private boolean enabled = true;
+        private long maximumSize = 10000; // 内存缓存最大条目数
+        private Duration ttl = Duration.ofHours(24); // 内存缓存写入后的有效期
+        private PersistentCacheProperties persistent = new PersistentCacheProperties();
+    }
+
+    @Data
+    public static class DistanceCacheProperties {
+        private boolean enabled = true;
+        private long maximumSize = 100000; // 最大条目数，超出后淘汰最近最少使用的条目
+        private Duration ttl = Duration.ofHours(12);
+        private double toleranceMeters = 100; // 起终点允许的坐标误差（米）
+        private int precision = 0; // GeoHash 精度等级，0 表示根据误差容忍度自动选择
+    }
+
+    @Data
+    public static class PersistentCacheProperties {
+        private boolean enabled = false; // 默认关闭本地持久化缓存
+        private String directory = "data/geocode-cache";
+        private Duration ttl = Duration.ofDays(30);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,93 @@
+package com.example.geoservice.config;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * 虚拟线程工具类
+ * <p>
+ * 项目以 Java 8 为编译目标，虚拟线程的 API（JDK 21）通过反射调用：
+ * 1. 在 JDK 21 及以上运行时创建虚拟线程，每个任务一个线程，阻塞时不占用平台线程
+ * 2. 在更低版本上运行时 {@link #isSupported()} 返回 false，创建线程池时抛出异常，启动即失败
+ * </p>
+ */
+public final class VirtualThreads {
+    private static final Method OF_VIRTUAL = findMethod(Thread.class, "ofVirtual");
+
+    private VirtualThreads() {
+    }
+
+    /**
+     * 判断当前 JVM 是否支持虚拟线程
+     *
+     * @return JDK 21 及以上返回 true
+     */
+    public static boolean isSupported() {
+        if (OF_VIRTUAL == null) {
+            return false;
+        }
+        try {
+            // JDK 19、20 中虚拟线程为预览特性，未开启时调用会抛出异常
+            OF_VIRTUAL.invoke(null);
+            return true;
+        } catch (ReflectiveOperationException e) {
+            return false;
+        }
+    }
+
+    /**
+     * 创建虚拟线程工厂
+     *
+     * @param prefix 线程名前缀，后接从 0 开始的序号
+     * @return 虚拟线程工厂
+     * @throws IllegalStateException 当前 JVM 不支持虚拟线程时抛出
+     */
+    public static ThreadFactory newThreadFactory(String prefix) {
+        if (!isSupported()) {
+            throw new IllegalStateException("虚拟线程需要 JDK 21 或更高版本，当前为 " + System.getProperty("java.version"));
+        }
+        try {
+            Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            Object builder = OF_VIRTUAL.invoke(null);
+            builder = builderClass.getMethod("name", String.class, long.class).invoke(builder, prefix, 0L);
+            return (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+        } catch (InvocationTargetException e) {
+            throw new IllegalStateException("无法创建虚拟线程工厂", e.getCause());
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("无法创建虚拟线程工厂", e);
+        }
+    }
+
+    /**
+     * 创建每个任务使用一个新虚拟线程的执行器
+     * <p>
+     * 执行器没有线程数和队列长度的限制，并发数需要由舱壁、限流等机制控制
+     * </p>
+     *
+     * @param prefix 线程名前缀
+     * @return 执行器
+     * @throws IllegalStateException 当前 JVM 不支持虚拟线程时抛出
+     */
+    public static ExecutorService newThreadPerTaskExecutor(String prefix) {
+        ThreadFactory threadFactory = newThreadFactory(prefix);
+        try {
+            return (ExecutorService) Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class)
+                    .invoke(null, threadFactory);
+        } catch (InvocationTargetException e) {
+            throw new IllegalStateException("无法创建虚拟线程执行器", e.getCause());
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("无法创建虚拟线程执行器", e);
+        }
+    }
+
+    private static Method findMethod(Class<?> type, String name) {
+        try {
+            return type.getMethod(name);
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+}
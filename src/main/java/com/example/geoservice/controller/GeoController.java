@@ -1,37 +1,168 @@
 package com.example.geoservice.controller;
 
+import com.example.geoservice.geo.CoordinateConverter;
+import com.example.geoservice.geo.CoordinateSystem;
+import com.example.geoservice.model.AddressBatch;
 import com.example.geoservice.model.AddressInfo;
+import com.example.geoservice.model.BatchGeocodeResult;
+import com.example.geoservice.model.DistanceMatrixRequest;
 import com.example.geoservice.model.Location;
+import com.example.geoservice.model.LocationBatch;
+import com.example.geoservice.model.NamedLocation;
+import com.example.geoservice.model.NearbyLocation;
+import com.example.geoservice.model.RouteDistance;
+import com.example.geoservice.service.AsyncMapService;
+import com.example.geoservice.service.BulkGeocodeService;
 import com.example.geoservice.service.MapService;
 import com.example.geoservice.service.MapServiceFactory;
+import com.example.geoservice.service.estimate.DistanceEstimator;
+import com.example.geoservice.service.estimate.DistanceMode;
+import com.example.geoservice.service.nearby.NearbySearchService;
+import io.micrometer.core.annotation.Timed;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 @Tag(name = "地理服务接口", description = "提供地理位置相关的服务，如驾车距离计算等")
 @RestController
 @RequestMapping("/api/geo")
+@Timed(histogram = true)
 public class GeoController {
+    /**
+     * NDJSON 媒体类型
+     */
+    private static final String APPLICATION_NDJSON = "application/x-ndjson";
+
+    /**
+     * Smile（二进制 JSON）媒体类型
+     */
+    private static final String APPLICATION_SMILE = "application/x-jackson-smile";
+
     private final MapServiceFactory mapServiceFactory;
+    private final BulkGeocodeService bulkGeocodeService;
+    private final DistanceEstimator distanceEstimator;
+    private final NearbySearchService nearbySearchService;
 
-    public GeoController(MapServiceFactory mapServiceFactory) {
+    public GeoController(MapServiceFactory mapServiceFactory, BulkGeocodeService bulkGeocodeService,
+                         DistanceEstimator distanceEstimator, NearbySearchService nearbySearchService) {
         this.mapServiceFactory = mapServiceFactory;
+        this.bulkGeocodeService = bulkGeocodeService;
+        this.distanceEstimator = distanceEstimator;
+        this.nearbySearchService = nearbySearchService;
     }
 
-    @Operation(summary = "计算驾车距离", description = "计算两个位置坐标之间的驾车距离，返回单位为米")
+    @Operation(summary = "计算驾车距离", description = "计算两个位置坐标之间的驾车距离，返回单位为米；"
+            + "mode=ESTIMATE 时按测地线距离和学到的绕行系数在本地估算，mode=ESTIMATE_THEN_REFINE 时先返回估算值并在后台调用服务商")
     @PostMapping("/distance")
     public double calculateDrivingDistance(
             @Parameter(description = "位置坐标列表，必须包含两个位置坐标，分别表示起点和终点")
-            @RequestBody List<Location> locations) throws IOException {
+            @RequestBody List<Location> locations,
+            @Parameter(description = "计算方式：EXACT、ESTIMATE 或 ESTIMATE_THEN_REFINE")
+            @RequestParam(defaultValue = "EXACT") DistanceMode mode) throws IOException {
         if (locations.size() != 2) {
             throw new IllegalArgumentException("必须提供两个位置坐标");
         }
-        MapService mapService = mapServiceFactory.getMapService();
-        return mapService.calculateDrivingDistance(locations.get(0), locations.get(1));
+        switch (mode) {
+            case ESTIMATE:
+                return distanceEstimator.estimate(locations.get(0), locations.get(1));
+            case ESTIMATE_THEN_REFINE:
+                return distanceEstimator.estimateThenRefine(mapServiceFactory.getAsyncMapService(locations.get(0)),
+                        locations.get(0), locations.get(1));
+            default:
+                MapService mapService = mapServiceFactory.getMapService(locations.get(0));
+                return mapService.calculateDrivingDistance(locations.get(0), locations.get(1));
+        }
+    }
+
+    @Operation(summary = "计算驾车距离矩阵", description = "计算多个起点到多个终点之间的驾车距离，返回单位为米的二维数组，"
+            + "第 i 行第 j 列为第 i 个起点到第 j 个终点的距离，无法到达时为 -1；mode=ESTIMATE 时全部在本地估算")
+    @PostMapping("/distance-matrix")
+    public double[][] calculateDistanceMatrix(
+            @Parameter(description = "起点列表和终点列表")
+            @RequestBody DistanceMatrixRequest request,
+            @Parameter(description = "计算方式：EXACT 或 ESTIMATE")
+            @RequestParam(defaultValue = "EXACT") DistanceMode mode) throws IOException {
+        if (mode == DistanceMode.ESTIMATE) {
+            return distanceEstimator.estimateMatrix(request.getOrigins(), request.getDestinations());
+        }
+        if (mode == DistanceMode.ESTIMATE_THEN_REFINE) {
+            throw new IllegalArgumentException("距离矩阵不支持 ESTIMATE_THEN_REFINE");
+        }
+        MapService mapService = mapServiceFactory.getMapService(
+                request.getOrigins() == null || request.getOrigins().isEmpty() ? null : request.getOrigins().get(0));
+        return mapService.calculateDistanceMatrix(request.getOrigins(), request.getDestinations());
+    }
+
+    @Operation(summary = "计算途经多个位置的路线距离", description = "按顺序途经各位置计算驾车路线的总距离和相邻两个位置之间的各段距离，"
+            + "单位为米；使用服务商路线规划接口的途经点参数，超过单次请求限制时自动拆分；mode=ESTIMATE 时全部在本地估算")
+    @PostMapping("/route")
+    public RouteDistance calculateRouteDistance(
+            @Parameter(description = "按行驶顺序排列的位置坐标列表，第一个为起点，最后一个为终点，至少两个")
+            @RequestBody List<Location> waypoints,
+            @Parameter(description = "计算方式：EXACT 或 ESTIMATE")
+            @RequestParam(defaultValue = "EXACT") DistanceMode mode) throws IOException {
+        if (mode == DistanceMode.ESTIMATE) {
+            return distanceEstimator.estimateRoute(waypoints);
+        }
+        if (mode == DistanceMode.ESTIMATE_THEN_REFINE) {
+            throw new IllegalArgumentException("路线距离不支持 ESTIMATE_THEN_REFINE");
+        }
+        MapService mapService = mapServiceFactory.getMapService(
+                waypoints == null || waypoints.isEmpty() ? null : waypoints.get(0));
+        return mapService.calculateRouteDistance(waypoints);
+    }
+
+    @Operation(summary = "写入位置集合", description = "向位置集合（例如所有仓库）写入带编号的位置，集合不存在时创建；"
+            + "编号已存在的位置更新其坐标，只修改变化的位置，不重建索引；返回写入后集合中的位置数")
+    @PutMapping("/location-sets/{name}/locations")
+    public int upsertLocations(
+            @Parameter(description = "位置集合名称") @PathVariable String name,
+            @Parameter(description = "带编号的位置列表")
+            @RequestBody List<NamedLocation> locations) {
+        return nearbySearchService.upsert(name, locations);
+    }
+
+    @Operation(summary = "从位置集合中删除位置", description = "按编号删除位置，不存在的编号忽略；返回删除后集合中的位置数")
+    @PostMapping("/location-sets/{name}/locations/remove")
+    public int removeLocations(
+            @Parameter(description = "位置集合名称") @PathVariable String name,
+            @Parameter(description = "需要删除的位置编号列表")
+            @RequestBody List<String> ids) {
+        return nearbySearchService.remove(name, ids);
+    }
+
+    @Operation(summary = "删除位置集合", description = "删除整个位置集合，集合存在时返回 true")
+    @DeleteMapping("/location-sets/{name}")
+    public boolean deleteLocationSet(
+            @Parameter(description = "位置集合名称") @PathVariable String name) {
+        return nearbySearchService.delete(name);
+    }
+
+    @Operation(summary = "查询驾车距离最近的位置", description = "先在位置集合中按直线距离选出最近的若干个候选位置，"
+            + "再通过一次距离矩阵请求按驾车距离排序，返回最近的 k 个位置，无法到达的位置不返回；mode=ESTIMATE 时全部在本地估算")
+    @GetMapping("/location-sets/{name}/nearest")
+    public List<NearbyLocation> nearestLocations(
+            @Parameter(description = "位置集合名称") @PathVariable String name,
+            @Parameter(description = "纬度") @RequestParam double lat,
+            @Parameter(description = "经度") @RequestParam double lng,
+            @Parameter(description = "坐标系：WGS84、GCJ02 或 BD09，默认为服务配置的坐标系")
+            @RequestParam(required = false) CoordinateSystem coordinateSystem,
+            @Parameter(description = "返回的位置数") @RequestParam(defaultValue = "1") int k,
+            @Parameter(description = "按直线距离选出的候选位置数，默认为 map.nearby.candidates")
+            @RequestParam(required = false) Integer candidates,
+            @Parameter(description = "计算方式：EXACT 或 ESTIMATE")
+            @RequestParam(defaultValue = "EXACT") DistanceMode mode) throws IOException {
+        return nearbySearchService.nearest(name, toLocation(lat, lng, coordinateSystem), k, candidates, mode);
     }
 
     @Operation(summary = "解析地址", description = "根据输入的地址字符串，返回详细的地址信息，包括经纬度坐标")
@@ -42,4 +173,141 @@ public class GeoController {
         MapService mapService = mapServiceFactory.getMapService();
         return mapService.geocodeAddress(address);
     }
-}
\ No newline at end of file
+
+    @Operation(summary = "逆地址解析", description = "根据坐标返回所在位置的地址信息，最精确的在前；"
+            + "启用本地地址索引时优先在本地查询，置信度不足时才调用服务商")
+    @GetMapping("/reverse-geocode")
+    public List<AddressInfo> reverseGeocode(
+            @Parameter(description = "纬度") @RequestParam double lat,
+            @Parameter(description = "经度") @RequestParam double lng,
+            @Parameter(description = "坐标系：WGS84、GCJ02 或 BD09，默认为服务配置的坐标系")
+            @RequestParam(required = false) CoordinateSystem coordinateSystem) throws IOException {
+        Location location = toLocation(lat, lng, coordinateSystem);
+        return mapServiceFactory.getMapService(location).reverseGeocode(location);
+    }
+
+    @Operation(summary = "批量解析地址", description = "并发解析一批地址，结果按输入顺序返回，每条结果带有独立的状态，单条失败不影响整个批次")
+    @PostMapping("/geocode/batch")
+    public List<BatchGeocodeResult> geocodeAddresses(
+            @Parameter(description = "需要解析的地址字符串列表")
+            @RequestBody List<String> addresses) {
+        return bulkGeocodeService.geocode(addresses);
+    }
+
+    @Operation(summary = "按列批量解析地址", description = "与 /geocode/batch 相同，但每条地址只返回最佳匹配，结果按列存放在数组中，"
+            + "省市区等重复的名称按字典编码；Accept 为 application/x-jackson-smile 或 application/cbor 时返回二进制格式")
+    @PostMapping(value = "/geocode/batch/columnar",
+            consumes = {MediaType.APPLICATION_JSON_VALUE, APPLICATION_SMILE, MediaType.APPLICATION_CBOR_VALUE},
+            produces = {MediaType.APPLICATION_JSON_VALUE, APPLICATION_SMILE, MediaType.APPLICATION_CBOR_VALUE})
+    public AddressBatch geocodeAddressesColumnar(
+            @Parameter(description = "需要解析的地址字符串列表")
+            @RequestBody List<String> addresses) {
+        return bulkGeocodeService.geocodeColumnar(addresses);
+    }
+
+    @Operation(summary = "流式批量解析地址", description = "逐行读取 NDJSON 或 CSV（取第一列）格式的地址，按输入顺序逐行返回 NDJSON 格式的解析结果，适用于大文件")
+    @PostMapping(value = "/geocode/batch/stream",
+            consumes = {APPLICATION_NDJSON, "text/csv", MediaType.TEXT_PLAIN_VALUE},
+            produces = APPLICATION_NDJSON)
+    public ResponseEntity<StreamingResponseBody> geocodeAddressStream(
+            @RequestHeader(value = "Content-Type") String contentType,
+            InputStream input) {
+        BulkGeocodeService.InputFormat format = contentType.startsWith("text/csv")
+                ? BulkGeocodeService.InputFormat.CSV
+                : BulkGeocodeService.InputFormat.NDJSON;
+        StreamingResponseBody body = output -> bulkGeocodeService.geocodeStream(input, format, output);
+        return ResponseEntity.ok().contentType(MediaType.parseMediaType(APPLICATION_NDJSON)).body(body);
+    }
+
+    @Operation(summary = "异步计算驾车距离", description = "与 /distance 相同，但在等待服务商响应期间不占用 Web 容器线程")
+    @PostMapping("/async/distance")
+    public CompletableFuture<Double> calculateDrivingDistanceAsync(
+            @Parameter(description = "位置坐标列表，必须包含两个位置坐标，分别表示起点和终点")
+            @RequestBody List<Location> locations,
+            @Parameter(description = "计算方式：EXACT、ESTIMATE 或 ESTIMATE_THEN_REFINE")
+            @RequestParam(defaultValue = "EXACT") DistanceMode mode) {
+        if (locations.size() != 2) {
+            throw new IllegalArgumentException("必须提供两个位置坐标");
+        }
+        switch (mode) {
+            case ESTIMATE:
+                return CompletableFuture.completedFuture(distanceEstimator.estimate(locations.get(0), locations.get(1)));
+            case ESTIMATE_THEN_REFINE:
+                return CompletableFuture.completedFuture(distanceEstimator.estimateThenRefine(
+                        mapServiceFactory.getAsyncMapService(locations.get(0)), locations.get(0), locations.get(1)));
+            default:
+                AsyncMapService mapService = mapServiceFactory.getAsyncMapService(locations.get(0));
+                return mapService.calculateDrivingDistanceAsync(locations.get(0), locations.get(1));
+        }
+    }
+
+    @Operation(summary = "异步解析地址", description = "与 /geocode 相同，但在等待服务商响应期间不占用 Web 容器线程")
+    @GetMapping("/async/geocode")
+    public CompletableFuture<List<AddressInfo>> geocodeAddressAsync(
+            @Parameter(description = "需要解析的地址字符串")
+            @RequestParam String address) {
+        AsyncMapService mapService = mapServiceFactory.getAsyncMapService();
+        return mapService.geocodeAddressAsync(address);
+    }
+
+    @Operation(summary = "异步逆地址解析", description = "与 /reverse-geocode 相同，但在等待服务商响应期间不占用 Web 容器线程")
+    @GetMapping("/async/reverse-geocode")
+    public CompletableFuture<List<AddressInfo>> reverseGeocodeAsync(
+            @Parameter(description = "纬度") @RequestParam double lat,
+            @Parameter(description = "经度") @RequestParam double lng,
+            @Parameter(description = "坐标系：WGS84、GCJ02 或 BD09，默认为服务配置的坐标系")
+            @RequestParam(required = false) CoordinateSystem coordinateSystem) {
+        Location location = toLocation(lat, lng, coordinateSystem);
+        return mapServiceFactory.getAsyncMapService(location).reverseGeocodeAsync(location);
+    }
+
+    @Operation(summary = "批量转换坐标系", description = "将一批坐标从 from 坐标系转换到 to 坐标系，结果按输入顺序返回，"
+            + "只在本地计算，不调用服务商")
+    @PostMapping("/coordinates/convert")
+    public List<Location> convertCoordinates(
+            @Parameter(description = "位置坐标列表，均按 from 坐标系解释")
+            @RequestBody List<Location> locations,
+            @Parameter(description = "原坐标系：WGS84、GCJ02 或 BD09") @RequestParam CoordinateSystem from,
+            @Parameter(description = "目标坐标系：WGS84、GCJ02 或 BD09") @RequestParam CoordinateSystem to) {
+        LocationBatch batch = convertCoordinatesColumnar(LocationBatch.of(locations, from), from, to);
+        List<Location> result = new ArrayList<>(batch.size());
+        for (int i = 0; i < batch.size(); i++) {
+            result.add(batch.get(i));
+        }
+        return result;
+    }
+
+    @Operation(summary = "按列批量转换坐标系", description = "与 /coordinates/convert 相同，但坐标按列存放在纬度、经度两个数组中，"
+            + "适用于大批量坐标；Accept 为 application/x-jackson-smile 或 application/cbor 时返回二进制格式")
+    @PostMapping(value = "/coordinates/convert/columnar",
+            consumes = {MediaType.APPLICATION_JSON_VALUE, APPLICATION_SMILE, MediaType.APPLICATION_CBOR_VALUE},
+            produces = {MediaType.APPLICATION_JSON_VALUE, APPLICATION_SMILE, MediaType.APPLICATION_CBOR_VALUE})
+    public LocationBatch convertCoordinatesColumnar(
+            @Parameter(description = "纬度、经度数组，均按 from 坐标系解释")
+            @RequestBody LocationBatch batch,
+            @Parameter(description = "原坐标系：WGS84、GCJ02 或 BD09") @RequestParam CoordinateSystem from,
+            @Parameter(description = "目标坐标系：WGS84、GCJ02 或 BD09") @RequestParam CoordinateSystem to) {
+        for (int i = 0; i < batch.size(); i++) {
+            checkRange(batch.getLats()[i], batch.getLngs()[i]);
+        }
+        // 在请求的数组上原地转换，不复制坐标
+        CoordinateConverter.convert(from, to, batch.getLats(), batch.getLngs());
+        batch.setCoordinateSystem(to);
+        return batch;
+    }
+
+    private static Location toLocation(double lat, double lng, CoordinateSystem coordinateSystem) {
+        checkRange(lat, lng);
+        Location location = new Location();
+        location.setLat(lat);
+        location.setLng(lng);
+        location.setCoordinateSystem(coordinateSystem);
+        return location;
+    }
+
+    private static void checkRange(double lat, double lng) {
+        if (lat < -90 || lat > 90 || lng < -180 || lng > 180) {
+            throw new IllegalArgumentException("坐标超出范围: " + lat + "," + lng);
+        }
+    }
+}
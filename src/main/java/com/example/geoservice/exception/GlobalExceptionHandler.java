@@ -1,15 +1,20 @@
 package com.example.geoservice.exception;
 
 import com.example.geoservice.controller.GeoController;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.converter.HttpMessageNotReadableException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.method.annotation.MethodArgumentTypeMismatchException;
 
+import java.io.IOException;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CompletionException;
 
+@Slf4j
 @RestControllerAdvice(assignableTypes = GeoController.class)
 public class GlobalExceptionHandler {
 
@@ -29,8 +34,69 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>(response, HttpStatus.BAD_REQUEST);
     }
 
+    @ExceptionHandler(MethodArgumentTypeMismatchException.class)
+    public ResponseEntity<Map<String, Object>> handleMethodArgumentTypeMismatchException(MethodArgumentTypeMismatchException e) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("message", "参数 " + e.getName() + " 的取值不正确: " + e.getValue());
+        response.put("status", HttpStatus.BAD_REQUEST.value());
+        return new ResponseEntity<>(response, HttpStatus.BAD_REQUEST);
+    }
+
+    @ExceptionHandler(MapServiceException.class)
+    public ResponseEntity<Map<String, Object>> handleMapServiceException(MapServiceException e) {
+        // 服务商故障不是本服务的内部错误，按失败原因返回 429、502 或 503，便于调用方决定是否重试
+        log.warn("地图服务调用失败: provider={}, status={}, reason={}, message={}",
+                e.getProvider(), e.getStatus(), e.getReason(), e.getMessage());
+        HttpStatus status = HttpStatus.valueOf(e.getReason().getHttpStatus());
+        Map<String, Object> response = new HashMap<>();
+        response.put("message", e.getMessage());
+        response.put("status", status.value());
+        response.put("reason", e.getReason().name());
+        return new ResponseEntity<>(response, status);
+    }
+
+    @ExceptionHandler(UnsupportedOperationException.class)
+    public ResponseEntity<Map<String, Object>> handleUnsupportedOperationException(UnsupportedOperationException e) {
+        // 所选地图服务不支持该操作，例如本地地图服务不能计算驾车距离
+        Map<String, Object> response = new HashMap<>();
+        response.put("message", e.getMessage());
+        response.put("status", HttpStatus.NOT_IMPLEMENTED.value());
+        return new ResponseEntity<>(response, HttpStatus.NOT_IMPLEMENTED);
+    }
+
+    @ExceptionHandler(IOException.class)
+    public ResponseEntity<Map<String, Object>> handleIOException(IOException e) {
+        // 网络异常重试后仍然失败，说明服务商当前不可达
+        log.warn("地图服务请求失败", e);
+        Map<String, Object> response = new HashMap<>();
+        response.put("message", "地图服务请求失败");
+        response.put("status", HttpStatus.BAD_GATEWAY.value());
+        response.put("reason", MapServiceException.Reason.UNAVAILABLE.name());
+        return new ResponseEntity<>(response, HttpStatus.BAD_GATEWAY);
+    }
+
+    @ExceptionHandler(CompletionException.class)
+    public ResponseEntity<Map<String, Object>> handleCompletionException(CompletionException e) {
+        // 异步接口的异常被包装在 CompletionException 中，按原始异常处理
+        if (e.getCause() instanceof IllegalArgumentException) {
+            return handleIllegalArgumentException((IllegalArgumentException) e.getCause());
+        }
+        if (e.getCause() instanceof MapServiceException) {
+            return handleMapServiceException((MapServiceException) e.getCause());
+        }
+        if (e.getCause() instanceof UnsupportedOperationException) {
+            return handleUnsupportedOperationException((UnsupportedOperationException) e.getCause());
+        }
+        if (e.getCause() instanceof IOException) {
+            return handleIOException((IOException) e.getCause());
+        }
+        return handleException(e);
+    }
+
     @ExceptionHandler(Exception.class)
     public ResponseEntity<Map<String, Object>> handleException(Exception e) {
+        // 响应中不暴露内部细节，原始异常记录到日志中
+        log.error("请求处理失败", e);
         Map<String, Object> response = new HashMap<>();
         response.put("message", "服务器内部错误");
         response.put("status", HttpStatus.INTERNAL_SERVER_ERROR.value());
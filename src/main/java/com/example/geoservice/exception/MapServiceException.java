@@ -0,0 +1,119 @@
+package com.example.geoservice.exception;
+
+/**
+ * 地图服务商调用失败
+ * <p>
+ * 按失败原因区分可以重试的临时错误和重试无意义的错误，并决定接口返回的 HTTP 状态码
+ * </p>
+ */
+public class MapServiceException extends RuntimeException {
+    /**
+     * 调用失败的原因
+     */
+    public enum Reason {
+        /**
+         * 服务商内部错误或返回 5xx，可以重试
+         */
+        UNAVAILABLE(true, 502),
+        /**
+         * 超过服务商的每秒请求数或并发数限制，退避后可以重试
+         */
+        RATE_LIMITED(true, 429),
+        /**
+         * 服务商的每日配额已用完，当天重试无意义
+         */
+        QUOTA_EXCEEDED(false, 429),
+        /**
+         * 服务商拒绝请求，例如密钥无效或参数错误，重试无意义
+         */
+        REJECTED(false, 502),
+        /**
+         * 熔断器打开，未调用服务商直接失败
+         */
+        CIRCUIT_OPEN(false, 503),
+        /**
+         * 对该服务商的并发调用数已满，未调用服务商直接失败
+         */
+        BULKHEAD_FULL(false, 503);
+
+        private final boolean retryable;
+        private final int httpStatus;
+
+        Reason(boolean retryable, int httpStatus) {
+            this.retryable = retryable;
+            this.httpStatus = httpStatus;
+        }
+
+        /**
+         * 是否可以重试
+         */
+        public boolean isRetryable() {
+            return retryable;
+        }
+
+        /**
+         * 接口返回的 HTTP 状态码
+         */
+        public int getHttpStatus() {
+            return httpStatus;
+        }
+
+        /**
+         * 根据服务商响应的 HTTP 状态码判断失败原因
+         *
+         * @param code 非 2xx 的 HTTP 状态码
+         * @return 失败原因
+         */
+        public static Reason ofHttpStatus(int code) {
+            if (code == 429) {
+                return RATE_LIMITED;
+            }
+            return code >= 500 ? UNAVAILABLE : REJECTED;
+        }
+    }
+
+    private final String provider;
+    private final String status;
+    private final Reason reason;
+
+    /**
+     * 构造函数
+     *
+     * @param provider 服务商名称
+     * @param status   服务商返回的状态码，未调用服务商时为 null
+     * @param reason   失败原因
+     * @param message  错误信息
+     */
+    public MapServiceException(String provider, String status, Reason reason, String message) {
+        super(message);
+        this.provider = provider;
+        this.status = status;
+        this.reason = reason;
+    }
+
+    public String getProvider() {
+        return provider;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public Reason getReason() {
+        return reason;
+    }
+
+    /**
+     * 是否可以重试
+     */
+    public boolean isRetryable() {
+        return reason.isRetryable();
+    }
+
+    /**
+     * 是否由服务商返回，熔断、舱壁和客户端限流等未调用服务商的失败返回 false
+     */
+    public boolean isFromProvider() {
+        return status != null;
+    }
+}
@@ -0,0 +1,302 @@
+package com.example.geoservice.geo;
+
+/**
+ * 中文地址规范化工具类
+ * <p>
+ * 将写法不同但含义相同的地址转换为同一个键，用于缓存、请求合并和批量去重：
+ * 1. 全角字符转半角，英文字母统一为小写
+ * 2. 去除空白和标点，数字之间的连接符统一为 "-"，数字后的 "#" 统一为 "号"
+ * 3. 开头的省级行政区统一为简称，省级之后的地级市去掉后缀："广东省深圳市" 与 "广东深圳" 得到相同的键；
+ *    区、县、旗和没有省级前缀的市保留后缀，同名的区、县、市（例如朝阳区、朝阳县、朝阳市）得到不同的键
+ * 4. 门牌号、楼栋、楼层等前的中文数字转换为阿拉伯数字："八十八号" 与 "88号" 得到相同的键
+ * 5. 每次调用只分配一个字符数组和结果字符串，可以在每个请求上执行
+ * 6. 键只用于比较，不发送给服务商；发送给服务商的地址使用 {@link #clean(String)}，只做全角转半角和空白整理
+ * </p>
+ */
+public final class AddressNormalizer {
+    /**
+     * 省级行政区简称，按长度从长到短排列，保证 "黑龙江" 先于其他前缀匹配
+     */
+    private static final String[] PROVINCES = {
+            "黑龙江", "内蒙古",
+            "北京", "天津", "上海", "重庆", "河北", "山西", "辽宁", "吉林", "江苏", "浙江", "安徽", "福建",
+            "江西", "山东", "河南", "湖北", "湖南", "广东", "海南", "四川", "贵州", "云南", "陕西", "甘肃",
+            "青海", "台湾", "广西", "西藏", "宁夏", "新疆", "香港", "澳门"
+    };
+
+    /**
+     * 省级行政区后缀，按长度从长到短排列
+     */
+    private static final String[] PROVINCE_SUFFIXES = {"维吾尔自治区", "壮族自治区", "回族自治区", "特别行政区", "自治区", "省", "市"};
+
+    /**
+     * 地级行政区后缀，只在省级前缀之后去掉：同一省内不会有两个同名的地级行政区
+     */
+    private static final String[] CITY_SUFFIXES = {"自治州", "地区", "市", "盟"};
+
+    /**
+     * 地级行政区名称的长度范围（不含后缀）
+     */
+    private static final int MIN_NAME_LENGTH = 2;
+    private static final int MAX_NAME_LENGTH = 4;
+
+    /**
+     * 不会出现在地级行政区名称中的字，遇到时停止匹配，避免把道路、门牌误认为行政区
+     */
+    private static final String NAME_STOP_CHARS = "省市区县旗盟路街道巷弄号镇乡村";
+
+    /**
+     * 中文数字后跟这些字时才转换为阿拉伯数字，避免改写 "三里屯"、"十里河" 等地名
+     */
+    private static final String NUMERAL_UNITS = "号栋幢楼层单室弄巷";
+
+    private static final String CHINESE_DIGITS = "零一二三四五六七八九";
+
+    private AddressNormalizer() {
+    }
+
+    /**
+     * 生成地址的规范化键
+     *
+     * @param address 原始地址
+     * @return 规范化键，地址为空或只包含空白、标点时返回空字符串
+     */
+    public static String key(String address) {
+        if (address == null || address.isEmpty()) {
+            return "";
+        }
+        int n = address.length();
+        // 前 n 个字符存放折叠后的地址，其余存放输出，中文数字转换后最多变为 2.5 倍长
+        char[] buffer = new char[n * 4 + 4];
+        int length = fold(address, buffer);
+        int out = n;
+        int position = 0;
+
+        for (String province : PROVINCES) {
+            if (startsWith(buffer, 0, length, province)) {
+                province.getChars(0, province.length(), buffer, out);
+                out += province.length();
+                position = province.length() + matchSuffix(buffer, province.length(), length, PROVINCE_SUFFIXES);
+                int suffixStart = matchName(buffer, position, length, CITY_SUFFIXES);
+                if (suffixStart > 0) {
+                    System.arraycopy(buffer, position, buffer, out, suffixStart - position);
+                    out += suffixStart - position;
+                    position = suffixStart + matchSuffix(buffer, suffixStart, length, CITY_SUFFIXES);
+                }
+                break;
+            }
+        }
+
+        while (position < length) {
+            char c = buffer[position];
+            if (chineseDigit(c) < 0 && chineseUnit(c) == 0) {
+                buffer[out++] = c;
+                position++;
+                continue;
+            }
+            int end = position + 1;
+            while (end < length && (chineseDigit(buffer[end]) >= 0 || chineseUnit(buffer[end]) > 0)) {
+                end++;
+            }
+            if (end < length && NUMERAL_UNITS.indexOf(buffer[end]) >= 0) {
+                out = writeNumber(buffer, position, end, out);
+            } else {
+                System.arraycopy(buffer, position, buffer, out, end - position);
+                out += end - position;
+            }
+            position = end;
+        }
+        return new String(buffer, n, out - n);
+    }
+
+    /**
+     * 整理发送给服务商的地址：全角字母、数字和符号转半角，连续空白合并为一个空格并去除首尾空白
+     *
+     * @param address 原始地址
+     * @return 整理后的地址，无需整理时返回原字符串
+     */
+    public static String clean(String address) {
+        if (address == null) {
+            return null;
+        }
+        char[] result = new char[address.length()];
+        int length = 0;
+        boolean pendingSpace = false;
+        for (int i = 0; i < address.length(); i++) {
+            char c = foldChar(address.charAt(i));
+            if (Character.isWhitespace(c)) {
+                pendingSpace = length > 0;
+                continue;
+            }
+            if (pendingSpace) {
+                result[length++] = ' ';
+                pendingSpace = false;
+            }
+            result[length++] = c;
+        }
+        if (length == address.length()) {
+            int i = 0;
+            while (i < length && result[i] == address.charAt(i)) {
+                i++;
+            }
+            if (i == length) {
+                return address;
+            }
+        }
+        return new String(result, 0, length);
+    }
+
+    /**
+     * 折叠全角、大小写，去除空白和标点
+     *
+     * @return 折叠后的长度
+     */
+    private static int fold(String address, char[] buffer) {
+        int length = 0;
+        for (int i = 0; i < address.length(); i++) {
+            char c = foldChar(address.charAt(i));
+            if (c >= 'A' && c <= 'Z') {
+                buffer[length++] = (char) (c + ('a' - 'A'));
+            } else if (c < 0x80 ? isAsciiLetterOrDigit(c) : Character.isLetterOrDigit(c) || Character.isSurrogate(c) || c == '〇') {
+                buffer[length++] = c < 0x80 ? c : Character.toLowerCase(c);
+            } else if (length > 0 && isAsciiDigit(buffer[length - 1])) {
+                if (c == '#') {
+                    buffer[length++] = '号';
+                } else if (isDash(c) && i + 1 < address.length() && isAsciiDigit(foldChar(address.charAt(i + 1)))) {
+                    buffer[length++] = '-';
+                }
+            }
+        }
+        return length;
+    }
+
+    private static char foldChar(char c) {
+        if (c == '　') {
+            return ' ';
+        }
+        return c >= '！' && c <= '～' ? (char) (c - 0xFEE0) : c;
+    }
+
+    private static boolean isAsciiLetterOrDigit(char c) {
+        return isAsciiDigit(c) || (c >= 'a' && c <= 'z');
+    }
+
+    private static boolean isAsciiDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean isDash(char c) {
+        return c == '-' || c == '‐' || c == '–' || c == '—' || c == '−';
+    }
+
+    private static boolean startsWith(char[] chars, int from, int to, String prefix) {
+        if (to - from < prefix.length()) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length(); i++) {
+            if (chars[from + i] != prefix.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 匹配指定位置的后缀
+     *
+     * @return 匹配到的后缀长度，没有匹配时返回 0
+     */
+    private static int matchSuffix(char[] chars, int from, int to, String[] suffixes) {
+        for (String suffix : suffixes) {
+            if (startsWith(chars, from, to, suffix)) {
+                return suffix.length();
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * 匹配以指定后缀结尾的行政区名称
+     *
+     * @return 后缀的起始位置，没有匹配时返回 -1
+     */
+    private static int matchName(char[] chars, int from, int to, String[] suffixes) {
+        for (int i = from; i < to && i < from + MAX_NAME_LENGTH; i++) {
+            char c = chars[i];
+            if (Character.UnicodeScript.of(c) != Character.UnicodeScript.HAN || NAME_STOP_CHARS.indexOf(c) >= 0) {
+                return -1;
+            }
+            if (i + 1 - from >= MIN_NAME_LENGTH && matchSuffix(chars, i + 1, to, suffixes) > 0) {
+                return i + 1;
+            }
+        }
+        return -1;
+    }
+
+    private static int chineseDigit(char c) {
+        if (c == '〇') {
+            return 0;
+        }
+        if (c == '两') {
+            return 2;
+        }
+        return CHINESE_DIGITS.indexOf(c);
+    }
+
+    private static int chineseUnit(char c) {
+        switch (c) {
+            case '十':
+                return 10;
+            case '百':
+                return 100;
+            case '千':
+                return 1000;
+            default:
+                return 0;
+        }
+    }
+
+    /**
+     * 将中文数字转换为阿拉伯数字写入输出位置
+     * <p>
+     * 不含 "十"、"百"、"千" 时逐位转换（"一零八" 为 108），否则按位值累加（"一百零八" 为 108，"十一" 为 11）
+     * </p>
+     *
+     * @return 写入后的输出位置
+     */
+    private static int writeNumber(char[] buffer, int from, int to, int out) {
+        boolean positional = false;
+        for (int i = from; i < to; i++) {
+            positional |= chineseUnit(buffer[i]) > 0;
+        }
+        if (!positional) {
+            for (int i = from; i < to; i++) {
+                buffer[out++] = (char) ('0' + chineseDigit(buffer[i]));
+            }
+            return out;
+        }
+        int total = 0;
+        int digit = -1;
+        for (int i = from; i < to; i++) {
+            int unit = chineseUnit(buffer[i]);
+            if (unit > 0) {
+                total += (digit < 0 ? 1 : digit) * unit;
+                digit = -1;
+            } else {
+                digit = chineseDigit(buffer[i]);
+            }
+        }
+        if (digit > 0) {
+            total += digit;
+        }
+        int digits = 1;
+        for (int value = total; value >= 10; value /= 10) {
+            digits++;
+        }
+        for (int i = out + digits - 1; i >= out; i--) {
+            buffer[i] = (char) ('0' + total % 10);
+            total /= 10;
+        }
+        return out + digits;
+    }
+}
@@ -0,0 +1,272 @@
+package com.example.geoservice.geo;
+
+import com.example.geoservice.model.AddressInfo;
+import com.example.geoservice.model.Location;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 坐标系转换工具类
+ * <p>
+ * 在 WGS-84、GCJ-02 和 BD-09 之间转换坐标：
+ * 1. WGS-84 与 GCJ-02 之间按国测局公开的加偏算法转换，GCJ-02 到 WGS-84 没有解析解，迭代求逆，误差小于 1 毫米
+ * 2. GCJ-02 与 BD-09 之间按百度的加偏算法转换，WGS-84 与 BD-09 之间经由 GCJ-02 转换
+ * 3. 只有加偏范围内的坐标在 WGS-84 与 GCJ-02 之间加偏，加偏范围是与常用开源实现一致的经纬度矩形，
+ *    不是国境线；按国境判断区域使用 {@link Region#of(double, double)}
+ * 4. 批量接口在纬度、经度两个基本类型数组上原地转换，每一步转换是一次独立的循环，不产生与坐标数量相关的对象分配
+ * </p>
+ */
+public final class CoordinateConverter {
+    /**
+     * GCJ-02 加偏算法使用的克拉索夫斯基椭球长半轴（米）
+     */
+    private static final double KRASOVSKY_A = 6378245.0;
+
+    /**
+     * 克拉索夫斯基椭球第一偏心率的平方
+     */
+    private static final double KRASOVSKY_EE = 0.00669342162296594323;
+
+    private static final double BD09_X_PI = Math.PI * 3000.0 / 180.0;
+
+    /**
+     * GCJ-02 迭代求逆的收敛阈值（度），约 0.01 毫米
+     */
+    private static final double INVERSE_TOLERANCE = 1e-10;
+
+    /**
+     * GCJ-02 迭代求逆的最大迭代次数，通常 2 到 3 次即收敛
+     */
+    private static final int INVERSE_MAX_ITERATIONS = 10;
+
+    /**
+     * GCJ-02 加偏范围，与常用开源实现一致的经纬度矩形。
+     * 周边国家的部分坐标也落在矩形内并会被加偏，这与服务商的行为一致，不能用于判断坐标是否在中国境内
+     */
+    private static final double OFFSET_MIN_LAT = 0.8293;
+    private static final double OFFSET_MAX_LAT = 55.8271;
+    private static final double OFFSET_MIN_LNG = 72.004;
+    private static final double OFFSET_MAX_LNG = 137.8347;
+
+    private CoordinateConverter() {
+    }
+
+    /**
+     * 在两个坐标系之间原地批量转换坐标
+     *
+     * @param source 原坐标系
+     * @param target 目标坐标系
+     * @param lats   纬度数组，转换结果写回该数组
+     * @param lngs   经度数组，转换结果写回该数组
+     */
+    public static void convert(CoordinateSystem source, CoordinateSystem target, double[] lats, double[] lngs) {
+        if (lats.length != lngs.length) {
+            throw new IllegalArgumentException("纬度和经度数组长度不一致");
+        }
+        convert(source, target, lats, lngs, 0, lats.length);
+    }
+
+    /**
+     * 在两个坐标系之间原地批量转换数组中的一段坐标
+     *
+     * @param source 原坐标系
+     * @param target 目标坐标系
+     * @param lats   纬度数组，转换结果写回该数组
+     * @param lngs   经度数组，转换结果写回该数组
+     * @param offset 第一个坐标的下标
+     * @param length 坐标数
+     */
+    public static void convert(CoordinateSystem source, CoordinateSystem target,
+                               double[] lats, double[] lngs, int offset, int length) {
+        int end = offset + length;
+        if (offset < 0 || length < 0 || end > lats.length || end > lngs.length) {
+            throw new IndexOutOfBoundsException("坐标范围超出数组: " + offset + "+" + length);
+        }
+        if (source == target) {
+            return;
+        }
+        // 先统一转换为 GCJ-02，再转换为目标坐标系
+        if (source == CoordinateSystem.WGS84) {
+            wgs84ToGcj02(lats, lngs, offset, end);
+        } else if (source == CoordinateSystem.BD09) {
+            bd09ToGcj02(lats, lngs, offset, end);
+        }
+        if (target == CoordinateSystem.WGS84) {
+            gcj02ToWgs84(lats, lngs, offset, end);
+        } else if (target == CoordinateSystem.BD09) {
+            gcj02ToBd09(lats, lngs, offset, end);
+        }
+    }
+
+    /**
+     * 将位置转换到目标坐标系
+     *
+     * @param location      位置，未标明坐标系时视为默认坐标系
+     * @param defaultSource 默认坐标系
+     * @param target        目标坐标系
+     * @return 已在目标坐标系中时返回原位置，否则返回标明目标坐标系的新位置
+     */
+    public static Location convert(Location location, CoordinateSystem defaultSource, CoordinateSystem target) {
+        CoordinateSystem source = location.getCoordinateSystem() == null ? defaultSource : location.getCoordinateSystem();
+        if (source == target) {
+            return location;
+        }
+        double[] lat = {location.getLat()};
+        double[] lng = {location.getLng()};
+        convert(source, target, lat, lng, 0, 1);
+        Location result = new Location();
+        result.setLat(lat[0]);
+        result.setLng(lng[0]);
+        result.setCoordinateSystem(target);
+        return result;
+    }
+
+    /**
+     * 将位置列表转换到目标坐标系
+     *
+     * @param locations     位置列表，未标明坐标系的位置视为默认坐标系
+     * @param defaultSource 默认坐标系
+     * @param target        目标坐标系
+     * @return 全部已在目标坐标系中时返回原列表，否则返回新列表
+     */
+    public static List<Location> convert(List<Location> locations, CoordinateSystem defaultSource, CoordinateSystem target) {
+        List<Location> result = null;
+        for (int i = 0; i < locations.size(); i++) {
+            Location location = locations.get(i);
+            Location converted = convert(location, defaultSource, target);
+            if (converted != location && result == null) {
+                result = new ArrayList<>(locations.subList(0, i));
+            }
+            if (result != null) {
+                result.add(converted);
+            }
+        }
+        return result == null ? locations : result;
+    }
+
+    /**
+     * 将地址信息的坐标原地转换到目标坐标系，并标明坐标系
+     *
+     * @param addressInfo 地址信息
+     * @param source      地址信息坐标所在的坐标系
+     * @param target      目标坐标系
+     */
+    public static void convert(AddressInfo addressInfo, CoordinateSystem source, CoordinateSystem target) {
+        if (source != target) {
+            double[] lat = {addressInfo.getLatitude()};
+            double[] lng = {addressInfo.getLongitude()};
+            convert(source, target, lat, lng, 0, 1);
+            addressInfo.setLatitude(lat[0]);
+            addressInfo.setLongitude(lng[0]);
+        }
+        addressInfo.setCoordinateSystem(target);
+    }
+
+    private static boolean inOffsetArea(double lat, double lng) {
+        return lat >= OFFSET_MIN_LAT && lat <= OFFSET_MAX_LAT && lng >= OFFSET_MIN_LNG && lng <= OFFSET_MAX_LNG;
+    }
+
+    private static void wgs84ToGcj02(double[] lats, double[] lngs, int from, int to) {
+        double[] offset = new double[2];
+        for (int i = from; i < to; i++) {
+            double lat = lats[i];
+            double lng = lngs[i];
+            if (inOffsetArea(lat, lng)) {
+                offset(lat, lng, offset);
+                lats[i] = lat + offset[0];
+                lngs[i] = lng + offset[1];
+            }
+        }
+    }
+
+    private static void gcj02ToWgs84(double[] lats, double[] lngs, int from, int to) {
+        double[] offset = new double[2];
+        for (int i = from; i < to; i++) {
+            double lat = lats[i];
+            double lng = lngs[i];
+            if (!inOffsetArea(lat, lng)) {
+                continue;
+            }
+            // 以加偏后的坐标作为初值，按正向加偏结果与目标的差值逐步修正
+            offset(lat, lng, offset);
+            double wgsLat = lat - offset[0];
+            double wgsLng = lng - offset[1];
+            for (int iteration = 0; iteration < INVERSE_MAX_ITERATIONS; iteration++) {
+                offset(wgsLat, wgsLng, offset);
+                double dLat = wgsLat + offset[0] - lat;
+                double dLng = wgsLng + offset[1] - lng;
+                wgsLat -= dLat;
+                wgsLng -= dLng;
+                if (Math.abs(dLat) < INVERSE_TOLERANCE && Math.abs(dLng) < INVERSE_TOLERANCE) {
+                    break;
+                }
+            }
+            lats[i] = wgsLat;
+            lngs[i] = wgsLng;
+        }
+    }
+
+    private static void gcj02ToBd09(double[] lats, double[] lngs, int from, int to) {
+        for (int i = from; i < to; i++) {
+            double x = lngs[i];
+            double y = lats[i];
+            double z = Math.sqrt(x * x + y * y) + 0.00002 * Math.sin(y * BD09_X_PI);
+            double theta = Math.atan2(y, x) + 0.000003 * Math.cos(x * BD09_X_PI);
+            lngs[i] = z * Math.cos(theta) + 0.0065;
+            lats[i] = z * Math.sin(theta) + 0.006;
+        }
+    }
+
+    private static void bd09ToGcj02(double[] lats, double[] lngs, int from, int to) {
+        for (int i = from; i < to; i++) {
+            double x = lngs[i] - 0.0065;
+            double y = lats[i] - 0.006;
+            double z = Math.sqrt(x * x + y * y) - 0.00002 * Math.sin(y * BD09_X_PI);
+            double theta = Math.atan2(y, x) - 0.000003 * Math.cos(x * BD09_X_PI);
+            lngs[i] = z * Math.cos(theta);
+            lats[i] = z * Math.sin(theta);
+        }
+    }
+
+    /**
+     * 计算 GCJ-02 相对 WGS-84 的纬度和经度偏移（度）
+     * <p>
+     * 纬度和经度偏移共用相同的三角函数项，sin(3a) 由 sin(a) 按三倍角公式求出，
+     * 每个坐标只需计算 8 次三角函数
+     * </p>
+     *
+     * @param lat    WGS-84 纬度
+     * @param lng    WGS-84 经度
+     * @param offset 输出：纬度偏移和经度偏移
+     */
+    private static void offset(double lat, double lng, double[] offset) {
+        double x = lng - 105.0;
+        double y = lat - 35.0;
+        double sin2x = Math.sin(2.0 * x * Math.PI);
+        double sinX3 = Math.sin(x / 3.0 * Math.PI);
+        double sinY3 = Math.sin(y / 3.0 * Math.PI);
+        double common = (20.0 * tripleAngle(sin2x) + 20.0 * sin2x) * 2.0 / 3.0;
+        double dLat = -100.0 + 2.0 * x + 3.0 * y + 0.2 * y * y + 0.1 * x * y + 0.2 * Math.sqrt(Math.abs(x))
+                + common
+                + (20.0 * tripleAngle(sinY3) + 40.0 * sinY3) * 2.0 / 3.0
+                + (160.0 * Math.sin(y / 12.0 * Math.PI) + 320.0 * Math.sin(y * Math.PI / 30.0)) * 2.0 / 3.0;
+        double dLng = 300.0 + x + 2.0 * y + 0.1 * x * x + 0.1 * x * y + 0.1 * Math.sqrt(Math.abs(x))
+                + common
+                + (20.0 * tripleAngle(sinX3) + 40.0 * sinX3) * 2.0 / 3.0
+                + (150.0 * Math.sin(x / 12.0 * Math.PI) + 300.0 * Math.sin(x / 30.0 * Math.PI)) * 2.0 / 3.0;
+        double radLat = Math.toRadians(lat);
+        double sinLat = Math.sin(radLat);
+        double magic = 1 - KRASOVSKY_EE * sinLat * sinLat;
+        double sqrtMagic = Math.sqrt(magic);
+        offset[0] = dLat * 180.0 / ((KRASOVSKY_A * (1 - KRASOVSKY_EE)) / (magic * sqrtMagic) * Math.PI);
+        offset[1] = dLng * 180.0 / (KRASOVSKY_A / sqrtMagic * Math.cos(radLat) * Math.PI);
+    }
+
+    /**
+     * 三倍角公式：由 sin(a) 求 sin(3a)
+     */
+    private static double tripleAngle(double sin) {
+        return 3.0 * sin - 4.0 * sin * sin * sin;
+    }
+}
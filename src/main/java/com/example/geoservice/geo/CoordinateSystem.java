@@ -0,0 +1,23 @@
+package com.example.geoservice.geo;
+
+/**
+ * 坐标系
+ * <p>
+ * 国内地图服务商的坐标均经过加偏，同一地点在不同坐标系下相差数百米，
+ * 不同坐标系的坐标不能直接比较或计算距离
+ * </p>
+ */
+public enum CoordinateSystem {
+    /**
+     * GPS 使用的 WGS-84 坐标，Google Maps（中国大陆以外）使用
+     */
+    WGS84,
+    /**
+     * 国测局 GCJ-02 坐标（火星坐标），腾讯地图、高德地图使用，中国境外与 WGS-84 相同
+     */
+    GCJ02,
+    /**
+     * 百度 BD-09 坐标，在 GCJ-02 的基础上再次加偏
+     */
+    BD09
+}
@@ -0,0 +1,95 @@
+package com.example.geoservice.geo;
+
+/**
+ * GeoHash 编码工具类
+ * <p>
+ * 将经纬度编码为定长的二进制 GeoHash：
+ * 1. 编码结果以 long 表示，每个精度等级占 5 位，最高支持 12 级
+ * 2. 同一网格内的坐标编码相同，可用作空间量化的缓存键
+ * 3. 提供各精度等级网格尺寸的估算，用于按误差容忍度选择精度
+ * </p>
+ */
+public final class GeoHash {
+    /**
+     * 支持的最大精度等级
+     */
+    public static final int MAX_PRECISION = 12;
+
+    /**
+     * 赤道上每度经度（或每度纬度）对应的近似米数
+     */
+    private static final double METERS_PER_DEGREE = 111320.0;
+
+    private GeoHash() {
+    }
+
+    /**
+     * 计算坐标的 GeoHash 编码
+     *
+     * @param lat       纬度
+     * @param lng       经度
+     * @param precision 精度等级（1-12），等同于 GeoHash 字符串长度
+     * @return GeoHash 编码，低位对齐
+     */
+    public static long encode(double lat, double lng, int precision) {
+        if (precision < 1 || precision > MAX_PRECISION) {
+            throw new IllegalArgumentException("GeoHash精度必须在1到" + MAX_PRECISION + "之间: " + precision);
+        }
+        double minLat = -90, maxLat = 90;
+        double minLng = -180, maxLng = 180;
+        long bits = 0;
+        int totalBits = precision * 5;
+        for (int i = 0; i < totalBits; i++) {
+            bits <<= 1;
+            // 偶数位编码经度，奇数位编码纬度
+            if ((i & 1) == 0) {
+                double mid = (minLng + maxLng) / 2;
+                if (lng >= mid) {
+                    bits |= 1;
+                    minLng = mid;
+                } else {
+                    maxLng = mid;
+                }
+            } else {
+                double mid = (minLat + maxLat) / 2;
+                if (lat >= mid) {
+                    bits |= 1;
+                    minLat = mid;
+                } else {
+                    maxLat = mid;
+                }
+            }
+        }
+        return bits;
+    }
+
+    /**
+     * 估算指定精度等级下网格的对角线长度（按赤道处计算，为该精度的上界）
+     *
+     * @param precision 精度等级
+     * @return 网格对角线长度（米）
+     */
+    public static double cellDiagonalMeters(int precision) {
+        int totalBits = precision * 5;
+        int lngBits = (totalBits + 1) / 2;
+        int latBits = totalBits / 2;
+        double width = 360.0 / (1L << lngBits) * METERS_PER_DEGREE;
+        double height = 180.0 / (1L << latBits) * METERS_PER_DEGREE;
+        return Math.sqrt(width * width + height * height);
+    }
+
+    /**
+     * 选择网格对角线不小于给定距离的最高精度等级
+     *
+     * @param meters 距离（米）
+     * @return 精度等级
+     */
+    public static int precisionForMeters(double meters) {
+        for (int precision = MAX_PRECISION; precision > 1; precision--) {
+            if (cellDiagonalMeters(precision) >= meters) {
+                return precision;
+            }
+        }
+        return 1;
+    }
+}
@@ -0,0 +1,117 @@
+package com.example.geoservice.geo;
+
+/**
+ * 地理计算工具类
+ * <p>
+ * 基于球面模型和 WGS-84 椭球的基础地理计算，仅使用基本类型，不产生对象分配
+ * </p>
+ */
+public final class GeoMath {
+    /**
+     * 地球平均半径（米）
+     */
+    public static final double EARTH_RADIUS = 6371008.8;
+
+    /**
+     * WGS-84 椭球长半轴（米）
+     */
+    private static final double WGS84_A = 6378137.0;
+
+    /**
+     * WGS-84 椭球扁率
+     */
+    private static final double WGS84_F = 1 / 298.257223563;
+
+    /**
+     * WGS-84 椭球短半轴（米）
+     */
+    private static final double WGS84_B = (1 - WGS84_F) * WGS84_A;
+
+    /**
+     * Vincenty 公式的最大迭代次数，近对跖点时可能不收敛
+     */
+    private static final int VINCENTY_MAX_ITERATIONS = 100;
+
+    private GeoMath() {
+    }
+
+    /**
+     * 使用 Haversine 公式计算两点之间的大圆距离
+     *
+     * @param lat1 起点纬度
+     * @param lng1 起点经度
+     * @param lat2 终点纬度
+     * @param lng2 终点经度
+     * @return 大圆距离（米）
+     */
+    public static double haversine(double lat1, double lng1, double lat2, double lng2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLng = Math.toRadians(lng2 - lng1);
+        double sinLat = Math.sin(dLat / 2);
+        double sinLng = Math.sin(dLng / 2);
+        double a = sinLat * sinLat
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2)) * sinLng * sinLng;
+        return 2 * EARTH_RADIUS * Math.asin(Math.min(1.0, Math.sqrt(a)));
+    }
+
+    /**
+     * 使用 Vincenty 反算公式计算两点之间在 WGS-84 椭球上的测地线距离
+     * <p>
+     * 精度约为 0.5 毫米，比 Haversine 公式多数次迭代；近对跖点不收敛时退回 Haversine 公式
+     * </p>
+     *
+     * @param lat1 起点纬度
+     * @param lng1 起点经度
+     * @param lat2 终点纬度
+     * @param lng2 终点经度
+     * @return 测地线距离（米）
+     */
+    public static double vincenty(double lat1, double lng1, double lat2, double lng2) {
+        double l = Math.toRadians(lng2 - lng1);
+        double u1 = Math.atan((1 - WGS84_F) * Math.tan(Math.toRadians(lat1)));
+        double u2 = Math.atan((1 - WGS84_F) * Math.tan(Math.toRadians(lat2)));
+        double sinU1 = Math.sin(u1);
+        double cosU1 = Math.cos(u1);
+        double sinU2 = Math.sin(u2);
+        double cosU2 = Math.cos(u2);
+
+        double lambda = l;
+        double previous;
+        double sinSigma;
+        double cosSigma;
+        double sigma;
+        double cosSqAlpha;
+        double cos2SigmaM;
+        int iterations = 0;
+        do {
+            double sinLambda = Math.sin(lambda);
+            double cosLambda = Math.cos(lambda);
+            double x = cosU2 * sinLambda;
+            double y = cosU1 * sinU2 - sinU1 * cosU2 * cosLambda;
+            sinSigma = Math.sqrt(x * x + y * y);
+            if (sinSigma == 0) {
+                return 0;
+            }
+            cosSigma = sinU1 * sinU2 + cosU1 * cosU2 * cosLambda;
+            sigma = Math.atan2(sinSigma, cosSigma);
+            double sinAlpha = cosU1 * cosU2 * sinLambda / sinSigma;
+            cosSqAlpha = 1 - sinAlpha * sinAlpha;
+            // 两点都在赤道上时 cosSqAlpha 为 0
+            cos2SigmaM = cosSqAlpha == 0 ? 0 : cosSigma - 2 * sinU1 * sinU2 / cosSqAlpha;
+            double c = WGS84_F / 16 * cosSqAlpha * (4 + WGS84_F * (4 - 3 * cosSqAlpha));
+            previous = lambda;
+            lambda = l + (1 - c) * WGS84_F * sinAlpha
+                    * (sigma + c * sinSigma * (cos2SigmaM + c * cosSigma * (-1 + 2 * cos2SigmaM * cos2SigmaM)));
+        } while (Math.abs(lambda - previous) > 1e-12 && ++iterations < VINCENTY_MAX_ITERATIONS);
+        if (iterations >= VINCENTY_MAX_ITERATIONS) {
+            return haversine(lat1, lng1, lat2, lng2);
+        }
+
+        double uSq = cosSqAlpha * (WGS84_A * WGS84_A - WGS84_B * WGS84_B) / (WGS84_B * WGS84_B);
+        double a = 1 + uSq / 16384 * (4096 + uSq * (-768 + uSq * (320 - 175 * uSq)));
+        double b = uSq / 1024 * (256 + uSq * (-128 + uSq * (74 - 47 * uSq)));
+        double deltaSigma = b * sinSigma * (cos2SigmaM + b / 4 * (cosSigma * (-1 + 2 * cos2SigmaM * cos2SigmaM)
+                - b / 6 * cos2SigmaM * (-3 + 4 * sinSigma * sinSigma) * (-3 + 4 * cos2SigmaM * cos2SigmaM)));
+        return WGS84_B * a * (sigma - deltaSigma);
+    }
+}
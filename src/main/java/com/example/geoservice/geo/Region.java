@@ -0,0 +1,129 @@
+package com.example.geoservice.geo;
+
+/**
+ * 坐标所在的地理区域
+ * <p>
+ * 用于按区域选择服务商和估算距离。中国境内（含港澳台）按简化的国境多边形判断，
+ * 顶点间距为几十到一百多公里，只有紧贴国境线的坐标可能被误判，周边国家的城市不会被判断为境内。
+ * 多边形的海上部分沿近海划定，不包含日本、韩国和东南亚国家的岛屿。
+ * 坐标系转换的加偏范围是另一个经纬度矩形，见 {@link CoordinateConverter}
+ * </p>
+ */
+public enum Region {
+    /**
+     * 中国境内
+     */
+    CHINA,
+    /**
+     * 中国境外
+     */
+    OVERSEAS,
+    /**
+     * 未知区域，例如请求中不包含坐标
+     */
+    UNKNOWN;
+
+    /**
+     * 简化的中国国境多边形，按 经度, 纬度 依次排列，从额尔古纳河沿黑龙江、乌苏里江、图们江、鸭绿江，
+     * 经黄海、东海（含台湾）、南海近海（含海南）、中越、中老、中缅、中印、中巴、中塔、中吉、中哈、中蒙边境回到起点
+     */
+    private static final double[] CHINA_BOUNDARY = {
+            // 额尔古纳河、黑龙江
+            117.90, 49.55, 119.20, 50.30, 119.60, 51.00, 120.10, 51.70, 121.00, 52.60, 122.30, 53.40,
+            123.50, 53.55, 125.00, 53.20, 126.00, 52.90, 127.20, 51.30, 127.70, 50.00, 129.50, 49.40,
+            130.70, 48.90, 131.00, 47.70, 132.50, 47.75, 134.00, 48.42, 134.75, 48.45,
+            // 乌苏里江、兴凯湖
+            134.50, 47.60, 134.15, 47.10, 133.90, 46.40, 133.40, 45.60, 133.10, 45.10, 132.00, 45.25,
+            131.25, 44.90, 131.30, 43.40, 131.00, 42.90, 130.65, 42.42,
+            // 图们江、鸭绿江
+            130.45, 42.60, 129.90, 42.95, 129.30, 42.40, 128.60, 42.00, 128.05, 41.95, 127.30, 41.45,
+            126.60, 41.70, 126.00, 41.00, 125.40, 40.60, 124.35, 39.85,
+            // 黄海、东海、台湾
+            123.80, 39.20, 123.30, 38.00, 123.00, 36.00, 123.50, 33.00, 123.30, 31.00, 123.20, 28.50,
+            122.60, 26.00, 122.30, 25.60, 122.10, 24.50, 121.90, 23.00, 121.20, 21.75, 120.60, 21.85,
+            120.00, 22.40,
+            // 南海近海、海南
+            116.90, 22.80, 114.90, 22.20, 114.50, 22.00, 113.60, 21.90, 112.00, 21.40, 110.90, 20.60,
+            111.10, 19.70, 110.60, 18.30, 109.60, 18.00, 108.60, 18.40, 108.60, 19.30, 108.10, 21.45,
+            // 中越、中老、中缅边境
+            107.40, 21.65, 106.70, 22.00, 106.70, 22.80, 105.90, 22.95, 105.30, 23.35, 104.80, 23.20,
+            104.30, 22.75, 103.95, 22.50, 103.30, 22.80, 102.50, 22.75, 102.10, 22.45, 101.75, 22.45,
+            101.60, 22.20, 101.75, 21.15, 101.15, 21.55, 100.20, 21.45, 99.95, 22.05, 99.20, 22.10,
+            99.55, 22.95, 98.90, 23.20, 98.85, 24.10, 97.70, 23.90, 97.55, 24.75, 97.75, 25.50,
+            98.70, 25.85, 98.70, 27.50, 98.30, 27.60, 97.55, 28.50,
+            // 中印、中不、中尼边境
+            96.60, 28.90, 95.40, 29.10, 94.40, 29.25, 93.00, 28.00, 91.60, 27.85, 90.50, 28.05,
+            89.50, 28.20, 89.00, 27.30, 88.80, 27.90, 88.10, 27.90, 86.90, 28.00, 85.90, 28.30,
+            85.00, 28.60, 84.10, 28.90, 83.20, 29.60, 82.10, 30.20, 81.20, 30.05, 80.30, 30.50,
+            79.10, 31.40, 78.70, 32.50, 79.40, 33.00, 78.80, 34.10, 78.00, 35.30, 77.80, 35.50,
+            // 中巴、中塔、中吉边境
+            76.20, 35.80, 75.40, 36.90, 74.70, 37.30, 75.00, 38.50, 73.80, 39.40, 73.60, 39.60,
+            74.00, 40.10, 75.60, 40.60, 76.60, 40.30, 77.80, 41.00, 78.70, 41.50, 80.20, 42.10,
+            // 中哈边境
+            80.30, 43.00, 80.30, 44.30, 80.80, 45.10, 82.50, 45.20, 82.30, 46.00, 83.00, 47.20,
+            85.60, 47.05, 85.70, 48.20, 86.80, 48.90, 87.35, 49.15,
+            // 中蒙边境
+            88.10, 48.50, 90.30, 47.60, 91.00, 46.00, 90.80, 45.30, 93.50, 44.95, 95.40, 44.30,
+            96.40, 42.75, 100.00, 42.65, 101.80, 42.50, 104.00, 41.80, 105.00, 41.60, 107.00, 42.45,
+            109.50, 42.45, 110.80, 43.20, 111.90, 43.75, 112.60, 44.80, 114.00, 44.95, 115.70, 45.45,
+            117.20, 46.35, 119.70, 46.60, 119.90, 47.15, 118.50, 47.95, 117.40, 47.65, 116.80, 49.00,
+            116.70, 49.85
+    };
+
+    private static final double CHINA_MIN_LAT;
+    private static final double CHINA_MAX_LAT;
+    private static final double CHINA_MIN_LNG;
+    private static final double CHINA_MAX_LNG;
+
+    static {
+        double minLat = Double.MAX_VALUE;
+        double maxLat = -Double.MAX_VALUE;
+        double minLng = Double.MAX_VALUE;
+        double maxLng = -Double.MAX_VALUE;
+        for (int i = 0; i < CHINA_BOUNDARY.length; i += 2) {
+            minLng = Math.min(minLng, CHINA_BOUNDARY[i]);
+            maxLng = Math.max(maxLng, CHINA_BOUNDARY[i]);
+            minLat = Math.min(minLat, CHINA_BOUNDARY[i + 1]);
+            maxLat = Math.max(maxLat, CHINA_BOUNDARY[i + 1]);
+        }
+        CHINA_MIN_LAT = minLat;
+        CHINA_MAX_LAT = maxLat;
+        CHINA_MIN_LNG = minLng;
+        CHINA_MAX_LNG = maxLng;
+    }
+
+    /**
+     * 判断坐标所在的区域
+     *
+     * @param lat 纬度
+     * @param lng 经度
+     * @return 坐标所在的区域
+     */
+    public static Region of(double lat, double lng) {
+        if (lat < CHINA_MIN_LAT || lat > CHINA_MAX_LAT || lng < CHINA_MIN_LNG || lng > CHINA_MAX_LNG) {
+            return OVERSEAS;
+        }
+        return insideBoundary(lat, lng) ? CHINA : OVERSEAS;
+    }
+
+    /**
+     * 射线法判断坐标是否在国境多边形内
+     */
+    private static boolean insideBoundary(double lat, double lng) {
+        boolean inside = false;
+        int n = CHINA_BOUNDARY.length;
+        double prevLng = CHINA_BOUNDARY[n - 2];
+        double prevLat = CHINA_BOUNDARY[n - 1];
+        for (int i = 0; i < n; i += 2) {
+            double curLng = CHINA_BOUNDARY[i];
+            double curLat = CHINA_BOUNDARY[i + 1];
+            if ((curLat > lat) != (prevLat > lat)
+                    && lng < (prevLng - curLng) * (lat - curLat) / (prevLat - curLat) + curLng) {
+                inside = !inside;
+            }
+            prevLng = curLng;
+            prevLat = curLat;
+        }
+        return inside;
+    }
+}
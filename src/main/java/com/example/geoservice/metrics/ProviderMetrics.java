@@ -0,0 +1,176 @@
+package com.example.geoservice.metrics;
+
+import com.example.geoservice.service.ProviderOperation;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 地图服务商调用监控指标
+ * <p>
+ * 为每次服务商调用记录以下指标，均带有 provider 和 operation 标签：
+ * 1. map.provider.requests：调用耗时，发布百分位直方图，另带 outcome 和 exception 标签；
+ *    按服务商统计的调用次数即为配额消耗
+ * 2. map.provider.responses：按服务商返回的 HTTP 状态码计数，未收到响应时状态为 IO_ERROR
+ * 3. map.provider.in.flight：正在进行中的调用数（仅 provider 标签）
+ * 每次调用结束时还会通知已注册的 {@link CallListener}，供路由等组件跟踪服务商的健康状况
+ * </p>
+ */
+@Component
+public class ProviderMetrics {
+    /**
+     * 不记录任何指标的实例，未注入监控组件时使用
+     */
+    public static final ProviderMetrics NOOP = new ProviderMetrics(new CompositeMeterRegistry());
+
+    static final String REQUESTS = "map.provider.requests";
+    static final String RESPONSES = "map.provider.responses";
+    static final String IN_FLIGHT = "map.provider.in.flight";
+
+    private final MeterRegistry registry;
+
+    /**
+     * 各服务商正在进行中的调用数
+     */
+    private final ConcurrentMap<String, AtomicInteger> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * 调用结束监听器
+     */
+    private final List<CallListener> listeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * 构造函数
+     *
+     * @param registry 指标注册表
+     */
+    public ProviderMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    /**
+     * 注册调用结束监听器
+     *
+     * @param listener 调用结束监听器
+     */
+    public void addListener(CallListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * 开始记录一次服务商调用
+     *
+     * @param provider  服务商名称
+     * @param operation 操作类型
+     * @return 调用计时，调用结束时必须调用 {@link Timing#success()} 或 {@link Timing#failure(Throwable)}
+     */
+    public Timing start(String provider, ProviderOperation operation) {
+        AtomicInteger counter = inFlight.computeIfAbsent(provider, key -> {
+            AtomicInteger value = new AtomicInteger();
+            Gauge.builder(IN_FLIGHT, value, AtomicInteger::get)
+                    .description("正在进行中的服务商调用数")
+                    .tag("provider", key)
+                    .register(registry);
+            return value;
+        });
+        counter.incrementAndGet();
+        return new Timing(provider, operation, counter);
+    }
+
+    /**
+     * 一次服务商调用的计时
+     */
+    public final class Timing {
+        private final String provider;
+        private final ProviderOperation operation;
+        private final AtomicInteger inFlightCounter;
+        private final long startNanos = System.nanoTime();
+        private int status;
+        private boolean stopped;
+
+        private Timing(String provider, ProviderOperation operation, AtomicInteger inFlightCounter) {
+            this.provider = provider;
+            this.operation = operation;
+            this.inFlightCounter = inFlightCounter;
+        }
+
+        /**
+         * 记录服务商返回的 HTTP 状态码
+         *
+         * @param status HTTP 状态码
+         */
+        public void status(int status) {
+            this.status = status;
+        }
+
+        /**
+         * 调用成功结束
+         */
+        public void success() {
+            stop("success", "none");
+        }
+
+        /**
+         * 调用失败结束，包括网络异常、响应解析失败和服务商返回错误状态
+         *
+         * @param error 导致失败的异常
+         */
+        public void failure(Throwable error) {
+            stop("error", error.getClass().getSimpleName());
+        }
+
+        private void stop(String outcome, String exception) {
+            if (stopped) {
+                return;
+            }
+            stopped = true;
+            inFlightCounter.decrementAndGet();
+            long elapsedNanos = System.nanoTime() - startNanos;
+            for (CallListener listener : listeners) {
+                listener.onCall(provider, operation, elapsedNanos, "success".equals(outcome));
+            }
+            Tags tags = Tags.of("provider", provider, "operation", operation.getTagValue());
+            Timer.builder(REQUESTS)
+                    .description("服务商调用耗时")
+                    .tags(tags)
+                    .tag("outcome", outcome)
+                    .tag("exception", exception)
+                    .publishPercentileHistogram()
+                    .register(registry)
+                    .record(elapsedNanos, TimeUnit.NANOSECONDS);
+            Counter.builder(RESPONSES)
+                    .description("按 HTTP 状态码统计的服务商响应数")
+                    .tags(tags)
+                    .tag("status", status == 0 ? "IO_ERROR" : String.valueOf(status))
+                    .register(registry)
+                    .increment();
+        }
+    }
+
+    /**
+     * 服务商调用结束监听器
+     */
+    @FunctionalInterface
+    public interface CallListener {
+        /**
+         * 一次服务商调用结束
+         *
+         * @param provider     服务商名称
+         * @param operation    操作类型
+         * @param elapsedNanos 调用耗时（纳秒）
+         * @param success      调用是否成功
+         */
+        void onCall(String provider, ProviderOperation operation, long elapsedNanos, boolean success);
+    }
+}
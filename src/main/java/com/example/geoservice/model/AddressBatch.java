@@ -0,0 +1,209 @@
+package com.example.geoservice.model;
+
+import com.example.geoservice.geo.CoordinateSystem;
+import lombok.Data;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 按列存放的一批地址解析结果
+ * <p>
+ * 每行对应一条输入地址的最佳匹配，各字段分别存放在数组中：
+ * 1. 经纬度和置信度使用基本类型数组，没有结果的行为 NaN
+ * 2. 省、市、区县、街道和邮政编码在批次内大量重复，存放字典下标，名称只在字典中保存一次，-1 表示为空
+ * 3. 门牌号和完整地址几乎不重复，直接存放字符串
+ * 4. 状态和错误信息与 {@link BatchGeocodeResult} 相同
+ * </p>
+ */
+@Data
+public class AddressBatch implements Serializable {
+    /**
+     * 经纬度所在的坐标系
+     */
+    private CoordinateSystem coordinateSystem;
+
+    /**
+     * 解析状态：OK、NOT_FOUND、INVALID 或 ERROR
+     */
+    private String[] statuses;
+
+    /**
+     * 失败时的错误信息
+     */
+    private String[] messages;
+
+    private double[] latitudes;
+    private double[] longitudes;
+    private double[] confidences;
+
+    /**
+     * 省、市、区县、街道和邮政编码的字典
+     */
+    private List<String> dictionary;
+
+    private int[] provinces;
+    private int[] cities;
+    private int[] districts;
+    private int[] streets;
+    private int[] postalCodes;
+    private String[] streetNumbers;
+    private String[] formattedAddresses;
+
+    /**
+     * 获取行数
+     *
+     * @return 行数
+     */
+    public int size() {
+        return statuses == null ? 0 : statuses.length;
+    }
+
+    /**
+     * 获取指定行的地址信息
+     *
+     * @param row 行号
+     * @return 地址信息，该行没有结果时返回 null
+     */
+    public AddressInfo get(int row) {
+        if (Double.isNaN(latitudes[row])) {
+            return null;
+        }
+        AddressInfo info = new AddressInfo();
+        info.setLatitude(latitudes[row]);
+        info.setLongitude(longitudes[row]);
+        info.setCoordinateSystem(coordinateSystem);
+        info.setConfidence(confidences[row]);
+        info.setProvince(lookup(provinces[row]));
+        info.setCity(lookup(cities[row]));
+        info.setDistrict(lookup(districts[row]));
+        info.setStreet(lookup(streets[row]));
+        info.setPostalCode(lookup(postalCodes[row]));
+        info.setStreetNumber(streetNumbers[row]);
+        info.setFormattedAddress(formattedAddresses[row]);
+        return info;
+    }
+
+    private String lookup(int code) {
+        return code < 0 ? null : dictionary.get(code);
+    }
+
+    /**
+     * 按行追加结果的构建器
+     */
+    public static final class Builder {
+        private final CoordinateSystem coordinateSystem;
+        private final Map<String, Integer> codes = new HashMap<>();
+        private final List<String> dictionary = new ArrayList<>();
+        private int size;
+        private String[] statuses;
+        private String[] messages;
+        private double[] latitudes;
+        private double[] longitudes;
+        private double[] confidences;
+        private int[] provinces;
+        private int[] cities;
+        private int[] districts;
+        private int[] streets;
+        private int[] postalCodes;
+        private String[] streetNumbers;
+        private String[] formattedAddresses;
+
+        /**
+         * 构造函数
+         *
+         * @param coordinateSystem 经纬度所在的坐标系
+         * @param capacity         预计的行数
+         */
+        public Builder(CoordinateSystem coordinateSystem, int capacity) {
+            this.coordinateSystem = coordinateSystem;
+            resize(Math.max(capacity, 1));
+        }
+
+        /**
+         * 追加一行
+         *
+         * @param result 单条地址的批量解析结果，取第一个匹配
+         * @return 构建器
+         */
+        public Builder add(BatchGeocodeResult result) {
+            if (size == statuses.length) {
+                resize(size * 2);
+            }
+            AddressInfo info = result.getResults() == null || result.getResults().isEmpty()
+                    ? null
+                    : result.getResults().get(0);
+            statuses[size] = result.getStatus();
+            messages[size] = result.getMessage();
+            latitudes[size] = info == null ? Double.NaN : info.getLatitude();
+            longitudes[size] = info == null ? Double.NaN : info.getLongitude();
+            confidences[size] = info == null ? Double.NaN : info.getConfidence();
+            provinces[size] = info == null ? -1 : encode(info.getProvince());
+            cities[size] = info == null ? -1 : encode(info.getCity());
+            districts[size] = info == null ? -1 : encode(info.getDistrict());
+            streets[size] = info == null ? -1 : encode(info.getStreet());
+            postalCodes[size] = info == null ? -1 : encode(info.getPostalCode());
+            streetNumbers[size] = info == null ? null : info.getStreetNumber();
+            formattedAddresses[size] = info == null ? null : info.getFormattedAddress();
+            size++;
+            return this;
+        }
+
+        private int encode(String value) {
+            if (value == null || value.isEmpty()) {
+                return -1;
+            }
+            Integer code = codes.get(value);
+            if (code == null) {
+                code = dictionary.size();
+                codes.put(value, code);
+                dictionary.add(value);
+            }
+            return code;
+        }
+
+        private void resize(int capacity) {
+            statuses = statuses == null ? new String[capacity] : Arrays.copyOf(statuses, capacity);
+            messages = messages == null ? new String[capacity] : Arrays.copyOf(messages, capacity);
+            latitudes = latitudes == null ? new double[capacity] : Arrays.copyOf(latitudes, capacity);
+            longitudes = longitudes == null ? new double[capacity] : Arrays.copyOf(longitudes, capacity);
+            confidences = confidences == null ? new double[capacity] : Arrays.copyOf(confidences, capacity);
+            provinces = provinces == null ? new int[capacity] : Arrays.copyOf(provinces, capacity);
+            cities = cities == null ? new int[capacity] : Arrays.copyOf(cities, capacity);
+            districts = districts == null ? new int[capacity] : Arrays.copyOf(districts, capacity);
+            streets = streets == null ? new int[capacity] : Arrays.copyOf(streets, capacity);
+            postalCodes = postalCodes == null ? new int[capacity] : Arrays.copyOf(postalCodes, capacity);
+            streetNumbers = streetNumbers == null ? new String[capacity] : Arrays.copyOf(streetNumbers, capacity);
+            formattedAddresses = formattedAddresses == null ? new String[capacity] : Arrays.copyOf(formattedAddresses, capacity);
+        }
+
+        /**
+         * 构建批次，数组截断为实际行数
+         *
+         * @return 地址解析结果批次
+         */
+        public AddressBatch build() {
+            resize(size);
+            AddressBatch batch = new AddressBatch();
+            batch.setCoordinateSystem(coordinateSystem);
+            batch.setStatuses(statuses);
+            batch.setMessages(messages);
+            batch.setLatitudes(latitudes);
+            batch.setLongitudes(longitudes);
+            batch.setConfidences(confidences);
+            batch.setDictionary(dictionary);
+            batch.setProvinces(provinces);
+            batch.setCities(cities);
+            batch.setDistricts(districts);
+            batch.setStreets(streets);
+            batch.setPostalCodes(postalCodes);
+            batch.setStreetNumbers(streetNumbers);
+            batch.setFormattedAddresses(formattedAddresses);
+            return batch;
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.example.geoservice.model;
 
+import com.example.geoservice.geo.CoordinateSystem;
 import lombok.Data;
 
 import java.io.Serializable;
@@ -22,6 +23,11 @@ public class AddressInfo implements Serializable {
      */
     private double latitude;
 
+    /**
+     * 经纬度所在的坐标系
+     */
+    private CoordinateSystem coordinateSystem;
+
     /**
      * 省份
      */
@@ -0,0 +1,60 @@
+package com.example.geoservice.model;
+
+import lombok.Data;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * 批量地址解析的单条结果
+ * <p>
+ * 每条输入地址对应一条结果，单条失败不影响批次中的其他地址
+ * </p>
+ */
+@Data
+public class BatchGeocodeResult implements Serializable {
+    /**
+     * 解析成功
+     */
+    public static final String STATUS_OK = "OK";
+
+    /**
+     * 未找到匹配的地址
+     */
+    public static final String STATUS_NOT_FOUND = "NOT_FOUND";
+
+    /**
+     * 输入地址无效
+     */
+    public static final String STATUS_INVALID = "INVALID";
+
+    /**
+     * 调用地图服务失败
+     */
+    public static final String STATUS_ERROR = "ERROR";
+
+    /**
+     * 在输入中的序号，从 0 开始
+     */
+    private long index;
+
+    /**
+     * 输入的地址字符串
+     */
+    private String address;
+
+    /**
+     * 解析状态：OK、NOT_FOUND、INVALID 或 ERROR
+     */
+    private String status;
+
+    /**
+     * 失败时的错误信息
+     */
+    private String message;
+
+    /**
+     * 解析成功时的地址信息列表
+     */
+    private List<AddressInfo> results;
+}
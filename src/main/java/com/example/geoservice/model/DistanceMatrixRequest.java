@@ -0,0 +1,25 @@
+package com.example.geoservice.model;
+
+import lombok.Data;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * 距离矩阵请求
+ * <p>
+ * 包含起点列表和终点列表，计算每个起点到每个终点的驾车距离
+ * </p>
+ */
+@Data
+public class DistanceMatrixRequest implements Serializable {
+    /**
+     * 起点列表
+     */
+    private List<Location> origins;
+
+    /**
+     * 终点列表
+     */
+    private List<Location> destinations;
+}
@@ -1,5 +1,6 @@
 package com.example.geoservice.model;
 
+import com.example.geoservice.geo.CoordinateSystem;
 import lombok.Data;
 
 import java.io.Serializable;
@@ -8,4 +9,9 @@ import java.io.Serializable;
 public class Location implements Serializable {
     private double lat;
     private double lng;
-}
\ No newline at end of file
+
+    /**
+     * 坐标系，为空时视为服务配置的坐标系（map.coordinate-system）
+     */
+    private CoordinateSystem coordinateSystem;
+}
@@ -0,0 +1,94 @@
+package com.example.geoservice.model;
+
+import com.example.geoservice.geo.CoordinateSystem;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * 按列存放的一批位置坐标
+ * <p>
+ * 纬度和经度分别存放在两个基本类型数组中，每个坐标只占 16 字节，
+ * 不需要像 {@code List<Location>} 那样为每个坐标创建对象；
+ * 序列化时两个数组整体写出，在 Smile、CBOR 格式中直接写入二进制浮点数
+ * </p>
+ */
+@Data
+@NoArgsConstructor
+public class LocationBatch implements Serializable {
+    /**
+     * 坐标系，为空时视为服务配置的坐标系（map.coordinate-system）
+     */
+    private CoordinateSystem coordinateSystem;
+
+    /**
+     * 纬度
+     */
+    private double[] lats;
+
+    /**
+     * 经度，与纬度一一对应
+     */
+    private double[] lngs;
+
+    /**
+     * 构造函数
+     *
+     * @param coordinateSystem 坐标系
+     * @param lats             纬度
+     * @param lngs             经度，长度与纬度相同
+     */
+    public LocationBatch(CoordinateSystem coordinateSystem, double[] lats, double[] lngs) {
+        if (lats.length != lngs.length) {
+            throw new IllegalArgumentException("纬度和经度数组长度不一致");
+        }
+        this.coordinateSystem = coordinateSystem;
+        this.lats = lats;
+        this.lngs = lngs;
+    }
+
+    /**
+     * 将位置列表转换为按列存放的批次，所有位置应在同一坐标系中
+     *
+     * @param locations        位置列表
+     * @param coordinateSystem 坐标系
+     * @return 位置批次
+     */
+    public static LocationBatch of(List<Location> locations, CoordinateSystem coordinateSystem) {
+        double[] lats = new double[locations.size()];
+        double[] lngs = new double[locations.size()];
+        for (int i = 0; i < locations.size(); i++) {
+            lats[i] = locations.get(i).getLat();
+            lngs[i] = locations.get(i).getLng();
+        }
+        return new LocationBatch(coordinateSystem, lats, lngs);
+    }
+
+    /**
+     * 获取坐标数
+     *
+     * @return 坐标数，纬度和经度长度不一致时抛出异常
+     */
+    public int size() {
+        if (lats == null || lngs == null || lats.length != lngs.length) {
+            throw new IllegalArgumentException("纬度和经度数组不能为空且长度必须一致");
+        }
+        return lats.length;
+    }
+
+    /**
+     * 获取指定位置的坐标
+     *
+     * @param index 下标
+     * @return 标明坐标系的位置
+     */
+    public Location get(int index) {
+        Location location = new Location();
+        location.setLat(lats[index]);
+        location.setLng(lngs[index]);
+        location.setCoordinateSystem(coordinateSystem);
+        return location;
+    }
+}
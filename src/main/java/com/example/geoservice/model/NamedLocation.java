@@ -0,0 +1,28 @@
+package com.example.geoservice.model;
+
+import com.example.geoservice.geo.CoordinateSystem;
+import lombok.Data;
+
+import java.io.Serializable;
+
+/**
+ * 带编号的位置
+ * <p>
+ * 登记到位置集合中的位置，例如仓库、门店，编号在集合内唯一
+ * </p>
+ */
+@Data
+public class NamedLocation implements Serializable {
+    /**
+     * 位置编号，同一集合中再次写入相同编号时更新其坐标
+     */
+    private String id;
+
+    private double lat;
+    private double lng;
+
+    /**
+     * 坐标系，为空时视为服务配置的坐标系（map.coordinate-system）
+     */
+    private CoordinateSystem coordinateSystem;
+}
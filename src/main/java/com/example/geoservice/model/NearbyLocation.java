@@ -0,0 +1,36 @@
+package com.example.geoservice.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+/**
+ * 最近位置查询的结果
+ * <p>
+ * 坐标为服务配置的坐标系（map.coordinate-system）
+ * </p>
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class NearbyLocation implements Serializable {
+    /**
+     * 位置编号
+     */
+    private String id;
+
+    private double lat;
+    private double lng;
+
+    /**
+     * 与查询位置的直线距离（米）
+     */
+    private double straightLineDistance;
+
+    /**
+     * 从查询位置出发的驾车距离（米），mode=ESTIMATE 时为估算值
+     */
+    private double distance;
+}
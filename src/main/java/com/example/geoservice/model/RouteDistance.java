@@ -0,0 +1,28 @@
+package com.example.geoservice.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+/**
+ * 途经多个位置的驾车路线距离
+ * <p>
+ * 按输入顺序依次经过各位置，相邻两个位置之间为一段
+ * </p>
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RouteDistance implements Serializable {
+    /**
+     * 路线总距离（米）
+     */
+    private double distance;
+
+    /**
+     * 各段距离（米），第 i 段为第 i 个位置到第 i+1 个位置
+     */
+    private double[] legs;
+}
@@ -0,0 +1,41 @@
+package com.example.geoservice.service;
+
+import com.example.geoservice.model.AddressInfo;
+import com.example.geoservice.model.Location;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 异步地图服务接口
+ * <p>
+ * 与 {@link MapService} 提供相同的功能，但不阻塞调用线程：
+ * 请求发出后立即返回 {@link CompletableFuture}，在服务商响应到达时完成
+ * </p>
+ */
+public interface AsyncMapService extends MapService {
+    /**
+     * 异步计算两个位置之间的驾车距离
+     *
+     * @param origin      起点
+     * @param destination 终点
+     * @return 驾车距离（米）的异步结果，网络请求失败时以 IOException 异常完成
+     */
+    CompletableFuture<Double> calculateDrivingDistanceAsync(Location origin, Location destination);
+
+    /**
+     * 异步解析地址字符串，获取所有可能匹配的地址信息列表
+     *
+     * @param address 需要解析的地址字符串
+     * @return 地址信息列表的异步结果，网络请求失败时以 IOException 异常完成
+     */
+    CompletableFuture<List<AddressInfo>> geocodeAddressAsync(String address);
+
+    /**
+     * 异步逆地址解析，获取坐标所在位置的地址信息
+     *
+     * @param location 需要解析的坐标
+     * @return 地址信息列表的异步结果，网络请求失败时以 IOException 异常完成
+     */
+    CompletableFuture<List<AddressInfo>> reverseGeocodeAsync(Location location);
+}
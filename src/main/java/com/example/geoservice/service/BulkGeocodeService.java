@@ -0,0 +1,351 @@
+package com.example.geoservice.service;
+
+import com.example.geoservice.config.MapServiceProperties;
+import com.example.geoservice.geo.AddressNormalizer;
+import com.example.geoservice.geo.CoordinateSystem;
+import com.example.geoservice.model.AddressBatch;
+import com.example.geoservice.model.AddressInfo;
+import com.example.geoservice.model.BatchGeocodeResult;
+import com.example.geoservice.service.ratelimit.RequestPriority;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.function.Consumer;
+
+/**
+ * 批量地址解析服务
+ * <p>
+ * 将大批量地址并发分发给地图服务进行解析：
+ * 1. 通过信号量限制同时进行的服务商调用数量
+ * 2. 同一批次内经 {@link AddressNormalizer} 规范化后相同的地址只解析一次
+ * 3. 结果按输入顺序返回，每条结果带有独立的状态，单条失败不影响整个批次
+ * 4. 支持 NDJSON 和 CSV 格式的流式输入输出，内存占用与批次大小无关
+ * 5. 以批量优先级调用服务商，只使用空闲的令牌和配额，让行于交互请求
+ * 6. 可以按列返回结果，每条地址只保留最佳匹配，省市区等重复的名称按字典编码
+ * </p>
+ */
+@Service
+public class BulkGeocodeService {
+    /**
+     * 流式输入格式
+     */
+    public enum InputFormat {
+        /**
+         * 每行一个 JSON 字符串或包含 address 字段的 JSON 对象
+         */
+        NDJSON,
+        /**
+         * 每行一条记录，取第一列作为地址
+         */
+        CSV
+    }
+
+    /**
+     * 地图服务工厂
+     */
+    private final MapServiceFactory mapServiceFactory;
+
+    /**
+     * 批量地址解析配置
+     */
+    private final MapServiceProperties.BulkProperties properties;
+
+    /**
+     * 地址解析结果的坐标系
+     */
+    private final CoordinateSystem coordinateSystem;
+
+    /**
+     * 执行服务商调用的线程池
+     */
+    private final ExecutorService executor;
+
+    /**
+     * JSON序列化工具
+     */
+    private final ObjectMapper objectMapper;
+
+    /**
+     * 构造函数
+     *
+     * @param mapServiceFactory 地图服务工厂
+     * @param properties        地图服务配置
+     * @param executor          执行服务商调用的线程池
+     * @param objectMapper      JSON序列化工具
+     */
+    public BulkGeocodeService(MapServiceFactory mapServiceFactory,
+                              MapServiceProperties properties,
+                              @Qualifier("mapServiceExecutor") ExecutorService executor,
+                              ObjectMapper objectMapper) {
+        this.mapServiceFactory = mapServiceFactory;
+        this.properties = properties.getBulk();
+        this.coordinateSystem = properties.getCoordinateSystem();
+        this.executor = executor;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * 批量解析地址
+     *
+     * @param addresses 地址列表
+     * @return 与输入顺序一致的解析结果列表
+     * @throws IllegalArgumentException 当地址列表为空或超过单批次上限时抛出
+     */
+    public List<BatchGeocodeResult> geocode(List<String> addresses) {
+        checkBatchSize(addresses);
+        List<BatchGeocodeResult> results = new ArrayList<>(addresses.size());
+        geocode(addresses.iterator(), results::add);
+        return results;
+    }
+
+    /**
+     * 批量解析地址，按列返回每条地址的最佳匹配
+     *
+     * @param addresses 地址列表
+     * @return 与输入顺序一致的解析结果批次
+     * @throws IllegalArgumentException 当地址列表为空或超过单批次上限时抛出
+     */
+    public AddressBatch geocodeColumnar(List<String> addresses) {
+        checkBatchSize(addresses);
+        AddressBatch.Builder batch = new AddressBatch.Builder(coordinateSystem, addresses.size());
+        geocode(addresses.iterator(), batch::add);
+        return batch.build();
+    }
+
+    private void checkBatchSize(List<String> addresses) {
+        if (addresses == null || addresses.isEmpty()) {
+            throw new IllegalArgumentException("地址列表不能为空");
+        }
+        if (addresses.size() > properties.getMaxBatchSize()) {
+            throw new IllegalArgumentException("单批次地址数量不能超过" + properties.getMaxBatchSize()
+                    + "，更大的批次请使用流式接口");
+        }
+    }
+
+    /**
+     * 流式批量解析地址，逐行读取输入并按输入顺序逐行写出 NDJSON 结果
+     *
+     * @param input  输入流，UTF-8 编码
+     * @param format 输入格式
+     * @param output 输出流，每行一个 JSON 格式的解析结果
+     * @throws IOException 当读写失败时抛出
+     */
+    public void geocodeStream(InputStream input, InputFormat format, OutputStream output) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        Writer writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+        Iterator<String> addresses = new Iterator<String>() {
+            private String next = readAddress();
+
+            @Override
+            public boolean hasNext() {
+                return next != null;
+            }
+
+            @Override
+            public String next() {
+                String current = next;
+                next = readAddress();
+                return current;
+            }
+
+            private String readAddress() {
+                try {
+                    String line;
+                    do {
+                        line = reader.readLine();
+                    } while (line != null && line.trim().isEmpty());
+                    return line == null ? null : parseLine(line, format);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        };
+        try {
+            geocode(addresses, result -> {
+                try {
+                    writer.write(objectMapper.writeValueAsString(result));
+                    writer.write('\n');
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        writer.flush();
+    }
+
+    /**
+     * 并发解析地址并按输入顺序输出结果
+     * <p>
+     * 待输出的结果数量不超过去重窗口大小，保证流式处理时的内存占用有界
+     * </p>
+     *
+     * @param addresses 地址迭代器
+     * @param sink      结果消费者，按输入顺序调用
+     */
+    private void geocode(Iterator<String> addresses, Consumer<BatchGeocodeResult> sink) {
+        Semaphore permits = new Semaphore(properties.getConcurrency());
+        ArrayDeque<PendingResult> pending = new ArrayDeque<>();
+        Map<String, CompletableFuture<List<AddressInfo>>> inFlight = new LinkedHashMap<String, CompletableFuture<List<AddressInfo>>>() {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CompletableFuture<List<AddressInfo>>> eldest) {
+                return size() > properties.getDedupWindow();
+            }
+        };
+        long index = 0;
+        while (addresses.hasNext()) {
+            String address = addresses.next();
+            CompletableFuture<List<AddressInfo>> future = null;
+            String key = AddressNormalizer.key(address);
+            if (!key.isEmpty()) {
+                future = inFlight.get(key);
+                if (future == null) {
+                    future = submit(address, permits);
+                    inFlight.put(key, future);
+                }
+            }
+            pending.add(new PendingResult(index++, address, future));
+            // 输出已完成的结果，待输出结果过多时等待队首完成
+            while (!pending.isEmpty() && (pending.peek().isDone() || pending.size() > properties.getDedupWindow())) {
+                sink.accept(pending.poll().toResult());
+            }
+        }
+        while (!pending.isEmpty()) {
+            sink.accept(pending.poll().toResult());
+        }
+    }
+
+    private CompletableFuture<List<AddressInfo>> submit(String address, Semaphore permits) {
+        permits.acquireUninterruptibly();
+        try {
+            return CompletableFuture.supplyAsync(() -> {
+                try {
+                    // 批量请求让行于交互请求，不使用为其保留的令牌和配额
+                    return RequestPriority.with(RequestPriority.BULK,
+                            () -> mapServiceFactory.getMapService().geocodeAddress(address));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                } finally {
+                    permits.release();
+                }
+            }, executor);
+        } catch (RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * 解析一行输入，得到地址字符串
+     *
+     * @param line   输入行
+     * @param format 输入格式
+     * @return 地址字符串
+     */
+    private String parseLine(String line, InputFormat format) throws IOException {
+        if (format == InputFormat.CSV) {
+            return firstCsvField(line);
+        }
+        String trimmed = line.trim();
+        if (!trimmed.startsWith("\"") && !trimmed.startsWith("{")) {
+            return trimmed;
+        }
+        JsonNode node = objectMapper.readTree(trimmed);
+        return node.isObject() ? node.path("address").asText(null) : node.asText();
+    }
+
+    /**
+     * 读取 CSV 行的第一列，支持双引号包裹和转义
+     *
+     * @param line CSV 行
+     * @return 第一列的值
+     */
+    static String firstCsvField(String line) {
+        if (!line.startsWith("\"")) {
+            int comma = line.indexOf(',');
+            return comma < 0 ? line : line.substring(0, comma);
+        }
+        StringBuilder field = new StringBuilder();
+        for (int i = 1; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (c == '"') {
+                if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else {
+                    break;
+                }
+            } else {
+                field.append(c);
+            }
+        }
+        return field.toString();
+    }
+
+    /**
+     * 等待输出的单条结果
+     */
+    private static final class PendingResult {
+        private final long index;
+        private final String address;
+        private final CompletableFuture<List<AddressInfo>> future;
+
+        private PendingResult(long index, String address, CompletableFuture<List<AddressInfo>> future) {
+            this.index = index;
+            this.address = address;
+            this.future = future;
+        }
+
+        private boolean isDone() {
+            return future == null || future.isDone();
+        }
+
+        private BatchGeocodeResult toResult() {
+            BatchGeocodeResult result = new BatchGeocodeResult();
+            result.setIndex(index);
+            result.setAddress(address);
+            if (future == null) {
+                result.setStatus(BatchGeocodeResult.STATUS_INVALID);
+                result.setMessage("地址不能为空");
+                return result;
+            }
+            try {
+                List<AddressInfo> addressInfoList = future.join();
+                result.setStatus(addressInfoList.isEmpty() ? BatchGeocodeResult.STATUS_NOT_FOUND : BatchGeocodeResult.STATUS_OK);
+                result.setResults(addressInfoList);
+            } catch (CompletionException e) {
+                Throwable cause = e.getCause() != null ? e.getCause() : e;
+                result.setStatus(cause instanceof IllegalArgumentException
+                        ? BatchGeocodeResult.STATUS_INVALID
+                        : BatchGeocodeResult.STATUS_ERROR);
+                result.setMessage(cause instanceof UncheckedIOException
+                        ? "网络请求失败: " + cause.getCause().getMessage()
+                        : cause.getMessage());
+            }
+            return result;
+        }
+    }
+}
@@ -2,6 +2,7 @@ package com.example.geoservice.service;
 
 import com.example.geoservice.model.AddressInfo;
 import com.example.geoservice.model.Location;
+import com.example.geoservice.model.RouteDistance;
 import java.io.IOException;
 import java.util.List;
 
@@ -15,6 +16,25 @@ public interface MapService {
      */
     double calculateDrivingDistance(Location origin, Location destination) throws IOException;
 
+    /**
+     * 计算多个起点到多个终点之间的驾车距离矩阵
+     *
+     * @param origins      起点列表
+     * @param destinations 终点列表
+     * @return 驾车距离矩阵（米），第 i 行第 j 列为第 i 个起点到第 j 个终点的距离，无法到达时为 -1
+     * @throws IOException 当网络请求失败时抛出
+     */
+    double[][] calculateDistanceMatrix(List<Location> origins, List<Location> destinations) throws IOException;
+
+    /**
+     * 计算按顺序途经多个位置的驾车路线距离
+     *
+     * @param waypoints 按行驶顺序排列的位置，第一个为起点，最后一个为终点，至少两个
+     * @return 路线总距离和各段距离（米）
+     * @throws IOException 当网络请求失败时抛出
+     */
+    RouteDistance calculateRouteDistance(List<Location> waypoints) throws IOException;
+
     /**
      * 解析地址字符串，获取所有可能匹配的地址信息列表
      *
@@ -23,4 +43,13 @@ public interface MapService {
      * @throws IOException 当网络请求失败时抛出
      */
     List<AddressInfo> geocodeAddress(String address) throws IOException;
+
+    /**
+     * 逆地址解析，获取坐标所在位置的地址信息
+     *
+     * @param location 需要解析的坐标
+     * @return 坐标所在位置的地址信息列表，最精确的在前，无结果时为空列表
+     * @throws IOException 当网络请求失败时抛出
+     */
+    List<AddressInfo> reverseGeocode(Location location) throws IOException;
 }
\ No newline at end of file
@@ -1,9 +1,16 @@
 package com.example.geoservice.service;
 
 import com.example.geoservice.config.MapServiceProperties;
+import com.example.geoservice.geo.Region;
+import com.example.geoservice.model.Location;
+import com.example.geoservice.service.hedge.HedgingMapService;
 import com.example.geoservice.service.impl.BaiduMapService;
 import com.example.geoservice.service.impl.GoogleMapService;
 import com.example.geoservice.service.impl.TencentMapService;
+import com.example.geoservice.service.local.LocalMapService;
+import com.example.geoservice.service.local.RoadMapService;
+import com.example.geoservice.service.routing.ProviderRouter;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 /**
@@ -13,6 +20,11 @@ import org.springframework.stereotype.Component;
  * 1. 支持Google、腾讯和百度三种地图服务
  * 2. 根据配置文件动态选择使用的地图服务提供商
  * 3. 统一管理地图服务实例的创建和获取
+ * 4. 启用对冲请求时返回同时使用主备服务商的对冲实现
+ * 5. 启用动态路由时按各服务商的实时状态和请求坐标所在区域为每个请求选择服务商；
+ *    同时启用对冲请求时以对冲请求为准
+ * 6. 启用本地地址索引后可以配置为 local 单独使用，或作为所选服务商之前的第一级
+ * 7. 启用本地道路网络后可以配置为 road，驾车距离在本地计算，不调用服务商
  * </p>
  */
 @Component
@@ -37,6 +49,26 @@ public class MapServiceFactory {
      */
     private final BaiduMapService baiduMapService;
 
+    /**
+     * 对冲请求地图服务，未启用对冲时为 null
+     */
+    private HedgingMapService hedgingMapService;
+
+    /**
+     * 服务商动态路由，未启用动态路由时为 null
+     */
+    private ProviderRouter providerRouter;
+
+    /**
+     * 本地地图服务，未启用本地地址索引时为 null
+     */
+    private LocalMapService localMapService;
+
+    /**
+     * 本地道路网络地图服务，未启用本地道路网络时为 null
+     */
+    private RoadMapService roadMapService;
+
     /**
      * 构造函数
      * 通过Spring依赖注入初始化所有地图服务实例
@@ -56,13 +88,60 @@ public class MapServiceFactory {
         this.baiduMapService = baiduMapService;
     }
 
+    @Autowired(required = false)
+    public void setHedgingMapService(HedgingMapService hedgingMapService) {
+        this.hedgingMapService = hedgingMapService;
+    }
+
+    @Autowired(required = false)
+    public void setProviderRouter(ProviderRouter providerRouter) {
+        this.providerRouter = providerRouter;
+    }
+
+    @Autowired(required = false)
+    public void setLocalMapService(LocalMapService localMapService) {
+        this.localMapService = localMapService;
+    }
+
+    @Autowired(required = false)
+    public void setRoadMapService(RoadMapService roadMapService) {
+        this.roadMapService = roadMapService;
+    }
+
     /**
      * 获取配置的地图服务实例
      *
-     * @return 根据配置返回对应的地图服务实现
+     * @return 启用对冲请求时返回对冲实现，启用动态路由时返回当前最优的服务商，否则根据配置返回对应的地图服务实现
      * @throws IllegalArgumentException 当配置的地图服务提供商不支持时抛出
      */
     public MapService getMapService() {
+        return getMapService(null);
+    }
+
+    /**
+     * 为指定坐标附近的请求获取地图服务实例
+     *
+     * @param location 请求中的坐标，用于启用动态路由时按区域选择服务商，可以为 null
+     * @return 启用对冲请求时返回对冲实现，启用动态路由时返回当前最优的服务商，否则根据配置返回对应的地图服务实现；
+     *         本地地址索引作为第一级时返回先查询本地索引的包装
+     * @throws IllegalArgumentException 当配置的地图服务提供商不支持时抛出
+     */
+    public MapService getMapService(Location location) {
+        MapService mapService = selectMapService(location);
+        if (localMapService != null && mapService != localMapService && mapService instanceof AsyncMapService
+                && properties.getLocal().isFirstTier()) {
+            return localMapService.before((AsyncMapService) mapService);
+        }
+        return mapService;
+    }
+
+    private MapService selectMapService(Location location) {
+        if (hedgingMapService != null) {
+            return hedgingMapService;
+        }
+        if (providerRouter != null) {
+            return providerRouter.route(location == null ? Region.UNKNOWN : Region.of(location.getLat(), location.getLng()));
+        }
         switch (properties.getProvider().toLowerCase()) {
             case "google":
                 return googleMapService;
@@ -70,8 +149,43 @@ public class MapServiceFactory {
                 return tencentMapService;
             case "baidu":
                 return baiduMapService;
+            case LocalMapService.PROVIDER_NAME:
+                if (localMapService == null) {
+                    throw new IllegalArgumentException("本地地址索引未启用，请配置 map.local.enabled=true");
+                }
+                return localMapService;
+            case RoadMapService.PROVIDER_NAME:
+                if (roadMapService == null) {
+                    throw new IllegalArgumentException("本地道路网络未启用，请配置 map.road.enabled=true");
+                }
+                return roadMapService;
             default:
                 throw new IllegalArgumentException("不支持的地图服务提供商: " + properties.getProvider());
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * 获取配置的异步地图服务实例
+     *
+     * @return 根据配置返回对应的异步地图服务实现
+     * @throws IllegalArgumentException 当配置的地图服务提供商不支持时抛出
+     */
+    public AsyncMapService getAsyncMapService() {
+        return getAsyncMapService(null);
+    }
+
+    /**
+     * 为指定坐标附近的请求获取异步地图服务实例
+     *
+     * @param location 请求中的坐标，用于启用动态路由时按区域选择服务商，可以为 null
+     * @return 根据配置返回对应的异步地图服务实现
+     * @throws IllegalArgumentException 当配置的地图服务提供商不支持时抛出
+     */
+    public AsyncMapService getAsyncMapService(Location location) {
+        MapService mapService = getMapService(location);
+        if (!(mapService instanceof AsyncMapService)) {
+            throw new IllegalStateException("地图服务不支持异步调用: " + properties.getProvider());
+        }
+        return (AsyncMapService) mapService;
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.geoservice.service;
+
+import java.io.IOException;
+
+/**
+ * 地图服务调用
+ * <p>
+ * 对一次可能访问地图服务商的调用进行抽象，供缓存等组件在未命中时回源
+ * </p>
+ *
+ * @param <T> 调用结果类型
+ */
+@FunctionalInterface
+public interface ProviderCall<T> {
+    /**
+     * 执行调用
+     *
+     * @return 调用结果
+     * @throws IOException 当网络请求失败时抛出
+     */
+    T call() throws IOException;
+}
@@ -0,0 +1,43 @@
+package com.example.geoservice.service;
+
+/**
+ * 地图服务商调用的操作类型
+ * <p>
+ * 用于按操作区分监控指标
+ * </p>
+ */
+public enum ProviderOperation {
+    /**
+     * 驾车距离计算
+     */
+    DISTANCE("distance"),
+    /**
+     * 驾车距离矩阵
+     */
+    DISTANCE_MATRIX("distance_matrix"),
+    /**
+     * 途经多个位置的驾车路线距离
+     */
+    ROUTE("route"),
+    /**
+     * 地址解析
+     */
+    GEOCODE("geocode"),
+    /**
+     * 逆地址解析
+     */
+    REVERSE_GEOCODE("reverse_geocode");
+
+    /**
+     * 监控指标中的标签值
+     */
+    private final String tagValue;
+
+    ProviderOperation(String tagValue) {
+        this.tagValue = tagValue;
+    }
+
+    public String getTagValue() {
+        return tagValue;
+    }
+}
@@ -0,0 +1,288 @@
+package com.example.geoservice.service.coalesce;
+
+import com.example.geoservice.service.ProviderCall;
+import com.example.geoservice.service.ProviderOperation;
+import com.example.geoservice.service.ratelimit.RequestPriority;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Supplier;
+
+/**
+ * 相同并发请求的合并（single-flight）
+ * <p>
+ * 同一服务商、同一操作、相同参数的请求在前一个请求完成之前到达时，不再调用服务商，而是等待前一个请求的结果：
+ * 1. 第一个请求负责调用服务商，之后到达的请求共享它的结果或异常，请求完成后立即移除，不缓存结果
+ * 2. 同步和异步请求可以相互合并
+ * 3. 每个调用方拿到独立的 Future，取消只影响自己；所有异步调用方都取消后才取消服务商调用
+ * 4. 交互请求不加入批量请求发起的调用，以免排在批量请求的限流等待之后、共享其限流失败；
+ *    批量请求可以加入交互请求发起的调用
+ * 5. 通过 Micrometer 暴露被合并的请求数和正在进行的请求数
+ * </p>
+ */
+@Component
+@ConditionalOnProperty(prefix = "map.coalesce", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class RequestCoalescer {
+    private final ConcurrentMap<Key, InFlight<?>> inFlight = new ConcurrentHashMap<>();
+    private final Map<String, Counter> coalesced = new ConcurrentHashMap<>();
+    private final MeterRegistry registry;
+
+    /**
+     * 构造函数
+     *
+     * @param registry 指标注册表
+     */
+    public RequestCoalescer(MeterRegistry registry) {
+        this.registry = registry;
+        Gauge.builder("map.coalesce.in.flight", inFlight, Map::size)
+                .description("正在进行、可供合并的服务商请求数")
+                .register(registry);
+    }
+
+    /**
+     * 执行同步调用，已有相同请求正在进行时等待其结果
+     *
+     * @param provider  服务商名称
+     * @param operation 操作类型
+     * @param key       规范化后的请求参数
+     * @param call      服务商调用
+     * @param <T>       结果类型
+     * @return 调用结果
+     * @throws IOException 当网络请求失败时抛出，合并的请求得到同一个异常
+     */
+    public <T> T execute(String provider, ProviderOperation operation, Object key, ProviderCall<T> call) throws IOException {
+        Key inFlightKey = new Key(provider, operation, key, RequestPriority.current());
+        InFlight<T> created = new InFlight<>();
+        // 调用服务商的线程自身占用一个等待者，保证其他调用方取消时不会提前移除
+        created.join();
+        InFlight<T> existing = register(inFlightKey, created);
+        if (existing != null) {
+            return await(existing.view());
+        }
+        try {
+            T result = call.call();
+            created.shared.complete(result);
+            return result;
+        } catch (IOException | RuntimeException e) {
+            created.shared.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(inFlightKey, created);
+        }
+    }
+
+    /**
+     * 执行异步调用，已有相同请求正在进行时共享其结果
+     *
+     * @param provider  服务商名称
+     * @param operation 操作类型
+     * @param key       规范化后的请求参数
+     * @param call      服务商异步调用
+     * @param <T>       结果类型
+     * @return 调用方独立的异步结果，取消时不影响其他调用方
+     */
+    public <T> CompletableFuture<T> executeAsync(String provider, ProviderOperation operation, Object key,
+                                                 Supplier<CompletableFuture<T>> call) {
+        Key inFlightKey = new Key(provider, operation, key, RequestPriority.current());
+        InFlight<T> created = new InFlight<>();
+        created.join();
+        InFlight<T> existing = register(inFlightKey, created);
+        if (existing != null) {
+            return existing.view();
+        }
+        CompletableFuture<T> view = created.view();
+        CompletableFuture<T> upstream;
+        try {
+            upstream = call.get();
+        } catch (RuntimeException e) {
+            inFlight.remove(inFlightKey, created);
+            created.shared.completeExceptionally(e);
+            return view;
+        }
+        created.start(upstream, () -> inFlight.remove(inFlightKey, created));
+        return view;
+    }
+
+    /**
+     * 登记正在进行的请求
+     *
+     * @return 已有相同请求正在进行且成功加入时返回该请求，新登记时返回 null
+     */
+    @SuppressWarnings("unchecked")
+    private <T> InFlight<T> register(Key key, InFlight<T> created) {
+        if (key.priority == RequestPriority.BULK) {
+            InFlight<T> interactive = (InFlight<T>) inFlight.get(key.withPriority(RequestPriority.INTERACTIVE));
+            if (interactive != null && interactive.join()) {
+                onCoalesced(key);
+                return interactive;
+            }
+        }
+        while (true) {
+            InFlight<T> existing = (InFlight<T>) inFlight.putIfAbsent(key, created);
+            if (existing == null) {
+                return null;
+            }
+            if (existing.join()) {
+                onCoalesced(key);
+                return existing;
+            }
+            // 该请求的调用方已全部取消，替换为新的请求
+            inFlight.remove(key, existing);
+        }
+    }
+
+    private void onCoalesced(Key key) {
+        coalesced.computeIfAbsent(key.provider + '|' + key.operation, name -> Counter.builder("map.coalesce.coalesced")
+                .description("与正在进行的相同请求合并、未调用服务商的请求数")
+                .tag("provider", key.provider)
+                .tag("operation", key.operation.getTagValue())
+                .register(registry)).increment();
+    }
+
+    private static <T> T await(CompletableFuture<T> view) throws IOException {
+        try {
+            return view.get();
+        } catch (InterruptedException e) {
+            view.cancel(false);
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("等待合并的请求时被中断");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    /**
+     * 正在进行的请求
+     */
+    private static final class InFlight<T> {
+        private final CompletableFuture<T> shared = new CompletableFuture<>();
+        private CompletableFuture<T> upstream;
+        private int waiters;
+        private boolean abandoned;
+
+        /**
+         * 增加一个等待者
+         *
+         * @return 所有调用方都已取消、请求已被放弃时返回 false
+         */
+        synchronized boolean join() {
+            if (abandoned) {
+                return false;
+            }
+            waiters++;
+            return true;
+        }
+
+        /**
+         * 创建调用方独立的 Future，取消时减少一个等待者
+         */
+        CompletableFuture<T> view() {
+            CompletableFuture<T> view = new CompletableFuture<>();
+            shared.whenComplete((value, error) -> {
+                if (error != null) {
+                    view.completeExceptionally(error);
+                } else {
+                    view.complete(value);
+                }
+            });
+            view.whenComplete((value, error) -> {
+                if (view.isCancelled()) {
+                    leave();
+                }
+            });
+            return view;
+        }
+
+        void start(CompletableFuture<T> upstream, Runnable onDone) {
+            synchronized (this) {
+                this.upstream = upstream;
+            }
+            upstream.whenComplete((value, error) -> {
+                onDone.run();
+                if (error != null) {
+                    shared.completeExceptionally(error);
+                } else {
+                    shared.complete(value);
+                }
+            });
+            if (isAbandoned()) {
+                upstream.cancel(true);
+            }
+        }
+
+        private synchronized boolean isAbandoned() {
+            return abandoned;
+        }
+
+        private void leave() {
+            CompletableFuture<T> toCancel;
+            synchronized (this) {
+                if (--waiters > 0 || shared.isDone()) {
+                    return;
+                }
+                abandoned = true;
+                toCancel = upstream;
+            }
+            if (toCancel != null) {
+                toCancel.cancel(true);
+            }
+        }
+    }
+
+    private static final class Key {
+        private final String provider;
+        private final ProviderOperation operation;
+        private final Object value;
+        private final RequestPriority priority;
+
+        private Key(String provider, ProviderOperation operation, Object value, RequestPriority priority) {
+            this.provider = provider;
+            this.operation = operation;
+            this.value = value;
+            this.priority = priority;
+        }
+
+        private Key withPriority(RequestPriority priority) {
+            return new Key(provider, operation, value, priority);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return provider.equals(other.provider) && operation == other.operation && value.equals(other.value)
+                    && priority == other.priority;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(provider, operation, value, priority);
+        }
+    }
+}
@@ -0,0 +1,232 @@
+package com.example.geoservice.service.estimate;
+
+import com.example.geoservice.config.MapServiceProperties;
+import com.example.geoservice.geo.GeoHash;
+import com.example.geoservice.geo.GeoMath;
+import com.example.geoservice.geo.Region;
+import com.example.geoservice.model.Location;
+import com.example.geoservice.model.RouteDistance;
+import com.example.geoservice.service.AsyncMapService;
+import com.example.geoservice.service.ratelimit.RequestPriority;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 驾车距离估算
+ * <p>
+ * 驾车距离约等于测地线距离乘以道路的绕行系数，绕行系数从服务商返回的驾车距离中学习：
+ * 1. 测地线距离使用 Vincenty 公式在 WGS-84 椭球上计算，只使用基本类型，不产生对象分配
+ * 2. 绕行系数按起点所在的 3 级 GeoHash 网格（约 156 公里见方）和所在区域分别学习，
+ *    样本较少时取算术平均，之后按指数加权平均跟随变化
+ * 3. 估算时依次使用网格、区域的绕行系数，样本不足时使用默认值
+ * 4. 距离过短或绕行比例异常的服务商结果不参与学习
+ * 学到的绕行系数只保存在内存中，重启后重新学习
+ * </p>
+ */
+@Slf4j
+@Component
+public class DistanceEstimator {
+    /**
+     * 学习绕行系数的 GeoHash 精度等级，网格数为 2^15，可以直接用数组下标表示
+     */
+    private static final int CELL_PRECISION = 3;
+    private static final int CELL_COUNT = 1 << (CELL_PRECISION * 5);
+
+    private final MapServiceProperties.EstimateProperties properties;
+
+    /**
+     * 各网格和区域的绕行系数（double 的位表示）和样本数；写入时加锁，读取时不加锁
+     */
+    private final AtomicLongArray cellCircuity = new AtomicLongArray(CELL_COUNT);
+    private final AtomicIntegerArray cellSamples = new AtomicIntegerArray(CELL_COUNT);
+    private final AtomicLongArray regionCircuity = new AtomicLongArray(Region.values().length);
+    private final AtomicIntegerArray regionSamples = new AtomicIntegerArray(Region.values().length);
+
+    private final Counter learned;
+    private final Counter refined;
+
+    /**
+     * 构造函数
+     *
+     * @param properties 地图服务配置
+     * @param registry   指标注册表
+     */
+    public DistanceEstimator(MapServiceProperties properties, MeterRegistry registry) {
+        this.properties = properties.getEstimate();
+        for (Region region : new Region[]{Region.CHINA, Region.OVERSEAS}) {
+            Gauge.builder("map.estimate.circuity", this, estimator -> estimator.regionCircuity(region))
+                    .description("按区域学到的驾车距离与测地线距离之比")
+                    .tag("region", region.name().toLowerCase())
+                    .register(registry);
+        }
+        this.learned = Counter.builder("map.estimate.samples")
+                .description("用于学习绕行系数的服务商驾车距离数")
+                .register(registry);
+        this.refined = Counter.builder("map.estimate.refinements")
+                .description("先返回估算值、在后台调用服务商的请求数")
+                .register(registry);
+    }
+
+    /**
+     * 估算两个位置之间的驾车距离
+     *
+     * @param origin      起点
+     * @param destination 终点
+     * @return 估算的驾车距离（米）
+     */
+    public double estimate(Location origin, Location destination) {
+        return estimate(origin.getLat(), origin.getLng(), destination.getLat(), destination.getLng());
+    }
+
+    /**
+     * 估算两个坐标之间的驾车距离，不产生对象分配
+     *
+     * @param originLat      起点纬度
+     * @param originLng      起点经度
+     * @param destinationLat 终点纬度
+     * @param destinationLng 终点经度
+     * @return 估算的驾车距离（米）
+     */
+    public double estimate(double originLat, double originLng, double destinationLat, double destinationLng) {
+        return GeoMath.vincenty(originLat, originLng, destinationLat, destinationLng) * circuity(originLat, originLng);
+    }
+
+    /**
+     * 估算多个起点到多个终点之间的驾车距离矩阵
+     *
+     * @param origins      起点列表
+     * @param destinations 终点列表
+     * @return 估算的驾车距离矩阵（米）
+     */
+    public double[][] estimateMatrix(List<Location> origins, List<Location> destinations) {
+        if (origins == null || origins.isEmpty() || destinations == null || destinations.isEmpty()) {
+            throw new IllegalArgumentException("起点和终点列表不能为空");
+        }
+        double[][] matrix = new double[origins.size()][destinations.size()];
+        for (int i = 0; i < origins.size(); i++) {
+            Location origin = origins.get(i);
+            for (int j = 0; j < destinations.size(); j++) {
+                matrix[i][j] = estimate(origin, destinations.get(j));
+            }
+        }
+        return matrix;
+    }
+
+    /**
+     * 估算按顺序途经多个位置的驾车路线距离
+     *
+     * @param waypoints 按行驶顺序排列的位置，至少两个
+     * @return 估算的路线总距离和各段距离（米）
+     */
+    public RouteDistance estimateRoute(List<Location> waypoints) {
+        if (waypoints == null || waypoints.size() < 2) {
+            throw new IllegalArgumentException("路线至少包含起点和终点两个位置");
+        }
+        double[] legs = new double[waypoints.size() - 1];
+        double distance = 0;
+        for (int i = 0; i < legs.length; i++) {
+            legs[i] = estimate(waypoints.get(i), waypoints.get(i + 1));
+            distance += legs[i];
+        }
+        return new RouteDistance(distance, legs);
+    }
+
+    /**
+     * 已有精确结果时直接返回，否则返回估算值并在后台调用服务商
+     *
+     * @param mapService  地图服务
+     * @param origin      起点
+     * @param destination 终点
+     * @return 缓存中的驾车距离或估算的驾车距离（米）
+     */
+    public double estimateThenRefine(AsyncMapService mapService, Location origin, Location destination) {
+        CompletableFuture<Double> exact;
+        try {
+            exact = RequestPriority.with(RequestPriority.BULK,
+                    () -> mapService.calculateDrivingDistanceAsync(origin, destination));
+        } catch (IOException e) {
+            // 异步调用的异常在返回的 Future 中，这里不会抛出
+            throw new IllegalStateException(e);
+        }
+        if (exact.isDone() && !exact.isCompletedExceptionally()) {
+            return exact.join();
+        }
+        refined.increment();
+        exact.whenComplete((distance, error) -> {
+            if (error != null) {
+                log.debug("后台计算驾车距离失败: {} -> {}", origin, destination, error);
+            }
+        });
+        return estimate(origin, destination);
+    }
+
+    /**
+     * 从服务商返回的驾车距离中学习绕行系数
+     *
+     * @param origin      起点
+     * @param destination 终点
+     * @param distance    服务商返回的驾车距离（米），无法到达时为负数
+     */
+    public void record(Location origin, Location destination, double distance) {
+        double geodesic = GeoMath.vincenty(origin.getLat(), origin.getLng(), destination.getLat(), destination.getLng());
+        if (!(distance > 0) || geodesic < properties.getMinDistance()) {
+            return;
+        }
+        double ratio = distance / geodesic;
+        if (ratio < 1 || ratio > properties.getMaxCircuity()) {
+            return;
+        }
+        int cell = cell(origin.getLat(), origin.getLng());
+        int region = Region.of(origin.getLat(), origin.getLng()).ordinal();
+        synchronized (this) {
+            update(cellCircuity, cellSamples, cell, ratio);
+            update(regionCircuity, regionSamples, region, ratio);
+        }
+        learned.increment();
+    }
+
+    private void update(AtomicLongArray circuity, AtomicIntegerArray samples, int index, double ratio) {
+        int count = samples.get(index);
+        double current = count == 0 ? ratio : Double.longBitsToDouble(circuity.get(index));
+        double weight = Math.max(1.0 / (count + 1), properties.getLearningRate());
+        circuity.set(index, Double.doubleToRawLongBits(current + weight * (ratio - current)));
+        if (count < Integer.MAX_VALUE) {
+            samples.set(index, count + 1);
+        }
+    }
+
+    /**
+     * 获取起点附近的绕行系数
+     *
+     * @param lat 起点纬度
+     * @param lng 起点经度
+     * @return 网格、区域学到的绕行系数，样本不足时为默认值
+     */
+    double circuity(double lat, double lng) {
+        int cell = cell(lat, lng);
+        if (cellSamples.get(cell) >= properties.getMinSamples()) {
+            return Double.longBitsToDouble(cellCircuity.get(cell));
+        }
+        return regionCircuity(Region.of(lat, lng));
+    }
+
+    private double regionCircuity(Region region) {
+        int index = region.ordinal();
+        return regionSamples.get(index) >= properties.getMinSamples()
+                ? Double.longBitsToDouble(regionCircuity.get(index))
+                : properties.getDefaultCircuity();
+    }
+
+    private static int cell(double lat, double lng) {
+        return (int) GeoHash.encode(lat, lng, CELL_PRECISION);
+    }
+}
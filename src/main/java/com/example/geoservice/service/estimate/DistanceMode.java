@@ -0,0 +1,20 @@
+package com.example.geoservice.service.estimate;
+
+/**
+ * 驾车距离的计算方式
+ */
+public enum DistanceMode {
+    /**
+     * 调用服务商计算精确的驾车距离
+     */
+    EXACT,
+    /**
+     * 按测地线距离和学到的绕行系数在本地估算，不调用服务商
+     */
+    ESTIMATE,
+    /**
+     * 已有精确结果（缓存命中）时直接返回，否则立即返回估算值，
+     * 同时在后台以批量优先级调用服务商，结果写入缓存并用于学习绕行系数
+     */
+    ESTIMATE_THEN_REFINE
+}
@@ -0,0 +1,48 @@
+package com.example.geoservice.service.hedge;
+
+/**
+ * 对冲请求预算
+ * <p>
+ * 每个发往主服务商的请求积累 ratio 个额度，每个对冲请求消耗一个额度，
+ * 因此对冲请求总数不超过主请求数的 ratio 倍。额度有上限，避免长时间空闲后集中对冲
+ * </p>
+ */
+class HedgeBudget {
+    private final double ratio;
+    private final double maxTokens;
+    private double tokens;
+
+    /**
+     * 构造函数
+     *
+     * @param ratio     对冲请求数与主请求数之比的上限，取值 (0, 1]
+     * @param maxTokens 最多积累的额度
+     */
+    HedgeBudget(double ratio, double maxTokens) {
+        if (ratio <= 0 || ratio > 1) {
+            throw new IllegalArgumentException("对冲预算比例取值范围为 (0, 1]");
+        }
+        this.ratio = ratio;
+        this.maxTokens = maxTokens;
+    }
+
+    /**
+     * 记录一次发往主服务商的请求
+     */
+    synchronized void onRequest() {
+        tokens = Math.min(tokens + ratio, maxTokens);
+    }
+
+    /**
+     * 尝试为一次对冲请求消耗额度
+     *
+     * @return 额度充足时返回 true
+     */
+    synchronized boolean tryAcquire() {
+        if (tokens < 1) {
+            return false;
+        }
+        tokens -= 1;
+        return true;
+    }
+}
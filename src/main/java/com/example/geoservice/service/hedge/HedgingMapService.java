@@ -0,0 +1,293 @@
+package com.example.geoservice.service.hedge;
+
+import com.example.geoservice.config.MapServiceProperties;
+import com.example.geoservice.exception.MapServiceException;
+import com.example.geoservice.model.AddressInfo;
+import com.example.geoservice.model.Location;
+import com.example.geoservice.model.RouteDistance;
+import com.example.geoservice.service.AsyncMapService;
+import com.example.geoservice.service.ProviderOperation;
+import com.example.geoservice.service.impl.AbstractMapService;
+import com.example.geoservice.service.ratelimit.RequestPriority;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * 对冲请求地图服务
+ * <p>
+ * 降低单个服务商耗时毛刺对调用方的影响：
+ * 1. 请求先发往 map.provider 配置的主服务商
+ * 2. 主服务商超过最近调用耗时的指定百分位仍未响应时，将同一请求发往备用服务商
+ * 3. 先成功返回的结果胜出，另一个请求随即取消；一方失败时等待另一方的结果
+ * 4. 对冲请求数受预算比例限制，配额消耗最多为原来的两倍
+ * 5. 缓存命中的请求不发起对冲；距离矩阵和多途经点路线请求量大，只发往主服务商
+ * </p>
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(prefix = "map.hedge", name = "enabled", havingValue = "true")
+public class HedgingMapService implements AsyncMapService, DisposableBean {
+    /**
+     * 对冲预算最多积累的额度
+     */
+    private static final double MAX_BUDGET_TOKENS = 10;
+
+    private final AsyncMapService primary;
+    private final AsyncMapService secondary;
+    private final MapServiceProperties.HedgeProperties properties;
+    private final Map<ProviderOperation, LatencyTracker> trackers = new EnumMap<>(ProviderOperation.class);
+    private final HedgeBudget budget;
+    private final ScheduledExecutorService scheduler;
+    private final Counter launched;
+    private final Counter won;
+    private final Counter budgetExhausted;
+
+    /**
+     * 构造函数
+     *
+     * @param properties 地图服务配置
+     * @param providers  所有服务商实现
+     * @param registry   指标注册表
+     * @throws IllegalArgumentException 当主服务商与备用服务商相同或不存在时抛出
+     */
+    public HedgingMapService(MapServiceProperties properties, List<AbstractMapService> providers, MeterRegistry registry) {
+        this.properties = properties.getHedge();
+        String primaryName = properties.getProvider().toLowerCase();
+        String secondaryName = this.properties.getSecondary().toLowerCase();
+        if (primaryName.equals(secondaryName)) {
+            throw new IllegalArgumentException("对冲请求的备用服务商不能与主服务商相同: " + secondaryName);
+        }
+        this.primary = findProvider(providers, primaryName);
+        this.secondary = findProvider(providers, secondaryName);
+        this.budget = new HedgeBudget(this.properties.getBudgetRatio(), MAX_BUDGET_TOKENS);
+        for (ProviderOperation operation : new ProviderOperation[]{ProviderOperation.DISTANCE, ProviderOperation.GEOCODE,
+                ProviderOperation.REVERSE_GEOCODE}) {
+            LatencyTracker tracker = new LatencyTracker(this.properties.getWindowSize(), this.properties.getPercentile(),
+                    this.properties.getInitialDelay().toNanos());
+            trackers.put(operation, tracker);
+            Gauge.builder("map.hedge.delay", this, service -> service.hedgeDelayMillis(operation) / 1000.0)
+                    .description("当前的对冲延迟")
+                    .tag("operation", operation.getTagValue())
+                    .baseUnit("seconds")
+                    .register(registry);
+        }
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("map-hedge-");
+        threadFactory.setDaemon(true);
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(threadFactory);
+        this.launched = hedgeCounter(registry, primaryName, secondaryName, "launched");
+        this.won = hedgeCounter(registry, primaryName, secondaryName, "won");
+        this.budgetExhausted = hedgeCounter(registry, primaryName, secondaryName, "budget_exhausted");
+        log.info("已启用对冲请求: 主服务商 {}，备用服务商 {}", primaryName, secondaryName);
+    }
+
+    private static AbstractMapService findProvider(List<AbstractMapService> providers, String name) {
+        for (AbstractMapService provider : providers) {
+            if (provider.getProviderName().equals(name)) {
+                return provider;
+            }
+        }
+        throw new IllegalArgumentException("不支持的地图服务提供商: " + name);
+    }
+
+    private static Counter hedgeCounter(MeterRegistry registry, String primary, String secondary, String outcome) {
+        return Counter.builder("map.hedge.requests")
+                .description("对冲请求数")
+                .tag("primary", primary)
+                .tag("secondary", secondary)
+                .tag("outcome", outcome)
+                .register(registry);
+    }
+
+    @Override
+    public double calculateDrivingDistance(Location origin, Location destination) throws IOException {
+        return await(calculateDrivingDistanceAsync(origin, destination));
+    }
+
+    @Override
+    public CompletableFuture<Double> calculateDrivingDistanceAsync(Location origin, Location destination) {
+        return hedge(ProviderOperation.DISTANCE, service -> service.calculateDrivingDistanceAsync(origin, destination));
+    }
+
+    @Override
+    public double[][] calculateDistanceMatrix(List<Location> origins, List<Location> destinations) throws IOException {
+        return primary.calculateDistanceMatrix(origins, destinations);
+    }
+
+    @Override
+    public RouteDistance calculateRouteDistance(List<Location> waypoints) throws IOException {
+        return primary.calculateRouteDistance(waypoints);
+    }
+
+    @Override
+    public List<AddressInfo> geocodeAddress(String address) throws IOException {
+        return await(geocodeAddressAsync(address));
+    }
+
+    @Override
+    public CompletableFuture<List<AddressInfo>> geocodeAddressAsync(String address) {
+        return hedge(ProviderOperation.GEOCODE, service -> service.geocodeAddressAsync(address));
+    }
+
+    @Override
+    public List<AddressInfo> reverseGeocode(Location location) throws IOException {
+        return await(reverseGeocodeAsync(location));
+    }
+
+    @Override
+    public CompletableFuture<List<AddressInfo>> reverseGeocodeAsync(Location location) {
+        return hedge(ProviderOperation.REVERSE_GEOCODE, service -> service.reverseGeocodeAsync(location));
+    }
+
+    /**
+     * 获取当前的对冲延迟
+     *
+     * @param operation 操作类型
+     * @return 对冲延迟（毫秒）
+     */
+    long hedgeDelayMillis(ProviderOperation operation) {
+        long delay = TimeUnit.NANOSECONDS.toMillis(trackers.get(operation).percentileNanos());
+        return Math.max(properties.getMinDelay().toMillis(), Math.min(properties.getMaxDelay().toMillis(), delay));
+    }
+
+    /**
+     * 发起对冲请求
+     *
+     * @param operation 操作类型
+     * @param call      对单个服务商的异步调用
+     * @param <T>       结果类型
+     * @return 先成功返回的结果
+     */
+    private <T> CompletableFuture<T> hedge(ProviderOperation operation, Function<AsyncMapService, CompletableFuture<T>> call) {
+        long start = System.nanoTime();
+        CompletableFuture<T> primaryFuture = call.apply(primary);
+        if (primaryFuture.isDone()) {
+            // 缓存命中或参数错误，没有实际调用服务商
+            return primaryFuture;
+        }
+        budget.onRequest();
+        LatencyTracker tracker = trackers.get(operation);
+        CompletableFuture<T> result = new CompletableFuture<>();
+        AtomicInteger pending = new AtomicInteger(1);
+        // 备用请求在定时线程中发起，沿用调用方的优先级
+        Supplier<CompletableFuture<T>> secondaryCall = RequestPriority.bind(() -> call.apply(secondary));
+        primaryFuture.whenComplete((value, error) -> {
+            long elapsed = System.nanoTime() - start;
+            Throwable cause = unwrap(error);
+            if (cause instanceof CancellationException) {
+                tracker.recordCensored(elapsed);
+            } else if (isProviderLatency(cause)) {
+                tracker.record(elapsed);
+            }
+            complete(result, pending, value, error);
+        });
+        ScheduledFuture<?> timer = scheduler.schedule(() -> {
+            if (result.isDone()) {
+                return;
+            }
+            if (!budget.tryAcquire()) {
+                budgetExhausted.increment();
+                return;
+            }
+            launched.increment();
+            pending.incrementAndGet();
+            CompletableFuture<T> secondaryFuture;
+            try {
+                secondaryFuture = secondaryCall.get();
+            } catch (RuntimeException e) {
+                complete(result, pending, null, e);
+                return;
+            }
+            secondaryFuture.whenComplete((value, error) -> {
+                if (error == null) {
+                    if (result.complete(value)) {
+                        won.increment();
+                    }
+                } else {
+                    complete(result, pending, null, error);
+                }
+            });
+            result.whenComplete((value, error) -> secondaryFuture.cancel(true));
+        }, hedgeDelayMillis(operation), TimeUnit.MILLISECONDS);
+        result.whenComplete((value, error) -> {
+            timer.cancel(false);
+            primaryFuture.cancel(true);
+        });
+        return result;
+    }
+
+    /**
+     * 一方成功时立即完成结果，双方都失败时以最后一个异常完成结果
+     */
+    private static <T> void complete(CompletableFuture<T> result, AtomicInteger pending, T value, Throwable error) {
+        if (error == null) {
+            result.complete(value);
+        } else if (pending.decrementAndGet() == 0) {
+            result.completeExceptionally(error);
+        }
+    }
+
+    /**
+     * 判断主请求的耗时是否反映服务商的响应速度：成功、服务商返回的错误和网络错误计入；
+     * 熔断、舱壁已满、客户端限流等未调用服务商的本地拒绝几乎不耗时，计入会把对冲延迟拉低到下限
+     */
+    private static boolean isProviderLatency(Throwable error) {
+        return error == null || !(error instanceof MapServiceException) || ((MapServiceException) error).isFromProvider();
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        while (error instanceof CompletionException && error.getCause() != null) {
+            error = error.getCause();
+        }
+        return error;
+    }
+
+    /**
+     * 等待异步结果，将异常还原为同步接口的异常类型
+     */
+    private static <T> T await(CompletableFuture<T> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("等待服务商响应时被中断");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        scheduler.shutdownNow();
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.geoservice.service.hedge;
+
+import java.util.Arrays;
+
+/**
+ * 服务商调用耗时统计
+ * <p>
+ * 在固定大小的环形缓冲区中保存最近的调用耗时，并计算指定百分位：
+ * 1. 百分位的计算结果会被缓存，每新增十分之一窗口的样本才重新计算一次
+ * 2. 样本数不足窗口的十分之一时返回初始值，避免冷启动阶段的少量样本导致对冲过于激进
+ * 3. 被取消的调用只知道耗时的下界（删失样本）：下界不小于当前百分位时按超过百分位记录，否则无法判断而忽略
+ * </p>
+ */
+class LatencyTracker {
+    private final long[] samples;
+    private final double percentile;
+    private final int recomputeInterval;
+    private int next;
+    private int count;
+    private int sinceRecompute;
+    private volatile long percentileNanos;
+
+    /**
+     * 构造函数
+     *
+     * @param windowSize   保留的最近样本数
+     * @param percentile   百分位，取值 (0, 1]
+     * @param initialNanos 样本不足时返回的耗时（纳秒）
+     */
+    LatencyTracker(int windowSize, double percentile, long initialNanos) {
+        if (windowSize <= 0) {
+            throw new IllegalArgumentException("耗时统计窗口必须大于0");
+        }
+        if (percentile <= 0 || percentile > 1) {
+            throw new IllegalArgumentException("百分位取值范围为 (0, 1]");
+        }
+        this.samples = new long[windowSize];
+        this.percentile = percentile;
+        this.recomputeInterval = Math.max(1, windowSize / 10);
+        this.percentileNanos = initialNanos;
+    }
+
+    /**
+     * 记录一次调用耗时
+     *
+     * @param nanos 耗时（纳秒）
+     */
+    synchronized void record(long nanos) {
+        add(nanos);
+    }
+
+    /**
+     * 记录一次被取消的调用，实际耗时不小于取消时的耗时
+     *
+     * @param nanos 取消时的耗时（纳秒）
+     */
+    synchronized void recordCensored(long nanos) {
+        if (nanos >= percentileNanos) {
+            // 只影响样本的排序，不需要实际耗时
+            add(Long.MAX_VALUE);
+        }
+    }
+
+    private void add(long nanos) {
+        samples[next] = nanos;
+        next = (next + 1) % samples.length;
+        if (count < samples.length) {
+            count++;
+        }
+        if (++sinceRecompute >= recomputeInterval) {
+            sinceRecompute = 0;
+            long[] sorted = Arrays.copyOf(samples, count);
+            Arrays.sort(sorted);
+            int index = (int) Math.ceil(percentile * count) - 1;
+            percentileNanos = sorted[Math.max(0, index)];
+        }
+    }
+
+    /**
+     * 获取最近调用耗时的百分位
+     *
+     * @return 耗时（纳秒）
+     */
+    long percentileNanos() {
+        return percentileNanos;
+    }
+}
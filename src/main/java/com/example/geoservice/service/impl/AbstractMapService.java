@@ -1,12 +1,42 @@
 package com.example.geoservice.service.impl;
 
-import com.example.geoservice.service.MapService;
+import com.example.geoservice.cache.DistanceCache;
+import com.example.geoservice.cache.GeocodeCache;
+import com.example.geoservice.config.MapServiceProperties;
+import com.example.geoservice.exception.MapServiceException;
+import com.example.geoservice.geo.AddressNormalizer;
+import com.example.geoservice.geo.CoordinateConverter;
+import com.example.geoservice.geo.CoordinateSystem;
+import com.example.geoservice.metrics.ProviderMetrics;
+import com.example.geoservice.model.AddressInfo;
+import com.example.geoservice.model.Location;
+import com.example.geoservice.model.RouteDistance;
+import com.example.geoservice.service.AsyncMapService;
+import com.example.geoservice.service.ProviderOperation;
+import com.example.geoservice.service.coalesce.RequestCoalescer;
+import com.example.geoservice.service.estimate.DistanceEstimator;
+import com.example.geoservice.service.ratelimit.ProviderRateLimiter;
+import com.example.geoservice.service.ratelimit.RateLimiterRegistry;
+import com.example.geoservice.service.resilience.ProviderResilience;
+import com.example.geoservice.service.resilience.ResilienceRegistry;
+import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import okhttp3.Call;
+import okhttp3.Callback;
 import okhttp3.OkHttpClient;
 import okhttp3.Request;
 import okhttp3.Response;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
 
 /**
  * 地图服务抽象基类
@@ -16,14 +46,31 @@ import java.io.IOException;
  * 2. JSON序列化工具
  * 3. HTTP请求执行
  * 4. 响应验证
+ * 5. 地址解析结果与驾车距离缓存
+ * 6. 距离矩阵和多途经点路线的分块与并发请求
+ * 7. 基于 OkHttp 异步调用的非阻塞接口
+ * 8. 直接在响应字节流上流式解析，只读取所需字段
+ * 9. 记录每次服务商调用的耗时、状态码和并发数
+ * 10. 服务商调用经过熔断器、舱壁和重试的保护，失败时抛出区分原因的 {@link MapServiceException}
+ * 11. 每次调用服务商前取得客户端限流许可，不超过服务商的每秒请求数和每日配额
+ * 12. 缓存未命中的相同并发请求合并为一次服务商调用
+ * 13. 逆地址解析：坐标完全相同的并发请求合并，结果不缓存
+ * 14. 服务商返回的驾车距离用于学习本地估算的绕行系数
+ * 15. 请求坐标在查询缓存前统一转换到服务配置的坐标系，调用服务商时再转换到服务商使用的坐标系，
+ *     服务商返回的坐标转换回服务配置的坐标系，缓存和返回结果中的坐标都在同一坐标系中
  * </p>
  */
-public abstract class AbstractMapService implements MapService {
+public abstract class AbstractMapService implements AsyncMapService {
+    /**
+     * 未注入共享客户端时使用的默认HTTP客户端
+     */
+    private static final OkHttpClient DEFAULT_HTTP_CLIENT = new OkHttpClient();
+
     /**
      * HTTP客户端实例
-     * 用于执行HTTP请求，所有子类共享同一个实例以复用连接池
+     * 用于执行HTTP请求，由 Spring 注入所有子类共享的同一个实例以复用连接池
      */
-    protected final OkHttpClient httpClient = new OkHttpClient();
+    protected OkHttpClient httpClient = DEFAULT_HTTP_CLIENT;
 
     /**
      * JSON序列化工具
@@ -32,28 +79,760 @@ public abstract class AbstractMapService implements MapService {
     protected final ObjectMapper objectMapper = new ObjectMapper();
 
     /**
-     * 执行HTTP请求并返回响应内容
+     * 地址解析结果缓存，未注入时直接调用服务商
+     */
+    private GeocodeCache geocodeCache;
+
+    /**
+     * 驾车距离缓存，未注入时直接调用服务商
+     */
+    private DistanceCache distanceCache;
+
+    /**
+     * 并发调用服务商使用的线程池，未注入时在调用线程中顺序执行
+     */
+    private Executor executor = Runnable::run;
+
+    /**
+     * 服务商调用监控指标，未注入时不记录
+     */
+    private ProviderMetrics metrics = ProviderMetrics.NOOP;
+
+    /**
+     * 服务商调用的容错策略，未注入时直接调用服务商
+     */
+    private ProviderResilience resilience;
+
+    /**
+     * 服务商调用的客户端限流，未注入时不限流
+     */
+    private ProviderRateLimiter rateLimiter;
+
+    /**
+     * 相同并发请求的合并，未注入时每个请求各自调用服务商
+     */
+    private RequestCoalescer coalescer;
+
+    /**
+     * 驾车距离估算，未注入时不学习绕行系数
+     */
+    private DistanceEstimator distanceEstimator;
+
+    /**
+     * 接口返回结果和缓存使用的坐标系
+     */
+    private final CoordinateSystem coordinateSystem;
+
+    /**
+     * 构造函数
+     *
+     * @param coordinateSystem 接口返回结果和缓存使用的坐标系，为空时使用 GCJ-02
+     */
+    protected AbstractMapService(CoordinateSystem coordinateSystem) {
+        this.coordinateSystem = coordinateSystem == null ? CoordinateSystem.GCJ02 : coordinateSystem;
+    }
+
+    @Autowired(required = false)
+    public void setHttpClient(OkHttpClient httpClient) {
+        this.httpClient = httpClient;
+    }
+
+    @Autowired(required = false)
+    public void setGeocodeCache(GeocodeCache geocodeCache) {
+        this.geocodeCache = geocodeCache;
+    }
+
+    @Autowired(required = false)
+    public void setDistanceCache(DistanceCache distanceCache) {
+        this.distanceCache = distanceCache;
+    }
+
+    @Autowired(required = false)
+    public void setExecutor(@Qualifier("mapServiceExecutor") Executor executor) {
+        this.executor = executor;
+    }
+
+    @Autowired(required = false)
+    public void setMetrics(ProviderMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    @Autowired(required = false)
+    public void setResilienceRegistry(ResilienceRegistry resilienceRegistry) {
+        this.resilience = resilienceRegistry.forProvider(getProviderName());
+    }
+
+    @Autowired(required = false)
+    public void setRequestCoalescer(RequestCoalescer coalescer) {
+        this.coalescer = coalescer;
+    }
+
+    @Autowired(required = false)
+    public void setDistanceEstimator(DistanceEstimator distanceEstimator) {
+        this.distanceEstimator = distanceEstimator;
+    }
+
+    @Autowired(required = false)
+    public void setRateLimiterRegistry(RateLimiterRegistry rateLimiterRegistry) {
+        this.rateLimiter = rateLimiterRegistry.forProvider(getProviderName(), getQuotaLimits());
+    }
+
+    /**
+     * 获取服务商名称
+     *
+     * @return 服务商名称，与 map.provider 配置取值一致
+     */
+    public abstract String getProviderName();
+
+    /**
+     * 获取服务商 API 密钥的调用频率和每日配额
+     *
+     * @return 调用频率和每日配额
+     */
+    protected abstract MapServiceProperties.QuotaProperties getQuotaLimits();
+
+    /**
+     * 获取服务商请求参数和响应结果使用的坐标系
+     *
+     * @return 服务商使用的坐标系
+     */
+    protected abstract CoordinateSystem getProviderCoordinateSystem();
+
+    /**
+     * 获取接口返回结果和缓存使用的坐标系
+     *
+     * @return 服务配置的坐标系
+     */
+    public CoordinateSystem getCoordinateSystem() {
+        return coordinateSystem;
+    }
+
+    /**
+     * 获取服务商当天剩余的调用配额
+     *
+     * @return 剩余配额，未配置配额且服务商未返回配额用完时返回 -1
+     */
+    public long getRemainingDailyQuota() {
+        return rateLimiter == null ? -1 : rateLimiter.getRemainingQuota();
+    }
+
+    /**
+     * 计算两个位置之间的驾车距离，优先从缓存中获取结果
+     * <p>
+     * 缓存命中时不会发起任何HTTP请求；未命中时，坐标相同的并发请求只调用一次服务商
+     * </p>
+     *
+     * @param origin      起点位置
+     * @param destination 终点位置
+     * @return 驾车距离，单位：米
+     * @throws IOException 当网络请求失败时抛出
+     */
+    @Override
+    public double calculateDrivingDistance(Location origin, Location destination) throws IOException {
+        Location from = toServiceCoordinates(origin);
+        Location to = toServiceCoordinates(destination);
+        if (distanceCache == null) {
+            return loadDrivingDistance(from, to);
+        }
+        return distanceCache.get(getProviderName(), from, to, () -> loadDrivingDistance(from, to));
+    }
+
+    private double loadDrivingDistance(Location origin, Location destination) throws IOException {
+        if (coalescer == null) {
+            return doCalculateDrivingDistance(origin, destination);
+        }
+        return coalescer.execute(getProviderName(), ProviderOperation.DISTANCE, coordinateKey(origin, destination),
+                () -> doCalculateDrivingDistance(origin, destination));
+    }
+
+    /**
+     * 生成驾车距离请求的合并键，坐标完全相同时才合并
+     */
+    private static String coordinateKey(Location origin, Location destination) {
+        return coordinateKey(origin) + ';' + coordinateKey(destination);
+    }
+
+    private static String coordinateKey(Location location) {
+        return location.getLat() + "," + location.getLng();
+    }
+
+    /**
+     * 异步计算两个位置之间的驾车距离，优先从缓存中获取结果
      *
-     * @param request HTTP请求对象
-     * @return API响应的字符串内容
+     * @param origin      起点位置
+     * @param destination 终点位置
+     * @return 驾车距离（米）的异步结果
+     */
+    @Override
+    public CompletableFuture<Double> calculateDrivingDistanceAsync(Location origin, Location destination) {
+        Location from = toServiceCoordinates(origin);
+        Location to = toServiceCoordinates(destination);
+        if (distanceCache != null) {
+            Double cached = distanceCache.getIfPresent(getProviderName(), from, to);
+            if (cached != null) {
+                return CompletableFuture.completedFuture(cached);
+            }
+        }
+        CompletableFuture<Double> response = coalesce(ProviderOperation.DISTANCE, coordinateKey(from, to), () -> {
+            CompletableFuture<Double> call = executeRequestAsync(ProviderOperation.DISTANCE,
+                    buildDrivingDistanceRequest(toProviderCoordinates(from), toProviderCoordinates(to)),
+                    this::parseDrivingDistance);
+            call.whenComplete((distance, error) -> {
+                if (error == null) {
+                    learn(from, to, distance);
+                }
+            });
+            return call;
+        });
+        return propagateCancel(response, response.thenApply(distance -> {
+            if (distanceCache != null) {
+                distanceCache.put(getProviderName(), from, to, distance);
+            }
+            return distance;
+        }));
+    }
+
+    /**
+     * 调用服务商API计算两个位置之间的驾车距离
+     *
+     * @param origin      起点位置（服务配置的坐标系）
+     * @param destination 终点位置（服务配置的坐标系）
+     * @return 驾车距离，单位：米
      * @throws IOException 当网络请求失败时抛出
      */
-    protected String executeRequest(Request request) throws IOException {
+    protected double doCalculateDrivingDistance(Location origin, Location destination) throws IOException {
+        double distance = executeRequest(ProviderOperation.DISTANCE,
+                buildDrivingDistanceRequest(toProviderCoordinates(origin), toProviderCoordinates(destination)),
+                this::parseDrivingDistance);
+        learn(origin, destination, distance);
+        return distance;
+    }
+
+    /**
+     * 用服务商返回的驾车距离学习绕行系数
+     */
+    private void learn(Location origin, Location destination, double distance) {
+        if (distanceEstimator != null) {
+            distanceEstimator.record(origin, destination, distance);
+        }
+    }
+
+    /**
+     * 构建驾车距离请求
+     *
+     * @param origin      起点位置（服务商使用的坐标系）
+     * @param destination 终点位置（服务商使用的坐标系）
+     * @return HTTP请求对象
+     */
+    protected abstract Request buildDrivingDistanceRequest(Location origin, Location destination);
+
+    /**
+     * 流式解析驾车距离响应
+     *
+     * @param parser 位于响应开头的JSON解析器
+     * @return 驾车距离，单位：米
+     * @throws IOException 当响应内容无法解析时抛出
+     */
+    protected abstract double parseDrivingDistance(JsonParser parser) throws IOException;
+
+    /**
+     * 计算多个起点到多个终点之间的驾车距离矩阵
+     * <p>
+     * 按服务商距离矩阵接口的单次请求限制拆分为若干块，各块并发请求后合并结果
+     * </p>
+     *
+     * @param origins      起点列表
+     * @param destinations 终点列表
+     * @return 驾车距离矩阵（米），无法到达时为 -1
+     * @throws IOException 当网络请求失败时抛出
+     */
+    @Override
+    public double[][] calculateDistanceMatrix(List<Location> origins, List<Location> destinations) throws IOException {
+        if (origins == null || origins.isEmpty() || destinations == null || destinations.isEmpty()) {
+            throw new IllegalArgumentException("起点和终点列表不能为空");
+        }
+        List<Location> from = CoordinateConverter.convert(origins, coordinateSystem, getProviderCoordinateSystem());
+        List<Location> to = CoordinateConverter.convert(destinations, coordinateSystem, getProviderCoordinateSystem());
+        // 绕行系数按服务配置的坐标系学习，与估算时使用的坐标一致
+        List<Location> serviceOrigins = CoordinateConverter.convert(origins, coordinateSystem, coordinateSystem);
+        List<Location> serviceDestinations = CoordinateConverter.convert(destinations, coordinateSystem, coordinateSystem);
+        DistanceMatrixPlan plan = DistanceMatrixPlan.of(getMatrixLimits(), origins.size(), destinations.size());
+        double[][] matrix = new double[origins.size()][destinations.size()];
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        for (int originStart = 0; originStart < origins.size(); originStart += plan.getOriginBlock()) {
+            for (int destinationStart = 0; destinationStart < destinations.size(); destinationStart += plan.getDestinationBlock()) {
+                int fromOrigin = originStart;
+                int fromDestination = destinationStart;
+                List<Location> originChunk = from.subList(originStart,
+                        Math.min(originStart + plan.getOriginBlock(), origins.size()));
+                List<Location> destinationChunk = to.subList(destinationStart,
+                        Math.min(destinationStart + plan.getDestinationBlock(), destinations.size()));
+                futures.add(CompletableFuture.runAsync(() -> {
+                    double[][] chunk;
+                    try {
+                        chunk = doCalculateDistanceMatrix(originChunk, destinationChunk);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                    for (int i = 0; i < chunk.length; i++) {
+                        System.arraycopy(chunk[i], 0, matrix[fromOrigin + i], fromDestination, chunk[i].length);
+                        for (int j = 0; j < chunk[i].length; j++) {
+                            learn(serviceOrigins.get(fromOrigin + i), serviceDestinations.get(fromDestination + j),
+                                    chunk[i][j]);
+                        }
+                    }
+                }, executor));
+            }
+        }
+        joinAll(futures);
+        return matrix;
+    }
+
+    /**
+     * 等待所有分块请求完成，任一分块失败时抛出其原始异常
+     */
+    private static void joinAll(List<CompletableFuture<Void>> futures) throws IOException {
+        try {
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof UncheckedIOException) {
+                throw ((UncheckedIOException) cause).getCause();
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * 获取服务商距离矩阵接口的单次请求限制
+     *
+     * @return 距离矩阵请求限制
+     */
+    protected abstract MapServiceProperties.MatrixProperties getMatrixLimits();
+
+    /**
+     * 调用服务商距离矩阵API，起终点数量不超过单次请求限制
+     *
+     * @param origins      起点列表（服务商使用的坐标系）
+     * @param destinations 终点列表（服务商使用的坐标系）
+     * @return 驾车距离矩阵（米），无法到达时为 -1
+     * @throws IOException 当网络请求失败时抛出
+     */
+    protected abstract double[][] doCalculateDistanceMatrix(List<Location> origins, List<Location> destinations) throws IOException;
+
+    /**
+     * 计算按顺序途经多个位置的驾车路线距离
+     * <p>
+     * 使用服务商路线规划接口的途经点参数，一次请求得到多段距离；位置数超过单次请求的途经点限制时，
+     * 按顺序拆分为首尾相接的若干段路线并发请求，例如 20 个位置、每次最多 18 个途经点时只需一次请求
+     * </p>
+     *
+     * @param waypoints 按行驶顺序排列的位置，至少两个
+     * @return 路线总距离和各段距离（米）
+     * @throws IOException 当网络请求失败时抛出
+     */
+    @Override
+    public RouteDistance calculateRouteDistance(List<Location> waypoints) throws IOException {
+        if (waypoints == null || waypoints.size() < 2) {
+            throw new IllegalArgumentException("路线至少包含起点和终点两个位置");
+        }
+        List<Location> points = CoordinateConverter.convert(waypoints, coordinateSystem, getProviderCoordinateSystem());
+        List<Location> servicePoints = CoordinateConverter.convert(waypoints, coordinateSystem, coordinateSystem);
+        int legsPerRequest = Math.max(1, getMaxWaypoints() + 1);
+        double[] legs = new double[points.size() - 1];
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        for (int start = 0; start < legs.length; start += legsPerRequest) {
+            int firstLeg = start;
+            List<Location> segment = points.subList(start, Math.min(start + legsPerRequest, legs.length) + 1);
+            futures.add(CompletableFuture.runAsync(() -> {
+                double[] segmentLegs;
+                try {
+                    segmentLegs = doCalculateRouteDistance(segment);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                System.arraycopy(segmentLegs, 0, legs, firstLeg, segmentLegs.length);
+                for (int i = 0; i < segmentLegs.length; i++) {
+                    learn(servicePoints.get(firstLeg + i), servicePoints.get(firstLeg + i + 1), segmentLegs[i]);
+                }
+            }, executor));
+        }
+        joinAll(futures);
+
+        double distance = 0;
+        for (double leg : legs) {
+            distance += leg;
+        }
+        return new RouteDistance(distance, legs);
+    }
+
+    /**
+     * 获取服务商路线规划接口单次请求最多的途经点数（不含起点和终点）
+     *
+     * @return 最多途经点数
+     */
+    protected abstract int getMaxWaypoints();
+
+    /**
+     * 调用服务商路线规划API，途经点数量不超过单次请求限制
+     *
+     * @param waypoints 按行驶顺序排列的位置（服务商使用的坐标系），第一个为起点，最后一个为终点
+     * @return 各段驾车距离（米），长度为位置数减一
+     * @throws IOException 当网络请求失败或分段数与位置数不一致时抛出
+     */
+    protected abstract double[] doCalculateRouteDistance(List<Location> waypoints) throws IOException;
+
+    /**
+     * 解析地址字符串，优先从缓存中获取结果
+     *
+     * @param address 需要解析的地址字符串
+     * @return 包含所有可能匹配地址信息的列表
+     * @throws IOException 当网络请求失败时抛出
+     */
+    @Override
+    public List<AddressInfo> geocodeAddress(String address) throws IOException {
+        if (geocodeCache == null) {
+            return loadGeocode(address);
+        }
+        return geocodeCache.get(getProviderName(), address, () -> loadGeocode(address));
+    }
+
+    private List<AddressInfo> loadGeocode(String address) throws IOException {
+        if (coalescer == null) {
+            return doGeocodeAddress(address);
+        }
+        return coalescer.execute(getProviderName(), ProviderOperation.GEOCODE, AddressNormalizer.key(address),
+                () -> doGeocodeAddress(address));
+    }
+
+    /**
+     * 异步解析地址字符串，优先从缓存中获取结果
+     *
+     * @param address 需要解析的地址字符串
+     * @return 地址信息列表的异步结果
+     */
+    @Override
+    public CompletableFuture<List<AddressInfo>> geocodeAddressAsync(String address) {
+        if (geocodeCache != null) {
+            List<AddressInfo> cached = geocodeCache.getIfPresent(getProviderName(), address);
+            if (cached != null) {
+                return CompletableFuture.completedFuture(cached);
+            }
+        }
+        CompletableFuture<List<AddressInfo>> response = coalesce(ProviderOperation.GEOCODE,
+                AddressNormalizer.key(address),
+                () -> executeRequestAsync(ProviderOperation.GEOCODE, buildGeocodeRequest(AddressNormalizer.clean(address)), this::parseGeocodeResults));
+        return propagateCancel(response, response.thenApply(results -> {
+            if (geocodeCache != null) {
+                geocodeCache.put(getProviderName(), address, results);
+            }
+            return results;
+        }));
+    }
+
+    /**
+     * 调用服务商API解析地址字符串
+     *
+     * @param address 需要解析的地址字符串
+     * @return 包含所有可能匹配地址信息的列表
+     * @throws IOException 当网络请求失败时抛出
+     */
+    protected List<AddressInfo> doGeocodeAddress(String address) throws IOException {
+        return executeRequest(ProviderOperation.GEOCODE, buildGeocodeRequest(AddressNormalizer.clean(address)), this::parseGeocodeResults);
+    }
+
+    private List<AddressInfo> parseGeocodeResults(JsonParser parser) throws IOException {
+        return fromProviderCoordinates(parseGeocode(parser));
+    }
+
+    /**
+     * 构建地址解析请求
+     *
+     * @param address 需要解析的地址字符串
+     * @return HTTP请求对象
+     */
+    protected abstract Request buildGeocodeRequest(String address);
+
+    /**
+     * 流式解析地址解析响应
+     *
+     * @param parser 位于响应开头的JSON解析器
+     * @return 包含所有可能匹配地址信息的列表（服务商使用的坐标系）
+     * @throws IOException 当响应内容无法解析时抛出
+     */
+    protected abstract List<AddressInfo> parseGeocode(JsonParser parser) throws IOException;
+
+    /**
+     * 逆地址解析，坐标相同的并发请求只调用一次服务商
+     *
+     * @param location 需要解析的坐标
+     * @return 坐标所在位置的地址信息列表，最精确的在前
+     * @throws IOException 当网络请求失败时抛出
+     */
+    @Override
+    public List<AddressInfo> reverseGeocode(Location location) throws IOException {
+        Location normalized = toServiceCoordinates(location);
+        if (coalescer == null) {
+            return doReverseGeocode(normalized);
+        }
+        return coalescer.execute(getProviderName(), ProviderOperation.REVERSE_GEOCODE, coordinateKey(normalized),
+                () -> doReverseGeocode(normalized));
+    }
+
+    /**
+     * 异步逆地址解析
+     *
+     * @param location 需要解析的坐标
+     * @return 地址信息列表的异步结果
+     */
+    @Override
+    public CompletableFuture<List<AddressInfo>> reverseGeocodeAsync(Location location) {
+        Location normalized = toServiceCoordinates(location);
+        return coalesce(ProviderOperation.REVERSE_GEOCODE, coordinateKey(normalized),
+                () -> executeRequestAsync(ProviderOperation.REVERSE_GEOCODE,
+                        buildReverseGeocodeRequest(toProviderCoordinates(normalized)), this::parseReverseGeocodeResults));
+    }
+
+    /**
+     * 调用服务商API逆地址解析
+     *
+     * @param location 需要解析的坐标（服务配置的坐标系）
+     * @return 坐标所在位置的地址信息列表
+     * @throws IOException 当网络请求失败时抛出
+     */
+    protected List<AddressInfo> doReverseGeocode(Location location) throws IOException {
+        return executeRequest(ProviderOperation.REVERSE_GEOCODE, buildReverseGeocodeRequest(toProviderCoordinates(location)),
+                this::parseReverseGeocodeResults);
+    }
+
+    private List<AddressInfo> parseReverseGeocodeResults(JsonParser parser) throws IOException {
+        return fromProviderCoordinates(parseReverseGeocode(parser));
+    }
+
+    /**
+     * 构建逆地址解析请求
+     *
+     * @param location 需要解析的坐标（服务商使用的坐标系）
+     * @return HTTP请求对象
+     */
+    protected abstract Request buildReverseGeocodeRequest(Location location);
+
+    /**
+     * 流式解析逆地址解析响应
+     *
+     * @param parser 位于响应开头的JSON解析器
+     * @return 坐标所在位置的地址信息列表（服务商使用的坐标系）
+     * @throws IOException 当响应内容无法解析时抛出
+     */
+    protected abstract List<AddressInfo> parseReverseGeocode(JsonParser parser) throws IOException;
+
+    /**
+     * 将请求坐标转换到服务配置的坐标系，作为缓存和合并请求的键
+     */
+    private Location toServiceCoordinates(Location location) {
+        return CoordinateConverter.convert(location, coordinateSystem, coordinateSystem);
+    }
+
+    /**
+     * 将服务配置坐标系中的坐标转换到服务商使用的坐标系
+     */
+    private Location toProviderCoordinates(Location location) {
+        return CoordinateConverter.convert(location, coordinateSystem, getProviderCoordinateSystem());
+    }
+
+    /**
+     * 将服务商返回的地址坐标原地转换到服务配置的坐标系
+     */
+    private List<AddressInfo> fromProviderCoordinates(List<AddressInfo> results) {
+        for (AddressInfo result : results) {
+            CoordinateConverter.convert(result, getProviderCoordinateSystem(), coordinateSystem);
+        }
+        return results;
+    }
+
+    /**
+     * 执行HTTP请求，并在响应字节流上直接解析结果
+     * <p>
+     * 响应不会被完整读入字符串，解析器只读取所需字段；
+     * 注入容错策略时，调用经过熔断器和舱壁，临时错误按退避时间重试；
+     * 注入限流时，每次调用（包括重试）在进入熔断器和舱壁之前取得许可，令牌不足时在调用线程中等待
+     * </p>
+     *
+     * @param operation 操作类型，用于监控指标
+     * @param request   HTTP请求对象
+     * @param parser    响应解析器
+     * @param <T>       解析结果类型
+     * @return 解析结果
+     * @throws IOException         当网络请求失败或响应内容无法解析时抛出
+     * @throws MapServiceException 当服务商返回错误、熔断器打开、并发调用数已满或超过客户端限流时抛出
+     */
+    protected <T> T executeRequest(ProviderOperation operation, Request request, ResponseParser<T> parser) throws IOException {
+        if (resilience == null) {
+            acquirePermit();
+            return doExecuteRequest(operation, request, parser);
+        }
+        return resilience.execute(this::acquirePermit, () -> doExecuteRequest(operation, request, parser));
+    }
+
+    private Void acquirePermit() throws IOException {
+        if (rateLimiter != null) {
+            rateLimiter.acquire();
+        }
+        return null;
+    }
+
+    private CompletableFuture<Void> acquirePermitAsync() {
+        return rateLimiter == null ? CompletableFuture.completedFuture(null) : rateLimiter.acquireAsync();
+    }
+
+    private <T> T doExecuteRequest(ProviderOperation operation, Request request, ResponseParser<T> parser) throws IOException {
+        ProviderMetrics.Timing timing = metrics.start(getProviderName(), operation);
         try (Response response = httpClient.newCall(request).execute()) {
-            return response.body().string();
+            timing.status(response.code());
+            T result = parseResponse(response, parser);
+            timing.success();
+            return result;
+        } catch (IOException | RuntimeException e) {
+            timing.failure(e);
+            onQuotaExceeded(e);
+            throw e;
+        }
+    }
+
+    /**
+     * 异步执行HTTP请求，不阻塞调用线程
+     * <p>
+     * 请求通过 OkHttp 的调度器发出，响应到达后在其回调线程中解析并完成返回的 Future；
+     * 取消返回的 Future 会同时取消底层的HTTP调用。注入容错策略时，重试在定时线程中延迟发起；
+     * 注入限流时，令牌不足的请求在定时线程中等待，取得许可后再进入熔断器和舱壁
+     * </p>
+     *
+     * @param operation 操作类型，用于监控指标
+     * @param request   HTTP请求对象
+     * @param parser    响应解析器
+     * @param <T>       解析结果类型
+     * @return 解析结果的异步结果
+     */
+    protected <T> CompletableFuture<T> executeRequestAsync(ProviderOperation operation, Request request, ResponseParser<T> parser) {
+        if (resilience == null) {
+            return doExecuteRequestAsync(operation, request, parser, acquirePermitAsync());
+        }
+        return resilience.executeAsync(this::acquirePermitAsync,
+                () -> doExecuteRequestAsync(operation, request, parser, CompletableFuture.completedFuture(null)));
+    }
+
+    private <T> CompletableFuture<T> doExecuteRequestAsync(ProviderOperation operation, Request request,
+                                                           ResponseParser<T> parser, CompletableFuture<Void> permit) {
+        Call call = httpClient.newCall(request);
+        CompletableFuture<T> future = new CompletableFuture<T>() {
+            @Override
+            public boolean cancel(boolean mayInterruptIfRunning) {
+                permit.cancel(false);
+                call.cancel();
+                return super.cancel(mayInterruptIfRunning);
+            }
+        };
+        permit.whenComplete((ignored, error) -> {
+            if (error != null) {
+                future.completeExceptionally(error);
+            } else if (!future.isDone()) {
+                enqueue(operation, call, parser, future);
+            }
+        });
+        return future;
+    }
+
+    private <T> void enqueue(ProviderOperation operation, Call call, ResponseParser<T> parser, CompletableFuture<T> future) {
+        ProviderMetrics.Timing timing = metrics.start(getProviderName(), operation);
+        call.enqueue(new Callback() {
+            @Override
+            public void onFailure(Call call, IOException e) {
+                timing.failure(e);
+                future.completeExceptionally(e);
+            }
+
+            @Override
+            public void onResponse(Call call, Response response) {
+                try (Response closeable = response) {
+                    timing.status(closeable.code());
+                    T result = parseResponse(closeable, parser);
+                    timing.success();
+                    future.complete(result);
+                } catch (IOException | RuntimeException e) {
+                    timing.failure(e);
+                    onQuotaExceeded(e);
+                    future.completeExceptionally(e);
+                }
+            }
+        });
+    }
+
+    /**
+     * 服务商返回配额用完时，当天剩余时间内不再调用该服务商
+     */
+    private void onQuotaExceeded(Exception error) {
+        if (rateLimiter != null && error instanceof MapServiceException
+                && ((MapServiceException) error).isFromProvider()
+                && ((MapServiceException) error).getReason() == MapServiceException.Reason.QUOTA_EXCEEDED) {
+            rateLimiter.onQuotaExceeded();
+        }
+    }
+
+    /**
+     * 合并相同的并发异步请求，未注入合并组件时直接调用
+     *
+     * @param operation 操作类型
+     * @param key       规范化后的请求参数
+     * @param call      服务商异步调用
+     * @param <T>       结果类型
+     * @return 调用方独立的异步结果
+     */
+    private <T> CompletableFuture<T> coalesce(ProviderOperation operation, Object key, Supplier<CompletableFuture<T>> call) {
+        return coalescer == null ? call.get() : coalescer.executeAsync(getProviderName(), operation, key, call);
+    }
+
+    /**
+     * 取消派生的 Future 时同时取消源 Future，使调用方的取消能够传递到底层的HTTP调用
+     *
+     * @param source    源 Future
+     * @param dependent 由源 Future 派生的 Future
+     * @param <T>       源结果类型
+     * @param <R>       派生结果类型
+     * @return 派生的 Future
+     */
+    private static <T, R> CompletableFuture<R> propagateCancel(CompletableFuture<T> source, CompletableFuture<R> dependent) {
+        dependent.whenComplete((value, error) -> {
+            if (dependent.isCancelled()) {
+                source.cancel(true);
+            }
+        });
+        return dependent;
+    }
+
+    private <T> T parseResponse(Response response, ResponseParser<T> parser) throws IOException {
+        if (!response.isSuccessful()) {
+            throw new MapServiceException(getProviderName(), String.valueOf(response.code()),
+                    MapServiceException.Reason.ofHttpStatus(response.code()), "API调用失败: HTTP " + response.code());
+        }
+        try (JsonParser jsonParser = objectMapper.getFactory().createParser(response.body().byteStream())) {
+            return parser.parse(jsonParser);
         }
     }
 
     /**
      * 验证API响应的状态
-     * 
-     * @param status HTTP状态码或API自定义状态码
+     *
+     * @param status  服务商返回的状态码
+     * @param reason  状态码对应的失败原因，成功或无匹配结果时为 null
      * @param message 错误信息
-     * @throws RuntimeException 当API调用失败时抛出，包含具体的错误信息
+     * @throws MapServiceException 当API调用失败时抛出，包含具体的错误信息和失败原因
      */
-    protected void validateResponse(int status, String message) {
-        if (status != 200 && status != 404) {
-            throw new RuntimeException("API调用失败: " + message);
+    protected void validateResponse(Object status, MapServiceException.Reason reason, String message) {
+        if (reason != null) {
+            throw new MapServiceException(getProviderName(), String.valueOf(status), reason, "API调用失败: " + message);
         }
     }
-}
\ No newline at end of file
+}
@@ -1,9 +1,15 @@
 package com.example.geoservice.service.impl;
 
 import com.example.geoservice.config.MapServiceProperties;
+import com.example.geoservice.exception.MapServiceException;
+import com.example.geoservice.geo.CoordinateSystem;
 import com.example.geoservice.model.AddressInfo;
 import com.example.geoservice.model.Location;
+import com.example.geoservice.service.ProviderOperation;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.MissingNode;
 import okhttp3.HttpUrl;
 import okhttp3.Request;
 import org.springframework.stereotype.Service;
@@ -28,36 +34,136 @@ public class BaiduMapService extends AbstractMapService {
      */
     private final MapServiceProperties.BaiduMapProperties properties;
 
+    /**
+     * 驾车距离在 result 字段中的路径：最短路线的距离
+     */
+    private static final Object[] ROUTE_DISTANCE = {"routes", 0, "distance"};
+
+    /**
+     * 各接口的请求模板，起终点均为国测局坐标（百度地图默认为百度坐标）
+     */
+    private final RequestTemplate drivingTemplate;
+    private final RequestTemplate matrixTemplate;
+    private final RequestTemplate geocodeTemplate;
+    private final RequestTemplate reverseGeocodeTemplate;
+
     /**
      * 构造函数
      *
      * @param properties 地图服务配置
      */
     public BaiduMapService(MapServiceProperties properties) {
+        super(properties.getCoordinateSystem());
         this.properties = properties.getBaidu();
+        String baseUrl = this.properties.getBaseUrl();
+        String apiKey = this.properties.getApiKey();
+        String language = this.properties.getLanguage();
+        this.drivingTemplate = new RequestTemplate(baseUrl, "/direction/v2/driving",
+                "coord_type", "gcj02", "ak", apiKey, "output", "json", "language", language);
+        this.matrixTemplate = new RequestTemplate(baseUrl, "/routematrix/v2/driving",
+                "coord_type", "gcj02", "ak", apiKey, "output", "json");
+        this.geocodeTemplate = new RequestTemplate(baseUrl, "/geocoding/v3",
+                "ak", apiKey, "output", "json", "language", language, "ret_coordtype", "gcj02ll"); // 返回国测局坐标
+        this.reverseGeocodeTemplate = new RequestTemplate(baseUrl, "/reverse_geocoding/v3",
+                "coordtype", "gcj02ll", "ret_coordtype", "gcj02ll", "ak", apiKey, "output", "json", "language", language);
+    }
+
+    @Override
+    public String getProviderName() {
+        return "baidu";
     }
 
     /**
-     * 计算两个位置之间的驾车距离
-     * <p>
-     * 调用百度地图Direction API计算驾车路线，并返回最短路线的距离
-     * </p>
+     * 构建驾车距离请求
      *
      * @param origin      起点位置
      * @param destination 终点位置
+     * @return HTTP请求对象
+     */
+    @Override
+    protected Request buildDrivingDistanceRequest(Location origin, Location destination) {
+        // 在模板上追加起终点坐标
+        HttpUrl url = drivingTemplate.newUrl()
+                .addEncodedQueryParameter("origin", RequestTemplate.location(origin))
+                .addEncodedQueryParameter("destination", RequestTemplate.location(destination))
+                .build();
+
+        // 构建HTTP请求
+        return new Request.Builder()
+                .url(url)
+                .build();
+    }
+
+    /**
+     * 解析驾车距离响应，返回最短路线的距离
+     *
+     * @param parser 位于响应开头的JSON解析器
      * @return 驾车距离，单位：米
+     * @throws IOException 当响应内容无法解析时抛出
+     */
+    @Override
+    protected double parseDrivingDistance(JsonParser parser) throws IOException {
+        int status = 0;
+        String message = "";
+        double distance = 0;
+
+        // 逐个读取根对象的字段，只沿路径读取路线距离，其余内容跳过
+        JsonStreams.startObject(parser);
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            parser.nextToken();
+            switch (field) {
+                case "status":
+                    status = parser.getValueAsInt();
+                    break;
+                case "message":
+                    message = parser.getValueAsString("");
+                    break;
+                case "result":
+                    distance = JsonStreams.readDouble(parser, ROUTE_DISTANCE);
+                    break;
+                default:
+                    parser.skipChildren();
+            }
+        }
+
+        // 验证响应状态（百度地图使用0表示成功）
+        validateResponse(status, failureReason(status), message);
+        return distance;
+    }
+
+    @Override
+    protected MapServiceProperties.MatrixProperties getMatrixLimits() {
+        return properties.getMatrix();
+    }
+
+    @Override
+    protected MapServiceProperties.QuotaProperties getQuotaLimits() {
+        return properties.getQuota();
+    }
+
+    @Override
+    protected CoordinateSystem getProviderCoordinateSystem() {
+        return CoordinateSystem.GCJ02; // 请求中指定坐标类型为国测局坐标，不使用百度坐标
+    }
+
+    /**
+     * 计算多个起点到多个终点之间的驾车距离矩阵
+     * <p>
+     * 调用百度地图批量算路API，结果按起点优先的顺序平铺为一维数组
+     * </p>
+     *
+     * @param origins      起点列表
+     * @param destinations 终点列表
+     * @return 驾车距离矩阵（米），无法到达时为 -1
      * @throws IOException 当网络请求失败时抛出
      */
     @Override
-    public double calculateDrivingDistance(Location origin, Location destination) throws IOException {
-        // 构建请求URL，添加必要的查询参数
-        HttpUrl url = HttpUrl.parse(properties.getBaseUrl() + "/direction/v2/driving")
-                .newBuilder()
-                .addQueryParameter("origin", origin.getLat() + "," + origin.getLng())
-                .addQueryParameter("destination", destination.getLat() + "," + destination.getLng())
-                .addQueryParameter("ak", properties.getApiKey())
-                .addQueryParameter("output", "json")
-                .addQueryParameter("language", properties.getLanguage())
+    protected double[][] doCalculateDistanceMatrix(List<Location> origins, List<Location> destinations) throws IOException {
+        // 构建请求URL，多个坐标之间以竖线分隔
+        HttpUrl url = matrixTemplate.newUrl()
+                .addEncodedQueryParameter("origins", RequestTemplate.locations(origins, RequestTemplate.PIPE))
+                .addEncodedQueryParameter("destinations", RequestTemplate.locations(destinations, RequestTemplate.PIPE))
                 .build();
 
         // 构建并执行HTTP请求
@@ -65,54 +171,220 @@ public class BaiduMapService extends AbstractMapService {
                 .url(url)
                 .build();
 
-        String response = executeRequest(request);
-        JsonNode root = objectMapper.readTree(response);
+        JsonNode root = executeRequest(ProviderOperation.DISTANCE_MATRIX, request, parser -> {
+            JsonNode node = objectMapper.readTree(parser);
 
-        // 验证响应状态（百度地图使用0表示成功）
-        int status = root.path("status").asInt();
-        validateResponse(status == 0 ? 200 : 400, root.path("message").asText());
+            // 验证响应状态（百度地图使用0表示成功）
+            int status = node.path("status").asInt();
+            validateResponse(status, failureReason(status), node.path("message").asText());
+            return node;
+        });
+
+        // 解析距离矩阵
+        JsonNode result = root.path("result");
+        double[][] matrix = new double[origins.size()][destinations.size()];
+        for (int i = 0; i < origins.size(); i++) {
+            for (int j = 0; j < destinations.size(); j++) {
+                JsonNode distance = result.path(i * destinations.size() + j).path("distance");
+                matrix[i][j] = distance.has("value") ? distance.path("value").asDouble() : -1;
+            }
+        }
+        return matrix;
+    }
 
-        // 解析并返回路线距离
-        return root.path("result")
-                .path("routes")
-                .path(0)
-                .path("distance")
-                .asDouble();
+    @Override
+    protected int getMaxWaypoints() {
+        return properties.getMaxWaypoints();
     }
 
+    /**
+     * 计算按顺序途经多个位置的驾车路线距离
+     * <p>
+     * 调用百度地图驾车路线规划API，途经点以竖线分隔；响应中每个路段（step）的 leg_index 为其所在分段，
+     * 按分段累加路段距离
+     * </p>
+     *
+     * @param waypoints 按行驶顺序排列的位置，第一个为起点，最后一个为终点
+     * @return 各段驾车距离（米）
+     * @throws IOException 当网络请求失败或分段序号超出范围时抛出
+     */
     @Override
-    public List<AddressInfo> geocodeAddress(String address) throws IOException {
-        // 构建请求URL，添加必要的查询参数
-        HttpUrl url = HttpUrl.parse(properties.getBaseUrl() + "/geocoding/v3")
-                .newBuilder()
-                .addQueryParameter("address", address)
-                .addQueryParameter("ak", properties.getApiKey())
-                .addQueryParameter("output", "json")
-                .addQueryParameter("language", properties.getLanguage())
-                .addQueryParameter("ret_coordtype", "gcj02ll") // 返回国测局坐标
-                .build();
+    protected double[] doCalculateRouteDistance(List<Location> waypoints) throws IOException {
+        // 在模板上追加起终点和途经点坐标
+        HttpUrl.Builder urlBuilder = drivingTemplate.newUrl()
+                .addEncodedQueryParameter("origin", RequestTemplate.location(waypoints.get(0)))
+                .addEncodedQueryParameter("destination", RequestTemplate.location(waypoints.get(waypoints.size() - 1)));
+        if (waypoints.size() > 2) {
+            urlBuilder.addEncodedQueryParameter("waypoints",
+                    RequestTemplate.locations(waypoints.subList(1, waypoints.size() - 1), RequestTemplate.PIPE));
+        }
 
         // 构建并执行HTTP请求
         Request request = new Request.Builder()
+                .url(urlBuilder.build())
+                .build();
+
+        JsonNode root = executeRequest(ProviderOperation.ROUTE, request, parser -> {
+            JsonNode node = objectMapper.readTree(parser);
+
+            // 验证响应状态（百度地图使用0表示成功）
+            int status = node.path("status").asInt();
+            validateResponse(status, failureReason(status), node.path("message").asText());
+            return node;
+        });
+
+        // 按分段累加路段距离
+        double[] legs = new double[waypoints.size() - 1];
+        for (JsonNode step : root.path("result").path("routes").path(0).path("steps")) {
+            int leg = step.path("leg_index").asInt();
+            if (leg < 0 || leg >= legs.length) {
+                throw new IOException("路线分段序号超出范围: " + leg);
+            }
+            legs[leg] += step.path("distance").asDouble();
+        }
+        return legs;
+    }
+
+    /**
+     * 构建地址解析请求
+     *
+     * @param address 需要解析的地址字符串
+     * @return HTTP请求对象
+     */
+    @Override
+    protected Request buildGeocodeRequest(String address) {
+        // 在模板上追加地址
+        HttpUrl url = geocodeTemplate.newUrl()
+                .addQueryParameter("address", address)
+                .build();
+
+        // 构建HTTP请求
+        return new Request.Builder()
                 .url(url)
                 .build();
+    }
+
+    /**
+     * 解析地址解析响应
+     *
+     * @param parser 位于响应开头的JSON解析器
+     * @return 包含所有可能匹配地址信息的列表
+     * @throws IOException 当响应内容无法解析时抛出
+     */
+    @Override
+    protected List<AddressInfo> parseGeocode(JsonParser parser) throws IOException {
+        int status = 0;
+        String message = "";
+        JsonNode result = MissingNode.getInstance();
 
-        String response = executeRequest(request);
-        JsonNode root = objectMapper.readTree(response);
+        // 逐个读取根对象的字段，只把 result 读成树结构，其余字段跳过
+        JsonStreams.startObject(parser);
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            parser.nextToken();
+            switch (field) {
+                case "status":
+                    status = parser.getValueAsInt();
+                    break;
+                case "message":
+                    message = parser.getValueAsString("");
+                    break;
+                case "result":
+                    result = objectMapper.readTree(parser);
+                    break;
+                default:
+                    parser.skipChildren();
+            }
+        }
 
-        // 验证响应状态（百度地图使用0表示成功）
-        int status = root.path("status").asInt();
-        validateResponse(status == 0 ? 200 : (status == 1 ? 404 : 400), root.path("message").asText());
+        // 验证响应状态（百度地图使用0表示成功，地址无匹配结果时状态为1）
+        validateResponse(status, status == 1 ? null : failureReason(status), message);
 
         List<AddressInfo> addressInfoList = new ArrayList<>();
 
         // 如果没有找到地址，返回空列表
-        if (root.path("result").isEmpty()) {
+        if (result.isEmpty()) {
             return addressInfoList;
         }
 
-        // 解析响应数据
-        JsonNode result = root.path("result");
+        addressInfoList.add(toAddressInfo(result));
+
+        return addressInfoList;
+    }
+
+    /**
+     * 构建逆地址解析请求
+     *
+     * @param location 需要解析的坐标
+     * @return HTTP请求对象
+     */
+    @Override
+    protected Request buildReverseGeocodeRequest(Location location) {
+        // 与地址解析的返回结果一致，输入和返回均使用国测局坐标
+        HttpUrl url = reverseGeocodeTemplate.newUrl()
+                .addEncodedQueryParameter("location", RequestTemplate.location(location))
+                .build();
+
+        // 构建HTTP请求
+        return new Request.Builder()
+                .url(url)
+                .build();
+    }
+
+    /**
+     * 解析逆地址解析响应
+     *
+     * @param parser 位于响应开头的JSON解析器
+     * @return 坐标所在位置的地址信息列表
+     * @throws IOException 当响应内容无法解析时抛出
+     */
+    @Override
+    protected List<AddressInfo> parseReverseGeocode(JsonParser parser) throws IOException {
+        int status = 0;
+        String message = "";
+        JsonNode result = MissingNode.getInstance();
+
+        // 逐个读取根对象的字段，只把 result 读成树结构，其余字段跳过
+        JsonStreams.startObject(parser);
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            parser.nextToken();
+            switch (field) {
+                case "status":
+                    status = parser.getValueAsInt();
+                    break;
+                case "message":
+                    message = parser.getValueAsString("");
+                    break;
+                case "result":
+                    result = objectMapper.readTree(parser);
+                    break;
+                default:
+                    parser.skipChildren();
+            }
+        }
+
+        // 验证响应状态（百度地图使用0表示成功）
+        validateResponse(status, failureReason(status), message);
+
+        List<AddressInfo> addressInfoList = new ArrayList<>();
+        if (result.isEmpty()) {
+            return addressInfoList;
+        }
+        AddressInfo addressInfo = toAddressInfo(result);
+        // 逆地址解析结果即服务商对该坐标的判定，没有置信度字段
+        addressInfo.setConfidence(1.0);
+        addressInfoList.add(addressInfo);
+        return addressInfoList;
+    }
+
+    /**
+     * 将解析结果映射为地址信息
+     *
+     * @param result 响应中的 result 字段
+     * @return 地址信息
+     */
+    AddressInfo toAddressInfo(JsonNode result) {
         JsonNode location = result.path("location");
         JsonNode addressComponent = result.path("addressComponent");
 
@@ -128,8 +400,29 @@ public class BaiduMapService extends AbstractMapService {
         addressInfo.setFormattedAddress(result.path("formatted_address").asText());
         addressInfo.setConfidence(result.path("confidence").asDouble());
 
-        addressInfoList.add(addressInfo);
+        return addressInfo;
+    }
 
-        return addressInfoList;
+    /**
+     * 判断百度地图状态码对应的失败原因
+     *
+     * @param status 百度地图返回的状态码
+     * @return 失败原因，成功时返回 null
+     */
+    static MapServiceException.Reason failureReason(int status) {
+        switch (status) {
+            case 0:
+                return null;
+            case 1: // 服务器内部错误
+                return MapServiceException.Reason.UNAVAILABLE;
+            case 4: // 配额校验失败
+            case 302: // 天配额超限
+                return MapServiceException.Reason.QUOTA_EXCEEDED;
+            case 401: // 当前并发量已经超过约定并发配额
+            case 402: // 当前并发量已经超过约定并发配额，并且服务总并发量也已经超过设定的总并发配额
+                return MapServiceException.Reason.RATE_LIMITED;
+            default:
+                return MapServiceException.Reason.REJECTED;
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,63 @@
+package com.example.geoservice.service.impl;
+
+import com.example.geoservice.config.MapServiceProperties;
+import lombok.Getter;
+
+/**
+ * 距离矩阵分块方案
+ * <p>
+ * 在服务商单次请求限制内选择起点块和终点块的大小，使总请求次数最少
+ * </p>
+ */
+@Getter
+final class DistanceMatrixPlan {
+    /**
+     * 每块起点数
+     */
+    private final int originBlock;
+
+    /**
+     * 每块终点数
+     */
+    private final int destinationBlock;
+
+    /**
+     * 总请求次数
+     */
+    private final int requestCount;
+
+    private DistanceMatrixPlan(int originBlock, int destinationBlock, int requestCount) {
+        this.originBlock = originBlock;
+        this.destinationBlock = destinationBlock;
+        this.requestCount = requestCount;
+    }
+
+    /**
+     * 计算分块方案
+     *
+     * @param limits           单次请求限制
+     * @param originCount      起点总数
+     * @param destinationCount 终点总数
+     * @return 请求次数最少的分块方案
+     */
+    static DistanceMatrixPlan of(MapServiceProperties.MatrixProperties limits, int originCount, int destinationCount) {
+        DistanceMatrixPlan best = null;
+        int maxOriginBlock = Math.min(Math.min(limits.getMaxOrigins(), limits.getMaxElements()), originCount);
+        for (int originBlock = 1; originBlock <= maxOriginBlock; originBlock++) {
+            int destinationBlock = Math.min(Math.min(limits.getMaxDestinations(), limits.getMaxElements() / originBlock),
+                    destinationCount);
+            int requestCount = ceilDiv(originCount, originBlock) * ceilDiv(destinationCount, destinationBlock);
+            if (best == null || requestCount < best.requestCount) {
+                best = new DistanceMatrixPlan(originBlock, destinationBlock, requestCount);
+            }
+        }
+        if (best == null) {
+            throw new IllegalStateException("距离矩阵请求限制配置无效: " + limits);
+        }
+        return best;
+    }
+
+    private static int ceilDiv(int a, int b) {
+        return (a + b - 1) / b;
+    }
+}
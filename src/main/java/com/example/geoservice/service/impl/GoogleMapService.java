@@ -1,9 +1,15 @@
 package com.example.geoservice.service.impl;
 
 import com.example.geoservice.config.MapServiceProperties;
+import com.example.geoservice.exception.MapServiceException;
+import com.example.geoservice.geo.CoordinateSystem;
 import com.example.geoservice.model.AddressInfo;
 import com.example.geoservice.model.Location;
+import com.example.geoservice.service.ProviderOperation;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.MissingNode;
 import okhttp3.HttpUrl;
 import okhttp3.Request;
 import org.springframework.stereotype.Service;
@@ -28,36 +34,133 @@ public class GoogleMapService extends AbstractMapService {
      */
     private final MapServiceProperties.GoogleMapProperties properties;
 
+    /**
+     * 驾车距离在 routes 字段中的路径：第一条路线第一段的距离
+     */
+    private static final Object[] ROUTE_DISTANCE = {0, "legs", 0, "distance", "value"};
+
+    /**
+     * 各接口的请求模板，逆地址解析与地址解析使用同一模板
+     */
+    private final RequestTemplate directionsTemplate;
+    private final RequestTemplate matrixTemplate;
+    private final RequestTemplate geocodeTemplate;
+
     /**
      * 构造函数
      *
      * @param properties 地图服务配置
      */
     public GoogleMapService(MapServiceProperties properties) {
+        super(properties.getCoordinateSystem());
         this.properties = properties.getGoogle();
+        String baseUrl = this.properties.getBaseUrl();
+        String apiKey = this.properties.getApiKey();
+        String language = this.properties.getLanguage();
+        this.directionsTemplate = new RequestTemplate(baseUrl, "/directions/json",
+                "key", apiKey, "mode", "driving", "language", language);
+        this.matrixTemplate = new RequestTemplate(baseUrl, "/distancematrix/json",
+                "key", apiKey, "mode", "driving", "language", language);
+        this.geocodeTemplate = new RequestTemplate(baseUrl, "/geocode/json",
+                "key", apiKey, "language", language);
+    }
+
+    @Override
+    public String getProviderName() {
+        return "google";
     }
 
     /**
-     * 计算两个位置之间的驾车距离
-     * <p>
-     * 调用Google Maps Directions API计算驾车路线，并返回最短路线的距离
-     * </p>
+     * 构建驾车距离请求
      *
      * @param origin      起点位置
      * @param destination 终点位置
+     * @return HTTP请求对象
+     */
+    @Override
+    protected Request buildDrivingDistanceRequest(Location origin, Location destination) {
+        // 在模板上追加起终点坐标
+        HttpUrl url = directionsTemplate.newUrl()
+                .addEncodedQueryParameter("origin", RequestTemplate.location(origin))
+                .addEncodedQueryParameter("destination", RequestTemplate.location(destination))
+                .build();
+
+        // 构建HTTP请求
+        return new Request.Builder()
+                .url(url)
+                .build();
+    }
+
+    /**
+     * 解析驾车距离响应，返回最短路线的距离
+     *
+     * @param parser 位于响应开头的JSON解析器
      * @return 驾车距离，单位：米
+     * @throws IOException 当响应内容无法解析时抛出
+     */
+    @Override
+    protected double parseDrivingDistance(JsonParser parser) throws IOException {
+        String status = "";
+        String message = "";
+        double distance = 0;
+
+        // 逐个读取根对象的字段，只沿路径读取路线距离，其余内容跳过
+        JsonStreams.startObject(parser);
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            parser.nextToken();
+            switch (field) {
+                case "status":
+                    status = parser.getValueAsString("");
+                    break;
+                case "error_message":
+                    message = parser.getValueAsString("");
+                    break;
+                case "routes":
+                    distance = JsonStreams.readDouble(parser, ROUTE_DISTANCE);
+                    break;
+                default:
+                    parser.skipChildren();
+            }
+        }
+
+        // 验证响应状态（Google Maps使用OK表示成功）
+        validateResponse(status, failureReason(status), message);
+        return distance;
+    }
+
+    @Override
+    protected MapServiceProperties.MatrixProperties getMatrixLimits() {
+        return properties.getMatrix();
+    }
+
+    @Override
+    protected MapServiceProperties.QuotaProperties getQuotaLimits() {
+        return properties.getQuota();
+    }
+
+    @Override
+    protected CoordinateSystem getProviderCoordinateSystem() {
+        return CoordinateSystem.WGS84; // Google Maps 使用 WGS-84 坐标
+    }
+
+    /**
+     * 计算多个起点到多个终点之间的驾车距离矩阵
+     * <p>
+     * 调用Google Maps Distance Matrix API，单个元素状态不为OK时视为无法到达
+     * </p>
+     *
+     * @param origins      起点列表
+     * @param destinations 终点列表
+     * @return 驾车距离矩阵（米），无法到达时为 -1
      * @throws IOException 当网络请求失败时抛出
      */
     @Override
-    public double calculateDrivingDistance(Location origin, Location destination) throws IOException {
-        // 构建请求URL，添加必要的查询参数
-        HttpUrl url = HttpUrl.parse(properties.getBaseUrl() + "/directions/json")
-                .newBuilder()
-                .addQueryParameter("origin", origin.getLat() + "," + origin.getLng())
-                .addQueryParameter("destination", destination.getLat() + "," + destination.getLng())
-                .addQueryParameter("key", properties.getApiKey())
-                .addQueryParameter("mode", "driving")
-                .addQueryParameter("language", properties.getLanguage())
+    protected double[][] doCalculateDistanceMatrix(List<Location> origins, List<Location> destinations) throws IOException {
+        // 构建请求URL，多个坐标之间以竖线分隔
+        HttpUrl url = matrixTemplate.newUrl()
+                .addEncodedQueryParameter("origins", RequestTemplate.locations(origins, RequestTemplate.PIPE))
+                .addEncodedQueryParameter("destinations", RequestTemplate.locations(destinations, RequestTemplate.PIPE))
                 .build();
 
         // 构建并执行HTTP请求
@@ -65,96 +168,253 @@ public class GoogleMapService extends AbstractMapService {
                 .url(url)
                 .build();
 
-        String response = executeRequest(request);
-        JsonNode root = objectMapper.readTree(response);
+        JsonNode root = executeRequest(ProviderOperation.DISTANCE_MATRIX, request, parser -> {
+            JsonNode node = objectMapper.readTree(parser);
 
-        // 验证响应状态（Google Maps使用OK表示成功）
-        String status = root.path("status").asText();
-        validateResponse("OK".equals(status) ? 200 : 400, root.path("error_message").asText(""));
+            // 验证响应状态（Google Maps使用OK表示成功）
+            String status = node.path("status").asText();
+            validateResponse(status, failureReason(status), node.path("error_message").asText(""));
+            return node;
+        });
 
-        // 解析并返回路线距离
-        return root.path("routes")
-                .path(0)
-                .path("legs")
-                .path(0)
-                .path("distance")
-                .path("value")
-                .asDouble();
+        // 解析距离矩阵
+        JsonNode rows = root.path("rows");
+        double[][] matrix = new double[origins.size()][destinations.size()];
+        for (int i = 0; i < origins.size(); i++) {
+            JsonNode elements = rows.path(i).path("elements");
+            for (int j = 0; j < destinations.size(); j++) {
+                JsonNode element = elements.path(j);
+                matrix[i][j] = "OK".equals(element.path("status").asText())
+                        ? element.path("distance").path("value").asDouble()
+                        : -1;
+            }
+        }
+        return matrix;
     }
 
     @Override
-    public List<AddressInfo> geocodeAddress(String address) throws IOException {
-        // 构建请求URL，添加必要的查询参数
-        HttpUrl url = HttpUrl.parse(properties.getBaseUrl() + "/geocode/json")
-                .newBuilder()
-                .addQueryParameter("address", address)
-                .addQueryParameter("key", properties.getApiKey())
-                .addQueryParameter("language", properties.getLanguage())
-                .build();
+    protected int getMaxWaypoints() {
+        return properties.getMaxWaypoints();
+    }
+
+    /**
+     * 计算按顺序途经多个位置的驾车路线距离
+     * <p>
+     * 调用 Google Directions API，途经点以竖线分隔且不优化顺序，每个途经点将路线分为一段（leg）
+     * </p>
+     *
+     * @param waypoints 按行驶顺序排列的位置，第一个为起点，最后一个为终点
+     * @return 各段驾车距离（米）
+     * @throws IOException 当网络请求失败或分段数与位置数不一致时抛出
+     */
+    @Override
+    protected double[] doCalculateRouteDistance(List<Location> waypoints) throws IOException {
+        // 在模板上追加起终点和途经点坐标
+        HttpUrl.Builder urlBuilder = directionsTemplate.newUrl()
+                .addEncodedQueryParameter("origin", RequestTemplate.location(waypoints.get(0)))
+                .addEncodedQueryParameter("destination", RequestTemplate.location(waypoints.get(waypoints.size() - 1)));
+        if (waypoints.size() > 2) {
+            urlBuilder.addEncodedQueryParameter("waypoints",
+                    RequestTemplate.locations(waypoints.subList(1, waypoints.size() - 1), RequestTemplate.PIPE));
+        }
 
         // 构建并执行HTTP请求
         Request request = new Request.Builder()
+                .url(urlBuilder.build())
+                .build();
+
+        JsonNode root = executeRequest(ProviderOperation.ROUTE, request, parser -> {
+            JsonNode node = objectMapper.readTree(parser);
+
+            // 验证响应状态（Google Maps使用OK表示成功）
+            String status = node.path("status").asText();
+            validateResponse(status, failureReason(status), node.path("error_message").asText(""));
+            return node;
+        });
+
+        // 解析各段距离
+        JsonNode legNodes = root.path("routes").path(0).path("legs");
+        if (legNodes.size() != waypoints.size() - 1) {
+            throw new IOException("路线分段数与途经点数不一致: " + legNodes.size());
+        }
+        double[] legs = new double[legNodes.size()];
+        for (int i = 0; i < legs.length; i++) {
+            legs[i] = legNodes.path(i).path("distance").path("value").asDouble();
+        }
+        return legs;
+    }
+
+    /**
+     * 构建地址解析请求
+     *
+     * @param address 需要解析的地址字符串
+     * @return HTTP请求对象
+     */
+    @Override
+    protected Request buildGeocodeRequest(String address) {
+        // 在模板上追加地址
+        HttpUrl url = geocodeTemplate.newUrl()
+                .addQueryParameter("address", address)
+                .build();
+
+        // 构建HTTP请求
+        return new Request.Builder()
                 .url(url)
                 .build();
+    }
 
-        String response = executeRequest(request);
-        JsonNode root = objectMapper.readTree(response);
+    /**
+     * 解析地址解析响应
+     *
+     * @param parser 位于响应开头的JSON解析器
+     * @return 包含所有可能匹配地址信息的列表
+     * @throws IOException 当响应内容无法解析时抛出
+     */
+    @Override
+    protected List<AddressInfo> parseGeocode(JsonParser parser) throws IOException {
+        String status = "";
+        String message = "";
+        JsonNode results = MissingNode.getInstance();
+
+        // 逐个读取根对象的字段，只把 results 读成树结构，其余字段跳过
+        JsonStreams.startObject(parser);
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            parser.nextToken();
+            switch (field) {
+                case "status":
+                    status = parser.getValueAsString("");
+                    break;
+                case "error_message":
+                    message = parser.getValueAsString("");
+                    break;
+                case "results":
+                    results = objectMapper.readTree(parser);
+                    break;
+                default:
+                    parser.skipChildren();
+            }
+        }
 
         // 验证响应状态（Google Maps使用OK表示成功）
-        String status = root.path("status").asText();
-        validateResponse("OK".equals(status) ? 200 : ("ZERO_RESULTS".equals(status) ? 404 : 400), root.path("error_message").asText(""));
+        validateResponse(status, "ZERO_RESULTS".equals(status) ? null : failureReason(status), message);
 
         List<AddressInfo> addressInfoList = new ArrayList<>();
 
         // 如果没有找到地址，返回空列表
-        if (root.path("results").isEmpty()) {
+        if (results.isEmpty()) {
             return addressInfoList;
         }
 
         // 遍历所有结果
-        for (JsonNode result : root.path("results")) {
-            JsonNode location = result.path("geometry").path("location");
-            JsonNode addressComponents = result.path("address_components");
-
-            // 构建地址信息对象
-            AddressInfo addressInfo = new AddressInfo();
-            addressInfo.setLatitude(location.path("lat").asDouble());
-            addressInfo.setLongitude(location.path("lng").asDouble());
-
-            // 解析地址组件
-            for (JsonNode component : addressComponents) {
-                String type = component.path("types").path(0).asText();
-                String value = component.path("long_name").asText();
-
-                switch (type) {
-                    case "administrative_area_level_1":
-                        addressInfo.setProvince(value);
-                        break;
-                    case "locality":
-                        addressInfo.setCity(value);
-                        break;
-                    case "sublocality_level_1":
-                        addressInfo.setDistrict(value);
-                        break;
-                    case "route":
-                        addressInfo.setStreet(value);
-                        break;
-                    case "street_number":
-                        addressInfo.setStreetNumber(value);
-                        break;
-                    case "postal_code":
-                        addressInfo.setPostalCode(value);
-                        break;
-                }
-            }
+        for (JsonNode result : results) {
+            addressInfoList.add(toAddressInfo(result));
+        }
+
+        return addressInfoList;
+    }
+
+    /**
+     * 构建逆地址解析请求
+     *
+     * @param location 需要解析的坐标
+     * @return HTTP请求对象
+     */
+    @Override
+    protected Request buildReverseGeocodeRequest(Location location) {
+        // 逆地址解析与地址解析使用同一接口，以 latlng 参数区分
+        HttpUrl url = geocodeTemplate.newUrl()
+                .addEncodedQueryParameter("latlng", RequestTemplate.location(location))
+                .build();
 
-            addressInfo.setFormattedAddress(result.path("formatted_address").asText());
-            // Google Maps API 没有直接提供置信度，这里设置为1.0表示来自官方API
-            addressInfo.setConfidence(1.0);
+        // 构建HTTP请求
+        return new Request.Builder()
+                .url(url)
+                .build();
+    }
 
-            addressInfoList.add(addressInfo);
+    /**
+     * 解析逆地址解析响应
+     * <p>
+     * 响应格式与地址解析相同，结果按从精确到粗略的顺序排列
+     * </p>
+     *
+     * @param parser 位于响应开头的JSON解析器
+     * @return 坐标所在位置的地址信息列表
+     * @throws IOException 当响应内容无法解析时抛出
+     */
+    @Override
+    protected List<AddressInfo> parseReverseGeocode(JsonParser parser) throws IOException {
+        return parseGeocode(parser);
+    }
+
+    /**
+     * 将单条解析结果映射为地址信息
+     *
+     * @param result results 数组中的单个元素
+     * @return 地址信息
+     */
+    AddressInfo toAddressInfo(JsonNode result) {
+        JsonNode location = result.path("geometry").path("location");
+        JsonNode addressComponents = result.path("address_components");
+
+        // 构建地址信息对象
+        AddressInfo addressInfo = new AddressInfo();
+        addressInfo.setLatitude(location.path("lat").asDouble());
+        addressInfo.setLongitude(location.path("lng").asDouble());
+
+        // 解析地址组件
+        for (JsonNode component : addressComponents) {
+            String type = component.path("types").path(0).asText();
+            String value = component.path("long_name").asText();
+
+            switch (type) {
+                case "administrative_area_level_1":
+                    addressInfo.setProvince(value);
+                    break;
+                case "locality":
+                    addressInfo.setCity(value);
+                    break;
+                case "sublocality_level_1":
+                    addressInfo.setDistrict(value);
+                    break;
+                case "route":
+                    addressInfo.setStreet(value);
+                    break;
+                case "street_number":
+                    addressInfo.setStreetNumber(value);
+                    break;
+                case "postal_code":
+                    addressInfo.setPostalCode(value);
+                    break;
+            }
         }
 
-        return addressInfoList;
+        addressInfo.setFormattedAddress(result.path("formatted_address").asText());
+        // Google Maps API 没有直接提供置信度，这里设置为1.0表示来自官方API
+        addressInfo.setConfidence(1.0);
+
+        return addressInfo;
+    }
+
+    /**
+     * 判断 Google Maps 状态码对应的失败原因
+     *
+     * @param status Google Maps 返回的状态码
+     * @return 失败原因，成功时返回 null
+     */
+    static MapServiceException.Reason failureReason(String status) {
+        switch (status) {
+            case "OK":
+                return null;
+            case "OVER_QUERY_LIMIT":
+                return MapServiceException.Reason.RATE_LIMITED;
+            case "OVER_DAILY_LIMIT":
+                return MapServiceException.Reason.QUOTA_EXCEEDED;
+            case "UNKNOWN_ERROR": // 服务器错误，重试可能成功
+                return MapServiceException.Reason.UNAVAILABLE;
+            default:
+                return MapServiceException.Reason.REJECTED;
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,133 @@
+package com.example.geoservice.service.impl;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+
+/**
+ * 流式 JSON 读取工具类
+ * <p>
+ * 在 {@link JsonParser} 上按字段名和数组下标定位所需的值，
+ * 其余内容通过 skipChildren 跳过，不创建任何中间对象
+ * </p>
+ */
+final class JsonStreams {
+
+    private JsonStreams() {
+    }
+
+    /**
+     * 读取根对象的起始标记
+     *
+     * @param parser 尚未读取任何标记的解析器
+     * @throws IOException 当响应不是 JSON 对象时抛出
+     */
+    static void startObject(JsonParser parser) throws IOException {
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+            throw new IOException("响应内容不是JSON对象");
+        }
+    }
+
+    /**
+     * 在当前对象中查找字段
+     * <p>
+     * 调用前解析器位于对象的起始标记或上一个字段的值上（容器类型的值需已读完）；
+     * 找到时解析器位于该字段的值上，否则位于对象的结束标记上
+     * </p>
+     *
+     * @param parser 解析器
+     * @param name   字段名
+     * @return 是否找到字段
+     */
+    static boolean findField(JsonParser parser, String name) throws IOException {
+        JsonToken token;
+        while ((token = parser.nextToken()) == JsonToken.FIELD_NAME) {
+            boolean matched = name.equals(parser.getCurrentName());
+            parser.nextToken();
+            if (matched) {
+                return true;
+            }
+            parser.skipChildren();
+        }
+        if (token != JsonToken.END_OBJECT) {
+            throw new IOException("JSON格式不正确");
+        }
+        return false;
+    }
+
+    /**
+     * 在当前数组中定位元素
+     * <p>
+     * 调用前解析器位于数组的起始标记上；找到时解析器位于该元素的起始标记上，否则位于数组的结束标记上
+     * </p>
+     *
+     * @param parser 解析器
+     * @param index  元素下标
+     * @return 是否找到元素
+     */
+    static boolean findElement(JsonParser parser, int index) throws IOException {
+        for (int i = 0; ; i++) {
+            JsonToken token = parser.nextToken();
+            if (token == JsonToken.END_ARRAY || token == null) {
+                return false;
+            }
+            if (i == index) {
+                return true;
+            }
+            parser.skipChildren();
+        }
+    }
+
+    /**
+     * 跳过当前对象或数组中剩余的内容，调用后解析器位于其结束标记上
+     *
+     * @param parser 解析器
+     */
+    static void skipRest(JsonParser parser) throws IOException {
+        JsonToken token;
+        while ((token = parser.nextToken()) != null) {
+            if (token == JsonToken.END_OBJECT || token == JsonToken.END_ARRAY) {
+                return;
+            }
+            parser.skipChildren();
+        }
+    }
+
+    /**
+     * 沿路径读取数值，读取后解析器位于起始值的结束位置
+     * <p>
+     * 路径由字段名（String）和数组下标（Integer）组成，路径不存在时返回 0
+     * </p>
+     *
+     * @param parser 位于起始值上的解析器
+     * @param path   相对于起始值的路径
+     * @return 路径上的数值
+     */
+    static double readDouble(JsonParser parser, Object[] path) throws IOException {
+        return readDouble(parser, path, 0);
+    }
+
+    private static double readDouble(JsonParser parser, Object[] path, int depth) throws IOException {
+        if (depth == path.length) {
+            double value = parser.getValueAsDouble();
+            parser.skipChildren();
+            return value;
+        }
+        Object segment = path[depth];
+        boolean found;
+        if (segment instanceof String) {
+            found = parser.currentToken() == JsonToken.START_OBJECT && findField(parser, (String) segment);
+        } else {
+            found = parser.currentToken() == JsonToken.START_ARRAY && findElement(parser, (Integer) segment);
+        }
+        if (!found) {
+            // 类型不匹配时跳过整个值；未找到时解析器已位于结束标记上，skipChildren 不做任何操作
+            parser.skipChildren();
+            return 0;
+        }
+        double value = readDouble(parser, path, depth + 1);
+        skipRest(parser);
+        return value;
+    }
+}
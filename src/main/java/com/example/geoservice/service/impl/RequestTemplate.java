@@ -0,0 +1,141 @@
+package com.example.geoservice.service.impl;
+
+import com.example.geoservice.model.Location;
+import okhttp3.HttpUrl;
+
+import java.util.List;
+
+/**
+ * 预编译的服务商请求模板
+ * <p>
+ * 服务创建时解析一次基础地址、接口路径和固定参数（密钥、输出格式、语言等），每个请求只追加变化的参数：
+ * 1. 不再每次拼接并解析基础地址，主机名的 IDN 规范化只在创建时执行一次
+ * 2. 坐标直接以定点小数写入同一个 StringBuilder，不经过 Double.toString 和字符串拼接
+ * 3. 坐标和分隔符已是编码后的形式，通过 addEncodedQueryParameter 追加，不再逐字符转义
+ * 4. 基础地址无效时在启动时失败，而不是在第一次请求时抛出空指针异常
+ * </p>
+ */
+final class RequestTemplate {
+    /**
+     * 已编码的坐标列表分隔符，与 addQueryParameter 对 "|"、";" 的编码结果一致
+     */
+    static final String PIPE = "%7C";
+    static final String SEMICOLON = "%3B";
+
+    /**
+     * 已编码的纬度、经度分隔符 ","
+     */
+    private static final String COMMA = "%2C";
+
+    /**
+     * 坐标保留的小数位数，约 0.1 米，也是百度地图接口允许的最多位数
+     */
+    private static final int FRACTION_DIGITS = 6;
+
+    private static final long[] POWERS_OF_TEN = {1, 10, 100, 1_000, 10_000, 100_000, 1_000_000};
+
+    /**
+     * 超过该绝对值的数不是经纬度，按 Double.toString 输出，避免定点换算溢出
+     */
+    private static final double MAX_FIXED_VALUE = 1e9;
+
+    /**
+     * 包含基础地址、路径和固定参数的地址原型
+     */
+    private final HttpUrl prototype;
+
+    /**
+     * 创建请求模板
+     *
+     * @param baseUrl         服务商基础地址
+     * @param path            接口路径
+     * @param fixedParameters 固定参数，按名称、值交替排列
+     * @throws IllegalArgumentException 当基础地址无效时抛出
+     */
+    RequestTemplate(String baseUrl, String path, String... fixedParameters) {
+        HttpUrl.Builder builder = HttpUrl.get(baseUrl + path).newBuilder();
+        for (int i = 0; i < fixedParameters.length; i += 2) {
+            builder.addQueryParameter(fixedParameters[i], fixedParameters[i + 1]);
+        }
+        this.prototype = builder.build();
+    }
+
+    /**
+     * 以模板为起点创建地址构建器，已包含全部固定参数
+     *
+     * @return 地址构建器
+     */
+    HttpUrl.Builder newUrl() {
+        return prototype.newBuilder();
+    }
+
+    /**
+     * 将位置格式化为已编码的"纬度,经度"
+     *
+     * @param location 位置
+     * @return 可直接用于 addEncodedQueryParameter 的坐标
+     */
+    static String location(Location location) {
+        StringBuilder result = new StringBuilder(32);
+        appendLocation(result, location);
+        return result.toString();
+    }
+
+    /**
+     * 将位置列表格式化为已编码的"纬度,经度"并以指定分隔符拼接
+     *
+     * @param locations 位置列表
+     * @param separator 已编码的分隔符，如 {@link #PIPE}
+     * @return 可直接用于 addEncodedQueryParameter 的坐标列表
+     */
+    static String locations(List<Location> locations, String separator) {
+        StringBuilder result = new StringBuilder(locations.size() * (32 + separator.length()));
+        for (Location location : locations) {
+            if (result.length() > 0) {
+                result.append(separator);
+            }
+            appendLocation(result, location);
+        }
+        return result.toString();
+    }
+
+    private static void appendLocation(StringBuilder result, Location location) {
+        appendCoordinate(result, location.getLat());
+        result.append(COMMA);
+        appendCoordinate(result, location.getLng());
+    }
+
+    /**
+     * 以最多 6 位小数的定点形式写入坐标，去掉末尾的 0
+     * <p>
+     * 例如 39.91640428150164 写为 "39.916404"，31.23 写为 "31.23"，120.0 写为 "120"
+     * </p>
+     *
+     * @param result 输出
+     * @param value  坐标值
+     */
+    static void appendCoordinate(StringBuilder result, double value) {
+        if (!(Math.abs(value) < MAX_FIXED_VALUE)) {
+            result.append(value);
+            return;
+        }
+        long scaled = Math.round(Math.abs(value) * POWERS_OF_TEN[FRACTION_DIGITS]);
+        if (value < 0 && scaled != 0) {
+            result.append('-');
+        }
+        result.append(scaled / POWERS_OF_TEN[FRACTION_DIGITS]);
+        long fraction = scaled % POWERS_OF_TEN[FRACTION_DIGITS];
+        if (fraction == 0) {
+            return;
+        }
+        int digits = FRACTION_DIGITS;
+        while (fraction % 10 == 0) {
+            fraction /= 10;
+            digits--;
+        }
+        result.append('.');
+        for (int i = digits - 1; i >= 0; i--) {
+            result.append((char) ('0' + fraction / POWERS_OF_TEN[i] % 10));
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.example.geoservice.service.impl;
+
+import com.fasterxml.jackson.core.JsonParser;
+
+import java.io.IOException;
+
+/**
+ * 服务商响应解析器
+ * <p>
+ * 直接从响应字节流上的 {@link JsonParser} 读取所需字段，
+ * 无需先把响应读成字符串再构建完整的 JSON 树
+ * </p>
+ *
+ * @param <T> 解析结果类型
+ */
+@FunctionalInterface
+public interface ResponseParser<T> {
+    /**
+     * 解析响应
+     *
+     * @param parser 尚未读取任何标记的 JSON 解析器
+     * @return 解析结果
+     * @throws IOException 当响应内容无法解析时抛出
+     */
+    T parse(JsonParser parser) throws IOException;
+}
@@ -1,14 +1,21 @@
 package com.example.geoservice.service.impl;
 
 import com.example.geoservice.config.MapServiceProperties;
+import com.example.geoservice.exception.MapServiceException;
+import com.example.geoservice.geo.CoordinateSystem;
 import com.example.geoservice.model.AddressInfo;
 import com.example.geoservice.model.Location;
+import com.example.geoservice.service.ProviderOperation;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.MissingNode;
 import okhttp3.HttpUrl;
 import okhttp3.Request;
 import org.springframework.stereotype.Service;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.util.List;
@@ -30,96 +37,423 @@ public class TencentMapService extends AbstractMapService {
      */
     private final MapServiceProperties.TencentMapProperties properties;
 
+    /**
+     * 驾车距离在 result 字段中的路径：最短路线的距离
+     */
+    private static final Object[] ROUTE_DISTANCE = {"routes", 0, "distance"};
+
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    /**
+     * 每个线程复用的 MD5 实例，digest 完成后自动重置
+     * <p>
+     * 虚拟线程按请求创建，此时每个请求仍会创建一个实例，开销与原先相同
+     * </p>
+     */
+    private static final ThreadLocal<MessageDigest> MD5 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("MD5");
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException("MD5算法不可用", e);
+        }
+    });
+
+    /**
+     * 各接口的请求模板，逆地址解析与地址解析使用同一模板
+     */
+    private final RequestTemplate directionTemplate;
+    private final RequestTemplate matrixTemplate;
+    private final RequestTemplate geocoderTemplate;
+
+    /**
+     * 签名时追加在请求地址后的密钥
+     */
+    private final byte[] secretKeyBytes;
+
     /**
      * 构造函数
      *
      * @param properties 地图服务配置
      */
     public TencentMapService(MapServiceProperties properties) {
+        super(properties.getCoordinateSystem());
         this.properties = properties.getTencent();
+        String baseUrl = this.properties.getBaseUrl();
+        String apiKey = this.properties.getApiKey();
+        String language = this.properties.getLanguage();
+        this.directionTemplate = new RequestTemplate(baseUrl, "/direction/v1/driving",
+                "key", apiKey, "output", "json", "language", language);
+        this.matrixTemplate = new RequestTemplate(baseUrl, "/distance/v1/matrix",
+                "mode", "driving", "key", apiKey, "output", "json");
+        this.geocoderTemplate = new RequestTemplate(baseUrl, "/geocoder/v1",
+                "key", apiKey, "output", "json", "language", language);
+        this.secretKeyBytes = String.valueOf(this.properties.getSecretKey()).getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public String getProviderName() {
+        return "tencent";
     }
 
     /**
-     * 计算两个位置之间的驾车距离
-     * <p>
-     * 调用腾讯地图Direction API计算驾车路线，并返回最短路线的距离
-     * </p>
+     * 构建驾车距离请求
      *
      * @param origin      起点位置
      * @param destination 终点位置
+     * @return HTTP请求对象
+     */
+    @Override
+    protected Request buildDrivingDistanceRequest(Location origin, Location destination) {
+        // 在模板上追加起终点坐标
+        HttpUrl.Builder urlBuilder = directionTemplate.newUrl()
+                .addEncodedQueryParameter("from", RequestTemplate.location(origin))
+                .addEncodedQueryParameter("to", RequestTemplate.location(destination));
+
+        // 计算并添加签名，签名为十六进制字符串，无需编码
+        urlBuilder.addEncodedQueryParameter("sig", calculateSignature(urlBuilder.toString()));
+
+        // 构建HTTP请求
+        return new Request.Builder()
+                .url(urlBuilder.build())
+                .build();
+    }
+
+    /**
+     * 解析驾车距离响应，返回最短路线的距离
+     *
+     * @param parser 位于响应开头的JSON解析器
      * @return 驾车距离，单位：米
+     * @throws IOException 当响应内容无法解析时抛出
+     */
+    @Override
+    protected double parseDrivingDistance(JsonParser parser) throws IOException {
+        int status = 0;
+        String message = "";
+        double distance = 0;
+
+        // 逐个读取根对象的字段，只沿路径读取路线距离，其余内容跳过
+        JsonStreams.startObject(parser);
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            parser.nextToken();
+            switch (field) {
+                case "status":
+                    status = parser.getValueAsInt();
+                    break;
+                case "message":
+                    message = parser.getValueAsString("");
+                    break;
+                case "result":
+                    distance = JsonStreams.readDouble(parser, ROUTE_DISTANCE);
+                    break;
+                default:
+                    parser.skipChildren();
+            }
+        }
+
+        // 验证响应状态
+        validateResponse(status, failureReason(status), message);
+        return distance;
+    }
+
+    @Override
+    protected MapServiceProperties.MatrixProperties getMatrixLimits() {
+        return properties.getMatrix();
+    }
+
+    @Override
+    protected MapServiceProperties.QuotaProperties getQuotaLimits() {
+        return properties.getQuota();
+    }
+
+    @Override
+    protected CoordinateSystem getProviderCoordinateSystem() {
+        return CoordinateSystem.GCJ02; // 腾讯地图只使用国测局坐标
+    }
+
+    /**
+     * 计算多个起点到多个终点之间的驾车距离矩阵
+     * <p>
+     * 调用腾讯地图批量距离计算（矩阵）API
+     * </p>
+     *
+     * @param origins      起点列表
+     * @param destinations 终点列表
+     * @return 驾车距离矩阵（米），无法到达时为 -1
      * @throws IOException 当网络请求失败时抛出
      */
     @Override
-    public double calculateDrivingDistance(Location origin, Location destination) throws IOException {
-        // 构建请求URL，添加必要的查询参数
-        HttpUrl.Builder urlBuilder = HttpUrl.parse(properties.getBaseUrl() + "/direction/v1/driving")
-                .newBuilder()
-                .addQueryParameter("from", origin.getLat() + "," + origin.getLng())
-                .addQueryParameter("to", destination.getLat() + "," + destination.getLng())
-                .addQueryParameter("key", properties.getApiKey())
-                .addQueryParameter("output", "json")
-                .addQueryParameter("language", properties.getLanguage());
-
-        // 计算并添加签名
-        String sig = calculateSignature(urlBuilder.build());
-        urlBuilder.addQueryParameter("sig", sig);
+    protected double[][] doCalculateDistanceMatrix(List<Location> origins, List<Location> destinations) throws IOException {
+        // 构建请求URL，多个坐标之间以分号分隔
+        HttpUrl.Builder urlBuilder = matrixTemplate.newUrl()
+                .addEncodedQueryParameter("from", RequestTemplate.locations(origins, RequestTemplate.SEMICOLON))
+                .addEncodedQueryParameter("to", RequestTemplate.locations(destinations, RequestTemplate.SEMICOLON));
+
+        // 计算并添加签名，签名为十六进制字符串，无需编码
+        urlBuilder.addEncodedQueryParameter("sig", calculateSignature(urlBuilder.toString()));
 
         // 构建并执行HTTP请求
         Request request = new Request.Builder()
                 .url(urlBuilder.build())
                 .build();
 
-        String response = executeRequest(request);
-        JsonNode root = objectMapper.readTree(response);
+        JsonNode root = executeRequest(ProviderOperation.DISTANCE_MATRIX, request, parser -> {
+            JsonNode node = objectMapper.readTree(parser);
 
-        // 验证响应状态
-        int status = root.path("status").asInt();
-        validateResponse(status == 0 ? 200 : 400, root.path("message").asText());
+            // 验证响应状态
+            int status = node.path("status").asInt();
+            validateResponse(status, failureReason(status), node.path("message").asText());
+            return node;
+        });
 
-        // 解析并返回路线距离
-        return root.path("result")
-                .path("routes")
-                .path(0)
-                .path("distance")
-                .asDouble();
+        // 解析距离矩阵
+        JsonNode rows = root.path("result").path("rows");
+        double[][] matrix = new double[origins.size()][destinations.size()];
+        for (int i = 0; i < origins.size(); i++) {
+            JsonNode elements = rows.path(i).path("elements");
+            for (int j = 0; j < destinations.size(); j++) {
+                JsonNode element = elements.path(j);
+                matrix[i][j] = element.has("distance") ? element.path("distance").asDouble() : -1;
+            }
+        }
+        return matrix;
     }
 
     @Override
-    public List<AddressInfo> geocodeAddress(String address) throws IOException {
-        // 构建请求URL，添加必要的查询参数
-        HttpUrl.Builder urlBuilder = HttpUrl.parse(properties.getBaseUrl() + "/geocoder/v1")
-                .newBuilder()
-                .addQueryParameter("address", address)
-                .addQueryParameter("key", properties.getApiKey())
-                .addQueryParameter("output", "json")
-                .addQueryParameter("language", properties.getLanguage());
-
-        // 计算并添加签名
-        String sig = calculateSignature(urlBuilder.build());
-        urlBuilder.addQueryParameter("sig", sig);
+    protected int getMaxWaypoints() {
+        return properties.getMaxWaypoints();
+    }
+
+    /**
+     * 计算按顺序途经多个位置的驾车路线距离
+     * <p>
+     * 调用腾讯地图驾车路线规划API，途经点以分号分隔；响应中每个途经点的 polyline_idx 为其在路线坐标串中的位置，
+     * 路段（step）按起始位置归入所在分段后累加距离
+     * </p>
+     *
+     * @param waypoints 按行驶顺序排列的位置，第一个为起点，最后一个为终点
+     * @return 各段驾车距离（米）
+     * @throws IOException 当网络请求失败或响应中的途经点数与请求不一致时抛出
+     */
+    @Override
+    protected double[] doCalculateRouteDistance(List<Location> waypoints) throws IOException {
+        // 在模板上追加起终点和途经点坐标
+        HttpUrl.Builder urlBuilder = directionTemplate.newUrl()
+                .addEncodedQueryParameter("from", RequestTemplate.location(waypoints.get(0)))
+                .addEncodedQueryParameter("to", RequestTemplate.location(waypoints.get(waypoints.size() - 1)));
+        if (waypoints.size() > 2) {
+            urlBuilder.addEncodedQueryParameter("waypoints",
+                    RequestTemplate.locations(waypoints.subList(1, waypoints.size() - 1), RequestTemplate.SEMICOLON));
+        }
+
+        // 计算并添加签名，签名为十六进制字符串，无需编码
+        urlBuilder.addEncodedQueryParameter("sig", calculateSignature(urlBuilder.toString()));
 
         // 构建并执行HTTP请求
         Request request = new Request.Builder()
                 .url(urlBuilder.build())
                 .build();
 
-        String response = executeRequest(request);
-        JsonNode root = objectMapper.readTree(response);
+        JsonNode root = executeRequest(ProviderOperation.ROUTE, request, parser -> {
+            JsonNode node = objectMapper.readTree(parser);
 
-        // 验证响应状态
-        int status = root.path("status").asInt();
-        validateResponse(status == 0 ? 200 : (status == 121 ? 404 : 400), root.path("message").asText());
+            // 验证响应状态
+            int status = node.path("status").asInt();
+            validateResponse(status, failureReason(status), node.path("message").asText());
+            return node;
+        });
+
+        // 途经点在路线坐标串中的位置即分段的边界
+        JsonNode route = root.path("result").path("routes").path(0);
+        JsonNode waypointNodes = route.path("waypoints");
+        if (waypointNodes.size() != waypoints.size() - 2) {
+            throw new IOException("响应中的途经点数与请求不一致: " + waypointNodes.size());
+        }
+        int[] boundaries = new int[waypointNodes.size()];
+        for (int i = 0; i < boundaries.length; i++) {
+            boundaries[i] = waypointNodes.path(i).path("polyline_idx").asInt();
+        }
+
+        // 按分段累加路段距离
+        double[] legs = new double[waypoints.size() - 1];
+        for (JsonNode step : route.path("steps")) {
+            int start = step.path("polyline_idx").path(0).asInt();
+            int leg = 0;
+            while (leg < boundaries.length && boundaries[leg] <= start) {
+                leg++;
+            }
+            legs[leg] += step.path("distance").asDouble();
+        }
+        return legs;
+    }
+
+    /**
+     * 构建地址解析请求
+     *
+     * @param address 需要解析的地址字符串
+     * @return HTTP请求对象
+     */
+    @Override
+    protected Request buildGeocodeRequest(String address) {
+        // 在模板上追加地址
+        HttpUrl.Builder urlBuilder = geocoderTemplate.newUrl()
+                .addQueryParameter("address", address);
+
+        // 计算并添加签名，签名为十六进制字符串，无需编码
+        urlBuilder.addEncodedQueryParameter("sig", calculateSignature(urlBuilder.toString()));
+
+        // 构建HTTP请求
+        return new Request.Builder()
+                .url(urlBuilder.build())
+                .build();
+    }
+
+    /**
+     * 解析地址解析响应
+     *
+     * @param parser 位于响应开头的JSON解析器
+     * @return 包含所有可能匹配地址信息的列表
+     * @throws IOException 当响应内容无法解析时抛出
+     */
+    @Override
+    protected List<AddressInfo> parseGeocode(JsonParser parser) throws IOException {
+        int status = 0;
+        String message = "";
+        JsonNode result = MissingNode.getInstance();
+
+        // 逐个读取根对象的字段，只把 result 读成树结构，其余字段跳过
+        JsonStreams.startObject(parser);
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            parser.nextToken();
+            switch (field) {
+                case "status":
+                    status = parser.getValueAsInt();
+                    break;
+                case "message":
+                    message = parser.getValueAsString("");
+                    break;
+                case "result":
+                    result = objectMapper.readTree(parser);
+                    break;
+                default:
+                    parser.skipChildren();
+            }
+        }
+
+        // 验证响应状态（地址无匹配结果时状态为347）
+        validateResponse(status, status == 347 ? null : failureReason(status), message);
 
         List<AddressInfo> addressInfoList = new ArrayList<>();
 
         // 如果没有找到地址，返回空列表
-        if (root.path("result").isEmpty()) {
+        if (result.isEmpty()) {
+            return addressInfoList;
+        }
+
+        addressInfoList.add(toAddressInfo(result));
+
+        return addressInfoList;
+    }
+
+    /**
+     * 构建逆地址解析请求
+     *
+     * @param location 需要解析的坐标
+     * @return HTTP请求对象
+     */
+    @Override
+    protected Request buildReverseGeocodeRequest(Location location) {
+        // 逆地址解析与地址解析使用同一接口，以 location 参数区分
+        HttpUrl.Builder urlBuilder = geocoderTemplate.newUrl()
+                .addEncodedQueryParameter("location", RequestTemplate.location(location));
+
+        // 计算并添加签名，签名为十六进制字符串，无需编码
+        urlBuilder.addEncodedQueryParameter("sig", calculateSignature(urlBuilder.toString()));
+
+        // 构建HTTP请求
+        return new Request.Builder()
+                .url(urlBuilder.build())
+                .build();
+    }
+
+    /**
+     * 解析逆地址解析响应
+     *
+     * @param parser 位于响应开头的JSON解析器
+     * @return 坐标所在位置的地址信息列表
+     * @throws IOException 当响应内容无法解析时抛出
+     */
+    @Override
+    protected List<AddressInfo> parseReverseGeocode(JsonParser parser) throws IOException {
+        int status = 0;
+        String message = "";
+        JsonNode result = MissingNode.getInstance();
+
+        // 逐个读取根对象的字段，只把 result 读成树结构，其余字段跳过
+        JsonStreams.startObject(parser);
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            parser.nextToken();
+            switch (field) {
+                case "status":
+                    status = parser.getValueAsInt();
+                    break;
+                case "message":
+                    message = parser.getValueAsString("");
+                    break;
+                case "result":
+                    result = objectMapper.readTree(parser);
+                    break;
+                default:
+                    parser.skipChildren();
+            }
+        }
+
+        // 验证响应状态
+        validateResponse(status, failureReason(status), message);
+
+        List<AddressInfo> addressInfoList = new ArrayList<>();
+        if (result.isEmpty()) {
             return addressInfoList;
         }
+        addressInfoList.add(toReverseAddressInfo(result));
+        return addressInfoList;
+    }
 
-        // 解析响应数据
-        JsonNode result = root.path("result");
+    /**
+     * 将逆地址解析结果映射为地址信息
+     *
+     * @param result 响应中的 result 字段
+     * @return 地址信息
+     */
+    AddressInfo toReverseAddressInfo(JsonNode result) {
+        JsonNode location = result.path("location");
+        JsonNode addressComponent = result.path("address_component");
+
+        // 构建地址信息对象，逆地址解析的地址组成部分字段名与地址解析不同
+        AddressInfo addressInfo = new AddressInfo();
+        addressInfo.setLatitude(location.path("lat").asDouble());
+        addressInfo.setLongitude(location.path("lng").asDouble());
+        addressInfo.setProvince(addressComponent.path("province").asText());
+        addressInfo.setCity(addressComponent.path("city").asText());
+        addressInfo.setDistrict(addressComponent.path("district").asText());
+        addressInfo.setStreet(addressComponent.path("street").asText());
+        addressInfo.setStreetNumber(addressComponent.path("street_number").asText());
+        addressInfo.setFormattedAddress(result.path("address").asText());
+        // 逆地址解析结果即服务商对该坐标的判定，没有可信度字段
+        addressInfo.setConfidence(1.0);
+
+        return addressInfo;
+    }
+
+    /**
+     * 将解析结果映射为地址信息
+     *
+     * @param result 响应中的 result 字段
+     * @return 地址信息
+     */
+    AddressInfo toAddressInfo(JsonNode result) {
         JsonNode location = result.path("location");
         JsonNode addressComponent = result.path("address_components");
 
@@ -135,35 +469,55 @@ public class TencentMapService extends AbstractMapService {
         addressInfo.setFormattedAddress(result.path("address").asText());
         addressInfo.setConfidence(result.path("reliability").asDouble() / 10.0); // 腾讯地图可信度为0-10，转换为0-1
 
-        addressInfoList.add(addressInfo);
-
-        return addressInfoList;
+        return addressInfo;
     }
 
     /**
      * 计算请求签名
      * <p>
-     * 使用MD5算法对请求URL和密钥进行签名
+     * 使用MD5算法对请求URL和密钥进行签名，URL 与密钥分两次写入摘要，不拼接字符串
      * </p>
      *
-     * @param url 完整的请求URL
+     * @param url 完整的请求URL，与 HttpUrl.Builder#toString 的结果一致
      * @return MD5签名字符串
      */
-    private String calculateSignature(HttpUrl url) {
-        try {
-            // 拼接URL和密钥
-            String plaintext = url.toString() + properties.getSecretKey();
-            // 计算MD5哈希
-            MessageDigest md = MessageDigest.getInstance("MD5");
-            byte[] bytes = md.digest(plaintext.getBytes());
-            // 转换为十六进制字符串
-            StringBuilder result = new StringBuilder();
-            for (byte b : bytes) {
-                result.append(String.format("%02x", b));
-            }
-            return result.toString();
-        } catch (NoSuchAlgorithmException e) {
-            throw new RuntimeException("MD5算法不可用", e);
+    String calculateSignature(String url) {
+        MessageDigest md = MD5.get();
+        md.update(url.getBytes(StandardCharsets.UTF_8));
+        return toHex(md.digest(secretKeyBytes));
+    }
+
+    /**
+     * 将字节数组转换为小写十六进制字符串
+     *
+     * @param bytes 字节数组
+     * @return 十六进制字符串
+     */
+    static String toHex(byte[] bytes) {
+        char[] chars = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            chars[i * 2] = HEX_DIGITS[(bytes[i] >> 4) & 0x0F];
+            chars[i * 2 + 1] = HEX_DIGITS[bytes[i] & 0x0F];
+        }
+        return new String(chars);
+    }
+
+    /**
+     * 判断腾讯地图状态码对应的失败原因
+     *
+     * @param status 腾讯地图返回的状态码
+     * @return 失败原因，成功时返回 null
+     */
+    static MapServiceException.Reason failureReason(int status) {
+        switch (status) {
+            case 0:
+                return null;
+            case 120: // 此key每秒请求量已达到上限
+                return MapServiceException.Reason.RATE_LIMITED;
+            case 121: // 此key每日调用量已达到上限
+                return MapServiceException.Reason.QUOTA_EXCEEDED;
+            default:
+                return status >= 500 ? MapServiceException.Reason.UNAVAILABLE : MapServiceException.Reason.REJECTED;
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,93 @@
+package com.example.geoservice.service.local;
+
+import java.text.Normalizer;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * 地址分词
+ * <p>
+ * 1. 规范化：全角转半角、去除拼音声调、统一为小写，只保留汉字、字母和数字
+ * 2. 连续汉字切分为相邻两字的词元，单个汉字自成一个词元
+ * 3. 连续字母数字（拼音、门牌号等）去除空格后切分为相邻三字符的词元，
+ *    因此 "Beijing Shi"、"beijingshi" 和 "bei jing shi" 得到相同的词元
+ * </p>
+ */
+final class AddressTokenizer {
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private AddressTokenizer() {
+    }
+
+    /**
+     * 规范化地址文本
+     *
+     * @param text 原始文本
+     * @return 只包含小写字母、数字和汉字的文本
+     */
+    static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        String decomposed = Normalizer.normalize(text, Normalizer.Form.NFKD);
+        StringBuilder result = new StringBuilder(decomposed.length());
+        for (int i = 0; i < decomposed.length(); i++) {
+            char c = decomposed.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                result.append(c);
+            }
+        }
+        return result.toString().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * 将文本切分为去重后的词元
+     *
+     * @param text 原始文本
+     * @return 词元集合，按出现顺序排列
+     */
+    static Set<String> tokenize(String text) {
+        String normalized = normalize(text);
+        Set<String> tokens = new LinkedHashSet<>();
+        int i = 0;
+        while (i < normalized.length()) {
+            boolean han = isHan(normalized.charAt(i));
+            int end = i + 1;
+            while (end < normalized.length() && isHan(normalized.charAt(end)) == han) {
+                end++;
+            }
+            int width = han ? 2 : 3;
+            if (end - i <= width) {
+                tokens.add(normalized.substring(i, end));
+            } else {
+                for (int start = i; start + width <= end; start++) {
+                    tokens.add(normalized.substring(start, start + width));
+                }
+            }
+            i = end;
+        }
+        return tokens;
+    }
+
+    /**
+     * 计算词元的 64 位 FNV-1a 摘要，索引中只保存摘要
+     *
+     * @param token 词元
+     * @return 摘要
+     */
+    static long hash(String token) {
+        long hash = FNV_OFFSET;
+        for (int i = 0; i < token.length(); i++) {
+            char c = token.charAt(i);
+            hash = (hash ^ (c & 0xFF)) * FNV_PRIME;
+            hash = (hash ^ (c >>> 8)) * FNV_PRIME;
+        }
+        return hash;
+    }
+
+    private static boolean isHan(char c) {
+        return Character.UnicodeScript.of(c) == Character.UnicodeScript.HAN;
+    }
+}
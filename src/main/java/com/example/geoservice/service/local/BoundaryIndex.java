@@ -0,0 +1,402 @@
+package com.example.geoservice.service.local;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.IntConsumer;
+
+/**
+ * 行政区划边界索引
+ * <p>
+ * 从带 WKT 边界的 UTF-8 CSV 导入行政区划，常驻内存：
+ * 1. 列：边界（wkt、geometry、the_geom，POLYGON 或 MULTIPOLYGON，坐标顺序为经度 纬度）以及 province、city、district
+ * 2. 所有边界的顶点依次存放在基本类型数组中，按 1 度网格记录与各网格的外接矩形相交的边界
+ * 3. 每个边界的边按纬度分成若干条带，每条带约 {@value #EDGES_PER_BAND} 条边，跨越多条带的边在每条带中都登记
+ * 4. 查询时只检查所在网格中外接矩形包含该点的边界，按奇偶规则判断点是否在边界内，内环（洞）自然排除；
+ *    向右的水平射线只可能与纬度范围包含该点的边相交，因此只需检查该点所在条带中的边，不随边界顶点数增长
+ * 5. 同时落在多个边界内时取层级最细的（区县优先于地市，地市优先于省），层级相同时取外接矩形最小的
+ * 边界无法解析的行记录日志后跳过
+ * </p>
+ */
+@Slf4j
+final class BoundaryIndex {
+    private static final String[][] COLUMNS = {
+            {"wkt", "geometry", "the_geom", "geom"},
+            {"province", "addr:province"},
+            {"city", "addr:city"},
+            {"district", "addr:district", "addr:county"},
+    };
+    private static final int WKT = 0;
+    private static final int PROVINCE = 1;
+    private static final int CITY = 2;
+    private static final int DISTRICT = 3;
+
+    private static final int GRID_ROWS = 180;
+    private static final int GRID_COLUMNS = 360;
+
+    /**
+     * 每条纬度条带平均登记的边数
+     */
+    private static final int EDGES_PER_BAND = 8;
+
+    /**
+     * 单个边界最多的纬度条带数
+     */
+    private static final int MAX_BANDS = 1 << 16;
+
+    private final String[] provinces;
+    private final String[] cities;
+    private final String[] districts;
+    private final int[] levels;
+
+    /**
+     * 每个边界的外接矩形：最小经度、最小纬度、最大经度、最大纬度
+     */
+    private final float[] bounds;
+
+    /**
+     * 每个边界的第一个环在环数组中的位置，最后一个元素为环数
+     */
+    private final int[] boundaryRings;
+
+    /**
+     * 每个环的第一个顶点在顶点数组中的位置，最后一个元素为顶点数
+     */
+    private final int[] ringVertices;
+
+    private final float[] xs;
+    private final float[] ys;
+
+    /**
+     * 每个顶点在所在环中的前一个顶点，顶点与前一个顶点构成一条边
+     */
+    private final int[] previous;
+
+    /**
+     * 每个边界的第一条纬度条带在 {@link #bandStarts} 中的位置，最后一个元素为条带数
+     */
+    private final int[] boundaryBands;
+
+    /**
+     * 每个边界每度纬度对应的条带数
+     */
+    private final double[] bandScales;
+
+    /**
+     * 每条纬度条带中的边在 {@link #bandEdges} 中的起始位置，边以终点的顶点编号表示
+     */
+    private final int[] bandStarts;
+    private final int[] bandEdges;
+
+    /**
+     * 每个 1 度网格中的边界在 {@link #gridEntries} 中的起始位置
+     */
+    private final int[] gridStarts;
+    private final int[] gridEntries;
+
+    private BoundaryIndex(List<String[]> fields, List<List<float[]>> rings) {
+        int size = fields.size();
+        this.provinces = new String[size];
+        this.cities = new String[size];
+        this.districts = new String[size];
+        this.levels = new int[size];
+        this.bounds = new float[size * 4];
+        this.boundaryRings = new int[size + 1];
+        int ringCount = 0;
+        int vertexCount = 0;
+        for (List<float[]> boundary : rings) {
+            ringCount += boundary.size();
+            for (float[] ring : boundary) {
+                vertexCount += ring.length / 2;
+            }
+        }
+        this.ringVertices = new int[ringCount + 1];
+        this.xs = new float[vertexCount];
+        this.ys = new float[vertexCount];
+        this.previous = new int[vertexCount];
+        int ring = 0;
+        int vertex = 0;
+        for (int b = 0; b < size; b++) {
+            String[] row = fields.get(b);
+            provinces[b] = row[PROVINCE];
+            cities[b] = row[CITY];
+            districts[b] = row[DISTRICT];
+            levels[b] = row[DISTRICT] != null ? 3 : row[CITY] != null ? 2 : 1;
+            float minX = Float.MAX_VALUE;
+            float minY = Float.MAX_VALUE;
+            float maxX = -Float.MAX_VALUE;
+            float maxY = -Float.MAX_VALUE;
+            boundaryRings[b] = ring;
+            for (float[] coordinates : rings.get(b)) {
+                ringVertices[ring++] = vertex;
+                int first = vertex;
+                for (int i = 0; i < coordinates.length; i += 2) {
+                    previous[vertex] = i == 0 ? first + coordinates.length / 2 - 1 : vertex - 1;
+                    xs[vertex] = coordinates[i];
+                    ys[vertex] = coordinates[i + 1];
+                    minX = Math.min(minX, xs[vertex]);
+                    minY = Math.min(minY, ys[vertex]);
+                    maxX = Math.max(maxX, xs[vertex]);
+                    maxY = Math.max(maxY, ys[vertex]);
+                    vertex++;
+                }
+            }
+            bounds[b * 4] = minX;
+            bounds[b * 4 + 1] = minY;
+            bounds[b * 4 + 2] = maxX;
+            bounds[b * 4 + 3] = maxY;
+        }
+        boundaryRings[size] = ring;
+        ringVertices[ringCount] = vertex;
+
+        // 按边数为每个边界分配纬度条带，先统计每条带中的边数，再按条带顺序填入边
+        this.boundaryBands = new int[size + 1];
+        this.bandScales = new double[size];
+        for (int b = 0; b < size; b++) {
+            int edges = ringVertices[boundaryRings[b + 1]] - ringVertices[boundaryRings[b]];
+            int bands = Math.max(1, Math.min(MAX_BANDS, edges / EDGES_PER_BAND));
+            double height = bounds[b * 4 + 3] - bounds[b * 4 + 1];
+            bandScales[b] = height > 0 ? bands / height : 0;
+            boundaryBands[b + 1] = boundaryBands[b] + bands;
+        }
+        this.bandStarts = new int[boundaryBands[size] + 1];
+        for (int b = 0; b < size; b++) {
+            forEachBandEdge(b, (band, edge) -> bandStarts[band + 1]++);
+        }
+        for (int band = 0; band < boundaryBands[size]; band++) {
+            bandStarts[band + 1] += bandStarts[band];
+        }
+        this.bandEdges = new int[bandStarts[boundaryBands[size]]];
+        int[] nextEdge = bandStarts.clone();
+        for (int b = 0; b < size; b++) {
+            forEachBandEdge(b, (band, edge) -> bandEdges[nextEdge[band]++] = edge);
+        }
+
+        // 先统计每个网格中的边界数，再按网格顺序填入边界编号
+        this.gridStarts = new int[GRID_ROWS * GRID_COLUMNS + 1];
+        for (int b = 0; b < size; b++) {
+            forEachCell(b, cell -> gridStarts[cell + 1]++);
+        }
+        for (int cell = 0; cell < GRID_ROWS * GRID_COLUMNS; cell++) {
+            gridStarts[cell + 1] += gridStarts[cell];
+        }
+        this.gridEntries = new int[gridStarts[GRID_ROWS * GRID_COLUMNS]];
+        int[] next = gridStarts.clone();
+        for (int b = 0; b < size; b++) {
+            int boundary = b;
+            forEachCell(b, cell -> gridEntries[next[cell]++] = boundary);
+        }
+    }
+
+    /**
+     * 从 CSV 文件导入行政区划边界
+     *
+     * @param csv 行政区划数据
+     * @return 边界索引
+     * @throws IOException 当文件无法读取或缺少边界列时抛出
+     */
+    static BoundaryIndex load(Path csv) throws IOException {
+        List<String[]> fields = new ArrayList<>();
+        List<List<float[]>> rings = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(csv, StandardCharsets.UTF_8)) {
+            String header = reader.readLine();
+            int[] columns = LocalIndexBuilder.mapColumns(header, COLUMNS);
+            if (columns[WKT] < 0) {
+                throw new IOException("行政区划数据缺少边界列: " + header);
+            }
+            String line;
+            int lineNumber = 1;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.trim().isEmpty()) {
+                    continue;
+                }
+                String[] row = LocalIndexBuilder.select(LocalIndexBuilder.parseCsvLine(line), columns);
+                List<float[]> boundary = parseWkt(row[WKT]);
+                if (boundary.isEmpty() || row[PROVINCE] == null && row[CITY] == null && row[DISTRICT] == null) {
+                    log.warn("跳过边界或名称无效的行政区划数据: {} 第 {} 行", csv, lineNumber);
+                    continue;
+                }
+                fields.add(row);
+                rings.add(boundary);
+            }
+        }
+        return new BoundaryIndex(fields, rings);
+    }
+
+    /**
+     * 解析 WKT 格式的 POLYGON 或 MULTIPOLYGON
+     *
+     * @param wkt WKT 文本
+     * @return 各个环交替存放的经度和纬度，格式不正确时返回空列表
+     */
+    static List<float[]> parseWkt(String wkt) {
+        List<float[]> rings = new ArrayList<>();
+        if (wkt == null) {
+            return rings;
+        }
+        String type = wkt.trim().toUpperCase(Locale.ROOT);
+        if (!type.startsWith("POLYGON") && !type.startsWith("MULTIPOLYGON")) {
+            return rings;
+        }
+        // 按奇偶规则判断时不需要区分外环和内环，每组最内层括号即一个环
+        int start = -1;
+        for (int i = 0; i < wkt.length(); i++) {
+            char c = wkt.charAt(i);
+            if (c == '(') {
+                start = i + 1;
+            } else if (c == ')' && start >= 0) {
+                float[] ring = parseRing(wkt.substring(start, i));
+                if (ring == null) {
+                    return new ArrayList<>();
+                }
+                rings.add(ring);
+                start = -1;
+            }
+        }
+        return rings;
+    }
+
+    private static float[] parseRing(String text) {
+        String[] points = text.split(",");
+        if (points.length < 3) {
+            return null;
+        }
+        float[] ring = new float[points.length * 2];
+        for (int i = 0; i < points.length; i++) {
+            String[] values = points[i].trim().split("\\s+");
+            if (values.length < 2) {
+                return null;
+            }
+            try {
+                ring[i * 2] = Float.parseFloat(values[0]);
+                ring[i * 2 + 1] = Float.parseFloat(values[1]);
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+        return ring;
+    }
+
+    /**
+     * 获取索引中的边界数
+     */
+    int size() {
+        return levels.length;
+    }
+
+    /**
+     * 查找坐标所在的行政区划
+     *
+     * @param lat 纬度
+     * @param lng 经度
+     * @return 层级最细的边界编号，不在任何边界内时返回 -1
+     */
+    int find(double lat, double lng) {
+        if (lat < -90 || lat >= 90 || lng < -180 || lng >= 180) {
+            return -1;
+        }
+        int cell = gridCell((int) Math.floor(lat + 90), (int) Math.floor(lng + 180));
+        int best = -1;
+        for (int i = gridStarts[cell]; i < gridStarts[cell + 1]; i++) {
+            int b = gridEntries[i];
+            if (lng < bounds[b * 4] || lat < bounds[b * 4 + 1] || lng > bounds[b * 4 + 2] || lat > bounds[b * 4 + 3]) {
+                continue;
+            }
+            if ((best < 0 || levels[b] > levels[best] || levels[b] == levels[best] && area(b) < area(best))
+                    && contains(b, lng, lat)) {
+                best = b;
+            }
+        }
+        return best;
+    }
+
+    private boolean contains(int boundary, double x, double y) {
+        boolean inside = false;
+        int band = band(boundary, y);
+        for (int k = bandStarts[band]; k < bandStarts[band + 1]; k++) {
+            int i = bandEdges[k];
+            int j = previous[i];
+            if ((ys[i] > y) != (ys[j] > y)
+                    && x < (xs[j] - xs[i]) * (y - ys[i]) / (ys[j] - ys[i]) + xs[i]) {
+                inside = !inside;
+            }
+        }
+        return inside;
+    }
+
+    /**
+     * 纬度所在的条带在 {@link #bandStarts} 中的位置，超出边界纬度范围时取最近的条带
+     */
+    private int band(int boundary, double y) {
+        int first = boundaryBands[boundary];
+        int count = boundaryBands[boundary + 1] - first;
+        int band = (int) Math.floor((y - bounds[boundary * 4 + 1]) * bandScales[boundary]);
+        return first + Math.max(0, Math.min(count - 1, band));
+    }
+
+    /**
+     * 遍历边界的每条非水平边所跨越的条带，水平边不会与水平射线相交
+     */
+    private void forEachBandEdge(int boundary, BandEdgeConsumer action) {
+        for (int i = ringVertices[boundaryRings[boundary]]; i < ringVertices[boundaryRings[boundary + 1]]; i++) {
+            int j = previous[i];
+            if (ys[i] == ys[j]) {
+                continue;
+            }
+            int to = band(boundary, Math.max(ys[i], ys[j]));
+            for (int band = band(boundary, Math.min(ys[i], ys[j])); band <= to; band++) {
+                action.accept(band, i);
+            }
+        }
+    }
+
+    private double area(int boundary) {
+        return (double) (bounds[boundary * 4 + 2] - bounds[boundary * 4])
+                * (bounds[boundary * 4 + 3] - bounds[boundary * 4 + 1]);
+    }
+
+    String getProvince(int boundary) {
+        return provinces[boundary];
+    }
+
+    String getCity(int boundary) {
+        return cities[boundary];
+    }
+
+    String getDistrict(int boundary) {
+        return districts[boundary];
+    }
+
+    private void forEachCell(int boundary, IntConsumer action) {
+        int fromRow = gridIndex(bounds[boundary * 4 + 1] + 90, GRID_ROWS);
+        int toRow = gridIndex(bounds[boundary * 4 + 3] + 90, GRID_ROWS);
+        int fromColumn = gridIndex(bounds[boundary * 4] + 180, GRID_COLUMNS);
+        int toColumn = gridIndex(bounds[boundary * 4 + 2] + 180, GRID_COLUMNS);
+        for (int row = fromRow; row <= toRow; row++) {
+            for (int column = fromColumn; column <= toColumn; column++) {
+                action.accept(gridCell(row, column));
+            }
+        }
+    }
+
+    @FunctionalInterface
+    private interface BandEdgeConsumer {
+        void accept(int band, int edge);
+    }
+
+    private static int gridIndex(double degrees, int count) {
+        return Math.max(0, Math.min(count - 1, (int) Math.floor(degrees)));
+    }
+
+    private static int gridCell(int row, int column) {
+        return row * GRID_COLUMNS + column;
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.geoservice.service.local;
+
+import com.example.geoservice.model.AddressInfo;
+import com.example.geoservice.model.Location;
+import com.example.geoservice.model.RouteDistance;
+import com.example.geoservice.service.AsyncMapService;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 先查询本地索引的地图服务
+ * <p>
+ * 地址解析和逆地址解析先在本地索引中查找，最佳匹配的置信度达到阈值时直接返回，否则调用服务商；
+ * 驾车距离直接调用服务商
+ * </p>
+ */
+final class LocalFirstMapService implements AsyncMapService {
+    private final LocalMapService local;
+    private final AsyncMapService delegate;
+    private final double acceptConfidence;
+
+    LocalFirstMapService(LocalMapService local, AsyncMapService delegate, double acceptConfidence) {
+        this.local = local;
+        this.delegate = delegate;
+        this.acceptConfidence = acceptConfidence;
+    }
+
+    @Override
+    public List<AddressInfo> geocodeAddress(String address) throws IOException {
+        List<AddressInfo> results = local.geocodeAddress(address);
+        return accepts(results) ? results : delegate.geocodeAddress(address);
+    }
+
+    @Override
+    public CompletableFuture<List<AddressInfo>> geocodeAddressAsync(String address) {
+        List<AddressInfo> results = local.geocodeAddress(address);
+        return accepts(results) ? CompletableFuture.completedFuture(results) : delegate.geocodeAddressAsync(address);
+    }
+
+    @Override
+    public List<AddressInfo> reverseGeocode(Location location) throws IOException {
+        List<AddressInfo> results = local.reverseGeocode(location);
+        return accepts(results) ? results : delegate.reverseGeocode(location);
+    }
+
+    @Override
+    public CompletableFuture<List<AddressInfo>> reverseGeocodeAsync(Location location) {
+        List<AddressInfo> results = local.reverseGeocode(location);
+        return accepts(results) ? CompletableFuture.completedFuture(results) : delegate.reverseGeocodeAsync(location);
+    }
+
+    private boolean accepts(List<AddressInfo> results) {
+        return !results.isEmpty() && results.get(0).getConfidence() >= acceptConfidence;
+    }
+
+    @Override
+    public double calculateDrivingDistance(Location origin, Location destination) throws IOException {
+        return delegate.calculateDrivingDistance(origin, destination);
+    }
+
+    @Override
+    public CompletableFuture<Double> calculateDrivingDistanceAsync(Location origin, Location destination) {
+        return delegate.calculateDrivingDistanceAsync(origin, destination);
+    }
+
+    @Override
+    public double[][] calculateDistanceMatrix(List<Location> origins, List<Location> destinations) throws IOException {
+        return delegate.calculateDistanceMatrix(origins, destinations);
+    }
+
+    @Override
+    public RouteDistance calculateRouteDistance(List<Location> waypoints) throws IOException {
+        return delegate.calculateRouteDistance(waypoints);
+    }
+}
@@ -0,0 +1,244 @@
+package com.example.geoservice.service.local;
+
+import com.example.geoservice.model.AddressInfo;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * 内存映射的本地地址索引
+ * <p>
+ * 索引文件由 {@link LocalIndexBuilder} 生成，打开时只做内存映射，不读入堆内存，启动时间与数据量无关：
+ * 1. 文件头：魔数、版本、地址数、词元数以及各区域的偏移
+ * 2. 地址记录：经纬度、地址和拼音的词元数、各地址组成部分的 UTF-8 字符串
+ * 3. 地址偏移表：每条地址记录的起始位置
+ * 4. 词元表：按摘要排序的（词元摘要、倒排起始位置、倒排长度），查询时二分查找
+ * 5. 倒排表：包含该词元的地址编号，最低位区分来自地址还是拼音
+ * 查询时统计每个候选地址与查询共有的词元数，置信度为两个词元集合的余弦相似度，完全相同时为 1
+ * </p>
+ */
+final class LocalGeocodeIndex {
+    static final int MAGIC = 0x47454F49;
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 40;
+    static final int TOKEN_ENTRY_SIZE = 16;
+    static final int FIELD_ADDRESS = 0;
+    static final int FIELD_PINYIN = 1;
+
+    /**
+     * 出现在过多地址中的词元（例如"中国"）区分度很低，查询时跳过其倒排表以控制耗时
+     */
+    private static final int MAX_POSTINGS = 100_000;
+
+    private final MappedByteBuffer buffer;
+    private final int recordCount;
+    private final int tokenCount;
+    private final int recordTableOffset;
+    private final int tokenTableOffset;
+    private final int postingsOffset;
+
+    private LocalGeocodeIndex(MappedByteBuffer buffer) throws IOException {
+        this.buffer = buffer;
+        if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+            throw new IOException("不是有效的本地地址索引文件");
+        }
+        if (buffer.getInt(4) != VERSION) {
+            throw new IOException("不支持的本地地址索引版本: " + buffer.getInt(4));
+        }
+        this.recordCount = buffer.getInt(8);
+        this.tokenCount = buffer.getInt(12);
+        this.recordTableOffset = (int) buffer.getLong(16);
+        this.tokenTableOffset = (int) buffer.getLong(24);
+        this.postingsOffset = (int) buffer.getLong(32);
+    }
+
+    /**
+     * 以只读方式映射索引文件
+     *
+     * @param file 索引文件
+     * @return 本地地址索引
+     * @throws IOException 当文件无法读取或格式不正确时抛出
+     */
+    static LocalGeocodeIndex open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return new LocalGeocodeIndex(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * 获取索引中的地址数
+     */
+    int size() {
+        return recordCount;
+    }
+
+    /**
+     * 查询与地址最相似的若干条记录
+     *
+     * @param address       查询地址
+     * @param limit         最多返回的记录数
+     * @param minConfidence 最低置信度
+     * @return 按置信度从高到低排列的地址信息，置信度相同时按导入顺序
+     */
+    List<AddressInfo> search(String address, int limit, double minConfidence) {
+        Set<String> tokens = AddressTokenizer.tokenize(address);
+        if (tokens.isEmpty() || limit <= 0) {
+            return Collections.emptyList();
+        }
+        Map<Integer, int[]> matches = new HashMap<>();
+        for (String token : tokens) {
+            int entry = findToken(AddressTokenizer.hash(token));
+            if (entry < 0) {
+                continue;
+            }
+            int position = tokenTableOffset + entry * TOKEN_ENTRY_SIZE;
+            int start = buffer.getInt(position + 8);
+            int length = buffer.getInt(position + 12);
+            if (length > MAX_POSTINGS) {
+                continue;
+            }
+            for (int i = 0; i < length; i++) {
+                int posting = buffer.getInt(postingsOffset + (start + i) * 4);
+                matches.computeIfAbsent(posting >>> 1, record -> new int[2])[posting & 1]++;
+            }
+        }
+        PriorityQueue<Candidate> best = new PriorityQueue<>();
+        for (Map.Entry<Integer, int[]> match : matches.entrySet()) {
+            int record = match.getKey();
+            double score = score(record, match.getValue(), tokens.size());
+            if (score < minConfidence) {
+                continue;
+            }
+            best.add(new Candidate(record, score));
+            if (best.size() > limit) {
+                best.poll();
+            }
+        }
+        List<AddressInfo> results = new ArrayList<>(best.size());
+        while (!best.isEmpty()) {
+            Candidate candidate = best.poll();
+            results.add(read(candidate.record, candidate.score));
+        }
+        Collections.reverse(results);
+        return results;
+    }
+
+    private double score(int record, int[] common, int queryTokens) {
+        int offset = recordOffset(record);
+        int addressTokens = buffer.getShort(offset + 16);
+        int pinyinTokens = buffer.getShort(offset + 18);
+        double score = 0;
+        if (addressTokens > 0) {
+            score = common[FIELD_ADDRESS] / Math.sqrt((double) queryTokens * addressTokens);
+        }
+        if (pinyinTokens > 0) {
+            score = Math.max(score, common[FIELD_PINYIN] / Math.sqrt((double) queryTokens * pinyinTokens));
+        }
+        return Math.min(1, score);
+    }
+
+    private int findToken(long hash) {
+        int low = 0;
+        int high = tokenCount - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            long value = buffer.getLong(tokenTableOffset + mid * TOKEN_ENTRY_SIZE);
+            if (value < hash) {
+                low = mid + 1;
+            } else if (value > hash) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    private int recordOffset(int record) {
+        return buffer.getInt(recordTableOffset + record * 4);
+    }
+
+    /**
+     * 获取地址记录的纬度
+     *
+     * @param record 地址编号，即导入顺序
+     */
+    double latitude(int record) {
+        return buffer.getDouble(recordOffset(record));
+    }
+
+    /**
+     * 获取地址记录的经度
+     *
+     * @param record 地址编号，即导入顺序
+     */
+    double longitude(int record) {
+        return buffer.getDouble(recordOffset(record) + 8);
+    }
+
+    /**
+     * 读取地址记录
+     *
+     * @param record     地址编号，即导入顺序
+     * @param confidence 结果的置信度
+     * @return 地址信息
+     */
+    AddressInfo read(int record, double confidence) {
+        ByteBuffer view = buffer.duplicate();
+        view.position(recordOffset(record));
+        AddressInfo info = new AddressInfo();
+        info.setLatitude(view.getDouble());
+        info.setLongitude(view.getDouble());
+        view.getInt();
+        info.setFormattedAddress(readString(view));
+        info.setProvince(readString(view));
+        info.setCity(readString(view));
+        info.setDistrict(readString(view));
+        info.setStreet(readString(view));
+        info.setStreetNumber(readString(view));
+        info.setPostalCode(readString(view));
+        info.setConfidence(confidence);
+        return info;
+    }
+
+    private static String readString(ByteBuffer view) {
+        int length = view.getShort() & 0xFFFF;
+        if (length == 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        view.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 候选记录，堆顶为当前最差的候选
+     */
+    private static final class Candidate implements Comparable<Candidate> {
+        private final int record;
+        private final double score;
+
+        private Candidate(int record, double score) {
+            this.record = record;
+            this.score = score;
+        }
+
+        @Override
+        public int compareTo(Candidate other) {
+            int byScore = Double.compare(score, other.score);
+            return byScore != 0 ? byScore : Integer.compare(other.record, record);
+        }
+    }
+}
@@ -0,0 +1,316 @@
+package com.example.geoservice.service.local;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 从地址/POI 数据生成本地地址索引
+ * <p>
+ * 输入为带表头的 UTF-8 CSV，按表头识别列，列的顺序不限：
+ * 1. 必需：纬度（lat、latitude、::lat）和经度（lng、lon、longitude、::lon）
+ * 2. 地址（address、formatted_address、name），缺省时由省市区街道门牌拼接
+ * 3. 可选：province、city、district、street、street_number、postal_code，
+ *    也接受 OSM 导出的 addr:province、addr:city、addr:district、addr:street、addr:housenumber、addr:postcode
+ * 4. 可选：拼音或英文名称（pinyin、name:zh-Latn-pinyin、name:en），用于拼音查询
+ * 经纬度无法解析的行记录日志后跳过。索引先写入临时文件，完成后原子替换
+ * </p>
+ */
+@Slf4j
+final class LocalIndexBuilder {
+    private static final String[][] COLUMNS = {
+            {"lat", "latitude", "::lat", "y"},
+            {"lng", "lon", "longitude", "::lon", "x"},
+            {"address", "formatted_address", "name"},
+            {"province", "addr:province", "addr:state"},
+            {"city", "addr:city"},
+            {"district", "addr:district", "addr:county"},
+            {"street", "addr:street"},
+            {"street_number", "addr:housenumber"},
+            {"postal_code", "addr:postcode"},
+            {"pinyin", "name:zh-latn-pinyin", "name:en"},
+    };
+    private static final int LAT = 0;
+    private static final int LNG = 1;
+    private static final int ADDRESS = 2;
+    private static final int PROVINCE = 3;
+    private static final int STREET_NUMBER = 7;
+    private static final int POSTAL_CODE = 8;
+    private static final int PINYIN = 9;
+
+    private LocalIndexBuilder() {
+    }
+
+    /**
+     * 生成索引文件
+     *
+     * @param csv   地址/POI 数据
+     * @param index 索引文件，已存在时替换
+     * @return 索引中的地址数
+     * @throws IOException 当文件读写失败、缺少经纬度列或索引超过 2GB 时抛出
+     */
+    static int build(Path csv, Path index) throws IOException {
+        Path directory = index.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        Path records = Files.createTempFile(directory, index.getFileName().toString(), ".records");
+        Path tmp = Files.createTempFile(directory, index.getFileName().toString(), ".tmp");
+        try {
+            IntList offsets = new IntList();
+            Map<Long, IntList> postings = new HashMap<>();
+            long recordBytes;
+            try (BufferedReader reader = Files.newBufferedReader(csv, StandardCharsets.UTF_8);
+                 DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(records)))) {
+                String header = reader.readLine();
+                int[] columns = mapColumns(header, COLUMNS);
+                if (columns[LAT] < 0 || columns[LNG] < 0) {
+                    throw new IOException("地址数据缺少经纬度列: " + header);
+                }
+                String line;
+                int lineNumber = 1;
+                while ((line = reader.readLine()) != null) {
+                    lineNumber++;
+                    if (line.trim().isEmpty()) {
+                        continue;
+                    }
+                    String[] fields = select(parseCsvLine(line), columns);
+                    double lat;
+                    double lng;
+                    try {
+                        lat = Double.parseDouble(fields[LAT]);
+                        lng = Double.parseDouble(fields[LNG]);
+                    } catch (NullPointerException | NumberFormatException e) {
+                        log.warn("跳过经纬度无效的地址数据: {} 第 {} 行", csv, lineNumber);
+                        continue;
+                    }
+                    if (fields[ADDRESS] == null) {
+                        fields[ADDRESS] = join(fields);
+                    }
+                    int record = offsets.size();
+                    offsets.add(LocalGeocodeIndex.HEADER_SIZE + out.size());
+                    Set<String> addressTokens = AddressTokenizer.tokenize(fields[ADDRESS]);
+                    Set<String> pinyinTokens = AddressTokenizer.tokenize(fields[PINYIN]);
+                    addPostings(postings, addressTokens, record, LocalGeocodeIndex.FIELD_ADDRESS);
+                    addPostings(postings, pinyinTokens, record, LocalGeocodeIndex.FIELD_PINYIN);
+                    out.writeDouble(lat);
+                    out.writeDouble(lng);
+                    out.writeShort(Math.min(addressTokens.size(), Short.MAX_VALUE));
+                    out.writeShort(Math.min(pinyinTokens.size(), Short.MAX_VALUE));
+                    for (int field = ADDRESS; field <= POSTAL_CODE; field++) {
+                        writeString(out, fields[field]);
+                    }
+                    if (out.size() == Integer.MAX_VALUE) {
+                        throw new IOException("本地地址索引超过 2GB");
+                    }
+                }
+                recordBytes = out.size();
+            }
+            writeIndex(tmp, records, recordBytes, offsets, postings);
+            Files.move(tmp, index, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return offsets.size();
+        } finally {
+            Files.deleteIfExists(records);
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    private static void writeIndex(Path target, Path records, long recordBytes, IntList offsets,
+                                   Map<Long, IntList> postings) throws IOException {
+        long[] hashes = new long[postings.size()];
+        int i = 0;
+        long postingCount = 0;
+        for (Map.Entry<Long, IntList> entry : postings.entrySet()) {
+            hashes[i++] = entry.getKey();
+            postingCount += entry.getValue().size();
+        }
+        Arrays.sort(hashes);
+        long recordTableOffset = LocalGeocodeIndex.HEADER_SIZE + recordBytes;
+        long tokenTableOffset = recordTableOffset + 4L * offsets.size();
+        long postingsOffset = tokenTableOffset + (long) LocalGeocodeIndex.TOKEN_ENTRY_SIZE * hashes.length;
+        if (postingsOffset + 4 * postingCount > Integer.MAX_VALUE) {
+            throw new IOException("本地地址索引超过 2GB");
+        }
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(target)))) {
+            out.writeInt(LocalGeocodeIndex.MAGIC);
+            out.writeInt(LocalGeocodeIndex.VERSION);
+            out.writeInt(offsets.size());
+            out.writeInt(hashes.length);
+            out.writeLong(recordTableOffset);
+            out.writeLong(tokenTableOffset);
+            out.writeLong(postingsOffset);
+            try (InputStream in = new BufferedInputStream(Files.newInputStream(records))) {
+                copy(in, out);
+            }
+            for (int j = 0; j < offsets.size(); j++) {
+                out.writeInt(offsets.get(j));
+            }
+            int start = 0;
+            for (long hash : hashes) {
+                int length = postings.get(hash).size();
+                out.writeLong(hash);
+                out.writeInt(start);
+                out.writeInt(length);
+                start += length;
+            }
+            for (long hash : hashes) {
+                IntList list = postings.get(hash);
+                for (int j = 0; j < list.size(); j++) {
+                    out.writeInt(list.get(j));
+                }
+            }
+        }
+    }
+
+    private static void addPostings(Map<Long, IntList> postings, Set<String> tokens, int record, int field) {
+        for (String token : tokens) {
+            postings.computeIfAbsent(AddressTokenizer.hash(token), hash -> new IntList()).add(record << 1 | field);
+        }
+    }
+
+    /**
+     * 按表头确定各列的位置
+     *
+     * @param header  CSV 表头
+     * @param aliases 每个已知列可用的列名（小写）
+     * @return 每个已知列在 CSV 行中的下标，不存在时为 -1
+     * @throws IOException 当数据为空时抛出
+     */
+    static int[] mapColumns(String header, String[][] aliases) throws IOException {
+        if (header == null) {
+            throw new IOException("导入数据为空");
+        }
+        if (header.startsWith("\uFEFF")) {
+            header = header.substring(1);
+        }
+        List<String> names = parseCsvLine(header);
+        int[] columns = new int[aliases.length];
+        for (int column = 0; column < aliases.length; column++) {
+            columns[column] = -1;
+            for (String alias : aliases[column]) {
+                for (int i = 0; i < names.size() && columns[column] < 0; i++) {
+                    if (names.get(i).trim().toLowerCase(Locale.ROOT).equals(alias)) {
+                        columns[column] = i;
+                    }
+                }
+            }
+        }
+        return columns;
+    }
+
+    /**
+     * 按列的位置取出一行中各已知列的值
+     *
+     * @param values  CSV 行中各列的值
+     * @param columns {@link #mapColumns} 返回的列位置
+     * @return 各已知列去除首尾空白后的值，空值或不存在时为 null
+     */
+    static String[] select(List<String> values, int[] columns) {
+        String[] fields = new String[columns.length];
+        for (int column = 0; column < columns.length; column++) {
+            int index = columns[column];
+            if (index >= 0 && index < values.size()) {
+                String value = values.get(index).trim();
+                fields[column] = value.isEmpty() ? null : value;
+            }
+        }
+        return fields;
+    }
+
+    private static String join(String[] fields) {
+        StringBuilder result = new StringBuilder();
+        for (int field = PROVINCE; field <= STREET_NUMBER; field++) {
+            if (fields[field] != null) {
+                result.append(fields[field]);
+            }
+        }
+        return result.length() == 0 ? null : result.toString();
+    }
+
+    /**
+     * 解析一行 CSV，支持双引号包裹和转义，不支持跨行的字段
+     *
+     * @param line CSV 行
+     * @return 各列的值
+     */
+    static List<String> parseCsvLine(String line) {
+        List<String> values = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                values.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        values.add(field.toString());
+        return values;
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value == null ? new byte[0] : value.getBytes(StandardCharsets.UTF_8);
+        int length = Math.min(bytes.length, 0xFFFF);
+        out.writeShort(length);
+        out.write(bytes, 0, length);
+    }
+
+    private static void copy(InputStream in, OutputStream out) throws IOException {
+        byte[] buffer = new byte[64 * 1024];
+        int read;
+        while ((read = in.read(buffer)) > 0) {
+            out.write(buffer, 0, read);
+        }
+    }
+
+    /**
+     * 可增长的 int 数组，避免构建倒排表时装箱
+     */
+    private static final class IntList {
+        private int[] values = new int[4];
+        private int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        int get(int index) {
+            return values[index];
+        }
+
+        int size() {
+            return size;
+        }
+    }
+}
@@ -0,0 +1,187 @@
+package com.example.geoservice.service.local;
+
+import com.example.geoservice.config.MapServiceProperties;
+import com.example.geoservice.geo.CoordinateConverter;
+import com.example.geoservice.geo.CoordinateSystem;
+import com.example.geoservice.model.AddressInfo;
+import com.example.geoservice.model.Location;
+import com.example.geoservice.model.RouteDistance;
+import com.example.geoservice.service.AsyncMapService;
+import com.example.geoservice.service.ProviderOperation;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 本地地图服务
+ * <p>
+ * 基于导入的地址/POI 数据离线解析地址，不调用任何服务商：
+ * 1. 启动时导入数据比索引新则重建索引，之后以内存映射方式打开，堆内存占用与数据量无关
+ * 2. 支持汉字和拼音查询，结果的置信度为查询与地址词元集合的相似度
+ * 3. 逆地址解析在内存中的坐标网格和行政区划边界中查找，置信度随最近地址的距离降低
+ * 4. map.provider=local 时单独使用，适合无网络的测试环境；
+ *    map.local.first-tier=true 时作为服务商之前的第一级，匹配足够可信时不再调用服务商
+ * 5. 不支持驾车距离计算
+ * 6. 导入数据的坐标系由 map.local.coordinate-system 指定，查询坐标和返回结果按服务配置的坐标系转换
+ * </p>
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(prefix = "map.local", name = "enabled", havingValue = "true")
+public class LocalMapService implements AsyncMapService {
+    /**
+     * 服务商名称，与 map.provider 配置取值一致
+     */
+    public static final String PROVIDER_NAME = "local";
+
+    private final MapServiceProperties.LocalProperties properties;
+    private final CoordinateSystem coordinateSystem;
+    private final LocalGeocodeIndex index;
+    private final LocalReverseGeocoder reverseGeocoder;
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter reverseHits;
+    private final Counter reverseMisses;
+    private final Map<AsyncMapService, AsyncMapService> tiers = new ConcurrentHashMap<>();
+
+    /**
+     * 构造函数
+     *
+     * @param properties 地图服务配置
+     * @param registry   指标注册表
+     * @throws IOException 当导入数据或索引文件无法读取时抛出
+     */
+    public LocalMapService(MapServiceProperties properties, MeterRegistry registry) throws IOException {
+        this.properties = properties.getLocal();
+        this.coordinateSystem = properties.getCoordinateSystem();
+        Path indexFile = Paths.get(this.properties.getIndexFile());
+        if (StringUtils.hasText(this.properties.getImportFile())) {
+            Path importFile = Paths.get(this.properties.getImportFile());
+            if (!Files.exists(indexFile)
+                    || Files.getLastModifiedTime(importFile).compareTo(Files.getLastModifiedTime(indexFile)) > 0) {
+                long start = System.currentTimeMillis();
+                int count = LocalIndexBuilder.build(importFile, indexFile);
+                log.info("已从 {} 导入 {} 条地址，耗时 {}ms", importFile, count, System.currentTimeMillis() - start);
+            }
+        }
+        if (!Files.exists(indexFile)) {
+            throw new IllegalStateException("本地地址索引不存在，请配置 map.local.import-file: " + indexFile);
+        }
+        this.index = LocalGeocodeIndex.open(indexFile);
+        log.info("已加载本地地址索引 {}，共 {} 条地址", indexFile, index.size());
+        BoundaryIndex boundaries = null;
+        if (StringUtils.hasText(this.properties.getBoundaryFile())) {
+            boundaries = BoundaryIndex.load(Paths.get(this.properties.getBoundaryFile()));
+            log.info("已加载行政区划边界 {}，共 {} 个", this.properties.getBoundaryFile(), boundaries.size());
+        }
+        this.reverseGeocoder = new LocalReverseGeocoder(index, boundaries, this.properties.getReverseMaxDistance());
+        this.hits = lookupCounter(registry, ProviderOperation.GEOCODE, "hit");
+        this.misses = lookupCounter(registry, ProviderOperation.GEOCODE, "miss");
+        this.reverseHits = lookupCounter(registry, ProviderOperation.REVERSE_GEOCODE, "hit");
+        this.reverseMisses = lookupCounter(registry, ProviderOperation.REVERSE_GEOCODE, "miss");
+    }
+
+    private static Counter lookupCounter(MeterRegistry registry, ProviderOperation operation, String outcome) {
+        return Counter.builder("map.local.requests")
+                .description("本地地址解析和逆地址解析次数，miss 表示没有结果")
+                .tag("operation", operation.getTagValue())
+                .tag("outcome", outcome)
+                .register(registry);
+    }
+
+    /**
+     * 在本地索引中解析地址
+     *
+     * @param address 需要解析的地址字符串
+     * @return 置信度不低于 map.local.min-confidence 的匹配，按置信度从高到低排列
+     */
+    @Override
+    public List<AddressInfo> geocodeAddress(String address) {
+        List<AddressInfo> results = index.search(address, properties.getMaxResults(), properties.getMinConfidence());
+        (results.isEmpty() ? misses : hits).increment();
+        return fromDataCoordinates(results);
+    }
+
+    @Override
+    public CompletableFuture<List<AddressInfo>> geocodeAddressAsync(String address) {
+        return CompletableFuture.completedFuture(geocodeAddress(address));
+    }
+
+    /**
+     * 在本地坐标网格和行政区划边界中逆地址解析
+     *
+     * @param location 需要解析的坐标
+     * @return 最近的地址或所在的行政区划
+     */
+    @Override
+    public List<AddressInfo> reverseGeocode(Location location) {
+        Location query = CoordinateConverter.convert(location, coordinateSystem, properties.getCoordinateSystem());
+        List<AddressInfo> results = reverseGeocoder.reverseGeocode(query.getLat(), query.getLng());
+        (results.isEmpty() ? reverseMisses : reverseHits).increment();
+        return fromDataCoordinates(results);
+    }
+
+    /**
+     * 将本地数据中的坐标原地转换到服务配置的坐标系
+     */
+    private List<AddressInfo> fromDataCoordinates(List<AddressInfo> results) {
+        for (AddressInfo result : results) {
+            CoordinateConverter.convert(result, properties.getCoordinateSystem(), coordinateSystem);
+        }
+        return results;
+    }
+
+    @Override
+    public CompletableFuture<List<AddressInfo>> reverseGeocodeAsync(Location location) {
+        return CompletableFuture.completedFuture(reverseGeocode(location));
+    }
+
+    @Override
+    public double calculateDrivingDistance(Location origin, Location destination) {
+        throw unsupported();
+    }
+
+    @Override
+    public CompletableFuture<Double> calculateDrivingDistanceAsync(Location origin, Location destination) {
+        CompletableFuture<Double> result = new CompletableFuture<>();
+        result.completeExceptionally(unsupported());
+        return result;
+    }
+
+    @Override
+    public double[][] calculateDistanceMatrix(List<Location> origins, List<Location> destinations) {
+        throw unsupported();
+    }
+
+    @Override
+    public RouteDistance calculateRouteDistance(List<Location> waypoints) {
+        throw unsupported();
+    }
+
+    private static UnsupportedOperationException unsupported() {
+        return new UnsupportedOperationException("本地地图服务不支持驾车距离计算");
+    }
+
+    /**
+     * 以本地索引作为指定服务商之前的第一级
+     *
+     * @param delegate 本地匹配不够可信时调用的服务商
+     * @return 先查询本地索引的地图服务，同一服务商总是返回同一实例
+     */
+    public AsyncMapService before(AsyncMapService delegate) {
+        return tiers.computeIfAbsent(delegate,
+                provider -> new LocalFirstMapService(this, provider, properties.getAcceptConfidence()));
+    }
+}
@@ -0,0 +1,102 @@
+package com.example.geoservice.service.local;
+
+import com.example.geoservice.model.AddressInfo;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 本地逆地址解析
+ * <p>
+ * 不调用服务商，在内存中完成查询：
+ * 1. 在本地地址索引的坐标网格中查找最大距离内最近的地址，置信度随距离从 1 线性降至 0.5
+ * 2. 没有足够近的地址时，返回坐标所在的行政区划，置信度为 0.5
+ * 3. 地址记录缺少省、市、区县时，用所在行政区划补全
+ * </p>
+ */
+final class LocalReverseGeocoder {
+    /**
+     * 只确定所在行政区划时的置信度，也是最近地址位于最大距离处时的置信度
+     */
+    static final double BOUNDARY_CONFIDENCE = 0.5;
+
+    private final LocalGeocodeIndex index;
+    private final PointGrid points;
+    private final BoundaryIndex boundaries;
+    private final double maxDistance;
+
+    /**
+     * 构造函数
+     *
+     * @param index       本地地址索引，按其中所有地址的坐标建立网格
+     * @param boundaries  行政区划边界，可以为 null
+     * @param maxDistance 地址与查询坐标的最大距离（米）
+     */
+    LocalReverseGeocoder(LocalGeocodeIndex index, BoundaryIndex boundaries, double maxDistance) {
+        double[] latitudes = new double[index.size()];
+        double[] longitudes = new double[index.size()];
+        for (int record = 0; record < index.size(); record++) {
+            latitudes[record] = index.latitude(record);
+            longitudes[record] = index.longitude(record);
+        }
+        this.index = index;
+        this.points = new PointGrid(latitudes, longitudes);
+        this.boundaries = boundaries;
+        this.maxDistance = maxDistance;
+    }
+
+    /**
+     * 逆地址解析
+     *
+     * @param lat 纬度
+     * @param lng 经度
+     * @return 最近的地址或所在的行政区划，都没有时为空列表
+     */
+    List<AddressInfo> reverseGeocode(double lat, double lng) {
+        int boundary = boundaries == null ? -1 : boundaries.find(lat, lng);
+        PointGrid.Neighbor nearest = maxDistance > 0 ? points.nearest(lat, lng, maxDistance) : null;
+        if (nearest != null) {
+            double confidence = 1 - (1 - BOUNDARY_CONFIDENCE) * nearest.getDistance() / maxDistance;
+            AddressInfo info = index.read(nearest.getId(), confidence);
+            if (boundary >= 0) {
+                if (info.getProvince() == null) {
+                    info.setProvince(boundaries.getProvince(boundary));
+                }
+                if (info.getCity() == null) {
+                    info.setCity(boundaries.getCity(boundary));
+                }
+                if (info.getDistrict() == null) {
+                    info.setDistrict(boundaries.getDistrict(boundary));
+                }
+            }
+            return Collections.singletonList(info);
+        }
+        if (boundary < 0) {
+            return Collections.emptyList();
+        }
+        AddressInfo info = new AddressInfo();
+        info.setLatitude(lat);
+        info.setLongitude(lng);
+        info.setProvince(boundaries.getProvince(boundary));
+        info.setCity(boundaries.getCity(boundary));
+        info.setDistrict(boundaries.getDistrict(boundary));
+        info.setFormattedAddress(join(info.getProvince(), info.getCity(), info.getDistrict()));
+        info.setConfidence(BOUNDARY_CONFIDENCE);
+        return Collections.singletonList(info);
+    }
+
+    /**
+     * 拼接行政区划名称，跳过与上一级相同的名称（例如直辖市的省和市）
+     */
+    private static String join(String... names) {
+        StringBuilder result = new StringBuilder();
+        String previous = null;
+        for (String name : names) {
+            if (name != null && !name.equals(previous)) {
+                result.append(name);
+                previous = name;
+            }
+        }
+        return result.toString();
+    }
+}
@@ -0,0 +1,160 @@
+package com.example.geoservice.service.local;
+
+import java.util.Arrays;
+
+/**
+ * 按网格分桶的坐标索引
+ * <p>
+ * 坐标按 0.01 度（约 1 公里）的网格分桶，桶按编号排序后存放在基本类型数组中，不为每个点创建对象：
+ * 1. 网格编号为 行号 * 列数 + 列号，同一行中相邻网格的点在数组中连续存放
+ * 2. 查询时逐行二分查找覆盖查询半径的网格范围，再逐点计算距离
+ * 3. 距离按等距圆柱投影近似计算，在查询半径（数百米）内误差可以忽略；不处理跨越 ±180 度经线的情况
+ * </p>
+ */
+final class PointGrid {
+    /**
+     * 每度纬度的长度（米）
+     */
+    static final double METERS_PER_DEGREE = 111_320;
+
+    private static final double CELL_DEGREES = 0.01;
+    private static final int ROWS = (int) (180 / CELL_DEGREES) + 1;
+    private static final int COLUMNS = (int) (360 / CELL_DEGREES) + 1;
+
+    /**
+     * 有点的网格编号，升序排列
+     */
+    private final int[] cells;
+
+    /**
+     * 每个网格中的点在坐标数组中的起始位置，最后一个元素为点数
+     */
+    private final int[] cellStarts;
+
+    private final float[] latitudes;
+    private final float[] longitudes;
+    private final int[] ids;
+
+    /**
+     * 构造函数
+     *
+     * @param latitudes  各点的纬度，下标即点的编号
+     * @param longitudes 各点的经度
+     */
+    PointGrid(double[] latitudes, double[] longitudes) {
+        int size = latitudes.length;
+        // 高 32 位为网格编号，低 32 位为点的编号，排序后同一网格的点相邻且按编号排列
+        long[] keys = new long[size];
+        for (int i = 0; i < size; i++) {
+            keys[i] = (long) cell(latitudes[i], longitudes[i]) << 32 | i;
+        }
+        Arrays.sort(keys);
+        this.latitudes = new float[size];
+        this.longitudes = new float[size];
+        this.ids = new int[size];
+        int[] distinct = new int[size];
+        int[] starts = new int[size + 1];
+        int cellCount = 0;
+        for (int i = 0; i < size; i++) {
+            int cell = (int) (keys[i] >>> 32);
+            int id = (int) keys[i];
+            if (cellCount == 0 || distinct[cellCount - 1] != cell) {
+                distinct[cellCount] = cell;
+                starts[cellCount] = i;
+                cellCount++;
+            }
+            this.ids[i] = id;
+            this.latitudes[i] = (float) latitudes[id];
+            this.longitudes[i] = (float) longitudes[id];
+        }
+        starts[cellCount] = size;
+        this.cells = Arrays.copyOf(distinct, cellCount);
+        this.cellStarts = Arrays.copyOf(starts, cellCount + 1);
+    }
+
+    /**
+     * 获取索引中的点数
+     */
+    int size() {
+        return ids.length;
+    }
+
+    /**
+     * 查找距离最近的点
+     *
+     * @param lat       纬度
+     * @param lng       经度
+     * @param maxMeters 最大距离（米）
+     * @return 最近的点，距离相同时取编号较小的；超出最大距离时返回 null
+     */
+    Neighbor nearest(double lat, double lng, double maxMeters) {
+        if (ids.length == 0 || maxMeters < 0) {
+            return null;
+        }
+        double cos = Math.max(Math.cos(Math.toRadians(lat)), 0.01);
+        int row = row(lat);
+        int column = column(lng);
+        int rowSpan = (int) Math.ceil(maxMeters / METERS_PER_DEGREE / CELL_DEGREES);
+        int columnSpan = (int) Math.min(COLUMNS, Math.ceil(maxMeters / (METERS_PER_DEGREE * cos) / CELL_DEGREES));
+        int best = -1;
+        double bestSquared = maxMeters * maxMeters;
+        for (int r = Math.max(0, row - rowSpan); r <= Math.min(ROWS - 1, row + rowSpan); r++) {
+            int from = lowerBound(r * COLUMNS + Math.max(0, column - columnSpan));
+            int to = lowerBound(r * COLUMNS + Math.min(COLUMNS - 1, column + columnSpan) + 1);
+            for (int i = cellStarts[from]; i < cellStarts[to]; i++) {
+                double dy = (latitudes[i] - lat) * METERS_PER_DEGREE;
+                double dx = (longitudes[i] - lng) * METERS_PER_DEGREE * cos;
+                double squared = dx * dx + dy * dy;
+                if (squared < bestSquared || squared == bestSquared && (best < 0 || ids[i] < ids[best])) {
+                    best = i;
+                    bestSquared = squared;
+                }
+            }
+        }
+        return best < 0 ? null : new Neighbor(ids[best], Math.sqrt(bestSquared));
+    }
+
+    /**
+     * 第一个编号不小于指定值的网格在数组中的位置
+     */
+    private int lowerBound(int cell) {
+        int index = Arrays.binarySearch(cells, cell);
+        return index >= 0 ? index : -index - 1;
+    }
+
+    private static int cell(double lat, double lng) {
+        return row(lat) * COLUMNS + column(lng);
+    }
+
+    private static int row(double lat) {
+        return Math.max(0, Math.min(ROWS - 1, (int) Math.floor((lat + 90) / CELL_DEGREES)));
+    }
+
+    private static int column(double lng) {
+        return Math.max(0, Math.min(COLUMNS - 1, (int) Math.floor((lng + 180) / CELL_DEGREES)));
+    }
+
+    /**
+     * 最近的点
+     */
+    static final class Neighbor {
+        private final int id;
+        private final double distance;
+
+        private Neighbor(int id, double distance) {
+            this.id = id;
+            this.distance = distance;
+        }
+
+        int getId() {
+            return id;
+        }
+
+        /**
+         * 与查询坐标的距离（米）
+         */
+        double getDistance() {
+            return distance;
+        }
+    }
+}
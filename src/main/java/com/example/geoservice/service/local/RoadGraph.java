@@ -0,0 +1,500 @@
+package com.example.geoservice.service.local;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+
+/**
+ * 内存映射的道路网络
+ * <p>
+ * 文件由 {@link RoadGraphBuilder} 生成，打开时只做内存映射，路口坐标另外读入堆内存中的坐标网格用于匹配最近的路口：
+ * 1. 文件头：魔数、版本、路口数、向上出边数、向上入边数
+ * 2. 路口坐标：纬度、经度各一个数组，单位为 1e-7 度
+ * 3. 向上出边：每个路口的起始位置表，以及（目标路口、权重）交替存放的边表
+ * 4. 向上入边：格式相同，目标为来源路口
+ * 权重单位为分米。两点间的最短距离为双向搜索：正向沿向上出边、反向沿向上入边，两个方向在最高的路口相遇；
+ * 搜索只访问层次中更高的路口，通常每次只确定数百个路口
+ * </p>
+ */
+final class RoadGraph {
+    static final int MAGIC = 0x524F4144;
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 24;
+
+    /**
+     * 权重与米的换算：权重单位为分米
+     */
+    private static final double WEIGHT_PER_METER = 10;
+
+    private static final double FIXED_PER_DEGREE = 1e7;
+
+    private final int nodeCount;
+    private final IntBuffer forwardFirst;
+    private final IntBuffer forwardEdges;
+    private final IntBuffer backwardFirst;
+    private final IntBuffer backwardEdges;
+    private final PointGrid grid;
+
+    /**
+     * 最多保留的空闲查询工作区数量。每个工作区持有两个与路口数等长的距离数组，
+     * 同时进行的查询超过 CPU 核数时多出的工作区用完即丢弃，突发并发不会让空闲工作区常驻堆内存
+     */
+    private static final int MAX_IDLE_SEARCHES = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * 空闲的查询工作区，按需创建，用完放回以便复用，队列已满时丢弃
+     */
+    private final ArrayBlockingQueue<Search> searches = new ArrayBlockingQueue<>(MAX_IDLE_SEARCHES);
+
+    private RoadGraph(MappedByteBuffer buffer) throws IOException {
+        if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+            throw new IOException("不是有效的道路网络文件");
+        }
+        if (buffer.getInt(4) != VERSION) {
+            throw new IOException("不支持的道路网络文件版本: " + buffer.getInt(4));
+        }
+        this.nodeCount = buffer.getInt(8);
+        int forwardCount = buffer.getInt(12);
+        int backwardCount = buffer.getInt(16);
+        int position = HEADER_SIZE;
+        IntBuffer latitudes = ints(buffer, position, nodeCount);
+        position += 4 * nodeCount;
+        IntBuffer longitudes = ints(buffer, position, nodeCount);
+        position += 4 * nodeCount;
+        this.forwardFirst = ints(buffer, position, nodeCount + 1);
+        position += 4 * (nodeCount + 1);
+        this.forwardEdges = ints(buffer, position, 2 * forwardCount);
+        position += 8 * forwardCount;
+        this.backwardFirst = ints(buffer, position, nodeCount + 1);
+        position += 4 * (nodeCount + 1);
+        this.backwardEdges = ints(buffer, position, 2 * backwardCount);
+
+        double[] lats = new double[nodeCount];
+        double[] lngs = new double[nodeCount];
+        for (int node = 0; node < nodeCount; node++) {
+            lats[node] = latitudes.get(node) / FIXED_PER_DEGREE;
+            lngs[node] = longitudes.get(node) / FIXED_PER_DEGREE;
+        }
+        this.grid = new PointGrid(lats, lngs);
+    }
+
+    private static IntBuffer ints(MappedByteBuffer buffer, int position, int length) throws IOException {
+        if (position + 4L * length > buffer.capacity()) {
+            throw new IOException("道路网络文件不完整");
+        }
+        ByteBuffer view = buffer.duplicate();
+        view.position(position);
+        IntBuffer ints = view.slice().asIntBuffer();
+        ints.limit(length);
+        return ints.slice();
+    }
+
+    /**
+     * 以只读方式映射道路网络文件
+     *
+     * @param file 道路网络文件
+     * @return 道路网络
+     * @throws IOException 当文件无法读取或格式不正确时抛出
+     */
+    static RoadGraph open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return new RoadGraph(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * 获取路口数
+     */
+    int size() {
+        return nodeCount;
+    }
+
+    /**
+     * 查找距离最近的路口
+     *
+     * @param lat       纬度
+     * @param lng       经度
+     * @param maxMeters 最大距离（米）
+     * @return 最近的路口及其距离，超出最大距离时返回 null
+     */
+    PointGrid.Neighbor nearest(double lat, double lng, double maxMeters) {
+        return grid.nearest(lat, lng, maxMeters);
+    }
+
+    /**
+     * 计算两个路口之间的最短驾车距离
+     *
+     * @param source 起点路口
+     * @param target 终点路口
+     * @return 最短距离（米），无法到达时为 -1
+     */
+    double distance(int source, int target) {
+        if (source == target) {
+            return 0;
+        }
+        Search search = acquire();
+        try {
+            return toMeters(search.distance(source, target));
+        } finally {
+            release(search);
+        }
+    }
+
+    /**
+     * 计算多个起点到多个终点的最短驾车距离
+     * <p>
+     * 先从每个终点反向向上搜索，把到达的路口和距离记入该路口的桶中；
+     * 再从每个起点正向向上搜索，在到达路口的桶中取两段之和的最小值。
+     * 每个起点和终点只搜索一次，耗时约为两者数量之和次单点搜索
+     * </p>
+     *
+     * @param sources 起点路口
+     * @param targets 终点路口
+     * @return 最短距离矩阵（米），无法到达时为 -1
+     */
+    double[][] distances(int[] sources, int[] targets) {
+        Search search = acquire();
+        try {
+            // 桶中的条目为（路口、终点下标、距离），按路口排序后二分查找
+            Buckets buckets = new Buckets();
+            for (int t = 0; t < targets.length; t++) {
+                search.upward(targets[t], backwardFirst, backwardEdges, search.backward);
+                for (int i = 0; i < search.backward.touched.size; i++) {
+                    int node = search.backward.touched.values[i];
+                    buckets.add(node, t, search.backward.distances[node]);
+                }
+                search.backward.reset();
+            }
+            buckets.sort();
+
+            double[][] matrix = new double[sources.length][targets.length];
+            long[] best = new long[targets.length];
+            for (int s = 0; s < sources.length; s++) {
+                Arrays.fill(best, Long.MAX_VALUE);
+                search.upward(sources[s], forwardFirst, forwardEdges, search.forward);
+                for (int i = 0; i < search.forward.touched.size; i++) {
+                    int node = search.forward.touched.values[i];
+                    long toNode = search.forward.distances[node];
+                    for (int entry = buckets.first(node); entry < buckets.size && buckets.node(entry) == node; entry++) {
+                        int t = buckets.target(entry);
+                        best[t] = Math.min(best[t], toNode + buckets.distances[entry]);
+                    }
+                }
+                search.forward.reset();
+                for (int t = 0; t < targets.length; t++) {
+                    matrix[s][t] = toMeters(best[t]);
+                }
+            }
+            return matrix;
+        } finally {
+            release(search);
+        }
+    }
+
+    private Search acquire() {
+        Search search = searches.poll();
+        return search == null ? new Search(nodeCount) : search;
+    }
+
+    private void release(Search search) {
+        searches.offer(search);
+    }
+
+    /**
+     * 空闲的查询工作区数量
+     */
+    int idleSearches() {
+        return searches.size();
+    }
+
+    private static double toMeters(long weight) {
+        return weight == Long.MAX_VALUE ? -1 : weight / WEIGHT_PER_METER;
+    }
+
+    /**
+     * 将长度（米）转换为权重，至少为 1
+     */
+    static int toWeight(double meters) {
+        return (int) Math.max(1, Math.min(Integer.MAX_VALUE, Math.round(meters * WEIGHT_PER_METER)));
+    }
+
+    /**
+     * 将经纬度转换为 1e-7 度为单位的整数
+     */
+    static int toFixed(double degrees) {
+        return (int) Math.round(degrees * FIXED_PER_DEGREE);
+    }
+
+    /**
+     * 一次查询的工作区，距离数组与路口数等长，只重置访问过的路口
+     */
+    private final class Search {
+        private final Direction forward;
+        private final Direction backward;
+        private final Heap forwardHeap = new Heap();
+        private final Heap backwardHeap = new Heap();
+
+        Search(int size) {
+            this.forward = new Direction(size);
+            this.backward = new Direction(size);
+        }
+
+        /**
+         * 双向向上搜索，两个方向中队首距离较小的一方先扩展，队首距离都不小于已知最短距离时停止
+         */
+        long distance(int source, int target) {
+            forward.reach(source, 0);
+            backward.reach(target, 0);
+            forwardHeap.clear();
+            backwardHeap.clear();
+            forwardHeap.push(0, source);
+            backwardHeap.push(0, target);
+            long best = Long.MAX_VALUE;
+            try {
+                while (true) {
+                    long forwardKey = forwardHeap.isEmpty() ? Long.MAX_VALUE : forwardHeap.peekKey();
+                    long backwardKey = backwardHeap.isEmpty() ? Long.MAX_VALUE : backwardHeap.peekKey();
+                    if (Math.min(forwardKey, backwardKey) >= best) {
+                        return best;
+                    }
+                    if (forwardKey <= backwardKey) {
+                        best = step(forwardHeap, forward, backward, forwardFirst, forwardEdges, best);
+                    } else {
+                        best = step(backwardHeap, backward, forward, backwardFirst, backwardEdges, best);
+                    }
+                }
+            } finally {
+                forward.reset();
+                backward.reset();
+            }
+        }
+
+        private long step(Heap heap, Direction self, Direction other, IntBuffer first, IntBuffer edges, long best) {
+            long distance = heap.peekKey();
+            int node = heap.pop();
+            if (distance > self.distances[node]) {
+                return best;
+            }
+            long meet = other.distances[node];
+            if (meet != Long.MAX_VALUE) {
+                best = Math.min(best, distance + meet);
+            }
+            int end = first.get(node + 1);
+            for (int edge = first.get(node); edge < end; edge++) {
+                int target = edges.get(2 * edge);
+                long candidate = distance + edges.get(2 * edge + 1);
+                if (candidate < self.distances[target]) {
+                    self.reach(target, candidate);
+                    heap.push(candidate, target);
+                }
+            }
+            return best;
+        }
+
+        /**
+         * 单向向上搜索直到队列为空，到达的路口及距离保存在 direction 中
+         */
+        void upward(int source, IntBuffer first, IntBuffer edges, Direction direction) {
+            Heap heap = forwardHeap;
+            heap.clear();
+            direction.reach(source, 0);
+            heap.push(0, source);
+            while (!heap.isEmpty()) {
+                long distance = heap.peekKey();
+                int node = heap.pop();
+                if (distance > direction.distances[node]) {
+                    continue;
+                }
+                int end = first.get(node + 1);
+                for (int edge = first.get(node); edge < end; edge++) {
+                    int target = edges.get(2 * edge);
+                    long candidate = distance + edges.get(2 * edge + 1);
+                    if (candidate < direction.distances[target]) {
+                        direction.reach(target, candidate);
+                        heap.push(candidate, target);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * 一个搜索方向上各路口的距离
+     */
+    private static final class Direction {
+        private final long[] distances;
+        private final Ints touched = new Ints();
+
+        Direction(int size) {
+            this.distances = new long[size];
+            Arrays.fill(distances, Long.MAX_VALUE);
+        }
+
+        void reach(int node, long distance) {
+            if (distances[node] == Long.MAX_VALUE) {
+                touched.add(node);
+            }
+            distances[node] = distance;
+        }
+
+        void reset() {
+            for (int i = 0; i < touched.size; i++) {
+                distances[touched.values[i]] = Long.MAX_VALUE;
+            }
+            touched.size = 0;
+        }
+    }
+
+    /**
+     * 多对多查询中反向搜索到达的路口，按路口排序
+     */
+    private static final class Buckets {
+        /**
+         * 高 32 位为路口，低 32 位为添加顺序，排序后同一路口的条目相邻
+         */
+        private long[] keys = new long[64];
+        private int[] targets = new int[64];
+        private long[] distances = new long[64];
+        private int size;
+
+        void add(int node, int target, long distance) {
+            if (size == keys.length) {
+                keys = Arrays.copyOf(keys, size * 2);
+                targets = Arrays.copyOf(targets, size * 2);
+                distances = Arrays.copyOf(distances, size * 2);
+            }
+            keys[size] = (long) node << 32 | size;
+            targets[size] = target;
+            distances[size] = distance;
+            size++;
+        }
+
+        void sort() {
+            Arrays.sort(keys, 0, size);
+            int[] sortedTargets = new int[size];
+            long[] sortedDistances = new long[size];
+            for (int i = 0; i < size; i++) {
+                int entry = (int) keys[i];
+                sortedTargets[i] = targets[entry];
+                sortedDistances[i] = distances[entry];
+            }
+            targets = sortedTargets;
+            distances = sortedDistances;
+        }
+
+        /**
+         * 第一个不小于指定路口的条目
+         */
+        int first(int node) {
+            int low = 0;
+            int high = size;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (node(middle) < node) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            return low;
+        }
+
+        int node(int entry) {
+            return (int) (keys[entry] >>> 32);
+        }
+
+        int target(int entry) {
+            return targets[entry];
+        }
+    }
+
+    /**
+     * 可增长的 int 数组
+     */
+    private static final class Ints {
+        private int[] values = new int[64];
+        private int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+    }
+
+    /**
+     * 以 long 为键的二叉最小堆，允许同一值重复入堆，出堆时由调用方跳过过期的条目
+     */
+    static final class Heap {
+        private long[] keys = new long[64];
+        private int[] values = new int[64];
+        private int size;
+
+        void push(long key, int value) {
+            if (size == keys.length) {
+                keys = Arrays.copyOf(keys, size * 2);
+                values = Arrays.copyOf(values, size * 2);
+            }
+            int i = size++;
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (keys[parent] <= key) {
+                    break;
+                }
+                keys[i] = keys[parent];
+                values[i] = values[parent];
+                i = parent;
+            }
+            keys[i] = key;
+            values[i] = value;
+        }
+
+        long peekKey() {
+            return keys[0];
+        }
+
+        /**
+         * 移除并返回键最小的值
+         */
+        int pop() {
+            int result = values[0];
+            size--;
+            long key = keys[size];
+            int value = values[size];
+            int i = 0;
+            while (true) {
+                int child = 2 * i + 1;
+                if (child >= size) {
+                    break;
+                }
+                if (child + 1 < size && keys[child + 1] < keys[child]) {
+                    child++;
+                }
+                if (keys[child] >= key) {
+                    break;
+                }
+                keys[i] = keys[child];
+                values[i] = values[child];
+                i = child;
+            }
+            keys[i] = key;
+            values[i] = value;
+            return result;
+        }
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        void clear() {
+            size = 0;
+        }
+    }
+}
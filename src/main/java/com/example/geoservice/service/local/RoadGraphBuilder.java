@@ -0,0 +1,485 @@
+package com.example.geoservice.service.local;
+
+import com.example.geoservice.geo.GeoMath;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 从道路数据生成预处理后的道路网络文件
+ * <p>
+ * 输入为带表头的 UTF-8 CSV，每行一段道路，按表头识别列，列的顺序不限：
+ * 1. 必需：起点纬度（from_lat、lat1）、起点经度（from_lng、from_lon、lon1）、终点纬度（to_lat、lat2）和终点经度（to_lng、to_lon、lon2），
+ *    坐标相同的端点视为同一路口
+ * 2. 可选：长度（length、distance，米），缺省时按两端点的测地线距离计算
+ * 3. 可选：单行（oneway），yes、true、1 表示只能从起点驶向终点，-1、reverse 表示只能从终点驶向起点
+ * 4. 可选：道路类型（highway、fclass），人行道、自行车道等不能驾车通行的类型跳过
+ * 读入后按收缩层次（Contraction Hierarchies）预处理：按边差从小到大逐个收缩路口，
+ * 收缩时若两个邻居之间没有不经过该路口且不更长的路径，则添加一条捷径。
+ * 每个路口只保存通往更晚收缩的路口的边，查询时只需沿这些边向上搜索。文件先写入临时文件，完成后原子替换
+ * </p>
+ */
+@Slf4j
+final class RoadGraphBuilder {
+    private static final String[][] COLUMNS = {
+            {"from_lat", "lat1", "y1"},
+            {"from_lng", "from_lon", "lon1", "lng1", "x1"},
+            {"to_lat", "lat2", "y2"},
+            {"to_lng", "to_lon", "lon2", "lng2", "x2"},
+            {"length", "distance", "length_m"},
+            {"oneway"},
+            {"highway", "fclass"},
+    };
+    private static final int FROM_LAT = 0;
+    private static final int FROM_LNG = 1;
+    private static final int TO_LAT = 2;
+    private static final int TO_LNG = 3;
+    private static final int LENGTH = 4;
+    private static final int ONEWAY = 5;
+    private static final int HIGHWAY = 6;
+
+    /**
+     * 不能驾车通行的 OSM 道路类型
+     */
+    private static final Set<String> NON_DRIVABLE = new HashSet<>(Arrays.asList(
+            "footway", "cycleway", "path", "steps", "pedestrian", "bridleway", "corridor",
+            "platform", "elevator", "construction", "proposed", "abandoned"));
+
+    /**
+     * 见证路径搜索最多确定的路口数，超出时视为没有见证路径并添加捷径，捷径多一些不影响查询结果的正确性
+     */
+    private static final int WITNESS_MAX_SETTLED = 200;
+
+    /**
+     * 计算收缩优先级时只估算捷径数，见证路径搜索的范围更小
+     */
+    private static final int SIMULATION_MAX_SETTLED = 50;
+
+    private RoadGraphBuilder() {
+    }
+
+    /**
+     * 生成道路网络文件
+     *
+     * @param csv   道路数据
+     * @param graph 道路网络文件，已存在时替换
+     * @return 道路网络中的路口数
+     * @throws IOException 当文件读写失败、缺少端点坐标列或文件超过 2GB 时抛出
+     */
+    static int build(Path csv, Path graph) throws IOException {
+        Network network = read(csv);
+        Contraction contraction = new Contraction(network);
+        contraction.run();
+        Path directory = graph.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        Path tmp = Files.createTempFile(directory, graph.getFileName().toString(), ".tmp");
+        try {
+            write(tmp, network, contraction);
+            Files.move(tmp, graph, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return network.size;
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    private static Network read(Path csv) throws IOException {
+        Network network = new Network();
+        try (BufferedReader reader = Files.newBufferedReader(csv, StandardCharsets.UTF_8)) {
+            String header = reader.readLine();
+            int[] columns = LocalIndexBuilder.mapColumns(header, COLUMNS);
+            if (columns[FROM_LAT] < 0 || columns[FROM_LNG] < 0 || columns[TO_LAT] < 0 || columns[TO_LNG] < 0) {
+                throw new IOException("道路数据缺少端点坐标列: " + header);
+            }
+            String line;
+            int lineNumber = 1;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.trim().isEmpty()) {
+                    continue;
+                }
+                String[] fields = LocalIndexBuilder.select(LocalIndexBuilder.parseCsvLine(line), columns);
+                if (fields[HIGHWAY] != null && NON_DRIVABLE.contains(fields[HIGHWAY].toLowerCase(Locale.ROOT))) {
+                    continue;
+                }
+                double fromLat;
+                double fromLng;
+                double toLat;
+                double toLng;
+                double length;
+                try {
+                    fromLat = Double.parseDouble(fields[FROM_LAT]);
+                    fromLng = Double.parseDouble(fields[FROM_LNG]);
+                    toLat = Double.parseDouble(fields[TO_LAT]);
+                    toLng = Double.parseDouble(fields[TO_LNG]);
+                    length = fields[LENGTH] == null
+                            ? GeoMath.haversine(fromLat, fromLng, toLat, toLng)
+                            : Double.parseDouble(fields[LENGTH]);
+                } catch (NullPointerException | NumberFormatException e) {
+                    log.warn("跳过坐标或长度无效的道路数据: {} 第 {} 行", csv, lineNumber);
+                    continue;
+                }
+                int from = network.node(fromLat, fromLng);
+                int to = network.node(toLat, toLng);
+                int weight = RoadGraph.toWeight(length);
+                String oneway = fields[ONEWAY] == null ? "" : fields[ONEWAY].toLowerCase(Locale.ROOT);
+                boolean reverse = "-1".equals(oneway) || "reverse".equals(oneway);
+                boolean forwardOnly = "yes".equals(oneway) || "true".equals(oneway) || "1".equals(oneway);
+                if (!reverse) {
+                    network.addEdge(from, to, weight);
+                }
+                if (!forwardOnly) {
+                    network.addEdge(to, from, weight);
+                }
+            }
+        }
+        return network;
+    }
+
+    private static void write(Path target, Network network, Contraction contraction) throws IOException {
+        int n = network.size;
+        long forwardEdges = 0;
+        long backwardEdges = 0;
+        for (int node = 0; node < n; node++) {
+            forwardEdges += contraction.upward[node].size;
+            backwardEdges += contraction.downward[node].size;
+        }
+        long bytes = RoadGraph.HEADER_SIZE + 4L * (2L * n + 2L * (n + 1) + 2 * forwardEdges + 2 * backwardEdges);
+        if (bytes > Integer.MAX_VALUE) {
+            throw new IOException("道路网络文件超过 2GB");
+        }
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(target)))) {
+            out.writeInt(RoadGraph.MAGIC);
+            out.writeInt(RoadGraph.VERSION);
+            out.writeInt(n);
+            out.writeInt((int) forwardEdges);
+            out.writeInt((int) backwardEdges);
+            out.writeInt(0);
+            for (int node = 0; node < n; node++) {
+                out.writeInt(network.latitudes.get(node));
+            }
+            for (int node = 0; node < n; node++) {
+                out.writeInt(network.longitudes.get(node));
+            }
+            writeEdges(out, contraction.upward);
+            writeEdges(out, contraction.downward);
+        }
+    }
+
+    /**
+     * 按路口写入起始位置表和（目标路口、权重）交替存放的边表
+     */
+    private static void writeEdges(DataOutputStream out, EdgeList[] lists) throws IOException {
+        int start = 0;
+        for (EdgeList list : lists) {
+            out.writeInt(start);
+            start += list.size;
+        }
+        out.writeInt(start);
+        for (EdgeList list : lists) {
+            for (int i = 0; i < list.size; i++) {
+                out.writeInt(list.targets[i]);
+                out.writeInt(list.weights[i]);
+            }
+        }
+    }
+
+    /**
+     * 导入的道路网络，路口按首次出现的顺序编号
+     */
+    private static final class Network {
+        private final Map<Long, Integer> ids = new HashMap<>();
+        private final IntList latitudes = new IntList();
+        private final IntList longitudes = new IntList();
+        private EdgeList[] out = new EdgeList[16];
+        private EdgeList[] in = new EdgeList[16];
+        private int size;
+
+        int node(double lat, double lng) {
+            int latE7 = RoadGraph.toFixed(lat);
+            int lngE7 = RoadGraph.toFixed(lng);
+            Integer id = ids.get((long) latE7 << 32 | (lngE7 & 0xFFFFFFFFL));
+            if (id != null) {
+                return id;
+            }
+            if (size == out.length) {
+                out = Arrays.copyOf(out, size * 2);
+                in = Arrays.copyOf(in, size * 2);
+            }
+            out[size] = new EdgeList();
+            in[size] = new EdgeList();
+            latitudes.add(latE7);
+            longitudes.add(lngE7);
+            ids.put((long) latE7 << 32 | (lngE7 & 0xFFFFFFFFL), size);
+            return size++;
+        }
+
+        void addEdge(int from, int to, int weight) {
+            if (from != to && out[from].putMin(to, weight)) {
+                in[to].putMin(from, weight);
+            }
+        }
+    }
+
+    /**
+     * 收缩层次预处理
+     */
+    private static final class Contraction {
+        private final Network network;
+        private final EdgeList[] out;
+        private final EdgeList[] in;
+        private final int[] deletedNeighbors;
+
+        /**
+         * 收缩时通往更晚收缩的路口的出边，查询时正向搜索使用
+         */
+        private final EdgeList[] upward;
+
+        /**
+         * 收缩时来自更晚收缩的路口的入边（保存为指向来源路口的边），查询时反向搜索使用
+         */
+        private final EdgeList[] downward;
+
+        private final long[] distances;
+        private final IntList touched = new IntList();
+        private final RoadGraph.Heap heap = new RoadGraph.Heap();
+
+        Contraction(Network network) {
+            int n = network.size;
+            this.network = network;
+            this.out = network.out;
+            this.in = network.in;
+            this.deletedNeighbors = new int[n];
+            this.upward = new EdgeList[n];
+            this.downward = new EdgeList[n];
+            this.distances = new long[n];
+            Arrays.fill(distances, Long.MAX_VALUE);
+        }
+
+        void run() {
+            int n = network.size;
+            RoadGraph.Heap queue = new RoadGraph.Heap();
+            for (int node = 0; node < n; node++) {
+                queue.push(priority(node), node);
+            }
+            int done = 0;
+            while (!queue.isEmpty()) {
+                int node = queue.pop();
+                // 优先级只在出队时重新计算，变大后不再是最小时放回队列；
+                // 收缩后立即重新计算所有邻居的优先级在稠密的上层网络中代价很高，而查询速度几乎没有差别
+                long priority = priority(node);
+                if (!queue.isEmpty() && priority > queue.peekKey()) {
+                    queue.push(priority, node);
+                    continue;
+                }
+                contract(node);
+                if (++done % 100_000 == 0) {
+                    log.info("道路网络预处理进度: {}/{}", done, n);
+                }
+            }
+        }
+
+        /**
+         * 收缩优先级：添加的捷径数减去删除的边数，再加上已收缩的邻居数，使收缩在网络中均匀分布
+         */
+        private long priority(int node) {
+            int shortcuts = shortcuts(node, false, SIMULATION_MAX_SETTLED);
+            return (long) shortcuts - out[node].size - in[node].size + deletedNeighbors[node];
+        }
+
+        private void contract(int node) {
+            shortcuts(node, true, WITNESS_MAX_SETTLED);
+            EdgeList outgoing = out[node];
+            EdgeList incoming = in[node];
+            for (int i = 0; i < outgoing.size; i++) {
+                int neighbor = outgoing.targets[i];
+                in[neighbor].remove(node);
+                deletedNeighbors[neighbor]++;
+            }
+            for (int i = 0; i < incoming.size; i++) {
+                int neighbor = incoming.targets[i];
+                out[neighbor].remove(node);
+                deletedNeighbors[neighbor]++;
+            }
+            // 剩下的邻居都在之后收缩，这些边即为该路口向上的边
+            upward[node] = outgoing.trim();
+            downward[node] = incoming.trim();
+            out[node] = null;
+            in[node] = null;
+        }
+
+        /**
+         * 统计或添加收缩路口所需的捷径
+         *
+         * @param node  收缩的路口
+         * @param apply      是否添加捷径
+         * @param maxSettled 见证路径搜索最多确定的路口数
+         * @return 捷径数
+         */
+        private int shortcuts(int node, boolean apply, int maxSettled) {
+            EdgeList outgoing = out[node];
+            EdgeList incoming = in[node];
+            int count = 0;
+            for (int i = 0; i < incoming.size; i++) {
+                int source = incoming.targets[i];
+                long toNode = incoming.weights[i];
+                long maxOut = 0;
+                for (int j = 0; j < outgoing.size; j++) {
+                    if (outgoing.targets[j] != source) {
+                        maxOut = Math.max(maxOut, outgoing.weights[j]);
+                    }
+                }
+                if (maxOut == 0) {
+                    continue;
+                }
+                witnessSearch(source, node, toNode + maxOut, maxSettled);
+                for (int j = 0; j < outgoing.size; j++) {
+                    int target = outgoing.targets[j];
+                    long viaNode = toNode + outgoing.weights[j];
+                    if (target != source && distances[target] > viaNode) {
+                        count++;
+                        if (apply) {
+                            int weight = (int) Math.min(viaNode, Integer.MAX_VALUE);
+                            if (out[source].putMin(target, weight)) {
+                                in[target].putMin(source, weight);
+                            }
+                        }
+                    }
+                }
+                reset();
+            }
+            return count;
+        }
+
+        /**
+         * 从起点出发、不经过收缩路口的有限 Dijkstra 搜索，结果保存在 distances 中
+         */
+        private void witnessSearch(int source, int excluded, long limit, int maxSettled) {
+            distances[source] = 0;
+            touched.add(source);
+            heap.clear();
+            heap.push(0, source);
+            int settled = 0;
+            while (!heap.isEmpty() && settled < maxSettled) {
+                long distance = heap.peekKey();
+                int node = heap.pop();
+                if (distance > distances[node]) {
+                    continue;
+                }
+                if (distance > limit) {
+                    break;
+                }
+                settled++;
+                EdgeList edges = out[node];
+                for (int i = 0; i < edges.size; i++) {
+                    int target = edges.targets[i];
+                    long candidate = distance + edges.weights[i];
+                    if (target != excluded && candidate < distances[target]) {
+                        if (distances[target] == Long.MAX_VALUE) {
+                            touched.add(target);
+                        }
+                        distances[target] = candidate;
+                        heap.push(candidate, target);
+                    }
+                }
+            }
+        }
+
+        private void reset() {
+            for (int i = 0; i < touched.size(); i++) {
+                distances[touched.get(i)] = Long.MAX_VALUE;
+            }
+            touched.clear();
+        }
+    }
+
+    /**
+     * 一个路口的边，平行边只保留最短的一条
+     */
+    private static final class EdgeList {
+        private int[] targets = new int[2];
+        private int[] weights = new int[2];
+        private int size;
+
+        /**
+         * 添加边，已有通往同一路口的边时保留较短的权重
+         *
+         * @return 是否添加或缩短了边
+         */
+        boolean putMin(int target, int weight) {
+            for (int i = 0; i < size; i++) {
+                if (targets[i] == target) {
+                    if (weight >= weights[i]) {
+                        return false;
+                    }
+                    weights[i] = weight;
+                    return true;
+                }
+            }
+            if (size == targets.length) {
+                targets = Arrays.copyOf(targets, size * 2);
+                weights = Arrays.copyOf(weights, size * 2);
+            }
+            targets[size] = target;
+            weights[size] = weight;
+            size++;
+            return true;
+        }
+
+        void remove(int target) {
+            for (int i = 0; i < size; i++) {
+                if (targets[i] == target) {
+                    size--;
+                    targets[i] = targets[size];
+                    weights[i] = weights[size];
+                    return;
+                }
+            }
+        }
+
+        EdgeList trim() {
+            targets = Arrays.copyOf(targets, size);
+            weights = Arrays.copyOf(weights, size);
+            return this;
+        }
+    }
+
+    /**
+     * 可增长的 int 数组，避免装箱
+     */
+    private static final class IntList {
+        private int[] values = new int[16];
+        private int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        int get(int index) {
+            return values[index];
+        }
+
+        int size() {
+            return size;
+        }
+
+        void clear() {
+            size = 0;
+        }
+    }
+}
@@ -0,0 +1,305 @@
+package com.example.geoservice.service.local;
+
+import com.example.geoservice.config.MapServiceProperties;
+import com.example.geoservice.geo.CoordinateConverter;
+import com.example.geoservice.geo.CoordinateSystem;
+import com.example.geoservice.geo.GeoMath;
+import com.example.geoservice.model.AddressInfo;
+import com.example.geoservice.model.Location;
+import com.example.geoservice.model.RouteDistance;
+import com.example.geoservice.service.AsyncMapService;
+import com.example.geoservice.service.ProviderOperation;
+import com.example.geoservice.service.impl.BaiduMapService;
+import com.example.geoservice.service.impl.GoogleMapService;
+import com.example.geoservice.service.impl.TencentMapService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 本地道路网络地图服务
+ * <p>
+ * 基于导入的道路数据离线计算驾车距离，不调用任何服务商，没有按次计费和配额：
+ * 1. 启动时导入数据比道路网络文件新则重新预处理，之后以内存映射方式打开
+ * 2. 起终点匹配到 map.road.max-snap-distance 内最近的路口，结果加上位置到路口的直线距离
+ * 3. 距离为最短路径的长度，不考虑路况和限速；服务商通常返回最快路线的距离，两者可能略有差异
+ * 4. map.provider=road 时使用；道路网络本身不支持地址解析，地址解析和逆地址解析转交 map.road.geocoding-provider 配置的服务商，
+ *    该服务商不可用时启动失败
+ * 5. 导入数据的坐标系由 map.road.coordinate-system 指定，查询坐标按服务配置的坐标系转换
+ * </p>
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(prefix = "map.road", name = "enabled", havingValue = "true")
+public class RoadMapService implements AsyncMapService {
+    /**
+     * 服务商名称，与 map.provider 配置取值一致
+     */
+    public static final String PROVIDER_NAME = "road";
+
+    private final MapServiceProperties.RoadProperties properties;
+    private final CoordinateSystem coordinateSystem;
+    private final RoadGraph graph;
+
+    /**
+     * 地址解析和逆地址解析使用的服务商
+     */
+    private final AsyncMapService geocoder;
+    private final Timer distanceTimer;
+    private final Timer matrixTimer;
+    private final Timer routeTimer;
+
+    /**
+     * 构造函数
+     *
+     * @param properties        地图服务配置
+     * @param registry          指标注册表
+     * @param googleMapService  Google地图服务
+     * @param tencentMapService 腾讯地图服务
+     * @param baiduMapService   百度地图服务
+     * @param localMapService   本地地图服务，未启用本地地址索引时为空
+     * @throws IOException           当导入数据或道路网络文件无法读取时抛出
+     * @throws IllegalStateException 当地址解析服务商不支持或未启用时抛出
+     */
+    public RoadMapService(MapServiceProperties properties, MeterRegistry registry,
+                          GoogleMapService googleMapService,
+                          TencentMapService tencentMapService,
+                          BaiduMapService baiduMapService,
+                          Optional<LocalMapService> localMapService) throws IOException {
+        this.properties = properties.getRoad();
+        this.coordinateSystem = properties.getCoordinateSystem();
+        this.geocoder = geocoder(this.properties.getGeocodingProvider(),
+                googleMapService, tencentMapService, baiduMapService, localMapService);
+        Path graphFile = Paths.get(this.properties.getGraphFile());
+        if (StringUtils.hasText(this.properties.getImportFile())) {
+            Path importFile = Paths.get(this.properties.getImportFile());
+            if (!Files.exists(graphFile)
+                    || Files.getLastModifiedTime(importFile).compareTo(Files.getLastModifiedTime(graphFile)) > 0) {
+                long start = System.currentTimeMillis();
+                int count = RoadGraphBuilder.build(importFile, graphFile);
+                log.info("已从 {} 导入 {} 个路口，耗时 {}ms", importFile, count, System.currentTimeMillis() - start);
+            }
+        }
+        if (!Files.exists(graphFile)) {
+            throw new IllegalStateException("本地道路网络不存在，请配置 map.road.import-file: " + graphFile);
+        }
+        this.graph = RoadGraph.open(graphFile);
+        log.info("已加载本地道路网络 {}，共 {} 个路口", graphFile, graph.size());
+        this.distanceTimer = queryTimer(registry, ProviderOperation.DISTANCE);
+        this.matrixTimer = queryTimer(registry, ProviderOperation.DISTANCE_MATRIX);
+        this.routeTimer = queryTimer(registry, ProviderOperation.ROUTE);
+    }
+
+    private static AsyncMapService geocoder(String provider, GoogleMapService googleMapService,
+                                            TencentMapService tencentMapService, BaiduMapService baiduMapService,
+                                            Optional<LocalMapService> localMapService) {
+        switch (provider == null ? "" : provider.toLowerCase()) {
+            case "google":
+                return googleMapService;
+            case "tencent":
+                return tencentMapService;
+            case "baidu":
+                return baiduMapService;
+            case LocalMapService.PROVIDER_NAME:
+                return localMapService.orElseThrow(() -> new IllegalStateException(
+                        "map.road.geocoding-provider=local 需要启用本地地址索引，请配置 map.local.enabled=true"));
+            default:
+                throw new IllegalStateException("不支持的地址解析服务商 map.road.geocoding-provider: " + provider);
+        }
+    }
+
+    private static Timer queryTimer(MeterRegistry registry, ProviderOperation operation) {
+        return Timer.builder("map.road.query")
+                .description("本地道路网络最短路径查询耗时")
+                .tag("operation", operation.getTagValue())
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    /**
+     * 在本地道路网络中计算两个位置之间的最短驾车距离
+     *
+     * @param origin      起点位置
+     * @param destination 终点位置
+     * @return 驾车距离，单位：米
+     * @throws IllegalArgumentException 当位置附近没有道路或两个位置之间没有可通行的道路时抛出
+     */
+    @Override
+    public double calculateDrivingDistance(Location origin, Location destination) {
+        return distanceTimer.record(() -> {
+            double distance = distance(snap(origin), snap(destination));
+            if (distance < 0) {
+                throw new IllegalArgumentException("两个位置之间没有可通行的道路");
+            }
+            return distance;
+        });
+    }
+
+    @Override
+    public CompletableFuture<Double> calculateDrivingDistanceAsync(Location origin, Location destination) {
+        CompletableFuture<Double> result = new CompletableFuture<>();
+        try {
+            result.complete(calculateDrivingDistance(origin, destination));
+        } catch (RuntimeException e) {
+            result.completeExceptionally(e);
+        }
+        return result;
+    }
+
+    /**
+     * 在本地道路网络中计算多个起点到多个终点的最短驾车距离
+     *
+     * @param origins      起点列表
+     * @param destinations 终点列表
+     * @return 驾车距离矩阵（米），无法到达时为 -1
+     * @throws IllegalArgumentException 当列表为空或位置附近没有道路时抛出
+     */
+    @Override
+    public double[][] calculateDistanceMatrix(List<Location> origins, List<Location> destinations) {
+        if (origins == null || origins.isEmpty() || destinations == null || destinations.isEmpty()) {
+            throw new IllegalArgumentException("起点和终点列表不能为空");
+        }
+        return matrixTimer.record(() -> {
+            Snapped[] from = snapAll(origins);
+            Snapped[] to = snapAll(destinations);
+            int[] sources = new int[from.length];
+            int[] targets = new int[to.length];
+            for (int i = 0; i < from.length; i++) {
+                sources[i] = from[i].node;
+            }
+            for (int j = 0; j < to.length; j++) {
+                targets[j] = to[j].node;
+            }
+            double[][] matrix = graph.distances(sources, targets);
+            for (int i = 0; i < from.length; i++) {
+                for (int j = 0; j < to.length; j++) {
+                    matrix[i][j] = withOffsets(from[i], to[j], matrix[i][j]);
+                }
+            }
+            return matrix;
+        });
+    }
+
+    /**
+     * 在本地道路网络中计算按顺序途经多个位置的驾车距离
+     *
+     * @param waypoints 按行驶顺序排列的位置，至少两个
+     * @return 路线总距离和各段距离（米）
+     * @throws IllegalArgumentException 当位置不足两个、位置附近没有道路或某一段没有可通行的道路时抛出
+     */
+    @Override
+    public RouteDistance calculateRouteDistance(List<Location> waypoints) {
+        if (waypoints == null || waypoints.size() < 2) {
+            throw new IllegalArgumentException("路线至少包含起点和终点两个位置");
+        }
+        return routeTimer.record(() -> {
+            Snapped[] points = snapAll(waypoints);
+            double[] legs = new double[points.length - 1];
+            double distance = 0;
+            for (int i = 0; i < legs.length; i++) {
+                legs[i] = distance(points[i], points[i + 1]);
+                if (legs[i] < 0) {
+                    throw new IllegalArgumentException("第 " + (i + 1) + " 段路线没有可通行的道路");
+                }
+                distance += legs[i];
+            }
+            return new RouteDistance(distance, legs);
+        });
+    }
+
+    /**
+     * 地址解析，转交 map.road.geocoding-provider 配置的服务商
+     */
+    @Override
+    public List<AddressInfo> geocodeAddress(String address) throws IOException {
+        return geocoder.geocodeAddress(address);
+    }
+
+    @Override
+    public CompletableFuture<List<AddressInfo>> geocodeAddressAsync(String address) {
+        return geocoder.geocodeAddressAsync(address);
+    }
+
+    /**
+     * 逆地址解析，转交 map.road.geocoding-provider 配置的服务商
+     */
+    @Override
+    public List<AddressInfo> reverseGeocode(Location location) throws IOException {
+        return geocoder.reverseGeocode(location);
+    }
+
+    @Override
+    public CompletableFuture<List<AddressInfo>> reverseGeocodeAsync(Location location) {
+        return geocoder.reverseGeocodeAsync(location);
+    }
+
+    private double distance(Snapped from, Snapped to) {
+        return withOffsets(from, to, graph.distance(from.node, to.node));
+    }
+
+    /**
+     * 在路口之间的距离上加上位置到路口的距离；两个位置匹配到同一路口时直接取两者的直线距离
+     */
+    private static double withOffsets(Snapped from, Snapped to, double distance) {
+        if (distance < 0) {
+            return distance;
+        }
+        if (from.node == to.node) {
+            return GeoMath.haversine(from.lat, from.lng, to.lat, to.lng);
+        }
+        return distance + from.offset + to.offset;
+    }
+
+    private Snapped[] snapAll(List<Location> locations) {
+        Snapped[] result = new Snapped[locations.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = snap(locations.get(i));
+        }
+        return result;
+    }
+
+    /**
+     * 将位置转换到道路数据的坐标系并匹配最近的路口
+     */
+    private Snapped snap(Location location) {
+        Location point = CoordinateConverter.convert(location, coordinateSystem, properties.getCoordinateSystem());
+        PointGrid.Neighbor nearest = graph.nearest(point.getLat(), point.getLng(), properties.getMaxSnapDistance());
+        if (nearest == null) {
+            throw new IllegalArgumentException(String.format("位置附近 %.0f 米内没有道路: %s,%s",
+                    properties.getMaxSnapDistance(), location.getLat(), location.getLng()));
+        }
+        return new Snapped(point.getLat(), point.getLng(), nearest.getId(), nearest.getDistance());
+    }
+
+    /**
+     * 匹配到路口的位置
+     */
+    private static final class Snapped {
+        private final double lat;
+        private final double lng;
+        private final int node;
+
+        /**
+         * 位置到路口的距离（米）
+         */
+        private final double offset;
+
+        private Snapped(double lat, double lng, int node, double offset) {
+            this.lat = lat;
+            this.lng = lng;
+            this.node = node;
+            this.offset = offset;
+        }
+    }
+}
@@ -0,0 +1,405 @@
+package com.example.geoservice.service.nearby;
+
+import com.example.geoservice.geo.GeoMath;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 可增量更新的坐标索引
+ * <p>
+ * 坐标按 0.1 度（约 11 公里）的网格分桶，位置的坐标和所在网格存放在基本类型数组中：
+ * 1. 写入和删除只修改位置所在的网格，不重建索引；删除的位置留下的空位由之后写入的位置复用
+ * 2. 查询最近的 K 个位置时，从查询坐标所在的网格开始，每次将搜索半径加倍，
+ *    直到半径内的位置达到 K 个；需要检查的网格数超过非空网格数时改为逐个检查所有位置
+ * 3. 距离为大圆距离；搜索范围包含极点或跨越 ±180 度经线时逐个检查所有位置
+ * 4. 查询和写入之间通过读写锁同步，查询之间互不阻塞
+ * </p>
+ */
+final class LocationIndex {
+    private static final double CELL_DEGREES = 0.1;
+    private static final int ROWS = (int) (180 / CELL_DEGREES) + 1;
+    private static final int COLUMNS = (int) (360 / CELL_DEGREES) + 1;
+
+    /**
+     * 第一次搜索的半径（米），约为一个网格的边长
+     */
+    private static final double INITIAL_RADIUS = Math.toRadians(CELL_DEGREES) * GeoMath.EARTH_RADIUS;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * 位置编号到数组下标的映射
+     */
+    private final Map<String, Integer> slots = new HashMap<>();
+
+    /**
+     * 各网格中位置的数组下标
+     */
+    private final Map<Integer, Bucket> buckets = new HashMap<>();
+
+    /**
+     * 空出的数组下标，写入新位置时优先使用
+     */
+    private int[] free = new int[16];
+    private int freeCount;
+
+    /**
+     * 已使用的数组下标上限，不小于位置数
+     */
+    private int capacity;
+
+    private String[] ids = new String[16];
+    private double[] latitudes = new double[16];
+    private double[] longitudes = new double[16];
+    private int[] cells = new int[16];
+
+    /**
+     * 位置在所在网格中的下标
+     */
+    private int[] positions = new int[16];
+
+    /**
+     * 获取索引中的位置数
+     */
+    int size() {
+        lock.readLock().lock();
+        try {
+            return slots.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 写入位置，编号已存在时更新其坐标
+     *
+     * @param id  位置编号
+     * @param lat 纬度
+     * @param lng 经度
+     * @return 新写入时返回 true，更新已有位置时返回 false
+     */
+    boolean put(String id, double lat, double lng) {
+        int cell = cell(lat, lng);
+        lock.writeLock().lock();
+        try {
+            Integer existing = slots.get(id);
+            if (existing != null) {
+                int slot = existing;
+                latitudes[slot] = lat;
+                longitudes[slot] = lng;
+                if (cells[slot] != cell) {
+                    unlink(slot);
+                    link(slot, cell);
+                }
+                return false;
+            }
+            int slot = freeCount > 0 ? free[--freeCount] : grow();
+            ids[slot] = id;
+            latitudes[slot] = lat;
+            longitudes[slot] = lng;
+            link(slot, cell);
+            slots.put(id, slot);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 批量写入位置，编号已存在时更新其坐标
+     *
+     * @param ids        位置编号
+     * @param latitudes  纬度
+     * @param longitudes 经度
+     * @param maxSize    写入后允许的最多位置数
+     * @return 新写入的位置数
+     * @throws IllegalArgumentException 当写入后位置数超过上限时抛出，此时不写入任何位置
+     */
+    int putAll(List<String> ids, double[] latitudes, double[] longitudes, int maxSize) {
+        lock.writeLock().lock();
+        try {
+            int added = 0;
+            for (String id : new HashSet<>(ids)) {
+                if (!slots.containsKey(id)) {
+                    added++;
+                }
+            }
+            if (slots.size() + added > maxSize) {
+                throw new IllegalArgumentException("位置集合最多包含 " + maxSize + " 个位置");
+            }
+            for (int i = 0; i < ids.size(); i++) {
+                put(ids.get(i), latitudes[i], longitudes[i]);
+            }
+            return added;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 删除位置
+     *
+     * @param id 位置编号
+     * @return 位置存在时返回 true
+     */
+    boolean remove(String id) {
+        lock.writeLock().lock();
+        try {
+            Integer slot = slots.remove(id);
+            if (slot == null) {
+                return false;
+            }
+            unlink(slot);
+            ids[slot] = null;
+            if (freeCount == free.length) {
+                free = Arrays.copyOf(free, free.length * 2);
+            }
+            free[freeCount++] = slot;
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 查找大圆距离最近的若干个位置
+     *
+     * @param lat   纬度
+     * @param lng   经度
+     * @param count 最多返回的位置数
+     * @return 按距离从近到远排列的位置，距离相同时按编号排列
+     */
+    List<Neighbor> nearest(double lat, double lng, int count) {
+        lock.readLock().lock();
+        try {
+            int limit = Math.min(count, slots.size());
+            Heap heap = new Heap(limit);
+            if (limit > 0) {
+                double radius = INITIAL_RADIUS;
+                while (!search(lat, lng, radius, heap)) {
+                    radius *= 2;
+                }
+            }
+            List<Neighbor> result = new ArrayList<>(heap.size);
+            for (int i = 0; i < heap.size; i++) {
+                int slot = heap.slots[i];
+                result.add(new Neighbor(ids[slot], latitudes[slot], longitudes[slot], heap.distances[i]));
+            }
+            result.sort((a, b) -> a.distance != b.distance
+                    ? Double.compare(a.distance, b.distance) : a.id.compareTo(b.id));
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 在指定半径内查找最近的位置
+     *
+     * @return 半径内的位置已达到所需数量，或已检查所有位置时返回 true；否则需要扩大半径重新查找
+     */
+    private boolean search(double lat, double lng, double radius, Heap heap) {
+        heap.size = 0;
+        double angle = radius / GeoMath.EARTH_RADIUS;
+        double latSpan = Math.toDegrees(angle);
+        double cos = Math.cos(Math.toRadians(lat));
+        // 半径为 angle 的球冠在经度方向的最大跨度为 asin(sin(angle) / cos(lat))，球冠包含极点时没有上限
+        double sin = Math.sin(Math.min(angle, Math.PI / 2));
+        double lngSpan = lat + latSpan >= 90 || lat - latSpan <= -90 || sin >= cos
+                ? 360 : Math.toDegrees(Math.asin(sin / cos));
+        if (lngSpan >= 180 || lng - lngSpan < -180 || lng + lngSpan > 180) {
+            scanAll(lat, lng, heap);
+            return true;
+        }
+        int rowFrom = row(lat - latSpan);
+        int rowTo = row(lat + latSpan);
+        int columnFrom = column(lng - lngSpan);
+        int columnTo = column(lng + lngSpan);
+        if ((long) (rowTo - rowFrom + 1) * (columnTo - columnFrom + 1) > buckets.size()) {
+            scanAll(lat, lng, heap);
+            return true;
+        }
+        for (int row = rowFrom; row <= rowTo; row++) {
+            for (int column = columnFrom; column <= columnTo; column++) {
+                Bucket bucket = buckets.get(row * COLUMNS + column);
+                if (bucket == null) {
+                    continue;
+                }
+                for (int i = 0; i < bucket.size; i++) {
+                    int slot = bucket.slots[i];
+                    double distance = GeoMath.haversine(lat, lng, latitudes[slot], longitudes[slot]);
+                    if (distance <= radius) {
+                        heap.offer(slot, distance, ids);
+                    }
+                }
+            }
+        }
+        return heap.size == heap.slots.length;
+    }
+
+    private void scanAll(double lat, double lng, Heap heap) {
+        for (int slot = 0; slot < capacity; slot++) {
+            if (ids[slot] != null) {
+                heap.offer(slot, GeoMath.haversine(lat, lng, latitudes[slot], longitudes[slot]), ids);
+            }
+        }
+    }
+
+    private int grow() {
+        if (capacity == ids.length) {
+            int length = ids.length * 2;
+            ids = Arrays.copyOf(ids, length);
+            latitudes = Arrays.copyOf(latitudes, length);
+            longitudes = Arrays.copyOf(longitudes, length);
+            cells = Arrays.copyOf(cells, length);
+            positions = Arrays.copyOf(positions, length);
+        }
+        return capacity++;
+    }
+
+    private void link(int slot, int cell) {
+        Bucket bucket = buckets.computeIfAbsent(cell, key -> new Bucket());
+        if (bucket.size == bucket.slots.length) {
+            bucket.slots = Arrays.copyOf(bucket.slots, bucket.size * 2);
+        }
+        cells[slot] = cell;
+        positions[slot] = bucket.size;
+        bucket.slots[bucket.size++] = slot;
+    }
+
+    /**
+     * 从所在网格中移除位置，网格中的最后一个位置移到空出的下标
+     */
+    private void unlink(int slot) {
+        Bucket bucket = buckets.get(cells[slot]);
+        int last = bucket.slots[--bucket.size];
+        bucket.slots[positions[slot]] = last;
+        positions[last] = positions[slot];
+        if (bucket.size == 0) {
+            buckets.remove(cells[slot]);
+        }
+    }
+
+    private static int cell(double lat, double lng) {
+        return row(lat) * COLUMNS + column(lng);
+    }
+
+    private static int row(double lat) {
+        return Math.max(0, Math.min(ROWS - 1, (int) Math.floor((lat + 90) / CELL_DEGREES)));
+    }
+
+    private static int column(double lng) {
+        return Math.max(0, Math.min(COLUMNS - 1, (int) Math.floor((lng + 180) / CELL_DEGREES)));
+    }
+
+    /**
+     * 网格中位置的数组下标
+     */
+    private static final class Bucket {
+        private int[] slots = new int[4];
+        private int size;
+    }
+
+    /**
+     * 保留距离最近的若干个位置的最大堆，堆顶为其中最远的位置
+     */
+    private static final class Heap {
+        private final int[] slots;
+        private final double[] distances;
+        private int size;
+
+        private Heap(int capacity) {
+            this.slots = new int[capacity];
+            this.distances = new double[capacity];
+        }
+
+        private void offer(int slot, double distance, String[] ids) {
+            if (size < slots.length) {
+                int i = size++;
+                while (i > 0) {
+                    int parent = (i - 1) / 2;
+                    if (!farther(distance, slot, distances[parent], slots[parent], ids)) {
+                        break;
+                    }
+                    slots[i] = slots[parent];
+                    distances[i] = distances[parent];
+                    i = parent;
+                }
+                slots[i] = slot;
+                distances[i] = distance;
+                return;
+            }
+            if (size == 0 || !farther(distances[0], slots[0], distance, slot, ids)) {
+                return;
+            }
+            int i = 0;
+            while (true) {
+                int child = 2 * i + 1;
+                if (child >= size) {
+                    break;
+                }
+                if (child + 1 < size && farther(distances[child + 1], slots[child + 1], distances[child], slots[child], ids)) {
+                    child++;
+                }
+                if (!farther(distances[child], slots[child], distance, slot, ids)) {
+                    break;
+                }
+                slots[i] = slots[child];
+                distances[i] = distances[child];
+                i = child;
+            }
+            slots[i] = slot;
+            distances[i] = distance;
+        }
+
+        /**
+         * 距离相同时编号较大的视为更远，使结果与位置写入的顺序无关
+         */
+        private static boolean farther(double distance, int slot, double otherDistance, int otherSlot, String[] ids) {
+            return distance != otherDistance ? distance > otherDistance : ids[slot].compareTo(ids[otherSlot]) > 0;
+        }
+    }
+
+    /**
+     * 最近的位置
+     */
+    static final class Neighbor {
+        private final String id;
+        private final double lat;
+        private final double lng;
+        private final double distance;
+
+        private Neighbor(String id, double lat, double lng, double distance) {
+            this.id = id;
+            this.lat = lat;
+            this.lng = lng;
+            this.distance = distance;
+        }
+
+        String getId() {
+            return id;
+        }
+
+        double getLat() {
+            return lat;
+        }
+
+        double getLng() {
+            return lng;
+        }
+
+        /**
+         * 与查询坐标的大圆距离（米）
+         */
+        double getDistance() {
+            return distance;
+        }
+    }
+}
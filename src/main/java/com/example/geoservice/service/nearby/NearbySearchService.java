@@ -0,0 +1,213 @@
+package com.example.geoservice.service.nearby;
+
+import com.example.geoservice.config.MapServiceProperties;
+import com.example.geoservice.geo.CoordinateConverter;
+import com.example.geoservice.geo.CoordinateSystem;
+import com.example.geoservice.model.Location;
+import com.example.geoservice.model.NamedLocation;
+import com.example.geoservice.model.NearbyLocation;
+import com.example.geoservice.service.MapServiceFactory;
+import com.example.geoservice.service.estimate.DistanceEstimator;
+import com.example.geoservice.service.estimate.DistanceMode;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * 最近位置查询服务
+ * <p>
+ * 在登记的位置集合（例如所有仓库）中查找从指定位置出发驾车距离最近的若干个位置：
+ * 1. 位置集合保存在内存中按网格分桶的索引里，支持按编号增量写入和删除，不需要重建索引
+ * 2. 先在本地按直线距离选出最近的若干个候选位置（map.nearby.candidates），
+ *    再通过一次距离矩阵请求得到到各候选位置的驾车距离，按驾车距离排序后返回
+ * 3. mode=ESTIMATE 时驾车距离在本地估算，不调用服务商
+ * 4. 位置按服务配置的坐标系保存；位置集合只保存在内存中，重启后需要重新登记
+ * </p>
+ */
+@Service
+public class NearbySearchService {
+    private final MapServiceFactory mapServiceFactory;
+    private final DistanceEstimator distanceEstimator;
+    private final MapServiceProperties.NearbyProperties properties;
+    private final CoordinateSystem coordinateSystem;
+    private final ConcurrentMap<String, LocationIndex> sets = new ConcurrentHashMap<>();
+
+    /**
+     * 构造函数
+     *
+     * @param mapServiceFactory 地图服务工厂
+     * @param distanceEstimator 驾车距离估算
+     * @param properties        地图服务配置
+     * @param registry          指标注册表
+     */
+    public NearbySearchService(MapServiceFactory mapServiceFactory, DistanceEstimator distanceEstimator,
+                               MapServiceProperties properties, MeterRegistry registry) {
+        this.mapServiceFactory = mapServiceFactory;
+        this.distanceEstimator = distanceEstimator;
+        this.properties = properties.getNearby();
+        this.coordinateSystem = properties.getCoordinateSystem();
+        Gauge.builder("map.nearby.sets", sets, ConcurrentMap::size)
+                .description("已登记的位置集合数")
+                .register(registry);
+        Gauge.builder("map.nearby.locations", this, NearbySearchService::locationCount)
+                .description("所有位置集合中的位置数")
+                .register(registry);
+    }
+
+    /**
+     * 向位置集合写入位置，集合不存在时创建；编号已存在的位置更新其坐标
+     *
+     * @param name      位置集合名称
+     * @param locations 位置列表
+     * @return 写入后集合中的位置数
+     * @throws IllegalArgumentException 当编号为空、坐标超出范围，或位置集合数、位置数超过上限时抛出
+     */
+    public int upsert(String name, List<NamedLocation> locations) {
+        if (locations == null || locations.isEmpty()) {
+            throw new IllegalArgumentException("位置列表不能为空");
+        }
+        List<String> ids = new ArrayList<>(locations.size());
+        double[] lats = new double[locations.size()];
+        double[] lngs = new double[locations.size()];
+        for (int i = 0; i < locations.size(); i++) {
+            NamedLocation location = locations.get(i);
+            if (!StringUtils.hasText(location.getId())) {
+                throw new IllegalArgumentException("位置编号不能为空");
+            }
+            checkRange(location.getLat(), location.getLng());
+            ids.add(location.getId());
+            lats[i] = location.getLat();
+            lngs[i] = location.getLng();
+            CoordinateSystem source = location.getCoordinateSystem() == null
+                    ? coordinateSystem : location.getCoordinateSystem();
+            CoordinateConverter.convert(source, coordinateSystem, lats, lngs, i, 1);
+        }
+        LocationIndex index = sets.computeIfAbsent(checkName(name), key -> {
+            if (sets.size() >= properties.getMaxSets()) {
+                throw new IllegalArgumentException("最多登记 " + properties.getMaxSets() + " 个位置集合");
+            }
+            return new LocationIndex();
+        });
+        index.putAll(ids, lats, lngs, properties.getMaxLocations());
+        return index.size();
+    }
+
+    /**
+     * 从位置集合中删除位置，不存在的编号忽略
+     *
+     * @param name 位置集合名称
+     * @param ids  位置编号列表
+     * @return 删除后集合中的位置数
+     * @throws IllegalArgumentException 当位置集合不存在时抛出
+     */
+    public int remove(String name, List<String> ids) {
+        LocationIndex index = get(name);
+        if (ids != null) {
+            for (String id : ids) {
+                index.remove(id);
+            }
+        }
+        return index.size();
+    }
+
+    /**
+     * 删除整个位置集合
+     *
+     * @param name 位置集合名称
+     * @return 位置集合存在时返回 true
+     */
+    public boolean delete(String name) {
+        return sets.remove(name) != null;
+    }
+
+    /**
+     * 查找从指定位置出发驾车距离最近的若干个位置
+     *
+     * @param name       位置集合名称
+     * @param origin     出发位置
+     * @param count      返回的位置数
+     * @param candidates 按直线距离选出的候选位置数，为空时使用 map.nearby.candidates；小于返回的位置数时取返回的位置数
+     * @param mode       计算方式：EXACT 调用服务商，ESTIMATE 在本地估算
+     * @return 按驾车距离从近到远排列的位置，无法到达的位置不返回
+     * @throws IllegalArgumentException 当位置集合不存在、数量超出范围或计算方式不支持时抛出
+     * @throws IOException              当服务商调用失败时抛出
+     */
+    public List<NearbyLocation> nearest(String name, Location origin, int count, Integer candidates, DistanceMode mode)
+            throws IOException {
+        if (mode == DistanceMode.ESTIMATE_THEN_REFINE) {
+            throw new IllegalArgumentException("最近位置查询不支持 ESTIMATE_THEN_REFINE");
+        }
+        int limit = Math.max(count, candidates == null ? properties.getCandidates() : candidates);
+        if (count < 1 || limit > properties.getMaxCandidates()) {
+            throw new IllegalArgumentException("返回的位置数应在 1 到 " + properties.getMaxCandidates()
+                    + " 之间，且候选位置数不超过 " + properties.getMaxCandidates());
+        }
+        LocationIndex index = get(name);
+        Location point = CoordinateConverter.convert(origin, coordinateSystem, coordinateSystem);
+        List<LocationIndex.Neighbor> neighbors = index.nearest(point.getLat(), point.getLng(), limit);
+        if (neighbors.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<Location> destinations = new ArrayList<>(neighbors.size());
+        for (LocationIndex.Neighbor neighbor : neighbors) {
+            Location destination = new Location();
+            destination.setLat(neighbor.getLat());
+            destination.setLng(neighbor.getLng());
+            destination.setCoordinateSystem(coordinateSystem);
+            destinations.add(destination);
+        }
+        double[] distances = mode == DistanceMode.ESTIMATE
+                ? distanceEstimator.estimateMatrix(Collections.singletonList(point), destinations)[0]
+                : mapServiceFactory.getMapService(point)
+                        .calculateDistanceMatrix(Collections.singletonList(point), destinations)[0];
+        List<NearbyLocation> result = new ArrayList<>(neighbors.size());
+        for (int i = 0; i < neighbors.size(); i++) {
+            if (distances[i] >= 0) {
+                LocationIndex.Neighbor neighbor = neighbors.get(i);
+                result.add(new NearbyLocation(neighbor.getId(), neighbor.getLat(), neighbor.getLng(),
+                        neighbor.getDistance(), distances[i]));
+            }
+        }
+        // 驾车距离相同时保持直线距离的顺序
+        result.sort(Comparator.comparingDouble(NearbyLocation::getDistance));
+        return result.size() > count ? new ArrayList<>(result.subList(0, count)) : result;
+    }
+
+    private LocationIndex get(String name) {
+        LocationIndex index = sets.get(name);
+        if (index == null) {
+            throw new IllegalArgumentException("位置集合不存在: " + name);
+        }
+        return index;
+    }
+
+    private double locationCount() {
+        long count = 0;
+        for (LocationIndex index : sets.values()) {
+            count += index.size();
+        }
+        return count;
+    }
+
+    private static String checkName(String name) {
+        if (!StringUtils.hasText(name)) {
+            throw new IllegalArgumentException("位置集合名称不能为空");
+        }
+        return name;
+    }
+
+    private static void checkRange(double lat, double lng) {
+        if (lat < -90 || lat > 90 || lng < -180 || lng > 180) {
+            throw new IllegalArgumentException("坐标超出范围: " + lat + "," + lng);
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package com.example.geoservice.service.ratelimit;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 服务商的每日调用配额
+ * <p>
+ * 1. 按服务商配额重置所在时区的自然日计数，跨日后自动清零
+ * 2. 批量请求不能使用为交互请求保留的那部分配额
+ * 3. 服务商返回配额用完时，当天剩余时间内不再调用，即使未配置配额
+ * 4. 配置了配额时，当天用量定期写入本地文件，进程重启后继续计数；
+ *    文件内容为"日期 用量"，先写临时文件再原子替换
+ * </p>
+ */
+@Slf4j
+final class DailyQuota {
+    private final long limit;
+    private final long reserved;
+    private final Path file;
+    private final Clock clock;
+
+    private LocalDate date;
+    private long used;
+    private boolean exhausted;
+    private boolean dirty;
+
+    /**
+     * 构造函数
+     *
+     * @param limit        每日配额，0 表示不限制
+     * @param reserveRatio 为交互请求保留的配额比例
+     * @param zone         配额重置所在的时区
+     * @param file         用量持久化文件，未配置配额时不使用
+     * @param clock        时钟
+     */
+    DailyQuota(long limit, double reserveRatio, ZoneId zone, Path file, Clock clock) {
+        this.limit = Math.max(0, limit);
+        this.reserved = (long) Math.floor(this.limit * reserveRatio);
+        this.file = this.limit > 0 ? file : null;
+        this.clock = clock.withZone(zone);
+        this.date = LocalDate.now(this.clock);
+    }
+
+    /**
+     * 从持久化文件恢复当天的用量，文件不存在、属于其他日期或无法读取时从 0 开始
+     */
+    synchronized void load() {
+        if (file == null || !Files.exists(file)) {
+            return;
+        }
+        try {
+            List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+            String[] fields = lines.isEmpty() ? new String[0] : lines.get(0).trim().split(" ");
+            if (fields.length == 2 && LocalDate.parse(fields[0]).equals(date)) {
+                used = Math.max(used, Long.parseLong(fields[1]));
+            }
+        } catch (IOException | DateTimeParseException | NumberFormatException e) {
+            log.warn("读取配额用量失败: {}", file, e);
+        }
+    }
+
+    /**
+     * 判断当前是否还有可用配额，不消耗配额
+     *
+     * @param priority 调用优先级
+     * @return 有可用配额时返回 true
+     */
+    synchronized boolean hasRemaining(RequestPriority priority) {
+        roll();
+        return available(priority) > 0;
+    }
+
+    /**
+     * 消耗一次调用配额
+     *
+     * @param priority 调用优先级
+     * @return 配额已用完时返回 false 且不消耗
+     */
+    synchronized boolean tryConsume(RequestPriority priority) {
+        roll();
+        if (available(priority) <= 0) {
+            return false;
+        }
+        used++;
+        dirty = true;
+        return true;
+    }
+
+    /**
+     * 标记当天配额已用完，服务商返回配额用完时调用
+     */
+    synchronized void markExhausted() {
+        roll();
+        exhausted = true;
+        if (limit > 0 && used < limit) {
+            used = limit;
+            dirty = true;
+        }
+    }
+
+    /**
+     * 获取当天剩余的配额
+     *
+     * @return 剩余配额，未配置配额且服务商未返回配额用完时返回 -1
+     */
+    synchronized long getRemaining() {
+        roll();
+        if (exhausted) {
+            return 0;
+        }
+        return limit > 0 ? Math.max(0, limit - used) : -1;
+    }
+
+    /**
+     * 将当天用量写入持久化文件，失败时仅记录日志
+     */
+    void flush() {
+        String content;
+        synchronized (this) {
+            if (file == null || !dirty) {
+                return;
+            }
+            content = date + " " + used;
+            dirty = false;
+        }
+        try {
+            Files.createDirectories(file.toAbsolutePath().getParent());
+            Path tmp = Files.createTempFile(file.toAbsolutePath().getParent(), file.getFileName().toString(), ".tmp");
+            Files.write(tmp, Collections.singletonList(content), StandardCharsets.UTF_8);
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            synchronized (this) {
+                dirty = true;
+            }
+            log.warn("写入配额用量失败: {}", file, e);
+        }
+    }
+
+    private long available(RequestPriority priority) {
+        if (exhausted) {
+            return 0;
+        }
+        if (limit <= 0) {
+            return Long.MAX_VALUE;
+        }
+        return limit - used - (priority == RequestPriority.BULK ? reserved : 0);
+    }
+
+    private void roll() {
+        LocalDate today = LocalDate.now(clock);
+        if (!today.equals(date)) {
+            date = today;
+            used = 0;
+            exhausted = false;
+            dirty = true;
+        }
+    }
+}
@@ -0,0 +1,254 @@
+package com.example.geoservice.service.ratelimit;
+
+import com.example.geoservice.config.MapServiceProperties;
+import com.example.geoservice.exception.MapServiceException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.io.InterruptedIOException;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.ZoneId;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * 单个服务商的客户端限流
+ * <p>
+ * 每次服务商调用前取得许可，避免超过服务商的频率限制和每日配额：
+ * 1. 令牌桶限制每秒请求数，交互请求在令牌不足时按到达顺序短暂排队，超过最长等待时间才失败
+ * 2. 批量请求只使用空闲令牌，在较长的等待时间内让行于交互请求
+ * 3. 每日配额用完后当天直接失败，不再调用服务商
+ * 本地拒绝的请求抛出状态码为 null 的 {@link MapServiceException}，不计入熔断器的失败率
+ * </p>
+ */
+public class ProviderRateLimiter {
+    private final String provider;
+    private final TokenBucket bucket;
+    private final DailyQuota quota;
+    private final long maxWaitNanos;
+    private final long bulkMaxWaitNanos;
+    private final ScheduledExecutorService scheduler;
+    private final LongSupplier nanoClock;
+    private final Counter rateLimitedRejections;
+    private final Counter quotaExceededRejections;
+    private final Timer interactiveWait;
+    private final Timer bulkWait;
+
+    /**
+     * 构造函数
+     *
+     * @param provider   服务商名称
+     * @param limits     服务商的调用频率和每日配额
+     * @param properties 限流配置
+     * @param file       配额用量的持久化文件
+     * @param scheduler  异步等待使用的定时线程池
+     * @param registry   指标注册表
+     */
+    public ProviderRateLimiter(String provider, MapServiceProperties.QuotaProperties limits,
+                               MapServiceProperties.RateLimitProperties properties, Path file,
+                               ScheduledExecutorService scheduler, MeterRegistry registry) {
+        this(provider, limits, properties, file, scheduler, registry, System::nanoTime, Clock.systemUTC());
+    }
+
+    ProviderRateLimiter(String provider, MapServiceProperties.QuotaProperties limits,
+                        MapServiceProperties.RateLimitProperties properties, Path file,
+                        ScheduledExecutorService scheduler, MeterRegistry registry,
+                        LongSupplier nanoClock, Clock clock) {
+        this.provider = provider;
+        this.bucket = limits.getQps() > 0
+                ? new TokenBucket(limits.getQps(), limits.getBurst(), properties.getBulkReserveRatio(), nanoClock)
+                : null;
+        this.quota = new DailyQuota(limits.getDailyLimit(), properties.getBulkReserveRatio(),
+                ZoneId.of(limits.getZone()), file, clock);
+        this.quota.load();
+        this.maxWaitNanos = properties.getMaxWait().toNanos();
+        this.bulkMaxWaitNanos = properties.getBulkMaxWait().toNanos();
+        this.scheduler = scheduler;
+        this.nanoClock = nanoClock;
+        Gauge.builder("map.ratelimit.quota.remaining", quota, DailyQuota::getRemaining)
+                .description("服务商当天剩余的调用配额，未配置配额时为 -1")
+                .tag("provider", provider)
+                .register(registry);
+        if (bucket != null) {
+            Gauge.builder("map.ratelimit.tokens", bucket, TokenBucket::getTokens)
+                    .description("令牌桶中的令牌数，为负时表示排队等待的交互请求数")
+                    .tag("provider", provider)
+                    .register(registry);
+        }
+        this.rateLimitedRejections = rejectionCounter(registry, provider, "rate_limited");
+        this.quotaExceededRejections = rejectionCounter(registry, provider, "quota_exceeded");
+        this.interactiveWait = waitTimer(registry, provider, RequestPriority.INTERACTIVE);
+        this.bulkWait = waitTimer(registry, provider, RequestPriority.BULK);
+    }
+
+    private static Counter rejectionCounter(MeterRegistry registry, String provider, String reason) {
+        return Counter.builder("map.ratelimit.rejected")
+                .description("客户端限流拒绝、未调用服务商的请求数")
+                .tag("provider", provider)
+                .tag("reason", reason)
+                .register(registry);
+    }
+
+    private static Timer waitTimer(MeterRegistry registry, String provider, RequestPriority priority) {
+        return Timer.builder("map.ratelimit.wait")
+                .description("调用服务商前等待令牌的时间")
+                .tag("provider", provider)
+                .tag("priority", priority.name().toLowerCase(Locale.ROOT))
+                .register(registry);
+    }
+
+    /**
+     * 取得一次调用许可，令牌不足时阻塞等待
+     *
+     * @throws InterruptedIOException 当等待时被中断时抛出
+     * @throws MapServiceException    当等待时间超过上限或当天配额已用完时抛出
+     */
+    public void acquire() throws InterruptedIOException {
+        RequestPriority priority = RequestPriority.current();
+        checkQuota(priority);
+        long start = nanoClock.getAsLong();
+        if (bucket != null) {
+            try {
+                if (priority == RequestPriority.INTERACTIVE) {
+                    long wait = bucket.reserve(maxWaitNanos);
+                    if (wait < 0) {
+                        throw rejected(MapServiceException.Reason.RATE_LIMITED);
+                    }
+                    TimeUnit.NANOSECONDS.sleep(wait);
+                } else {
+                    long deadline = start + bulkMaxWaitNanos;
+                    for (long wait = bucket.tryAcquireSurplus(); wait > 0; wait = bucket.tryAcquireSurplus()) {
+                        if (nanoClock.getAsLong() + wait - deadline > 0) {
+                            throw rejected(MapServiceException.Reason.RATE_LIMITED);
+                        }
+                        TimeUnit.NANOSECONDS.sleep(wait);
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("等待服务商调用许可时被中断");
+            }
+        }
+        grant(priority, start);
+    }
+
+    /**
+     * 异步取得一次调用许可，等待在定时线程中进行，不阻塞调用线程
+     * <p>
+     * 调用优先级取自发起调用的线程
+     * </p>
+     *
+     * @return 取得许可后完成的异步结果，等待时间超过上限或当天配额已用完时以 {@link MapServiceException} 失败
+     */
+    public CompletableFuture<Void> acquireAsync() {
+        RequestPriority priority = RequestPriority.current();
+        CompletableFuture<Void> permit = new CompletableFuture<>();
+        long start = nanoClock.getAsLong();
+        try {
+            checkQuota(priority);
+            if (bucket == null) {
+                grant(priority, start);
+                permit.complete(null);
+            } else if (priority == RequestPriority.INTERACTIVE) {
+                long wait = bucket.reserve(maxWaitNanos);
+                if (wait < 0) {
+                    throw rejected(MapServiceException.Reason.RATE_LIMITED);
+                }
+                schedule(permit, () -> grantAsync(permit, priority, start), wait);
+            } else {
+                pollAsync(permit, start, start + bulkMaxWaitNanos);
+            }
+        } catch (MapServiceException e) {
+            permit.completeExceptionally(e);
+        }
+        return permit;
+    }
+
+    private void pollAsync(CompletableFuture<Void> permit, long start, long deadline) {
+        if (permit.isDone()) {
+            return;
+        }
+        long wait = bucket.tryAcquireSurplus();
+        if (wait == 0) {
+            grantAsync(permit, RequestPriority.BULK, start);
+        } else if (nanoClock.getAsLong() + wait - deadline > 0) {
+            permit.completeExceptionally(rejected(MapServiceException.Reason.RATE_LIMITED));
+        } else {
+            schedule(permit, () -> pollAsync(permit, start, deadline), wait);
+        }
+    }
+
+    private void schedule(CompletableFuture<Void> permit, Runnable task, long delayNanos) {
+        if (delayNanos <= 0) {
+            task.run();
+            return;
+        }
+        try {
+            scheduler.schedule(task, delayNanos, TimeUnit.NANOSECONDS);
+        } catch (RejectedExecutionException e) {
+            permit.completeExceptionally(e);
+        }
+    }
+
+    private void grantAsync(CompletableFuture<Void> permit, RequestPriority priority, long start) {
+        try {
+            grant(priority, start);
+            permit.complete(null);
+        } catch (MapServiceException e) {
+            permit.completeExceptionally(e);
+        }
+    }
+
+    private void checkQuota(RequestPriority priority) {
+        if (!quota.hasRemaining(priority)) {
+            throw rejected(MapServiceException.Reason.QUOTA_EXCEEDED);
+        }
+    }
+
+    private void grant(RequestPriority priority, long start) {
+        if (!quota.tryConsume(priority)) {
+            throw rejected(MapServiceException.Reason.QUOTA_EXCEEDED);
+        }
+        Timer timer = priority == RequestPriority.INTERACTIVE ? interactiveWait : bulkWait;
+        timer.record(Math.max(0, nanoClock.getAsLong() - start), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * 服务商返回配额用完时调用，当天剩余时间内不再调用该服务商
+     */
+    public void onQuotaExceeded() {
+        quota.markExhausted();
+    }
+
+    /**
+     * 获取当天剩余的调用配额
+     *
+     * @return 剩余配额，未配置配额且服务商未返回配额用完时返回 -1
+     */
+    public long getRemainingQuota() {
+        return quota.getRemaining();
+    }
+
+    /**
+     * 将当天的配额用量写入本地文件
+     */
+    public void flush() {
+        quota.flush();
+    }
+
+    private MapServiceException rejected(MapServiceException.Reason reason) {
+        if (reason == MapServiceException.Reason.QUOTA_EXCEEDED) {
+            quotaExceededRejections.increment();
+            return new MapServiceException(provider, null, reason, "服务商 " + provider + " 当日配额已用完");
+        }
+        rateLimitedRejections.increment();
+        return new MapServiceException(provider, null, reason, "服务商 " + provider + " 请求过于频繁，已超过客户端限流");
+    }
+}
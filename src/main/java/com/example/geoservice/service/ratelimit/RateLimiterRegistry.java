@@ -0,0 +1,74 @@
+package com.example.geoservice.service.ratelimit;
+
+import com.example.geoservice.config.MapServiceProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 各服务商的客户端限流
+ * <p>
+ * 每个服务商拥有独立的令牌桶和每日配额；异步等待和配额用量的定期写入共用一个定时线程，
+ * 应用关闭时再写入一次
+ * </p>
+ */
+@Component
+@ConditionalOnProperty(prefix = "map.rate-limit", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class RateLimiterRegistry implements DisposableBean {
+    private final MapServiceProperties.RateLimitProperties properties;
+    private final MeterRegistry registry;
+    private final Path directory;
+    private final ScheduledExecutorService scheduler;
+    private final ConcurrentMap<String, ProviderRateLimiter> providers = new ConcurrentHashMap<>();
+
+    /**
+     * 构造函数
+     *
+     * @param properties 地图服务配置
+     * @param registry   指标注册表
+     */
+    public RateLimiterRegistry(MapServiceProperties properties, MeterRegistry registry) {
+        this.properties = properties.getRateLimit();
+        this.registry = registry;
+        this.directory = Paths.get(this.properties.getQuotaDirectory());
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("map-ratelimit-");
+        threadFactory.setDaemon(true);
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(threadFactory);
+        long interval = this.properties.getQuotaFlushInterval().toMillis();
+        scheduler.scheduleWithFixedDelay(this::flush, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 获取服务商的限流器
+     *
+     * @param provider 服务商名称
+     * @param limits   服务商的调用频率和每日配额
+     * @return 该服务商的限流器，同一服务商总是返回同一实例
+     */
+    public ProviderRateLimiter forProvider(String provider, MapServiceProperties.QuotaProperties limits) {
+        return providers.computeIfAbsent(provider, name -> new ProviderRateLimiter(name, limits, properties,
+                directory.resolve(name + ".quota"), scheduler, registry));
+    }
+
+    private void flush() {
+        for (ProviderRateLimiter limiter : providers.values()) {
+            limiter.flush();
+        }
+    }
+
+    @Override
+    public void destroy() {
+        scheduler.shutdownNow();
+        flush();
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.geoservice.service.ratelimit;
+
+import com.example.geoservice.service.ProviderCall;
+
+import java.io.IOException;
+import java.util.function.Supplier;
+
+/**
+ * 服务商调用的优先级
+ * <p>
+ * 优先级绑定在发起调用的线程上，未设置时为交互请求；
+ * 批量和后台任务在 {@link #with(RequestPriority, ProviderCall)} 中调用服务商，从而让出令牌和配额；
+ * 在其他线程中继续的调用（例如异步重试和对冲请求）通过 {@link #bind(Supplier)} 沿用发起调用时的优先级
+ * </p>
+ */
+public enum RequestPriority {
+    /**
+     * 交互请求：排队等待令牌，可以使用全部令牌和配额
+     */
+    INTERACTIVE,
+    /**
+     * 批量或后台请求：只使用空闲的令牌，不使用为交互请求保留的突发令牌和每日配额
+     */
+    BULK;
+
+    private static final ThreadLocal<RequestPriority> CURRENT = ThreadLocal.withInitial(() -> INTERACTIVE);
+
+    /**
+     * 获取当前线程的调用优先级
+     *
+     * @return 当前线程的调用优先级，未设置时为 {@link #INTERACTIVE}
+     */
+    public static RequestPriority current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * 以指定优先级执行调用，结束后恢复原来的优先级
+     *
+     * @param priority 调用优先级
+     * @param call     服务商调用
+     * @param <T>      结果类型
+     * @return 调用结果
+     * @throws IOException 当网络请求失败时抛出
+     */
+    public static <T> T with(RequestPriority priority, ProviderCall<T> call) throws IOException {
+        RequestPriority previous = CURRENT.get();
+        CURRENT.set(priority);
+        try {
+            return call.call();
+        } finally {
+            CURRENT.set(previous);
+        }
+    }
+
+    /**
+     * 将当前线程的调用优先级绑定到任务上，任务在任何线程中执行时都使用该优先级，结束后恢复原来的优先级
+     *
+     * @param task 之后可能在其他线程中执行的任务
+     * @param <T>  结果类型
+     * @return 绑定了当前优先级的任务
+     */
+    public static <T> Supplier<T> bind(Supplier<T> task) {
+        RequestPriority priority = CURRENT.get();
+        return () -> {
+            RequestPriority previous = CURRENT.get();
+            CURRENT.set(priority);
+            try {
+                return task.get();
+            } finally {
+                CURRENT.set(previous);
+            }
+        };
+    }
+}
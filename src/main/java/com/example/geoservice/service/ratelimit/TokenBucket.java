@@ -0,0 +1,89 @@
+package com.example.geoservice.service.ratelimit;
+
+import java.util.function.LongSupplier;
+
+/**
+ * 令牌桶
+ * <p>
+ * 1. 令牌按固定速率补充，最多积累到突发容量
+ * 2. 交互请求预约令牌：令牌不足时令牌数可以为负，返回需要等待的时间，
+ *    后到的请求等待更久，因此按到达顺序公平排队
+ * 3. 批量请求只使用空闲令牌：令牌数不低于 1 + 保留数时才能取得，
+ *    有交互请求排队（令牌数为负）时一直让行
+ * </p>
+ */
+final class TokenBucket {
+    private final double nanosPerToken;
+    private final double capacity;
+    private final double reserved;
+    private final LongSupplier nanoClock;
+
+    private double tokens;
+    private long lastRefillNanos;
+
+    /**
+     * 构造函数
+     *
+     * @param qps          每秒补充的令牌数
+     * @param burst        突发容量，0 表示与每秒令牌数相同
+     * @param reserveRatio 为交互请求保留的突发令牌比例
+     * @param nanoClock    纳秒时钟
+     */
+    TokenBucket(double qps, int burst, double reserveRatio, LongSupplier nanoClock) {
+        if (qps <= 0) {
+            throw new IllegalArgumentException("每秒请求数必须大于0");
+        }
+        this.nanosPerToken = 1e9 / qps;
+        this.capacity = burst > 0 ? burst : Math.max(1, Math.ceil(qps));
+        this.reserved = Math.min(Math.floor(capacity * reserveRatio), capacity - 1);
+        this.nanoClock = nanoClock;
+        this.tokens = capacity;
+        this.lastRefillNanos = nanoClock.getAsLong();
+    }
+
+    /**
+     * 为交互请求预约一个令牌
+     *
+     * @param maxWaitNanos 最长等待时间（纳秒）
+     * @return 取得令牌前需要等待的时间（纳秒），超过最长等待时间时返回 -1 且不预约
+     */
+    synchronized long reserve(long maxWaitNanos) {
+        refill();
+        if (tokens >= 1) {
+            tokens -= 1;
+            return 0;
+        }
+        long wait = (long) Math.ceil((1 - tokens) * nanosPerToken);
+        if (wait > maxWaitNanos) {
+            return -1;
+        }
+        tokens -= 1;
+        return wait;
+    }
+
+    /**
+     * 为批量请求尝试取得一个空闲令牌
+     *
+     * @return 取得令牌时返回 0，否则返回空闲令牌预计出现前的等待时间（纳秒）
+     */
+    synchronized long tryAcquireSurplus() {
+        refill();
+        double needed = 1 + reserved;
+        if (tokens >= needed) {
+            tokens -= 1;
+            return 0;
+        }
+        return Math.max(1, (long) Math.ceil((needed - tokens) * nanosPerToken));
+    }
+
+    synchronized double getTokens() {
+        refill();
+        return tokens;
+    }
+
+    private void refill() {
+        long now = nanoClock.getAsLong();
+        tokens = Math.min(capacity, tokens + (now - lastRefillNanos) / nanosPerToken);
+        lastRefillNanos = now;
+    }
+}
@@ -0,0 +1,162 @@
+package com.example.geoservice.service.resilience;
+
+import java.util.function.LongSupplier;
+
+/**
+ * 熔断器
+ * <p>
+ * 1. 关闭状态下统计最近若干次调用的失败率，超过阈值时打开
+ * 2. 打开状态下直接拒绝调用，持续一段时间后进入半开状态
+ * 3. 半开状态下只放行少量试探调用，全部成功时关闭，任一失败时重新打开
+ * </p>
+ */
+final class CircuitBreaker {
+    /**
+     * 熔断器状态，code 用于监控指标
+     */
+    enum State {
+        CLOSED(0), OPEN(1), HALF_OPEN(2);
+
+        private final int code;
+
+        State(int code) {
+            this.code = code;
+        }
+
+        int getCode() {
+            return code;
+        }
+    }
+
+    private final double failureRateThreshold;
+    private final int minimumCalls;
+    private final long openNanos;
+    private final int halfOpenCalls;
+    private final LongSupplier nanoClock;
+
+    /**
+     * 最近调用结果的环形缓冲区，true 表示失败
+     */
+    private final boolean[] window;
+    private int next;
+    private int calls;
+    private int failures;
+
+    private State state = State.CLOSED;
+    private long openedAtNanos;
+    private int halfOpenPermits;
+    private int halfOpenSuccesses;
+
+    /**
+     * 构造函数
+     *
+     * @param failureRateThreshold 打开熔断器的失败率阈值
+     * @param slidingWindowSize    统计失败率使用的最近调用数
+     * @param minimumCalls         统计失败率所需的最少调用数
+     * @param openNanos            熔断器打开的时长（纳秒）
+     * @param halfOpenCalls        半开状态下的试探调用数
+     * @param nanoClock            纳秒时钟
+     */
+    CircuitBreaker(double failureRateThreshold, int slidingWindowSize, int minimumCalls, long openNanos,
+                   int halfOpenCalls, LongSupplier nanoClock) {
+        if (slidingWindowSize <= 0 || halfOpenCalls <= 0) {
+            throw new IllegalArgumentException("熔断器的统计窗口和试探调用数必须大于0");
+        }
+        this.failureRateThreshold = failureRateThreshold;
+        this.minimumCalls = Math.min(minimumCalls, slidingWindowSize);
+        this.openNanos = openNanos;
+        this.halfOpenCalls = halfOpenCalls;
+        this.nanoClock = nanoClock;
+        this.window = new boolean[slidingWindowSize];
+    }
+
+    /**
+     * 申请一次调用许可，获得许可后必须调用 {@link #onSuccess()}、{@link #onFailure()} 或 {@link #onIgnored()} 之一
+     *
+     * @return 允许调用时返回 true
+     */
+    synchronized boolean tryAcquire() {
+        if (state == State.OPEN) {
+            if (nanoClock.getAsLong() - openedAtNanos < openNanos) {
+                return false;
+            }
+            state = State.HALF_OPEN;
+            halfOpenPermits = halfOpenCalls;
+            halfOpenSuccesses = 0;
+        }
+        if (state == State.HALF_OPEN) {
+            if (halfOpenPermits == 0) {
+                return false;
+            }
+            halfOpenPermits--;
+        }
+        return true;
+    }
+
+    /**
+     * 记录一次成功的调用
+     */
+    synchronized void onSuccess() {
+        if (state == State.HALF_OPEN) {
+            if (++halfOpenSuccesses >= halfOpenCalls) {
+                close();
+            }
+        } else if (state == State.CLOSED) {
+            record(false);
+        }
+    }
+
+    /**
+     * 记录一次失败的调用
+     */
+    synchronized void onFailure() {
+        if (state == State.HALF_OPEN) {
+            open();
+        } else if (state == State.CLOSED) {
+            record(true);
+            if (calls >= minimumCalls && (double) failures / calls > failureRateThreshold) {
+                open();
+            }
+        }
+    }
+
+    /**
+     * 调用被取消，不计入统计，归还半开状态下的试探许可
+     */
+    synchronized void onIgnored() {
+        if (state == State.HALF_OPEN) {
+            halfOpenPermits++;
+        }
+    }
+
+    synchronized State getState() {
+        return state;
+    }
+
+    private void record(boolean failure) {
+        if (calls == window.length) {
+            if (window[next]) {
+                failures--;
+            }
+        } else {
+            calls++;
+        }
+        window[next] = failure;
+        if (failure) {
+            failures++;
+        }
+        next = (next + 1) % window.length;
+    }
+
+    private void open() {
+        state = State.OPEN;
+        openedAtNanos = nanoClock.getAsLong();
+    }
+
+    private void close() {
+        state = State.CLOSED;
+        next = 0;
+        calls = 0;
+        failures = 0;
+    }
+}
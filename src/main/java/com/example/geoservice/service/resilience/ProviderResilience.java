@@ -0,0 +1,404 @@
+package com.example.geoservice.service.resilience;
+
+import com.example.geoservice.config.MapServiceProperties;
+import com.example.geoservice.exception.MapServiceException;
+import com.example.geoservice.service.ProviderCall;
+import com.example.geoservice.service.ratelimit.RequestPriority;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.SocketTimeoutException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * 单个服务商的容错策略
+ * <p>
+ * 每次服务商调用依次经过以下保护：
+ * 1. 许可（例如客户端限流）：最先取得，等待令牌期间不占用熔断器半开状态的试探名额和舱壁的并发许可
+ * 2. 熔断器：最近调用的失败率过高时直接失败，不再占用线程等待故障的服务商
+ * 3. 舱壁：限制对该服务商的并发调用数，服务商卡顿时不会耗尽请求线程和连接
+ * 4. 重试：只重试网络错误和服务商返回的临时错误，退避时间带有随机抖动，重试数受预算比例限制
+ * 服务商拒绝的请求（例如参数错误）不计入熔断器的失败率，也不重试；
+ * 客户端限流等未调用服务商的失败不影响熔断器的状态
+ * </p>
+ */
+public class ProviderResilience {
+    /**
+     * 重试预算最多积累的额度
+     */
+    private static final double MAX_RETRY_TOKENS = 10;
+
+    private static final ProviderCall<Void> NO_PERMIT = () -> null;
+    private static final Supplier<CompletableFuture<Void>> NO_PERMIT_ASYNC = () -> CompletableFuture.completedFuture(null);
+
+    private final String provider;
+    private final MapServiceProperties.RetryProperties retry;
+    private final long maxWaitNanos;
+    private final CircuitBreaker circuitBreaker;
+    private final Semaphore bulkhead;
+    private final RetryBudget retryBudget;
+    private final ScheduledExecutorService scheduler;
+    private final Counter retries;
+    private final Counter circuitOpenRejections;
+    private final Counter bulkheadFullRejections;
+
+    /**
+     * 构造函数
+     *
+     * @param provider   服务商名称
+     * @param properties 容错配置
+     * @param scheduler  异步重试使用的定时线程池
+     * @param registry   指标注册表
+     */
+    public ProviderResilience(String provider, MapServiceProperties.ResilienceProperties properties,
+                              ScheduledExecutorService scheduler, MeterRegistry registry) {
+        this(provider, properties, scheduler, registry, System::nanoTime);
+    }
+
+    ProviderResilience(String provider, MapServiceProperties.ResilienceProperties properties,
+                       ScheduledExecutorService scheduler, MeterRegistry registry, LongSupplier nanoClock) {
+        MapServiceProperties.CircuitBreakerProperties circuit = properties.getCircuitBreaker();
+        MapServiceProperties.BulkheadProperties bulkheadProperties = properties.getBulkhead();
+        this.provider = provider;
+        this.retry = properties.getRetry();
+        if (retry.getMaxAttempts() < 1) {
+            throw new IllegalArgumentException("最多调用次数不能小于1");
+        }
+        this.maxWaitNanos = bulkheadProperties.getMaxWait().toNanos();
+        this.circuitBreaker = new CircuitBreaker(circuit.getFailureRateThreshold(), circuit.getSlidingWindowSize(),
+                circuit.getMinimumCalls(), circuit.getOpenDuration().toNanos(), circuit.getHalfOpenCalls(), nanoClock);
+        this.bulkhead = new Semaphore(bulkheadProperties.getMaxConcurrentCalls());
+        this.retryBudget = new RetryBudget(retry.getBudgetRatio(), MAX_RETRY_TOKENS);
+        this.scheduler = scheduler;
+        Gauge.builder("map.resilience.circuit.state", circuitBreaker, breaker -> breaker.getState().getCode())
+                .description("熔断器状态：0 关闭，1 打开，2 半开")
+                .tag("provider", provider)
+                .register(registry);
+        Gauge.builder("map.resilience.bulkhead.available", bulkhead, Semaphore::availablePermits)
+                .description("舱壁剩余的并发调用数")
+                .tag("provider", provider)
+                .register(registry);
+        this.retries = Counter.builder("map.resilience.retries")
+                .description("服务商调用的重试次数")
+                .tag("provider", provider)
+                .register(registry);
+        this.circuitOpenRejections = rejectionCounter(registry, provider, "circuit_open");
+        this.bulkheadFullRejections = rejectionCounter(registry, provider, "bulkhead_full");
+    }
+
+    private static Counter rejectionCounter(MeterRegistry registry, String provider, String reason) {
+        return Counter.builder("map.resilience.rejected")
+                .description("未调用服务商直接失败的请求数")
+                .tag("provider", provider)
+                .tag("reason", reason)
+                .register(registry);
+    }
+
+    /**
+     * 在容错保护下执行同步调用
+     *
+     * @param call 服务商调用
+     * @param <T>  结果类型
+     * @return 调用结果
+     * @throws IOException         当网络请求失败且重试耗尽时抛出
+     * @throws MapServiceException 当熔断器打开、舱壁已满或服务商返回错误时抛出
+     */
+    public <T> T execute(ProviderCall<T> call) throws IOException {
+        return execute(NO_PERMIT, call);
+    }
+
+    /**
+     * 在容错保护下执行同步调用，每次调用（包括重试）前先取得许可
+     * <p>
+     * 许可在熔断器和舱壁之前取得，取得许可失败不影响熔断器的状态，按相同的规则决定是否重试
+     * </p>
+     *
+     * @param permit 取得许可，例如等待客户端限流的令牌
+     * @param call   服务商调用
+     * @param <T>    结果类型
+     * @return 调用结果
+     * @throws IOException         当网络请求失败且重试耗尽时抛出
+     * @throws MapServiceException 当未取得许可、熔断器打开、舱壁已满或服务商返回错误时抛出
+     */
+    public <T> T execute(ProviderCall<?> permit, ProviderCall<T> call) throws IOException {
+        retryBudget.onRequest();
+        for (int attempt = 1; ; attempt++) {
+            try {
+                permit.call();
+                return executeOnce(call);
+            } catch (IOException | RuntimeException e) {
+                if (!shouldRetry(e, attempt)) {
+                    throw e;
+                }
+                try {
+                    TimeUnit.MILLISECONDS.sleep(backoffMillis(attempt));
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("等待重试时被中断");
+                }
+            }
+        }
+    }
+
+    private <T> T executeOnce(ProviderCall<T> call) throws IOException {
+        acquire();
+        try {
+            T result = call.call();
+            circuitBreaker.onSuccess();
+            return result;
+        } catch (IOException | RuntimeException e) {
+            onFailure(e);
+            throw e;
+        } finally {
+            bulkhead.release();
+        }
+    }
+
+    private void acquire() throws InterruptedIOException {
+        if (!circuitBreaker.tryAcquire()) {
+            throw rejected(MapServiceException.Reason.CIRCUIT_OPEN);
+        }
+        boolean acquired;
+        try {
+            acquired = maxWaitNanos > 0
+                    ? bulkhead.tryAcquire(maxWaitNanos, TimeUnit.NANOSECONDS)
+                    : bulkhead.tryAcquire();
+        } catch (InterruptedException e) {
+            circuitBreaker.onIgnored();
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("等待服务商并发许可时被中断");
+        }
+        if (!acquired) {
+            circuitBreaker.onIgnored();
+            throw rejected(MapServiceException.Reason.BULKHEAD_FULL);
+        }
+    }
+
+    /**
+     * 在容错保护下执行异步调用
+     * <p>
+     * 舱壁已满时立即失败而不等待；重试在定时线程池中延迟发起，不阻塞任何线程。
+     * 取消返回的 Future 会同时取消正在进行的调用或尚未发起的重试
+     * </p>
+     *
+     * @param call 服务商异步调用，每次重试都会重新调用
+     * @param <T>  结果类型
+     * @return 调用结果的异步结果
+     */
+    public <T> CompletableFuture<T> executeAsync(Supplier<CompletableFuture<T>> call) {
+        return executeAsync(NO_PERMIT_ASYNC, call);
+    }
+
+    /**
+     * 在容错保护下执行异步调用，每次调用（包括重试）前先异步取得许可
+     * <p>
+     * 许可在熔断器和舱壁之前取得，等待许可期间不占用并发许可；
+     * 取得许可失败不影响熔断器的状态，按相同的规则决定是否重试。
+     * 取消返回的 Future 会同时取消正在等待的许可。
+     * 许可和调用总是以发起时的 {@link RequestPriority} 执行，包括在定时线程中发起的重试
+     * </p>
+     *
+     * @param permit 异步取得许可，例如等待客户端限流的令牌
+     * @param call   服务商异步调用，每次重试都会重新调用
+     * @param <T>    结果类型
+     * @return 调用结果的异步结果
+     */
+    public <T> CompletableFuture<T> executeAsync(Supplier<? extends CompletableFuture<?>> permit,
+                                                 Supplier<CompletableFuture<T>> call) {
+        retryBudget.onRequest();
+        Supplier<? extends CompletableFuture<?>> boundPermit = RequestPriority.bind(permit);
+        Supplier<CompletableFuture<T>> boundCall = RequestPriority.bind(call);
+        CompletableFuture<T> result = new CompletableFuture<>();
+        AtomicReference<Future<?>> current = new AtomicReference<>();
+        result.whenComplete((value, error) -> {
+            Future<?> pending = current.get();
+            if (result.isCancelled() && pending != null) {
+                pending.cancel(true);
+            }
+        });
+        attemptAsync(boundPermit, boundCall, result, current, 1);
+        return result;
+    }
+
+    private <T> void attemptAsync(Supplier<? extends CompletableFuture<?>> permit, Supplier<CompletableFuture<T>> call,
+                                  CompletableFuture<T> result, AtomicReference<Future<?>> current, int attempt) {
+        if (result.isDone()) {
+            return;
+        }
+        CompletableFuture<?> granted;
+        try {
+            granted = permit.get();
+        } catch (RuntimeException e) {
+            result.completeExceptionally(e);
+            return;
+        }
+        if (granted.isDone() && !granted.isCompletedExceptionally()) {
+            invokeAsync(permit, call, result, current, attempt);
+            return;
+        }
+        current.set(granted);
+        granted.whenComplete((ignored, error) -> {
+            if (error == null) {
+                invokeAsync(permit, call, result, current, attempt);
+            } else if (!result.isDone()) {
+                retryAsync(permit, call, result, current, attempt, granted, unwrap(error));
+            }
+        });
+        if (result.isCancelled()) {
+            granted.cancel(false);
+        }
+    }
+
+    private <T> void invokeAsync(Supplier<? extends CompletableFuture<?>> permit, Supplier<CompletableFuture<T>> call,
+                                 CompletableFuture<T> result, AtomicReference<Future<?>> current, int attempt) {
+        if (result.isDone()) {
+            return;
+        }
+        if (!circuitBreaker.tryAcquire()) {
+            result.completeExceptionally(rejected(MapServiceException.Reason.CIRCUIT_OPEN));
+            return;
+        }
+        if (!bulkhead.tryAcquire()) {
+            circuitBreaker.onIgnored();
+            result.completeExceptionally(rejected(MapServiceException.Reason.BULKHEAD_FULL));
+            return;
+        }
+        CompletableFuture<T> future;
+        try {
+            future = call.get();
+        } catch (RuntimeException e) {
+            bulkhead.release();
+            onFailure(e);
+            result.completeExceptionally(e);
+            return;
+        }
+        current.set(future);
+        future.whenComplete((value, error) -> {
+            bulkhead.release();
+            if (error == null) {
+                circuitBreaker.onSuccess();
+                result.complete(value);
+                return;
+            }
+            if (result.isDone()) {
+                // 调用方已取消，失败是取消导致的
+                circuitBreaker.onIgnored();
+                return;
+            }
+            Throwable cause = unwrap(error);
+            onFailure(cause);
+            retryAsync(permit, call, result, current, attempt, future, cause);
+        });
+        if (result.isCancelled()) {
+            future.cancel(true);
+        }
+    }
+
+    /**
+     * 可以重试时在定时线程池中延迟发起下一次调用，否则以本次的异常完成结果
+     */
+    private <T> void retryAsync(Supplier<? extends CompletableFuture<?>> permit, Supplier<CompletableFuture<T>> call,
+                                CompletableFuture<T> result, AtomicReference<Future<?>> current, int attempt,
+                                Future<?> failed, Throwable cause) {
+        if (!shouldRetry(cause, attempt)) {
+            result.completeExceptionally(cause);
+            return;
+        }
+        try {
+            Future<?> scheduled = scheduler.schedule(() -> attemptAsync(permit, call, result, current, attempt + 1),
+                    backoffMillis(attempt), TimeUnit.MILLISECONDS);
+            // 退避时间很短时重试可能已经开始，不能覆盖重试中登记的调用
+            current.compareAndSet(failed, scheduled);
+        } catch (RejectedExecutionException e) {
+            result.completeExceptionally(cause);
+        }
+    }
+
+    /**
+     * 判断失败是否计入熔断器的失败率：服务商拒绝的请求说明服务商工作正常，未调用服务商的失败不计入
+     */
+    private void onFailure(Throwable error) {
+        if (error instanceof MapServiceException && !((MapServiceException) error).isFromProvider()) {
+            circuitBreaker.onIgnored();
+        } else if (error instanceof MapServiceException
+                && ((MapServiceException) error).getReason() == MapServiceException.Reason.REJECTED) {
+            circuitBreaker.onSuccess();
+        } else {
+            circuitBreaker.onFailure();
+        }
+    }
+
+    private boolean shouldRetry(Throwable error, int attempt) {
+        if (attempt >= retry.getMaxAttempts() || !isRetryable(error)) {
+            return false;
+        }
+        if (!retryBudget.tryAcquire()) {
+            return false;
+        }
+        retries.increment();
+        return true;
+    }
+
+    /**
+     * 判断失败是否可以重试：网络错误和服务商的临时错误可以重试，
+     * 响应格式错误、调用被取消或总超时不重试
+     *
+     * @param error 调用失败的异常
+     * @return 可以重试时返回 true
+     */
+    static boolean isRetryable(Throwable error) {
+        if (error instanceof MapServiceException) {
+            return ((MapServiceException) error).isRetryable();
+        }
+        if (error instanceof JsonProcessingException) {
+            return false;
+        }
+        if (error instanceof InterruptedIOException) {
+            return error instanceof SocketTimeoutException;
+        }
+        return error instanceof IOException;
+    }
+
+    /**
+     * 计算带完全随机抖动的指数退避时间
+     *
+     * @param attempt 已完成的调用次数
+     * @return 退避时间（毫秒），取值 [0, min(最大退避, 初始退避 * 2^(attempt-1))]
+     */
+    long backoffMillis(int attempt) {
+        long initial = retry.getInitialBackoff().toMillis();
+        long cap = Math.min(retry.getMaxBackoff().toMillis(), initial << Math.min(attempt - 1, 30));
+        return cap <= 0 ? 0 : ThreadLocalRandom.current().nextLong(cap + 1);
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        while ((error instanceof CompletionException || error instanceof ExecutionException) && error.getCause() != null) {
+            error = error.getCause();
+        }
+        return error;
+    }
+
+    private MapServiceException rejected(MapServiceException.Reason reason) {
+        if (reason == MapServiceException.Reason.CIRCUIT_OPEN) {
+            circuitOpenRejections.increment();
+            return new MapServiceException(provider, null, reason, "服务商 " + provider + " 熔断中，暂时停止调用");
+        }
+        bulkheadFullRejections.increment();
+        return new MapServiceException(provider, null, reason, "服务商 " + provider + " 并发调用数已满");
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.geoservice.service.resilience;
+
+import com.example.geoservice.config.MapServiceProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+/**
+ * 各服务商的容错策略
+ * <p>
+ * 每个服务商拥有独立的熔断器、舱壁和重试预算，一个服务商故障不会影响其他服务商；
+ * 异步重试共用一个定时线程
+ * </p>
+ */
+@Component
+@ConditionalOnProperty(prefix = "map.resilience", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class ResilienceRegistry implements DisposableBean {
+    private final MapServiceProperties.ResilienceProperties properties;
+    private final MeterRegistry registry;
+    private final ScheduledExecutorService scheduler;
+    private final ConcurrentMap<String, ProviderResilience> providers = new ConcurrentHashMap<>();
+
+    /**
+     * 构造函数
+     *
+     * @param properties 地图服务配置
+     * @param registry   指标注册表
+     */
+    public ResilienceRegistry(MapServiceProperties properties, MeterRegistry registry) {
+        this.properties = properties.getResilience();
+        this.registry = registry;
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("map-retry-");
+        threadFactory.setDaemon(true);
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(threadFactory);
+    }
+
+    /**
+     * 获取服务商的容错策略
+     *
+     * @param provider 服务商名称
+     * @return 该服务商的容错策略，同一服务商总是返回同一实例
+     */
+    public ProviderResilience forProvider(String provider) {
+        return providers.computeIfAbsent(provider,
+                name -> new ProviderResilience(name, properties, scheduler, registry));
+    }
+
+    @Override
+    public void destroy() {
+        scheduler.shutdownNow();
+    }
+}
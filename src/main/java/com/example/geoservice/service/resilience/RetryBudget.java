@@ -0,0 +1,49 @@
+package com.example.geoservice.service.resilience;
+
+/**
+ * 重试预算
+ * <p>
+ * 每次调用积累 ratio 个额度，每次重试消耗一个额度，因此持续故障时重试数不超过调用数的 ratio 倍，
+ * 不会成倍放大发往服务商的流量。初始额度已满，调用量很小时偶发的失败也能得到重试
+ * </p>
+ */
+final class RetryBudget {
+    private final double ratio;
+    private final double maxTokens;
+    private double tokens;
+
+    /**
+     * 构造函数
+     *
+     * @param ratio     重试数与调用数之比的上限，取值 [0, 1]
+     * @param maxTokens 最多积累的额度
+     */
+    RetryBudget(double ratio, double maxTokens) {
+        if (ratio < 0 || ratio > 1) {
+            throw new IllegalArgumentException("重试预算比例取值范围为 [0, 1]");
+        }
+        this.ratio = ratio;
+        this.maxTokens = maxTokens;
+        this.tokens = maxTokens;
+    }
+
+    /**
+     * 记录一次调用
+     */
+    synchronized void onRequest() {
+        tokens = Math.min(tokens + ratio, maxTokens);
+    }
+
+    /**
+     * 尝试为一次重试消耗额度
+     *
+     * @return 额度充足时返回 true
+     */
+    synchronized boolean tryAcquire() {
+        if (tokens < 1) {
+            return false;
+        }
+        tokens -= 1;
+        return true;
+    }
+}
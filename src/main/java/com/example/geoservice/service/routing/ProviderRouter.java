@@ -0,0 +1,272 @@
+package com.example.geoservice.service.routing;
+
+import com.example.geoservice.config.MapServiceProperties;
+import com.example.geoservice.geo.Region;
+import com.example.geoservice.metrics.ProviderMetrics;
+import com.example.geoservice.service.ProviderOperation;
+import com.example.geoservice.service.impl.AbstractMapService;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * 服务商动态路由
+ * <p>
+ * 根据各服务商的实时状态为每个请求选择服务商，服务商变慢或出错时数秒内自动切换，无需重启或修改配置：
+ * 1. 通过 {@link ProviderMetrics} 监听每次服务商调用，跟踪耗时和错误率的滑动平均
+ * 2. 错误率过高或当天配额用完（见客户端限流）的服务商不参与路由
+ * 3. 请求带有坐标时，优先使用该区域配置的服务商，例如中国境内使用百度和腾讯、境外使用 Google
+ * 4. BEST 策略选择耗时按错误率放大、再除以权重后代价最低的服务商；
+ *    WEIGHTED 策略按权重除以代价的比例随机选择
+ * 5. 尚未产生样本的服务商优先选择一次，以获得初始的耗时估计；超过探测间隔没有样本的服务商分配一个探测请求，
+ *    使 BEST 策略不再选择的服务商恢复后能够切换回去
+ * 6. 没有新样本时错误率随时间衰减，摘除后重新参与路由的服务商不需要新样本也能逐渐恢复
+ * 7. 所有服务商都不可用时，选择错误率最低的服务商，而不是直接拒绝请求
+ * </p>
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "map.routing", name = "enabled", havingValue = "true")
+public class ProviderRouter {
+    /**
+     * 错误率的惩罚系数：错误率为 50% 时代价放大为 6 倍
+     */
+    private static final double ERROR_PENALTY = 10;
+
+    private final MapServiceProperties.RoutingProperties properties;
+    private final Map<String, ProviderStats> stats = new LinkedHashMap<>();
+    private final Map<String, LongAdder> decisions = new LinkedHashMap<>();
+    private final Set<String> chinaProviders;
+    private final Set<String> overseasProviders;
+    private final long ejectionNanos;
+    private final long probeIntervalNanos;
+    private final LongSupplier nanoClock;
+
+    /**
+     * 构造函数
+     *
+     * @param properties 地图服务配置
+     * @param providers  所有服务商实现
+     * @param metrics    服务商调用监控指标，用于接收每次调用的结果
+     * @param registry   指标注册表
+     * @throws IllegalArgumentException 当配置的服务商不存在时抛出
+     */
+    @Autowired
+    public ProviderRouter(MapServiceProperties properties, List<AbstractMapService> providers, ProviderMetrics metrics,
+                          MeterRegistry registry) {
+        this(properties, providers, metrics, registry, System::nanoTime);
+    }
+
+    ProviderRouter(MapServiceProperties properties, List<AbstractMapService> providers, ProviderMetrics metrics,
+                   MeterRegistry registry, LongSupplier nanoClock) {
+        this.properties = properties.getRouting();
+        this.nanoClock = nanoClock;
+        this.ejectionNanos = this.properties.getEjectionTime().toNanos();
+        this.probeIntervalNanos = this.properties.getProbeInterval().toNanos();
+        long decayNanos = this.properties.getDecay().toNanos();
+        for (String name : candidateNames(properties)) {
+            AbstractMapService provider = findProvider(providers, name);
+            double weight = this.properties.getWeights().getOrDefault(name, 1.0);
+            if (weight <= 0) {
+                throw new IllegalArgumentException("服务商权重必须大于0: " + name);
+            }
+            stats.put(name, new ProviderStats(provider, weight, decayNanos));
+            decisions.put(name, new LongAdder());
+        }
+        this.chinaProviders = normalize(this.properties.getChinaProviders());
+        this.overseasProviders = normalize(this.properties.getOverseasProviders());
+        bindMetrics(registry);
+        metrics.addListener(this::onCall);
+        log.info("已启用服务商动态路由: {}，策略 {}", stats.keySet(), this.properties.getStrategy());
+    }
+
+    /**
+     * 确定参与路由的服务商，map.provider 排在最前，在代价相同时优先选择
+     */
+    private static Set<String> candidateNames(MapServiceProperties properties) {
+        String preferred = properties.getProvider().toLowerCase(Locale.ROOT);
+        Set<String> names = new LinkedHashSet<>();
+        List<String> configured = properties.getRouting().getProviders();
+        if (!configured.isEmpty()) {
+            Set<String> normalized = normalize(configured);
+            if (normalized.contains(preferred)) {
+                names.add(preferred);
+            }
+            names.addAll(normalized);
+            return names;
+        }
+        names.add(preferred);
+        if (StringUtils.hasText(properties.getGoogle().getApiKey())) {
+            names.add("google");
+        }
+        if (StringUtils.hasText(properties.getTencent().getApiKey())) {
+            names.add("tencent");
+        }
+        if (StringUtils.hasText(properties.getBaidu().getApiKey())) {
+            names.add("baidu");
+        }
+        return names;
+    }
+
+    private static Set<String> normalize(Collection<String> names) {
+        Set<String> result = new LinkedHashSet<>();
+        for (String name : names) {
+            result.add(name.trim().toLowerCase(Locale.ROOT));
+        }
+        return result;
+    }
+
+    private static AbstractMapService findProvider(List<AbstractMapService> providers, String name) {
+        for (AbstractMapService provider : providers) {
+            if (provider.getProviderName().equals(name)) {
+                return provider;
+            }
+        }
+        throw new IllegalArgumentException("不支持的地图服务提供商: " + name);
+    }
+
+    /**
+     * 为一个请求选择服务商
+     *
+     * @param region 请求坐标所在的区域，不含坐标时为 {@link Region#UNKNOWN}
+     * @return 选中的服务商
+     */
+    public AbstractMapService route(Region region) {
+        long now = nanoClock.getAsLong();
+        List<ProviderStats> healthy = new ArrayList<>(stats.size());
+        for (ProviderStats candidate : stats.values()) {
+            if (candidate.isHealthy(now) && candidate.getService().getRemainingDailyQuota() != 0) {
+                healthy.add(candidate);
+            }
+        }
+        ProviderStats chosen = healthy.isEmpty() ? leastErrors(now) : choose(preferred(healthy, region), now);
+        decisions.get(chosen.getName()).increment();
+        return chosen.getService();
+    }
+
+    /**
+     * 筛选该区域优先使用的服务商，都不可用时返回全部健康的服务商
+     */
+    private List<ProviderStats> preferred(List<ProviderStats> healthy, Region region) {
+        Set<String> names = region == Region.CHINA ? chinaProviders
+                : region == Region.OVERSEAS ? overseasProviders
+                : null;
+        if (names == null || names.isEmpty()) {
+            return healthy;
+        }
+        List<ProviderStats> result = new ArrayList<>(healthy.size());
+        for (ProviderStats candidate : healthy) {
+            if (names.contains(candidate.getName())) {
+                result.add(candidate);
+            }
+        }
+        return result.isEmpty() ? healthy : result;
+    }
+
+    private ProviderStats choose(List<ProviderStats> pool, long now) {
+        for (ProviderStats candidate : pool) {
+            if (candidate.isUnmeasured()) {
+                return candidate;
+            }
+        }
+        if (probeIntervalNanos > 0) {
+            for (ProviderStats candidate : pool) {
+                if (candidate.tryProbe(now, probeIntervalNanos)) {
+                    return candidate;
+                }
+            }
+        }
+        if (properties.getStrategy() == MapServiceProperties.RoutingStrategy.WEIGHTED) {
+            double[] scores = new double[pool.size()];
+            double total = 0;
+            for (int i = 0; i < scores.length; i++) {
+                ProviderStats candidate = pool.get(i);
+                scores[i] = candidate.getWeight() / candidate.cost(now, ERROR_PENALTY);
+                total += scores[i];
+            }
+            double point = ThreadLocalRandom.current().nextDouble(total);
+            for (int i = 0; i < scores.length; i++) {
+                point -= scores[i];
+                if (point < 0) {
+                    return pool.get(i);
+                }
+            }
+            return pool.get(pool.size() - 1);
+        }
+        ProviderStats best = null;
+        double bestCost = Double.MAX_VALUE;
+        for (ProviderStats candidate : pool) {
+            double cost = candidate.cost(now, ERROR_PENALTY) / candidate.getWeight();
+            if (cost < bestCost) {
+                best = candidate;
+                bestCost = cost;
+            }
+        }
+        return best;
+    }
+
+    private ProviderStats leastErrors(long now) {
+        ProviderStats best = null;
+        for (ProviderStats candidate : stats.values()) {
+            if (best == null || candidate.getErrorRate(now) < best.getErrorRate(now)) {
+                best = candidate;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * 记录一次服务商调用的结果
+     */
+    void onCall(String provider, ProviderOperation operation, long elapsedNanos, boolean success) {
+        ProviderStats target = stats.get(provider);
+        if (target == null) {
+            return;
+        }
+        boolean ejected = target.record(nanoClock.getAsLong(), elapsedNanos, success,
+                properties.getMaxErrorRate(), properties.getMinRequests(), ejectionNanos);
+        if (ejected) {
+            log.warn("服务商错误率过高，暂时摘除 {}: {}", properties.getEjectionTime(), provider);
+        }
+    }
+
+    private void bindMetrics(MeterRegistry registry) {
+        for (Map.Entry<String, ProviderStats> entry : stats.entrySet()) {
+            ProviderStats target = entry.getValue();
+            Gauge.builder("map.routing.latency", target, s -> Math.max(0, s.getLatencyNanos()) / 1e9)
+                    .description("服务商耗时的滑动平均")
+                    .tag("provider", entry.getKey())
+                    .baseUnit("seconds")
+                    .register(registry);
+            Gauge.builder("map.routing.error.rate", target, s -> s.getErrorRate(nanoClock.getAsLong()))
+                    .description("服务商错误率的滑动平均")
+                    .tag("provider", entry.getKey())
+                    .register(registry);
+            Gauge.builder("map.routing.ejected", target, s -> s.isEjected() ? 1 : 0)
+                    .description("服务商是否因错误率过高被暂时摘除")
+                    .tag("provider", entry.getKey())
+                    .register(registry);
+            FunctionCounter.builder("map.routing.decisions", decisions.get(entry.getKey()), LongAdder::sum)
+                    .description("路由到该服务商的请求数")
+                    .tag("provider", entry.getKey())
+                    .register(registry);
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package com.example.geoservice.service.routing;
+
+import com.example.geoservice.service.impl.AbstractMapService;
+
+/**
+ * 单个服务商的实时状态
+ * <p>
+ * 1. 耗时和错误率均为按时间衰减的指数加权滑动平均（EWMA），
+ *    两次调用间隔越长，新样本的权重越大，因此调用稀疏时也能在数秒内反映服务商的变化
+ * 2. 失败调用的耗时只会拉高耗时估计，避免快速失败的服务商显得更快
+ * 3. 没有新样本时，错误率按距上次样本的时间继续衰减，相当于这段时间内的调用都成功，
+ *    因此不再被选中或被摘除的服务商会逐渐恢复，而不是永远停留在最后一次的状态
+ * 4. 错误率超过阈值时摘除一段时间，到期后重新参与路由，错误率已按摘除的时长衰减
+ * 5. 耗时没有先验值，长时间没有样本的服务商通过探测请求更新耗时
+ * </p>
+ */
+final class ProviderStats {
+    private final AbstractMapService service;
+    private final double weight;
+    private final double decayNanos;
+
+    /**
+     * 耗时的滑动平均（纳秒），尚未测量时为 -1
+     */
+    private double latencyNanos = -1;
+    private double errorRate;
+    private long lastSampleNanos;
+    private long lastProbeNanos;
+    private int samples;
+    private long ejectedUntilNanos;
+    private boolean ejected;
+
+    /**
+     * 构造函数
+     *
+     * @param service    服务商实现
+     * @param weight     路由权重
+     * @param decayNanos 滑动平均的时间常数（纳秒）
+     */
+    ProviderStats(AbstractMapService service, double weight, long decayNanos) {
+        this.service = service;
+        this.weight = weight;
+        this.decayNanos = decayNanos;
+    }
+
+    AbstractMapService getService() {
+        return service;
+    }
+
+    String getName() {
+        return service.getProviderName();
+    }
+
+    double getWeight() {
+        return weight;
+    }
+
+    /**
+     * 记录一次调用结果
+     *
+     * @param now           当前时间（纳秒）
+     * @param elapsedNanos  调用耗时（纳秒）
+     * @param success       调用是否成功
+     * @param maxErrorRate  摘除服务商的错误率阈值
+     * @param minRequests   统计错误率所需的最少调用数
+     * @param ejectionNanos 摘除时长（纳秒）
+     * @return 本次调用导致服务商被摘除时返回 true
+     */
+    synchronized boolean record(long now, long elapsedNanos, boolean success,
+                             double maxErrorRate, int minRequests, long ejectionNanos) {
+        double error = success ? 0 : 1;
+        if (samples == 0) {
+            latencyNanos = elapsedNanos;
+            errorRate = error;
+        } else {
+            double keep = Math.exp(-(now - lastSampleNanos) / decayNanos);
+            double sample = success ? elapsedNanos : Math.max(latencyNanos, elapsedNanos);
+            latencyNanos = keep * latencyNanos + (1 - keep) * sample;
+            errorRate = keep * errorRate + (1 - keep) * error;
+        }
+        lastSampleNanos = now;
+        samples++;
+        if (!ejected && samples >= minRequests && errorRate > maxErrorRate) {
+            ejected = true;
+            ejectedUntilNanos = now + ejectionNanos;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * 判断服务商当前是否可以参与路由
+     *
+     * @param now 当前时间（纳秒）
+     * @return 未被摘除时返回 true
+     */
+    synchronized boolean isHealthy(long now) {
+        if (ejected && now - ejectedUntilNanos >= 0) {
+            ejected = false;
+        }
+        return !ejected;
+    }
+
+    /**
+     * 判断是否需要分配一个探测请求：已有样本，且距上次样本和上次探测都超过探测间隔
+     *
+     * @param now           当前时间（纳秒）
+     * @param intervalNanos 探测间隔（纳秒）
+     * @return 需要探测时返回 true，同时记录本次探测的时间
+     */
+    synchronized boolean tryProbe(long now, long intervalNanos) {
+        if (samples == 0 || now - lastSampleNanos < intervalNanos || now - lastProbeNanos < intervalNanos) {
+            return false;
+        }
+        lastProbeNanos = now;
+        return true;
+    }
+
+    /**
+     * 判断服务商是否尚未产生耗时样本
+     */
+    synchronized boolean isUnmeasured() {
+        return latencyNanos < 0;
+    }
+
+    /**
+     * 计算路由代价：耗时估计按错误率放大
+     *
+     * @param now          当前时间（纳秒）
+     * @param errorPenalty 错误率的惩罚系数
+     * @return 路由代价，越小越好
+     */
+    synchronized double cost(long now, double errorPenalty) {
+        return Math.max(latencyNanos, 1) * (1 + getErrorRate(now) * errorPenalty);
+    }
+
+    synchronized double getLatencyNanos() {
+        return latencyNanos;
+    }
+
+    /**
+     * 获取错误率的滑动平均，按距上次样本的时间衰减
+     *
+     * @param now 当前时间（纳秒）
+     * @return 错误率
+     */
+    synchronized double getErrorRate(long now) {
+        if (samples == 0) {
+            return errorRate;
+        }
+        return errorRate * Math.exp(-Math.max(0, now - lastSampleNanos) / decayNanos);
+    }
+
+    synchronized boolean isEjected() {
+        return ejected;
+    }
+}
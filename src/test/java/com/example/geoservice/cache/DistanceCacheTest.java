@@ -0,0 +1,76 @@
+package com.example.geoservice.cache;
+
+import com.example.geoservice.config.MapServiceProperties;
+import com.example.geoservice.model.Location;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class DistanceCacheTest {
+
+    private MapServiceProperties properties;
+    private AtomicInteger loads;
+
+    @BeforeEach
+    void setUp() {
+        properties = new MapServiceProperties();
+        loads = new AtomicInteger();
+    }
+
+    @Test
+    void shouldDerivePrecisionFromTolerance() {
+        assertEquals(7, new DistanceCache(properties).getPrecision());
+    }
+
+    @Test
+    void shouldHitForNearbyCoordinates() throws IOException {
+        DistanceCache cache = new DistanceCache(properties);
+
+        cache.get("baidu", location(39.915000, 116.404000), location(39.975000, 116.458000), this::load);
+        // 起终点各偏移约10米
+        double distance = cache.get("baidu", location(39.915090, 116.404000), location(39.975000, 116.458100), this::load);
+
+        assertEquals(1, loads.get());
+        assertEquals(9500, distance, 0.0);
+        assertEquals(0.5, cache.getHitRatio(), 0.0001);
+        assertEquals(DistanceCache.ESTIMATED_ENTRY_BYTES, cache.getEstimatedMemoryBytes());
+    }
+
+    @Test
+    void shouldMissWhenOutsideTolerance() throws IOException {
+        properties.getCache().getDistance().setToleranceMeters(5);
+        properties.getCache().getDistance().setPrecision(6);
+        DistanceCache cache = new DistanceCache(properties);
+
+        cache.get("baidu", location(39.915000, 116.404000), location(39.975000, 116.458000), this::load);
+        cache.get("baidu", location(39.915090, 116.404000), location(39.975000, 116.458000), this::load);
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void shouldNamespaceEntriesByProvider() throws IOException {
+        DistanceCache cache = new DistanceCache(properties);
+
+        cache.get("baidu", location(39.915, 116.404), location(39.975, 116.458), this::load);
+        cache.get("google", location(39.915, 116.404), location(39.975, 116.458), this::load);
+
+        assertEquals(2, loads.get());
+    }
+
+    private double load() {
+        loads.incrementAndGet();
+        return 9500;
+    }
+
+    private static Location location(double lat, double lng) {
+        Location location = new Location();
+        location.setLat(lat);
+        location.setLng(lng);
+        return location;
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.geoservice.cache;
+
+import com.example.geoservice.config.MapServiceProperties;
+import com.example.geoservice.model.AddressInfo;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GeocodeCacheTest {
+
+    private MapServiceProperties properties;
+    private AtomicInteger loads;
+
+    @BeforeEach
+    void setUp() {
+        properties = new MapServiceProperties();
+        loads = new AtomicInteger();
+    }
+
+    @Test
+    void shouldServeRepeatedLookupsFromMemory() throws IOException {
+        GeocodeCache cache = new GeocodeCache(properties);
+
+        cache.get("baidu", "北京市朝阳区建国路88号", this::load);
+        List<AddressInfo> results = cache.get("baidu", " 北京市 朝阳区 建国路88号 ", this::load);
+
+        assertEquals(1, loads.get());
+        assertEquals(39.9, results.get(0).getLatitude(), 0.0001);
+        assertEquals(1, cache.getMemoryHitCount());
+        assertEquals(1, cache.getMissCount());
+    }
+
+    @Test
+    void shouldNamespaceEntriesByProvider() throws IOException {
+        GeocodeCache cache = new GeocodeCache(properties);
+
+        cache.get("baidu", "北京市朝阳区建国路88号", this::load);
+        cache.get("tencent", "北京市朝阳区建国路88号", this::load);
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void shouldNotCacheEmptyResults() throws IOException {
+        GeocodeCache cache = new GeocodeCache(properties);
+
+        cache.get("baidu", "不存在的地址", Collections::emptyList);
+        List<AddressInfo> results = cache.get("baidu", "不存在的地址", this::load);
+
+        assertEquals(1, loads.get());
+        assertEquals(1, results.size());
+    }
+
+    @Test
+    void shouldSurviveRestartWithPersistentTier(@TempDir Path directory) throws IOException {
+        properties.getCache().getGeocode().getPersistent().setEnabled(true);
+        properties.getCache().getGeocode().getPersistent().setDirectory(directory.toString());
+
+        new GeocodeCache(properties).get("google", "1600 Amphitheatre Parkway", this::load);
+        GeocodeCache restarted = new GeocodeCache(properties);
+        List<AddressInfo> results = restarted.get("google", "1600 amphitheatre parkway", this::load);
+
+        assertEquals(1, loads.get());
+        assertEquals(1, restarted.getDiskHitCount());
+        assertTrue(results.get(0).getFormattedAddress().startsWith("测试"));
+    }
+
+    private List<AddressInfo> load() {
+        loads.incrementAndGet();
+        AddressInfo addressInfo = new AddressInfo();
+        addressInfo.setLatitude(39.9);
+        addressInfo.setLongitude(116.4);
+        addressInfo.setFormattedAddress("测试地址");
+        return Collections.singletonList(addressInfo);
+    }
+}
@@ -0,0 +1,26 @@
+package com.example.geoservice.config;
+
+import okhttp3.Protocol;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class HttpClientConfigTest {
+
+    @Test
+    void shouldUseHttp11OnlyWithVirtualThreads() {
+        MapServiceProperties properties = new MapServiceProperties();
+        assertEquals(Arrays.asList(Protocol.HTTP_2, Protocol.HTTP_1_1), HttpClientConfig.protocols(properties));
+
+        // OkHttp 4.9 的 HTTP/2 在 synchronized 块中等待响应，会把虚拟线程固定在载体线程上
+        properties.getExecutor().setVirtualThreads(true);
+        assertEquals(Collections.singletonList(Protocol.HTTP_1_1), HttpClientConfig.protocols(properties));
+
+        properties.getExecutor().setVirtualThreads(false);
+        properties.getHttp().setHttp2Enabled(false);
+        assertEquals(Collections.singletonList(Protocol.HTTP_1_1), HttpClientConfig.protocols(properties));
+    }
+}
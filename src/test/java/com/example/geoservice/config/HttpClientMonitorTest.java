@@ -0,0 +1,133 @@
+package com.example.geoservice.config;
+
+import com.sun.net.httpserver.HttpServer;
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class HttpClientMonitorTest {
+
+    private HttpServer server;
+    private ExecutorService serverExecutor;
+    private final BlockingQueue<String> received = new LinkedBlockingQueue<>();
+    private final CountDownLatch release = new CountDownLatch(1);
+    private MapServiceProperties properties;
+    private OkHttpClient httpClient;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", exchange -> {
+            received.add(exchange.getRequestMethod() + " " + exchange.getRequestURI().getPath());
+            try {
+                if (exchange.getRequestURI().getPath().startsWith("/slow")) {
+                    release.await(10, TimeUnit.SECONDS);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            exchange.sendResponseHeaders(200, -1);
+            exchange.close();
+        });
+        serverExecutor = Executors.newCachedThreadPool();
+        server.setExecutor(serverExecutor);
+        server.start();
+
+        properties = new MapServiceProperties();
+        properties.getHttp().setMaxRequests(1);
+        httpClient = new HttpClientConfig().mapHttpClient(properties);
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        server.stop(0);
+        serverExecutor.shutdownNow();
+        httpClient.dispatcher().executorService().shutdownNow();
+        httpClient.connectionPool().evictAll();
+    }
+
+    @Test
+    void shouldCountSyncCallsThatBypassDispatcherLimit() throws Exception {
+        HttpClientMonitor monitor = new HttpClientMonitor(properties, httpClient);
+        httpClient.newCall(request("/slow/async-1")).enqueue(ignore());
+        assertEquals("GET /slow/async-1", received.poll(5, TimeUnit.SECONDS));
+
+        // max-requests 为 1 且已有一个异步调用在执行，同步调用仍然直接发出
+        ExecutorService caller = Executors.newSingleThreadExecutor();
+        try {
+            Future<Integer> sync = caller.submit(() -> {
+                try (Response response = httpClient.newCall(request("/slow/sync")).execute()) {
+                    return response.code();
+                }
+            });
+            assertEquals("GET /slow/sync", received.poll(5, TimeUnit.SECONDS));
+
+            // 第二个异步调用在调度器中排队
+            httpClient.newCall(request("/slow/async-2")).enqueue(ignore());
+            assertNull(received.poll(200, TimeUnit.MILLISECONDS));
+            assertEquals(2, monitor.getRunningCallCount());
+            assertEquals(1, monitor.getQueuedCallCount());
+            assertEquals(2.0, monitor.getDispatcherUtilization(), 1e-9);
+
+            release.countDown();
+            assertEquals(200, sync.get(5, TimeUnit.SECONDS));
+            assertEquals("GET /slow/async-2", received.poll(5, TimeUnit.SECONDS));
+        } finally {
+            caller.shutdownNow();
+        }
+    }
+
+    @Test
+    void shouldWarmUpOnlyProvidersWithApiKey() throws Exception {
+        properties.getBaidu().setApiKey("key");
+        properties.getBaidu().setBaseUrl(baseUrl() + "/baidu");
+        properties.getTencent().setBaseUrl(baseUrl() + "/tencent");
+        new HttpClientMonitor(properties, httpClient).warmUp();
+
+        String request = received.poll(5, TimeUnit.SECONDS);
+        assertNotNull(request);
+        assertEquals("HEAD /", request);
+        assertNull(received.poll(200, TimeUnit.MILLISECONDS));
+    }
+
+    private String baseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    private Request request(String path) {
+        return new Request.Builder().url(baseUrl() + path).build();
+    }
+
+    private static Callback ignore() {
+        return new Callback() {
+            @Override
+            public void onFailure(Call call, IOException e) {
+            }
+
+            @Override
+            public void onResponse(Call call, Response response) {
+                response.close();
+            }
+        };
+    }
+}
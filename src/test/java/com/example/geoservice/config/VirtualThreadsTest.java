@@ -0,0 +1,30 @@
+package com.example.geoservice.config;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class VirtualThreadsTest {
+
+    @Test
+    void shouldRunTasksOnNamedVirtualThreadsOrFailFast() throws Exception {
+        if (!VirtualThreads.isSupported()) {
+            // JDK 21 以下开启虚拟线程时启动即失败，不会静默退回线程池
+            assertThrows(IllegalStateException.class, () -> VirtualThreads.newThreadPerTaskExecutor("test-"));
+            return;
+        }
+        ExecutorService executor = VirtualThreads.newThreadPerTaskExecutor("test-");
+        try {
+            Thread thread = executor.submit(Thread::currentThread).get(5, TimeUnit.SECONDS);
+            assertTrue((Boolean) Thread.class.getMethod("isVirtual").invoke(thread));
+            assertEquals("test-0", thread.getName());
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
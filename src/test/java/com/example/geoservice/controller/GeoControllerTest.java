@@ -0,0 +1,58 @@
+package com.example.geoservice.controller;
+
+import com.example.geoservice.model.Location;
+import com.example.geoservice.service.BulkGeocodeService;
+import com.example.geoservice.service.MapServiceFactory;
+import com.example.geoservice.service.estimate.DistanceEstimator;
+import com.example.geoservice.service.estimate.DistanceMode;
+import com.example.geoservice.service.nearby.NearbySearchService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class GeoControllerTest {
+
+    @Mock
+    private MapServiceFactory mapServiceFactory;
+    @Mock
+    private BulkGeocodeService bulkGeocodeService;
+    @Mock
+    private DistanceEstimator distanceEstimator;
+    @Mock
+    private NearbySearchService nearbySearchService;
+
+    private GeoController controller;
+
+    @BeforeEach
+    void setUp() {
+        controller = new GeoController(mapServiceFactory, bulkGeocodeService, distanceEstimator, nearbySearchService);
+    }
+
+    @Test
+    void shouldEstimateAsyncDistanceWithoutResolvingProvider() throws Exception {
+        // 该区域没有可用的异步服务商时，估算仍然只在本地计算
+        List<Location> locations = Arrays.asList(location(39.9, 116.4), location(31.2, 121.5));
+        when(distanceEstimator.estimate(locations.get(0), locations.get(1))).thenReturn(1200000.0);
+
+        assertEquals(1200000.0, controller.calculateDrivingDistanceAsync(locations, DistanceMode.ESTIMATE).get(), 1e-9);
+        assertEquals(1200000.0, controller.calculateDrivingDistance(locations, DistanceMode.ESTIMATE), 1e-9);
+        verifyNoInteractions(mapServiceFactory);
+    }
+
+    private static Location location(double lat, double lng) {
+        Location location = new Location();
+        location.setLat(lat);
+        location.setLng(lng);
+        return location;
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.geoservice.geo;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class AddressNormalizerTest {
+
+    @Test
+    void shouldProduceSameKeyForEquivalentSpellings() {
+        String expected = "北京朝阳区建国路88号";
+        assertEquals(expected, AddressNormalizer.key("北京市朝阳区建国路88号"));
+        assertEquals(expected, AddressNormalizer.key("北京 朝阳区 建国路 88 号"));
+        assertEquals(expected, AddressNormalizer.key("北京市朝阳区建国路８８号"));
+        assertEquals(expected, AddressNormalizer.key("北京市，朝阳区，建国路八十八号。"));
+        assertEquals(expected, AddressNormalizer.key("北京朝阳区建国路88#"));
+
+        assertEquals(AddressNormalizer.key("广东省深圳市南山区科技园"), AddressNormalizer.key("广东深圳南山区科技园"));
+        assertEquals(AddressNormalizer.key("浙江省杭州市西湖区文三路"), AddressNormalizer.key("浙江杭州西湖区文三路"));
+        assertEquals(AddressNormalizer.key("新疆维吾尔自治区乌鲁木齐市"), AddressNormalizer.key("新疆乌鲁木齐"));
+        assertEquals("1600amphitheatrepkwymountainview", AddressNormalizer.key("1600 Amphitheatre Pkwy, Mountain View"));
+    }
+
+    @Test
+    void shouldOnlyRewriteNumbersAndSuffixesWhereUnambiguous() {
+        // 地名中的中文数字不转换，道路名不会被误认为行政区
+        assertEquals("北京三里屯路", AddressNormalizer.key("北京市三里屯路"));
+        assertEquals("上海南京东路100号", AddressNormalizer.key("上海市南京东路一百号"));
+        assertEquals("上海浦东新区世纪大道1号3单元1201室",
+                AddressNormalizer.key("上海市浦东新区世纪大道1号三单元一二零一室"));
+        assertEquals("深圳市南山区科技园12-3号", AddressNormalizer.key("深圳市南山区科技园12－3号"));
+        assertNotEquals(AddressNormalizer.key("建国路88号"), AddressNormalizer.key("建国路8号"));
+        assertEquals("", AddressNormalizer.key(" ，。 "));
+    }
+
+    @Test
+    void shouldKeepSameNamedDistrictsCountiesAndCitiesApart() {
+        assertNotEquals(AddressNormalizer.key("朝阳区建设路1号"), AddressNormalizer.key("朝阳县建设路1号"));
+        assertNotEquals(AddressNormalizer.key("朝阳区建设路1号"), AddressNormalizer.key("朝阳市建设路1号"));
+        assertNotEquals(AddressNormalizer.key("朝阳县建设路1号"), AddressNormalizer.key("朝阳市建设路1号"));
+        assertNotEquals(AddressNormalizer.key("鼓楼区中山路1号"), AddressNormalizer.key("鼓楼中山路1号"));
+        // 省级前缀之后的地级市与同名的县不会合并
+        assertNotEquals(AddressNormalizer.key("辽宁省朝阳市建设路1号"), AddressNormalizer.key("辽宁省朝阳县建设路1号"));
+        assertEquals(AddressNormalizer.key("辽宁省朝阳市建设路1号"), AddressNormalizer.key("辽宁朝阳建设路1号"));
+    }
+
+    @Test
+    void shouldCleanAddressForProviders() {
+        String address = "北京市朝阳区建国路88号";
+        assertSame(address, AddressNormalizer.clean(address));
+        assertEquals("北京市 朝阳区建国路88号", AddressNormalizer.clean("　北京市  朝阳区建国路８８号 "));
+        assertEquals("1600 Amphitheatre Pkwy", AddressNormalizer.clean("1600\tＡｍｐｈｉｔｈｅａｔｒｅ Pkwy"));
+    }
+}
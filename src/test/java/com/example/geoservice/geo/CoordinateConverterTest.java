@@ -0,0 +1,81 @@
+package com.example.geoservice.geo;
+
+import com.example.geoservice.model.Location;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class CoordinateConverterTest {
+
+    @Test
+    void shouldMatchReferenceOffsets() {
+        // 天安门附近，与常用的开源转换实现结果一致
+        double[] lats = {39.915};
+        double[] lngs = {116.404};
+        CoordinateConverter.convert(CoordinateSystem.WGS84, CoordinateSystem.GCJ02, lats, lngs);
+        assertEquals(39.91640428150164, lats[0], 1e-12);
+        assertEquals(116.41024449916938, lngs[0], 1e-12);
+
+        lats[0] = 39.915;
+        lngs[0] = 116.404;
+        CoordinateConverter.convert(CoordinateSystem.GCJ02, CoordinateSystem.BD09, lats, lngs);
+        assertEquals(39.92133699351022, lats[0], 1e-12);
+        assertEquals(116.41036949371029, lngs[0], 1e-12);
+    }
+
+    @Test
+    void shouldRoundTripInBulk() {
+        double[] lats = {0, 39.915, 31.2304, 22.5431, 40.7128};
+        double[] lngs = {0, 116.404, 121.4737, 114.0579, -74.0060};
+        for (CoordinateSystem source : CoordinateSystem.values()) {
+            for (CoordinateSystem target : CoordinateSystem.values()) {
+                double[] convertedLats = lats.clone();
+                double[] convertedLngs = lngs.clone();
+                CoordinateConverter.convert(source, target, convertedLats, convertedLngs);
+                CoordinateConverter.convert(target, source, convertedLats, convertedLngs);
+                for (int i = 0; i < lats.length; i++) {
+                    // GCJ-02 迭代求逆的误差远小于 1 毫米，BD-09 的反算公式本身约有 1 米误差
+                    double tolerance = source == CoordinateSystem.BD09 || target == CoordinateSystem.BD09 ? 1e-5 : 1e-8;
+                    assertEquals(lats[i], convertedLats[i], tolerance, source + "->" + target);
+                    assertEquals(lngs[i], convertedLngs[i], tolerance, source + "->" + target);
+                }
+            }
+        }
+    }
+
+    @Test
+    void shouldOnlyOffsetInsideChinaAndWithinRange() {
+        // 纽约和上海，只转换数组中的第二个坐标
+        double[] lats = {40.7128, 31.2304, 31.2304};
+        double[] lngs = {-74.0060, 121.4737, 121.4737};
+        CoordinateConverter.convert(CoordinateSystem.WGS84, CoordinateSystem.GCJ02, lats, lngs, 0, 2);
+        assertEquals(40.7128, lats[0], 0);
+        assertEquals(-74.0060, lngs[0], 0);
+        assertEquals(31.2304, lats[2], 0);
+        double shift = GeoMath.haversine(31.2304, 121.4737, lats[1], lngs[1]);
+        assertEquals(500, shift, 200);
+    }
+
+    @Test
+    void shouldReturnSameLocationsWhenAlreadyInTarget() {
+        Location untagged = new Location();
+        untagged.setLat(31.2304);
+        untagged.setLng(121.4737);
+        List<Location> locations = Arrays.asList(untagged, untagged);
+        assertSame(locations, CoordinateConverter.convert(locations, CoordinateSystem.GCJ02, CoordinateSystem.GCJ02));
+
+        Location wgs84 = new Location();
+        wgs84.setLat(31.2304);
+        wgs84.setLng(121.4737);
+        wgs84.setCoordinateSystem(CoordinateSystem.WGS84);
+        List<Location> converted = CoordinateConverter.convert(Arrays.asList(untagged, wgs84),
+                CoordinateSystem.GCJ02, CoordinateSystem.GCJ02);
+        assertSame(untagged, converted.get(0));
+        assertEquals(CoordinateSystem.GCJ02, converted.get(1).getCoordinateSystem());
+        assertEquals(CoordinateSystem.WGS84, wgs84.getCoordinateSystem());
+    }
+}
@@ -0,0 +1,24 @@
+package com.example.geoservice.geo;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class GeoMathTest {
+
+    @Test
+    void shouldMatchVincentyReferenceDistance() {
+        // Vincenty 论文中的算例：Flinders Peak 到 Buninyong
+        double distance = GeoMath.vincenty(-37.95103342, 144.42486789, -37.65282114, 143.92649554);
+        assertEquals(54972.271, distance, 0.001);
+    }
+
+    @Test
+    void shouldHandleDegenerateCases() {
+        assertEquals(0, GeoMath.vincenty(31.23, 121.47, 31.23, 121.47), 0);
+        // 赤道上一度经度
+        assertEquals(111319.491, GeoMath.vincenty(0, 0, 0, 1), 0.001);
+        // 近对跖点不收敛时退回球面距离
+        assertEquals(GeoMath.haversine(0, 0, 0.5, 179.7), GeoMath.vincenty(0, 0, 0.5, 179.7), 1e-6);
+    }
+}
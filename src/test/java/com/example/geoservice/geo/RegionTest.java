@@ -0,0 +1,72 @@
+package com.example.geoservice.geo;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class RegionTest {
+
+    @Test
+    void shouldTreatNeighbouringCountriesAsOverseas() {
+        assertOverseas("东京", 35.6895, 139.6917);
+        assertOverseas("大阪", 34.6937, 135.5023);
+        assertOverseas("福冈", 33.5904, 130.4017);
+        assertOverseas("冲绳", 26.2124, 127.6809);
+        assertOverseas("首尔", 37.5665, 126.9780);
+        assertOverseas("济州", 33.4996, 126.5312);
+        assertOverseas("平壤", 39.0392, 125.7625);
+        assertOverseas("符拉迪沃斯托克", 43.1155, 131.8855);
+        assertOverseas("乌兰巴托", 47.8864, 106.9057);
+        assertOverseas("阿拉木图", 43.2220, 76.8512);
+        assertOverseas("比什凯克", 42.8746, 74.5698);
+        assertOverseas("伊斯兰堡", 33.6844, 73.0479);
+        assertOverseas("新德里", 28.6139, 77.2090);
+        assertOverseas("加德满都", 27.7172, 85.3240);
+        assertOverseas("廷布", 27.4728, 89.6390);
+        assertOverseas("达卡", 23.8103, 90.4125);
+        assertOverseas("仰光", 16.8409, 96.1735);
+        assertOverseas("曼德勒", 21.9588, 96.0891);
+        assertOverseas("曼谷", 13.7563, 100.5018);
+        assertOverseas("万象", 17.9757, 102.6331);
+        assertOverseas("河内", 21.0278, 105.8342);
+        assertOverseas("马尼拉", 14.5995, 120.9842);
+        assertOverseas("纽约", 40.7128, -74.0060);
+    }
+
+    @Test
+    void shouldTreatMainlandHongKongMacauAndTaiwanAsChina() {
+        assertChina("北京", 39.9042, 116.4074);
+        assertChina("上海", 31.2304, 121.4737);
+        assertChina("大连", 38.9140, 121.6147);
+        assertChina("丹东", 40.1290, 124.3830);
+        assertChina("珲春", 42.8620, 130.3660);
+        assertChina("抚远", 48.3640, 134.2890);
+        assertChina("黑河", 50.2450, 127.4890);
+        assertChina("漠河", 52.9720, 122.5390);
+        assertChina("满洲里", 49.5970, 117.3790);
+        assertChina("二连浩特", 43.6530, 111.9770);
+        assertChina("伊宁", 43.9090, 81.3240);
+        assertChina("乌鲁木齐", 43.8256, 87.6168);
+        assertChina("喀什", 39.4704, 75.9898);
+        assertChina("拉萨", 29.6500, 91.1000);
+        assertChina("瑞丽", 24.0130, 97.8510);
+        assertChina("景洪", 22.0090, 100.7970);
+        assertChina("昆明", 25.0389, 102.7183);
+        assertChina("东兴", 21.5470, 107.9720);
+        assertChina("海口", 20.0440, 110.1999);
+        assertChina("三亚", 18.2528, 109.5119);
+        assertChina("广州", 23.1291, 113.2644);
+        assertChina("香港", 22.3193, 114.1694);
+        assertChina("澳门", 22.1987, 113.5439);
+        assertChina("台北", 25.0330, 121.5654);
+        assertChina("高雄", 22.6273, 120.3014);
+    }
+
+    private static void assertOverseas(String name, double lat, double lng) {
+        assertEquals(Region.OVERSEAS, Region.of(lat, lng), name);
+    }
+
+    private static void assertChina(String name, double lat, double lng) {
+        assertEquals(Region.CHINA, Region.of(lat, lng), name);
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.geoservice.metrics;
+
+import com.example.geoservice.service.ProviderOperation;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class ProviderMetricsTest {
+
+    private SimpleMeterRegistry registry;
+    private ProviderMetrics metrics;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        metrics = new ProviderMetrics(registry);
+    }
+
+    @Test
+    void shouldRecordSuccessfulCall() {
+        ProviderMetrics.Timing timing = metrics.start("baidu", ProviderOperation.GEOCODE);
+        assertEquals(1.0, registry.get(ProviderMetrics.IN_FLIGHT).tag("provider", "baidu").gauge().value());
+
+        timing.status(200);
+        timing.success();
+
+        Timer timer = registry.get(ProviderMetrics.REQUESTS)
+                .tags("provider", "baidu", "operation", "geocode", "outcome", "success")
+                .timer();
+        assertEquals(1, timer.count());
+        assertEquals(1.0, registry.get(ProviderMetrics.RESPONSES).tag("status", "200").counter().count());
+        assertEquals(0.0, registry.get(ProviderMetrics.IN_FLIGHT).tag("provider", "baidu").gauge().value());
+    }
+
+    @Test
+    void shouldRecordFailedCallOnlyOnce() {
+        ProviderMetrics.Timing timing = metrics.start("google", ProviderOperation.DISTANCE);
+
+        timing.failure(new IOException("timeout"));
+        timing.failure(new IOException("timeout"));
+
+        Timer timer = registry.get(ProviderMetrics.REQUESTS)
+                .tags("provider", "google", "operation", "distance", "outcome", "error", "exception", "IOException")
+                .timer();
+        assertEquals(1, timer.count());
+        assertEquals(1.0, registry.get(ProviderMetrics.RESPONSES).tag("status", "IO_ERROR").counter().count());
+        assertNull(registry.find(ProviderMetrics.REQUESTS).tag("outcome", "success").timer());
+        assertEquals(0.0, registry.get(ProviderMetrics.IN_FLIGHT).tag("provider", "google").gauge().value());
+    }
+}
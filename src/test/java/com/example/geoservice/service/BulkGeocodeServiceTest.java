@@ -0,0 +1,120 @@
+package com.example.geoservice.service;
+
+import com.example.geoservice.config.MapServiceProperties;
+import com.example.geoservice.geo.CoordinateSystem;
+import com.example.geoservice.model.AddressBatch;
+import com.example.geoservice.model.AddressInfo;
+import com.example.geoservice.model.BatchGeocodeResult;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class BulkGeocodeServiceTest {
+
+    @Mock
+    private MapServiceFactory mapServiceFactory;
+    @Mock
+    private MapService mapService;
+
+    private ExecutorService executor;
+    private BulkGeocodeService bulkGeocodeService;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        executor = Executors.newFixedThreadPool(4);
+        bulkGeocodeService = new BulkGeocodeService(mapServiceFactory, new MapServiceProperties(), executor, new ObjectMapper());
+        when(mapServiceFactory.getMapService()).thenReturn(mapService);
+        when(mapService.geocodeAddress(anyString())).thenAnswer(invocation -> {
+            String address = invocation.getArgument(0);
+            if (address.contains("错误")) {
+                throw new IOException("timeout");
+            }
+            if (address.contains("不存在")) {
+                return Collections.emptyList();
+            }
+            AddressInfo addressInfo = new AddressInfo();
+            addressInfo.setFormattedAddress(address.trim());
+            addressInfo.setProvince(address.substring(0, 3));
+            return Collections.singletonList(addressInfo);
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void shouldReturnResultsInInputOrderWithPerItemStatus() throws IOException {
+        List<BatchGeocodeResult> results = bulkGeocodeService.geocode(
+                Arrays.asList("北京市朝阳区", "错误地址", "", "不存在的地址", "北京市 朝阳区"));
+
+        assertEquals(5, results.size());
+        assertEquals(BatchGeocodeResult.STATUS_OK, results.get(0).getStatus());
+        assertEquals(BatchGeocodeResult.STATUS_ERROR, results.get(1).getStatus());
+        assertEquals(BatchGeocodeResult.STATUS_INVALID, results.get(2).getStatus());
+        assertEquals(BatchGeocodeResult.STATUS_NOT_FOUND, results.get(3).getStatus());
+        assertEquals(BatchGeocodeResult.STATUS_OK, results.get(4).getStatus());
+        assertEquals(4, results.get(4).getIndex());
+        // 规范化后相同的地址只解析一次
+        verify(mapService, times(3)).geocodeAddress(anyString());
+    }
+
+    @Test
+    void shouldReturnColumnarBatchWithDictionaryEncodedNames() throws IOException {
+        AddressBatch batch = bulkGeocodeService.geocodeColumnar(
+                Arrays.asList("北京市朝阳区", "不存在的地址", "上海市浦东新区", "北京市海淀区"));
+
+        // 通过 Smile 二进制格式往返
+        ObjectMapper smile = new ObjectMapper(new SmileFactory());
+        batch = smile.readValue(smile.writeValueAsBytes(batch), AddressBatch.class);
+
+        assertEquals(4, batch.size());
+        assertEquals(CoordinateSystem.GCJ02, batch.getCoordinateSystem());
+        assertEquals(Arrays.asList("北京市", "上海市"), batch.getDictionary());
+        assertEquals(0, batch.getProvinces()[3]);
+        assertEquals(BatchGeocodeResult.STATUS_NOT_FOUND, batch.getStatuses()[1]);
+        assertNull(batch.get(1));
+        assertEquals("上海市浦东新区", batch.get(2).getFormattedAddress());
+        assertEquals("上海市", batch.get(2).getProvince());
+        assertNull(batch.get(2).getCity());
+    }
+
+    @Test
+    void shouldStreamCsvAsNdjson() throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        String csv = "北京市朝阳区,1\n\"上海市, 浦东新区\",2\n";
+
+        bulkGeocodeService.geocodeStream(new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)),
+                BulkGeocodeService.InputFormat.CSV, output);
+
+        String[] lines = new String(output.toByteArray(), StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, lines.length);
+        BatchGeocodeResult second = new ObjectMapper().readValue(lines[1], BatchGeocodeResult.class);
+        assertEquals("上海市, 浦东新区", second.getAddress());
+        assertEquals(1, second.getIndex());
+    }
+}
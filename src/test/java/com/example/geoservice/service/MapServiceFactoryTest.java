@@ -1,9 +1,15 @@
 package com.example.geoservice.service;
 
 import com.example.geoservice.config.MapServiceProperties;
+import com.example.geoservice.geo.Region;
+import com.example.geoservice.model.Location;
+import com.example.geoservice.service.hedge.HedgingMapService;
 import com.example.geoservice.service.impl.BaiduMapService;
 import com.example.geoservice.service.impl.GoogleMapService;
 import com.example.geoservice.service.impl.TencentMapService;
+import com.example.geoservice.service.local.LocalMapService;
+import com.example.geoservice.service.local.RoadMapService;
+import com.example.geoservice.service.routing.ProviderRouter;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -13,6 +19,7 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -52,6 +59,62 @@ class MapServiceFactoryTest {
         assertSame(baiduMapService, mapServiceFactory.getMapService());
     }
 
+    @Test
+    void shouldReturnHedgingMapServiceWhenEnabled() {
+        HedgingMapService hedgingMapService = mock(HedgingMapService.class);
+        mapServiceFactory.setHedgingMapService(hedgingMapService);
+        assertSame(hedgingMapService, mapServiceFactory.getMapService());
+        assertSame(hedgingMapService, mapServiceFactory.getAsyncMapService());
+    }
+
+    @Test
+    void shouldRouteByRegionWhenRoutingEnabled() {
+        ProviderRouter providerRouter = mock(ProviderRouter.class);
+        when(providerRouter.route(Region.CHINA)).thenReturn(tencentMapService);
+        when(providerRouter.route(Region.UNKNOWN)).thenReturn(googleMapService);
+        mapServiceFactory.setProviderRouter(providerRouter);
+        Location shanghai = new Location();
+        shanghai.setLat(31.23);
+        shanghai.setLng(121.47);
+
+        assertSame(tencentMapService, mapServiceFactory.getMapService(shanghai));
+        assertSame(googleMapService, mapServiceFactory.getMapService());
+    }
+
+    @Test
+    void shouldQueryLocalIndexBeforeProviderWhenFirstTier() {
+        LocalMapService localMapService = mock(LocalMapService.class);
+        AsyncMapService localFirst = mock(AsyncMapService.class);
+        MapServiceProperties.LocalProperties local = new MapServiceProperties.LocalProperties();
+        local.setFirstTier(true);
+        when(properties.getLocal()).thenReturn(local);
+        when(properties.getProvider()).thenReturn("tencent");
+        when(localMapService.before(tencentMapService)).thenReturn(localFirst);
+        mapServiceFactory.setLocalMapService(localMapService);
+
+        assertSame(localFirst, mapServiceFactory.getAsyncMapService());
+    }
+
+    @Test
+    void shouldReturnRoadMapService() {
+        RoadMapService roadMapService = mock(RoadMapService.class);
+        when(properties.getProvider()).thenReturn("road");
+        mapServiceFactory.setRoadMapService(roadMapService);
+        assertSame(roadMapService, mapServiceFactory.getMapService());
+    }
+
+    @Test
+    void shouldRejectRoadProviderWhenGraphDisabled() {
+        when(properties.getProvider()).thenReturn("road");
+        assertThrows(IllegalArgumentException.class, () -> mapServiceFactory.getMapService());
+    }
+
+    @Test
+    void shouldRejectLocalProviderWhenIndexDisabled() {
+        when(properties.getProvider()).thenReturn("local");
+        assertThrows(IllegalArgumentException.class, () -> mapServiceFactory.getMapService());
+    }
+
     @Test
     void shouldThrowExceptionForUnsupportedProvider() {
         when(properties.getProvider()).thenReturn("unsupported");
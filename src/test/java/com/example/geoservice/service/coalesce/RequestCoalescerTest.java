@@ -0,0 +1,166 @@
+package com.example.geoservice.service.coalesce;
+
+import com.example.geoservice.exception.MapServiceException;
+import com.example.geoservice.service.ProviderOperation;
+import com.example.geoservice.service.ratelimit.RequestPriority;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RequestCoalescerTest {
+
+    private SimpleMeterRegistry registry;
+    private RequestCoalescer coalescer;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        coalescer = new RequestCoalescer(registry);
+    }
+
+    private double coalescedCount() {
+        Counter counter = registry.find("map.coalesce.coalesced").tag("provider", "baidu").counter();
+        return counter == null ? 0 : counter.count();
+    }
+
+    @Test
+    void shouldShareOneCallAmongConcurrentIdenticalRequests() throws Exception {
+        int threads = 8;
+        AtomicInteger calls = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        CompletableFuture<Void> release = new CompletableFuture<>();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            Future<Double> leader = executor.submit(() -> coalescer.execute("baidu", ProviderOperation.DISTANCE, "1,2;3,4", () -> {
+                calls.incrementAndGet();
+                started.countDown();
+                release.join();
+                return 1234.0;
+            }));
+            started.await();
+            List<Future<Double>> followers = new ArrayList<>();
+            for (int i = 1; i < threads; i++) {
+                followers.add(executor.submit(() -> coalescer.execute("baidu", ProviderOperation.DISTANCE, "1,2;3,4", () -> {
+                    calls.incrementAndGet();
+                    return 0.0;
+                })));
+            }
+            while (coalescedCount() < threads - 1) {
+                Thread.sleep(1);
+            }
+            release.complete(null);
+
+            assertEquals(1234.0, leader.get(1, TimeUnit.SECONDS));
+            for (Future<Double> follower : followers) {
+                assertEquals(1234.0, follower.get(1, TimeUnit.SECONDS));
+            }
+            assertEquals(1, calls.get());
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // 请求完成后不保留结果，再次请求时重新调用
+        assertEquals(0.0, coalescer.execute("baidu", ProviderOperation.DISTANCE, "1,2;3,4", () -> {
+            calls.incrementAndGet();
+            return 0.0;
+        }));
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    void shouldShareFailureWithAsyncFollowers() throws Exception {
+        CompletableFuture<String> upstream = new CompletableFuture<>();
+        CompletableFuture<String> first = coalescer.executeAsync("baidu", ProviderOperation.GEOCODE, "北京市", () -> upstream);
+        CompletableFuture<String> second = coalescer.executeAsync("baidu", ProviderOperation.GEOCODE, "北京市",
+                () -> CompletableFuture.completedFuture("unexpected"));
+        MapServiceException failure = new MapServiceException("baidu", "1", MapServiceException.Reason.UNAVAILABLE, "API调用失败");
+
+        upstream.completeExceptionally(failure);
+
+        ExecutionException e = assertThrows(ExecutionException.class, second::get);
+        assertSame(failure, e.getCause());
+        assertTrue(first.isCompletedExceptionally());
+        assertEquals(1.0, coalescedCount());
+    }
+
+    @Test
+    void shouldCancelUpstreamOnlyWhenAllCallersCancel() {
+        AtomicInteger calls = new AtomicInteger();
+        CompletableFuture<String> upstream = new CompletableFuture<>();
+        CompletableFuture<String> first = coalescer.executeAsync("baidu", ProviderOperation.GEOCODE, "北京市", () -> {
+            calls.incrementAndGet();
+            return upstream;
+        });
+        CompletableFuture<String> second = coalescer.executeAsync("baidu", ProviderOperation.GEOCODE, "北京市", () -> {
+            calls.incrementAndGet();
+            return new CompletableFuture<>();
+        });
+
+        first.cancel(true);
+        assertFalse(upstream.isDone());
+
+        second.cancel(true);
+        assertTrue(upstream.isCancelled());
+
+        // 已放弃的请求不再被合并
+        CompletableFuture<String> third = coalescer.executeAsync("baidu", ProviderOperation.GEOCODE, "北京市", () -> {
+            calls.incrementAndGet();
+            return CompletableFuture.completedFuture("ok");
+        });
+        assertEquals("ok", third.join());
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    void shouldNotJoinInteractiveRequestToBulkCall() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        CompletableFuture<String> bulkUpstream = new CompletableFuture<>();
+        CompletableFuture<String> bulk = RequestPriority.with(RequestPriority.BULK,
+                () -> coalescer.executeAsync("baidu", ProviderOperation.GEOCODE, "北京市", () -> {
+                    calls.incrementAndGet();
+                    return bulkUpstream;
+                }));
+
+        // 批量请求仍在等待令牌，交互请求单独调用服务商，不共享批量请求的限流失败
+        CompletableFuture<String> interactiveUpstream = new CompletableFuture<>();
+        CompletableFuture<String> interactive = coalescer.executeAsync("baidu", ProviderOperation.GEOCODE, "北京市", () -> {
+            calls.incrementAndGet();
+            return interactiveUpstream;
+        });
+        assertEquals(2, calls.get());
+
+        // 之后的批量请求加入交互请求发起的调用
+        CompletableFuture<String> laterBulk = RequestPriority.with(RequestPriority.BULK,
+                () -> coalescer.executeAsync("baidu", ProviderOperation.GEOCODE, "北京市", () -> {
+                    calls.incrementAndGet();
+                    return CompletableFuture.completedFuture("unexpected");
+                }));
+        assertEquals(2, calls.get());
+
+        bulkUpstream.completeExceptionally(new MapServiceException("baidu", null,
+                MapServiceException.Reason.RATE_LIMITED, "超过客户端限流"));
+        interactiveUpstream.complete("ok");
+
+        assertTrue(bulk.isCompletedExceptionally());
+        assertEquals("ok", interactive.get(1, TimeUnit.SECONDS));
+        assertEquals("ok", laterBulk.get(1, TimeUnit.SECONDS));
+    }
+}
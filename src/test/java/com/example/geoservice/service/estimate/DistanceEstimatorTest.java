@@ -0,0 +1,82 @@
+package com.example.geoservice.service.estimate;
+
+import com.example.geoservice.config.MapServiceProperties;
+import com.example.geoservice.geo.GeoMath;
+import com.example.geoservice.model.Location;
+import com.example.geoservice.service.AsyncMapService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class DistanceEstimatorTest {
+
+    private DistanceEstimator estimator;
+
+    @BeforeEach
+    void setUp() {
+        estimator = new DistanceEstimator(new MapServiceProperties(), new SimpleMeterRegistry());
+    }
+
+    private static Location location(double lat, double lng) {
+        Location location = new Location();
+        location.setLat(lat);
+        location.setLng(lng);
+        return location;
+    }
+
+    @Test
+    void shouldLearnCircuityPerCellBeforeRegion() {
+        Location shanghai = location(31.23, 121.47);
+        Location suzhou = location(31.30, 120.58);
+        double geodesic = GeoMath.vincenty(31.23, 121.47, 31.30, 120.58);
+        assertEquals(geodesic * 1.3, estimator.estimate(shanghai, suzhou), 1e-6);
+
+        for (int i = 0; i < 4; i++) {
+            estimator.record(shanghai, suzhou, geodesic * 1.5);
+        }
+        // 样本不足时仍使用默认值
+        assertEquals(1.3, estimator.circuity(31.23, 121.47), 1e-9);
+
+        estimator.record(shanghai, suzhou, geodesic * 1.5);
+        assertEquals(1.5, estimator.circuity(31.23, 121.47), 1e-9);
+        // 同一区域中没有样本的网格使用区域的绕行系数
+        assertEquals(1.5, estimator.circuity(39.90, 116.40), 1e-9);
+        // 其他区域仍使用默认值
+        assertEquals(1.3, estimator.circuity(48.85, 2.35), 1e-9);
+    }
+
+    @Test
+    void shouldIgnoreShortAndAbnormalAnswers() {
+        Location origin = location(31.23, 121.47);
+        Location near = location(31.231, 121.471);
+        Location far = location(31.30, 120.58);
+        double geodesic = GeoMath.vincenty(31.23, 121.47, 31.30, 120.58);
+        for (int i = 0; i < 10; i++) {
+            estimator.record(origin, near, 5000);
+            estimator.record(origin, far, geodesic * 5);
+            estimator.record(origin, far, geodesic * 0.5);
+            estimator.record(origin, far, -1);
+        }
+        assertEquals(1.3, estimator.circuity(31.23, 121.47), 1e-9);
+    }
+
+    @Test
+    void shouldReturnCachedExactDistanceOrEstimateWhileRefining() {
+        AsyncMapService mapService = mock(AsyncMapService.class);
+        Location origin = location(31.23, 121.47);
+        Location destination = location(31.30, 120.58);
+        CompletableFuture<Double> pending = new CompletableFuture<>();
+        when(mapService.calculateDrivingDistanceAsync(origin, destination))
+                .thenReturn(CompletableFuture.completedFuture(98765.0))
+                .thenReturn(pending);
+
+        assertEquals(98765.0, estimator.estimateThenRefine(mapService, origin, destination), 0);
+        assertEquals(estimator.estimate(origin, destination), estimator.estimateThenRefine(mapService, origin, destination), 0);
+    }
+}
@@ -0,0 +1,167 @@
+package com.example.geoservice.service.hedge;
+
+import com.example.geoservice.config.MapServiceProperties;
+import com.example.geoservice.exception.MapServiceException;
+import com.example.geoservice.model.AddressInfo;
+import com.example.geoservice.service.ProviderOperation;
+import com.example.geoservice.service.impl.AbstractMapService;
+import com.example.geoservice.service.impl.BaiduMapService;
+import com.example.geoservice.service.impl.TencentMapService;
+import com.example.geoservice.service.ratelimit.RequestPriority;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class HedgingMapServiceTest {
+
+    private MapServiceProperties properties;
+    private BaiduMapService baiduMapService;
+    private TencentMapService tencentMapService;
+    private HedgingMapService hedgingMapService;
+
+    @BeforeEach
+    void setUp() {
+        properties = new MapServiceProperties();
+        properties.setProvider("baidu");
+        properties.getHedge().setSecondary("tencent");
+        properties.getHedge().setInitialDelay(Duration.ofMillis(20));
+        properties.getHedge().setMinDelay(Duration.ofMillis(20));
+        baiduMapService = mock(BaiduMapService.class);
+        tencentMapService = mock(TencentMapService.class);
+        when(baiduMapService.getProviderName()).thenReturn("baidu");
+        when(tencentMapService.getProviderName()).thenReturn("tencent");
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (hedgingMapService != null) {
+            hedgingMapService.destroy();
+        }
+    }
+
+    private HedgingMapService createService() {
+        List<AbstractMapService> providers = Arrays.asList(baiduMapService, tencentMapService);
+        hedgingMapService = new HedgingMapService(properties, providers, new SimpleMeterRegistry());
+        return hedgingMapService;
+    }
+
+    @Test
+    void shouldUseSecondaryWhenPrimaryIsSlow() throws IOException {
+        properties.getHedge().setBudgetRatio(1.0);
+        CompletableFuture<List<AddressInfo>> slow = new CompletableFuture<>();
+        List<AddressInfo> expected = Collections.singletonList(new AddressInfo());
+        when(baiduMapService.geocodeAddressAsync("北京")).thenReturn(slow);
+        when(tencentMapService.geocodeAddressAsync("北京")).thenReturn(CompletableFuture.completedFuture(expected));
+
+        List<AddressInfo> results = createService().geocodeAddress("北京");
+
+        assertSame(expected, results);
+        // 落后的主请求被取消
+        assertTrue(slow.isCancelled());
+    }
+
+    @Test
+    void shouldNotHedgeWhenBudgetIsExhausted() throws Exception {
+        properties.getHedge().setBudgetRatio(0.1);
+        CompletableFuture<Double> slow = new CompletableFuture<>();
+        when(baiduMapService.calculateDrivingDistanceAsync(null, null)).thenReturn(slow);
+
+        CompletableFuture<Double> result = createService().calculateDrivingDistanceAsync(null, null);
+        TimeUnit.MILLISECONDS.sleep(100);
+        assertFalse(result.isDone());
+        slow.complete(9500.0);
+
+        assertEquals(9500.0, result.get(1, TimeUnit.SECONDS));
+        verify(tencentMapService, never()).calculateDrivingDistanceAsync(null, null);
+    }
+
+    @Test
+    void shouldWaitForSecondaryWhenPrimaryFailsAfterHedging() throws Exception {
+        properties.getHedge().setBudgetRatio(1.0);
+        CompletableFuture<Double> primary = new CompletableFuture<>();
+        CompletableFuture<Double> secondary = new CompletableFuture<>();
+        when(baiduMapService.calculateDrivingDistanceAsync(null, null)).thenReturn(primary);
+        when(tencentMapService.calculateDrivingDistanceAsync(null, null)).thenReturn(secondary);
+
+        CompletableFuture<Double> result = createService().calculateDrivingDistanceAsync(null, null);
+        TimeUnit.MILLISECONDS.sleep(100);
+        primary.completeExceptionally(new IOException("timeout"));
+        assertFalse(result.isDone());
+        secondary.complete(9400.0);
+
+        assertEquals(9400.0, result.get(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void shouldLaunchSecondaryWithCallerPriority() throws Exception {
+        properties.getHedge().setBudgetRatio(1.0);
+        AtomicReference<RequestPriority> priority = new AtomicReference<>();
+        when(baiduMapService.calculateDrivingDistanceAsync(null, null)).thenReturn(new CompletableFuture<>());
+        when(tencentMapService.calculateDrivingDistanceAsync(null, null)).thenAnswer(invocation -> {
+            priority.set(RequestPriority.current());
+            return CompletableFuture.completedFuture(9400.0);
+        });
+        HedgingMapService service = createService();
+
+        CompletableFuture<Double> result = RequestPriority.with(RequestPriority.BULK,
+                () -> service.calculateDrivingDistanceAsync(null, null));
+
+        assertEquals(9400.0, result.get(1, TimeUnit.SECONDS));
+        assertEquals(RequestPriority.BULK, priority.get());
+    }
+
+    @Test
+    void shouldIgnoreLocalRejectionsInHedgeDelay() {
+        properties.getHedge().setBudgetRatio(0.1);
+        properties.getHedge().setWindowSize(10);
+        properties.getHedge().setInitialDelay(Duration.ofMillis(200));
+        properties.getHedge().setMinDelay(Duration.ofMillis(1));
+        HedgingMapService service = createService();
+
+        // 舱壁已满等本地拒绝几乎不耗时，不计入主服务商的耗时
+        for (int i = 0; i < 10; i++) {
+            CompletableFuture<Double> rejected = new CompletableFuture<>();
+            when(baiduMapService.calculateDrivingDistanceAsync(null, null)).thenReturn(rejected);
+            CompletableFuture<Double> result = service.calculateDrivingDistanceAsync(null, null);
+            rejected.completeExceptionally(new MapServiceException("baidu", null,
+                    MapServiceException.Reason.BULKHEAD_FULL, "服务商 baidu 并发调用数已满"));
+            assertTrue(result.isCompletedExceptionally());
+        }
+        assertEquals(200, service.hedgeDelayMillis(ProviderOperation.DISTANCE));
+
+        for (int i = 0; i < 10; i++) {
+            CompletableFuture<Double> fast = new CompletableFuture<>();
+            when(baiduMapService.calculateDrivingDistanceAsync(null, null)).thenReturn(fast);
+            CompletableFuture<Double> result = service.calculateDrivingDistanceAsync(null, null);
+            fast.complete(9500.0);
+            assertEquals(9500.0, result.join());
+        }
+        assertTrue(service.hedgeDelayMillis(ProviderOperation.DISTANCE) < 200);
+    }
+
+    @Test
+    void shouldRejectBudgetRatioAboveOne() {
+        properties.getHedge().setBudgetRatio(1.5);
+        assertThrows(IllegalArgumentException.class, this::createService);
+    }
+}
@@ -1,20 +1,50 @@
 package com.example.geoservice.service.impl;
 
+import com.example.geoservice.cache.DistanceCache;
 import com.example.geoservice.config.MapServiceProperties;
+import com.example.geoservice.exception.MapServiceException;
+import com.example.geoservice.geo.CoordinateSystem;
+import com.example.geoservice.model.AddressInfo;
 import com.example.geoservice.model.Location;
+import com.example.geoservice.model.RouteDistance;
+import com.example.geoservice.service.estimate.DistanceEstimator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.HttpUrl;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.same;
+import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.spy;
-import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -47,7 +77,7 @@ class BaiduMapServiceTest {
         destination.setLng(121.473);
         String mockResponse = "{\"status\": 0, \"message\": \"ok\", \"result\": {\"routes\": [{\"distance\": 1234.56}]}}";
 
-        doReturn(mockResponse).when(baiduMapService).executeRequest(any());
+        stubResponse(mockResponse);
 
         // When
         double distance = baiduMapService.calculateDrivingDistance(origin, destination);
@@ -56,6 +86,32 @@ class BaiduMapServiceTest {
         assertEquals(1234.56, distance, 0.01);
     }
 
+    @Test
+    void shouldSendGcj02CoordinatesForDrivingDistance() throws IOException {
+        // Given：起点为 GPS 坐标，终点未标明坐标系，按服务配置的 GCJ-02 处理
+        Location origin = new Location();
+        origin.setLat(39.915);
+        origin.setLng(116.404);
+        origin.setCoordinateSystem(CoordinateSystem.WGS84);
+        Location destination = new Location();
+        destination.setLat(31.230);
+        destination.setLng(121.473);
+        List<Request> requests = new ArrayList<>();
+        stubResponse(request -> {
+            requests.add(request);
+            return "{\"status\": 0, \"result\": {\"routes\": [{\"distance\": 1234.56}]}}";
+        });
+
+        // When
+        baiduMapService.calculateDrivingDistance(origin, destination);
+
+        // Then
+        HttpUrl url = requests.get(0).url();
+        assertEquals("gcj02", url.queryParameter("coord_type"));
+        assertEquals("39.916404,116.410244", url.queryParameter("origin"));
+        assertEquals("31.23,121.473", url.queryParameter("destination"));
+    }
+
     @Test
     void shouldThrowExceptionWhenApiReturnsError() throws IOException {
         // Given
@@ -67,11 +123,278 @@ class BaiduMapServiceTest {
         destination.setLng(121.473);
         String mockResponse = "{\"status\": 1, \"message\": \"error message\"}";
 
-        doReturn(mockResponse).when(baiduMapService).executeRequest(any());
+        stubResponse(mockResponse);
 
         // When & Then
         RuntimeException exception = assertThrows(RuntimeException.class,
                 () -> baiduMapService.calculateDrivingDistance(origin, destination));
         assertEquals("API调用失败: error message", exception.getMessage());
     }
-}
\ No newline at end of file
+
+    @Test
+    void shouldClassifyQuotaExceededAsNotRetryable() throws IOException {
+        // Given
+        String mockResponse = "{\"status\": 302, \"message\": \"天配额超限，限制访问\"}";
+
+        stubResponse(mockResponse);
+
+        // When & Then
+        MapServiceException exception = assertThrows(MapServiceException.class,
+                () -> baiduMapService.geocodeAddress("北京市东城区"));
+        assertEquals(MapServiceException.Reason.QUOTA_EXCEEDED, exception.getReason());
+        assertEquals("302", exception.getStatus());
+        assertFalse(exception.isRetryable());
+    }
+
+    @Test
+    void shouldParseGeocodeResponseSkippingUnknownFields() throws IOException {
+        // Given
+        String mockResponse = "{\"result\": {\"location\": {\"lng\": 116.404, \"lat\": 39.915},"
+                + " \"precise\": 1, \"confidence\": 80, \"formatted_address\": \"北京市东城区\","
+                + " \"addressComponent\": {\"province\": \"北京市\", \"city\": \"北京市\"}},"
+                + " \"extra\": [{\"nested\": [1, 2, {\"deep\": true}]}], \"status\": 0}";
+
+        stubResponse(mockResponse);
+
+        // When
+        List<AddressInfo> results = baiduMapService.geocodeAddress("北京市东城区");
+
+        // Then
+        assertEquals(1, results.size());
+        assertEquals(39.915, results.get(0).getLatitude(), 1e-9);
+        assertEquals(116.404, results.get(0).getLongitude(), 1e-9);
+        assertEquals("北京市", results.get(0).getProvince());
+        assertEquals("北京市东城区", results.get(0).getFormattedAddress());
+        assertEquals(CoordinateSystem.GCJ02, results.get(0).getCoordinateSystem());
+    }
+
+    @Test
+    void shouldReverseGeocodeInGcj02() throws IOException {
+        // Given
+        Location location = new Location();
+        location.setLat(39.915);
+        location.setLng(116.404);
+        String mockResponse = "{\"status\": 0, \"result\": {\"location\": {\"lng\": 116.404, \"lat\": 39.915},"
+                + " \"formatted_address\": \"北京市东城区东华门街道\", \"pois\": [],"
+                + " \"addressComponent\": {\"province\": \"北京市\", \"district\": \"东城区\"}}}";
+        List<Request> requests = new ArrayList<>();
+        stubResponse(request -> {
+            requests.add(request);
+            return mockResponse;
+        });
+
+        // When
+        List<AddressInfo> results = baiduMapService.reverseGeocode(location);
+
+        // Then
+        assertEquals("39.915,116.404", requests.get(0).url().queryParameter("location"));
+        assertEquals("gcj02ll", requests.get(0).url().queryParameter("coordtype"));
+        assertEquals(1, results.size());
+        assertEquals("东城区", results.get(0).getDistrict());
+        assertEquals("北京市东城区东华门街道", results.get(0).getFormattedAddress());
+        assertEquals(1.0, results.get(0).getConfidence(), 1e-9);
+    }
+
+    @Test
+    void shouldSplitDistanceMatrixIntoChunks() throws IOException {
+        // Given
+        baiduProperties.setMatrix(new MapServiceProperties.MatrixProperties(2, 2, 4));
+        List<Location> origins = new ArrayList<>();
+        List<Location> destinations = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            Location origin = new Location();
+            origin.setLat(i);
+            origins.add(origin);
+            Location destination = new Location();
+            destination.setLng(i);
+            destinations.add(destination);
+        }
+        AtomicInteger requests = new AtomicInteger();
+
+        // 模拟百度批量算路接口：距离 = 起点纬度 * 100 + 终点经度
+        stubResponse(request -> {
+            requests.incrementAndGet();
+            HttpUrl url = request.url();
+            StringBuilder result = new StringBuilder();
+            for (String origin : url.queryParameter("origins").split("\\|")) {
+                for (String destination : url.queryParameter("destinations").split("\\|")) {
+                    double value = Double.parseDouble(origin.split(",")[0]) * 100 + Double.parseDouble(destination.split(",")[1]);
+                    result.append(result.length() == 0 ? "" : ",").append("{\"distance\": {\"value\": ").append(value).append("}}");
+                }
+            }
+            return "{\"status\": 0, \"result\": [" + result + "]}";
+        });
+
+        // When
+        double[][] matrix = baiduMapService.calculateDistanceMatrix(origins, destinations);
+
+        // Then
+        assertEquals(4, requests.get());
+        for (int i = 0; i < 3; i++) {
+            for (int j = 0; j < 3; j++) {
+                assertEquals(i * 100 + j, matrix[i][j], 0.01);
+            }
+        }
+    }
+
+    @Test
+    void shouldSplitLongRouteIntoWaypointRequests() throws IOException {
+        // Given：6 个位置共 5 段，每次请求最多 2 个途经点即 3 段
+        baiduProperties.setMaxWaypoints(2);
+        List<Location> waypoints = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            Location waypoint = new Location();
+            waypoint.setLat(i);
+            waypoints.add(waypoint);
+        }
+        List<String> requested = new ArrayList<>();
+
+        // 模拟百度驾车路线规划接口：每段拆为两个路段，分段距离 = 分段起点纬度 * 1000 + 500
+        stubResponse(request -> {
+            HttpUrl url = request.url();
+            String waypointParameter = url.queryParameter("waypoints");
+            List<String> points = new ArrayList<>();
+            points.add(url.queryParameter("origin"));
+            if (waypointParameter != null) {
+                points.addAll(Arrays.asList(waypointParameter.split("\\|")));
+            }
+            points.add(url.queryParameter("destination"));
+            synchronized (requested) {
+                requested.add(String.join("|", points));
+            }
+            StringBuilder steps = new StringBuilder();
+            for (int leg = 0; leg < points.size() - 1; leg++) {
+                double half = (Double.parseDouble(points.get(leg).split(",")[0]) * 1000 + 500) / 2;
+                for (int k = 0; k < 2; k++) {
+                    steps.append(steps.length() == 0 ? "" : ",")
+                            .append("{\"leg_index\": ").append(leg).append(", \"distance\": ").append(half).append("}");
+                }
+            }
+            return "{\"status\": 0, \"result\": {\"routes\": [{\"steps\": [" + steps + "]}]}}";
+        });
+
+        // When
+        RouteDistance route = baiduMapService.calculateRouteDistance(waypoints);
+
+        // Then：首尾相接拆分为两次请求
+        assertEquals(2, requested.size());
+        assertTrue(requested.contains("0,0|1,0|2,0|3,0"));
+        assertTrue(requested.contains("3,0|4,0|5,0"));
+        assertEquals(5, route.getLegs().length);
+        for (int i = 0; i < 5; i++) {
+            assertEquals(i * 1000 + 500, route.getLegs()[i], 0.01);
+        }
+        assertEquals(12500, route.getDistance(), 0.01);
+        assertThrows(IllegalArgumentException.class,
+                () -> baiduMapService.calculateRouteDistance(waypoints.subList(0, 1)));
+    }
+
+    @Test
+    void shouldLearnCircuityInServiceCoordinates() throws IOException {
+        // Given：服务使用 WGS-84，百度请求使用 GCJ-02
+        when(properties.getCoordinateSystem()).thenReturn(CoordinateSystem.WGS84);
+        baiduMapService = spy(new BaiduMapService(properties));
+        DistanceEstimator distanceEstimator = mock(DistanceEstimator.class);
+        baiduMapService.setDistanceEstimator(distanceEstimator);
+        List<Location> waypoints = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            Location waypoint = new Location();
+            waypoint.setLat(31.23 + i * 0.01);
+            waypoint.setLng(121.47);
+            waypoints.add(waypoint);
+        }
+        stubResponse(request -> {
+            String url = request.url().toString();
+            if (url.contains("routematrix")) {
+                return "{\"status\": 0, \"result\": [{\"distance\": {\"value\": 1500}}]}";
+            }
+            return "{\"status\": 0, \"result\": {\"routes\": [{\"steps\": ["
+                    + "{\"leg_index\": 0, \"distance\": 1200}, {\"leg_index\": 1, \"distance\": 1300}]}]}}";
+        });
+
+        // When
+        baiduMapService.calculateRouteDistance(waypoints);
+        baiduMapService.calculateDistanceMatrix(waypoints.subList(0, 1), waypoints.subList(2, 3));
+
+        // Then：学习使用请求中原始的服务坐标，而不是转换后的百度请求坐标
+        verify(distanceEstimator).record(same(waypoints.get(0)), same(waypoints.get(1)), eq(1200.0));
+        verify(distanceEstimator).record(same(waypoints.get(1)), same(waypoints.get(2)), eq(1300.0));
+        verify(distanceEstimator).record(same(waypoints.get(0)), same(waypoints.get(2)), eq(1500.0));
+    }
+
+    @Test
+    void shouldCancelHttpCallWhenAsyncDistanceIsCancelled() {
+        // Given
+        Call call = mockAsyncCall();
+
+        // When
+        CompletableFuture<Double> future = baiduMapService.calculateDrivingDistanceAsync(
+                location(39.915, 116.404), location(31.230, 121.473));
+        verify(call).enqueue(any());
+        future.cancel(true);
+
+        // Then
+        verify(call).cancel();
+        assertTrue(future.isCancelled());
+    }
+
+    @Test
+    void shouldCacheAsyncDistanceWhenResponseArrives() throws IOException {
+        // Given
+        DistanceCache distanceCache = new DistanceCache(new MapServiceProperties());
+        baiduMapService.setDistanceCache(distanceCache);
+        Call call = mockAsyncCall();
+        ArgumentCaptor<Callback> callback = ArgumentCaptor.forClass(Callback.class);
+        Location origin = location(39.915, 116.404);
+        Location destination = location(31.230, 121.473);
+
+        // When
+        CompletableFuture<Double> future = baiduMapService.calculateDrivingDistanceAsync(origin, destination);
+        verify(call).enqueue(callback.capture());
+        assertFalse(future.isDone());
+        callback.getValue().onResponse(call, new Response.Builder()
+                .request(new Request.Builder().url("https://api.map.baidu.com").build())
+                .protocol(Protocol.HTTP_1_1)
+                .code(200)
+                .message("OK")
+                .body(ResponseBody.create("{\"status\": 0, \"result\": {\"routes\": [{\"distance\": 1234.56}]}}",
+                        MediaType.get("application/json")))
+                .build());
+
+        // Then
+        assertEquals(1234.56, future.join(), 0.01);
+        assertEquals(1234.56, distanceCache.getIfPresent(baiduMapService.getProviderName(), origin, destination), 0.01);
+        // 再次请求直接从缓存返回，不再发起HTTP调用
+        assertEquals(1234.56, baiduMapService.calculateDrivingDistanceAsync(origin, destination).join(), 0.01);
+        verify(call).enqueue(any());
+    }
+
+    private Call mockAsyncCall() {
+        OkHttpClient httpClient = mock(OkHttpClient.class);
+        Call call = mock(Call.class);
+        when(httpClient.newCall(any())).thenReturn(call);
+        baiduMapService.setHttpClient(httpClient);
+        return call;
+    }
+
+    private static Location location(double lat, double lng) {
+        Location location = new Location();
+        location.setLat(lat);
+        location.setLng(lng);
+        return location;
+    }
+
+    private void stubResponse(String mockResponse) throws IOException {
+        stubResponse(request -> mockResponse);
+    }
+
+    private void stubResponse(Function<Request, String> responder) throws IOException {
+        doAnswer(invocation -> {
+            ResponseParser<?> parser = invocation.getArgument(2);
+            String mockResponse = responder.apply(invocation.getArgument(1));
+            try (JsonParser jsonParser = new ObjectMapper().getFactory().createParser(mockResponse)) {
+                return parser.parse(jsonParser);
+            }
+        }).when(baiduMapService).executeRequest(any(), any(), any());
+    }
+}
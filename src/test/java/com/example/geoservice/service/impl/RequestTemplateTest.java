@@ -0,0 +1,78 @@
+package com.example.geoservice.service.impl;
+
+import com.example.geoservice.config.MapServiceProperties;
+import com.example.geoservice.model.Location;
+import okhttp3.HttpUrl;
+import okhttp3.Request;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class RequestTemplateTest {
+
+    @Test
+    void shouldFormatCoordinatesWithAtMostSixDecimals() {
+        assertEquals("39.916404", format(39.91640428150164));
+        assertEquals("31.23", format(31.23));
+        assertEquals("120", format(120.0));
+        assertEquals("-33.856785", format(-33.8567845));
+        assertEquals("0.000001", format(0.0000005));
+        assertEquals("0", format(-0.0000001));
+        assertEquals("NaN", format(Double.NaN));
+    }
+
+    @Test
+    void shouldBuildSameParametersAsParsingEachRequest() {
+        RequestTemplate template = new RequestTemplate("https://api.map.baidu.com", "/routematrix/v2/driving",
+                "ak", "key with space", "output", "json");
+        HttpUrl url = template.newUrl()
+                .addEncodedQueryParameter("origins",
+                        RequestTemplate.locations(Arrays.asList(location(39.915, 116.404), location(31.23, 121.473)),
+                                RequestTemplate.PIPE))
+                .build();
+
+        HttpUrl expected = HttpUrl.get("https://api.map.baidu.com/routematrix/v2/driving").newBuilder()
+                .addQueryParameter("ak", "key with space")
+                .addQueryParameter("output", "json")
+                .addQueryParameter("origins", "39.915,116.404|31.23,121.473")
+                .build();
+        assertEquals(expected, url);
+        assertThrows(IllegalArgumentException.class, () -> new RequestTemplate("api.map.baidu.com", "/geocoding/v3"));
+    }
+
+    @Test
+    void shouldSignExactlyTheUrlThatIsSent() throws Exception {
+        MapServiceProperties properties = new MapServiceProperties();
+        properties.getTencent().setApiKey("test-key");
+        properties.getTencent().setSecretKey("test-secret");
+        TencentMapService service = new TencentMapService(properties);
+
+        Request request = service.buildGeocodeRequest("北京市朝阳区建国路88号");
+        String url = request.url().toString();
+        String unsigned = url.substring(0, url.lastIndexOf("&sig="));
+        byte[] digest = MessageDigest.getInstance("MD5").digest((unsigned + "test-secret").getBytes(StandardCharsets.UTF_8));
+        StringBuilder expected = new StringBuilder();
+        for (byte b : digest) {
+            expected.append(String.format("%02x", b));
+        }
+        assertEquals(expected.toString(), request.url().queryParameter("sig"));
+    }
+
+    private static String format(double value) {
+        StringBuilder result = new StringBuilder();
+        RequestTemplate.appendCoordinate(result, value);
+        return result.toString();
+    }
+
+    private static Location location(double lat, double lng) {
+        Location location = new Location();
+        location.setLat(lat);
+        location.setLng(lng);
+        return location;
+    }
+}
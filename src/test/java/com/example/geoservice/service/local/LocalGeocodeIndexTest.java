@@ -0,0 +1,70 @@
+package com.example.geoservice.service.local;
+
+import com.example.geoservice.model.AddressInfo;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LocalGeocodeIndexTest {
+
+    @TempDir
+    Path directory;
+
+    private LocalGeocodeIndex index;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        Path csv = directory.resolve("gazetteer.csv");
+        Files.write(csv, Arrays.asList(
+                "latitude,longitude,address,addr:province,addr:city,addr:district,pinyin",
+                "39.9219,116.4436,北京市朝阳区朝阳门外大街,北京市,北京市,朝阳区,Beijing Chaoyang Chaoyangmenwai Dajie",
+                "31.2304,121.4737,上海市黄浦区人民大道200号,上海市,上海市,黄浦区,Shanghai Huangpu Renmin Dadao",
+                "not-a-number,121.0,无效坐标,,,,",
+                "22.5431,114.0579,,广东省,深圳市,福田区,\"Shenzhen, Futian\""), StandardCharsets.UTF_8);
+        Path file = directory.resolve("geocode.idx");
+        assertEquals(3, LocalIndexBuilder.build(csv, file));
+        index = LocalGeocodeIndex.open(file);
+    }
+
+    @Test
+    void shouldMatchExactAddressWithFullConfidence() {
+        List<AddressInfo> results = index.search("上海市黄浦区人民大道200号", 5, 0.3);
+
+        AddressInfo best = results.get(0);
+        assertEquals(1.0, best.getConfidence(), 1e-9);
+        assertEquals(31.2304, best.getLatitude(), 1e-9);
+        assertEquals(121.4737, best.getLongitude(), 1e-9);
+        assertEquals("上海市", best.getProvince());
+        assertEquals("黄浦区", best.getDistrict());
+        assertNull(best.getStreet());
+    }
+
+    @Test
+    void shouldRankPartialAndPinyinMatches() {
+        AddressInfo partial = index.search("北京朝阳", 5, 0.3).get(0);
+        assertEquals("北京市朝阳区朝阳门外大街", partial.getFormattedAddress());
+        assertTrue(partial.getConfidence() < 1.0);
+
+        AddressInfo pinyin = index.search("SHENZHEN futian", 5, 0.3).get(0);
+        assertEquals("广东省深圳市福田区", pinyin.getFormattedAddress());
+        assertEquals(1.0, pinyin.getConfidence(), 1e-9);
+    }
+
+    @Test
+    void shouldReturnNothingBelowMinimumConfidence() {
+        assertTrue(index.search("纽约第五大道", 5, 0.3).isEmpty());
+        assertTrue(index.search("上海", 5, 0.9).isEmpty());
+        assertEquals(1, index.search("上海市黄浦区人民大道200号", 1, 0).size());
+    }
+}
@@ -0,0 +1,134 @@
+package com.example.geoservice.service.local;
+
+import com.example.geoservice.model.AddressInfo;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LocalReverseGeocoderTest {
+
+    @TempDir
+    Path directory;
+
+    private LocalGeocodeIndex index;
+    private BoundaryIndex boundaries;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        Path csv = directory.resolve("poi.csv");
+        Files.write(csv, Arrays.asList(
+                "lat,lng,address,street",
+                "31.2304,121.4737,人民大道200号,人民大道",
+                "31.2310,121.4737,人民大道201号,人民大道",
+                "31.2400,121.4900,南京东路1号,南京东路"), StandardCharsets.UTF_8);
+        Path file = directory.resolve("geocode.idx");
+        LocalIndexBuilder.build(csv, file);
+        index = LocalGeocodeIndex.open(file);
+
+        // 上海市覆盖 121-122E、31-32N，黄浦区在其中并挖去一个洞；
+        // 另一个 MULTIPOLYGON 只有省级名称
+        Path boundaryCsv = directory.resolve("boundary.csv");
+        Files.write(boundaryCsv, Arrays.asList(
+                "province,city,district,wkt",
+                "上海市,上海市,,\"POLYGON ((121 31, 122 31, 122 32, 121 32, 121 31))\"",
+                "上海市,上海市,黄浦区,\"POLYGON ((121.4 31.2, 121.5 31.2, 121.5 31.3, 121.4 31.3, 121.4 31.2),"
+                        + " (121.45 31.25, 121.46 31.25, 121.46 31.26, 121.45 31.26, 121.45 31.25))\"",
+                "浙江省,,,\"MULTIPOLYGON (((120 29, 121 29, 121 30, 120 30, 120 29)), ((122 29, 123 29, 123 30, 122 29)))\"",
+                "无效,,,POINT (1 2)"), StandardCharsets.UTF_8);
+        boundaries = BoundaryIndex.load(boundaryCsv);
+    }
+
+    @Test
+    void shouldReturnNearestAddressWithDistanceBasedConfidence() {
+        LocalReverseGeocoder geocoder = new LocalReverseGeocoder(index, boundaries, 100);
+
+        List<AddressInfo> exact = geocoder.reverseGeocode(31.2304, 121.4737);
+        assertEquals("人民大道200号", exact.get(0).getFormattedAddress());
+        assertEquals(1.0, exact.get(0).getConfidence(), 1e-3);
+        // 地址记录没有行政区划，由所在边界补全
+        assertEquals("黄浦区", exact.get(0).getDistrict());
+
+        // 约 44 米外，更接近 201 号
+        AddressInfo near = geocoder.reverseGeocode(31.2314, 121.4737).get(0);
+        assertEquals("人民大道201号", near.getFormattedAddress());
+        assertTrue(near.getConfidence() < 1.0 && near.getConfidence() > 0.7, String.valueOf(near.getConfidence()));
+    }
+
+    @Test
+    void shouldFallBackToMostSpecificBoundary() {
+        LocalReverseGeocoder geocoder = new LocalReverseGeocoder(index, boundaries, 100);
+
+        AddressInfo district = geocoder.reverseGeocode(31.21, 121.41).get(0);
+        assertEquals("上海市黄浦区", district.getFormattedAddress());
+        assertEquals(LocalReverseGeocoder.BOUNDARY_CONFIDENCE, district.getConfidence(), 1e-9);
+        assertNull(district.getStreet());
+
+        // 落在黄浦区的洞中，只属于上海市
+        assertEquals("上海市", geocoder.reverseGeocode(31.255, 121.455).get(0).getFormattedAddress());
+        // MULTIPOLYGON 的第二部分
+        assertEquals("浙江省", geocoder.reverseGeocode(29.2, 122.5).get(0).getProvince());
+    }
+
+    @Test
+    void shouldReturnNothingOutsideDataCoverage() {
+        LocalReverseGeocoder geocoder = new LocalReverseGeocoder(index, boundaries, 100);
+        assertTrue(geocoder.reverseGeocode(40.0, 116.0).isEmpty());
+        assertEquals(3, boundaries.size());
+
+        LocalReverseGeocoder withoutBoundaries = new LocalReverseGeocoder(index, null, 100);
+        assertTrue(withoutBoundaries.reverseGeocode(31.21, 121.41).isEmpty());
+        assertEquals("南京东路1号", withoutBoundaries.reverseGeocode(31.2401, 121.4901).get(0).getFormattedAddress());
+    }
+
+    @Test
+    void shouldMatchFullScanOnDetailedBoundary() throws IOException {
+        // 2000 个顶点的星形边界，边按纬度条带登记后，与逐条检查所有边的结果一致
+        Random random = new Random(42);
+        int count = 2000;
+        float[] xs = new float[count];
+        float[] ys = new float[count];
+        StringBuilder wkt = new StringBuilder("\"POLYGON ((");
+        for (int i = 0; i <= count; i++) {
+            int k = i % count;
+            if (i < count) {
+                double angle = 2 * Math.PI * i / count;
+                double radius = 0.5 + 0.4 * random.nextDouble();
+                xs[k] = (float) (120.5 + radius * Math.cos(angle));
+                ys[k] = (float) (30.5 + radius * Math.sin(angle));
+            }
+            wkt.append(i == 0 ? "" : ", ").append(xs[k]).append(' ').append(ys[k]);
+        }
+        wkt.append("))\"");
+        Path boundaryCsv = directory.resolve("star.csv");
+        Files.write(boundaryCsv, Arrays.asList("province,wkt", "浙江省," + wkt), StandardCharsets.UTF_8);
+        BoundaryIndex star = BoundaryIndex.load(boundaryCsv);
+
+        for (int i = 0; i < 10000; i++) {
+            double lat = 29.9 + 1.2 * random.nextDouble();
+            double lng = 119.9 + 1.2 * random.nextDouble();
+            assertEquals(fullScan(xs, ys, lng, lat) ? 0 : -1, star.find(lat, lng), lat + "," + lng);
+        }
+    }
+
+    private static boolean fullScan(float[] xs, float[] ys, double x, double y) {
+        boolean inside = false;
+        for (int i = 0, j = xs.length - 1; i < xs.length; j = i++) {
+            if ((ys[i] > y) != (ys[j] > y) && x < (xs[j] - xs[i]) * (y - ys[i]) / (ys[j] - ys[i]) + xs[i]) {
+                inside = !inside;
+            }
+        }
+        return inside;
+    }
+}
@@ -0,0 +1,209 @@
+package com.example.geoservice.service.local;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RoadGraphTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void shouldRespectOnewayAndSkipNonDrivableRoads() throws IOException {
+        // A(0) - B(1) 双向 1000 米，B -> C 单行 1000 米，A - C 双向 2500 米；人行道不进入道路网络，E - F 与其余道路不连通
+        Path csv = directory.resolve("roads.csv");
+        Files.write(csv, Arrays.asList(
+                "from_lat,from_lon,to_lat,to_lon,length,oneway,highway",
+                "30.0,120.0,30.0,120.01,1000,,residential",
+                "30.0,120.01,30.0,120.02,1000,yes,primary",
+                "30.0,120.02,30.0,120.0,2500,no,primary",
+                "30.0,120.01,30.01,120.01,100,,footway",
+                "31.0,121.0,31.0,121.001,,,",
+                "invalid,120.0,30.0,120.0,100,,"), StandardCharsets.UTF_8);
+        Path file = directory.resolve("road.graph");
+        assertEquals(5, RoadGraphBuilder.build(csv, file));
+        RoadGraph graph = RoadGraph.open(file);
+
+        int a = graph.nearest(30.0, 120.0, 10).getId();
+        int b = graph.nearest(30.0, 120.01, 10).getId();
+        int c = graph.nearest(30.0, 120.02, 10).getId();
+        int e = graph.nearest(31.0, 121.0, 10).getId();
+        assertEquals(2000, graph.distance(a, c), 1e-9);
+        assertEquals(2500, graph.distance(c, a), 1e-9);
+        assertEquals(3500, graph.distance(c, b), 1e-9);
+        assertEquals(0, graph.distance(b, b), 1e-9);
+        assertEquals(-1, graph.distance(a, e), 1e-9);
+        // 未给出长度时按测地线距离计算，约 95 米
+        assertEquals(95.3, graph.distance(e, graph.nearest(31.0, 121.001, 10).getId()), 0.1);
+        // 人行道的端点不是路口
+        assertNull(graph.nearest(30.01, 120.01, 100));
+
+        double[][] matrix = graph.distances(new int[]{a, c}, new int[]{b, c, e});
+        assertArrayEquals(new double[]{1000, 2000, -1}, matrix[0], 1e-9);
+        assertArrayEquals(new double[]{3500, 0, -1}, matrix[1], 1e-9);
+    }
+
+    @Test
+    void shouldMatchDijkstraOnRandomNetwork() throws IOException {
+        // 20 x 20 的网格，随机删除部分道路并设置单行，逐对与原始网络上的 Dijkstra 结果比较
+        int width = 20;
+        int size = width * width;
+        Random random = new Random(42);
+        List<List<int[]>> edges = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            edges.add(new ArrayList<>());
+        }
+        List<String> lines = new ArrayList<>();
+        lines.add("from_lat,from_lng,to_lat,to_lng,length,oneway");
+        for (int y = 0; y < width; y++) {
+            for (int x = 0; x < width; x++) {
+                for (int[] next : new int[][]{{x + 1, y}, {x, y + 1}}) {
+                    if (next[0] >= width || next[1] >= width || random.nextInt(10) == 0) {
+                        continue;
+                    }
+                    int from = y * width + x;
+                    int to = next[1] * width + next[0];
+                    int length = 100 + random.nextInt(900);
+                    int oneway = random.nextInt(5);
+                    lines.add(lat(y) + "," + lng(x) + "," + lat(next[1]) + "," + lng(next[0]) + "," + length + ","
+                            + (oneway == 0 ? "yes" : oneway == 1 ? "-1" : ""));
+                    if (oneway != 1) {
+                        edges.get(from).add(new int[]{to, length * 10});
+                    }
+                    if (oneway != 0) {
+                        edges.get(to).add(new int[]{from, length * 10});
+                    }
+                }
+            }
+        }
+        Path csv = directory.resolve("grid.csv");
+        Files.write(csv, lines, StandardCharsets.UTF_8);
+        Path file = directory.resolve("grid.graph");
+        RoadGraphBuilder.build(csv, file);
+        RoadGraph graph = RoadGraph.open(file);
+
+        int[] nodes = new int[size];
+        for (int y = 0; y < width; y++) {
+            for (int x = 0; x < width; x++) {
+                PointGrid.Neighbor nearest = graph.nearest(lat(y), lng(x), 1);
+                nodes[y * width + x] = nearest == null ? -1 : nearest.getId();
+            }
+        }
+        int[] sources = new int[10];
+        int[] targets = new int[size];
+        long[][] expected = new long[sources.length][];
+        for (int i = 0; i < sources.length; i++) {
+            sources[i] = random.nextInt(size);
+            expected[i] = dijkstra(edges, sources[i]);
+        }
+        for (int i = 0; i < size; i++) {
+            targets[i] = i;
+        }
+        double[][] matrix = graph.distances(map(sources, nodes), map(targets, nodes));
+        for (int i = 0; i < sources.length; i++) {
+            for (int target = 0; target < size; target++) {
+                if (nodes[sources[i]] < 0 || nodes[target] < 0) {
+                    continue;
+                }
+                double distance = expected[i][target] == Long.MAX_VALUE ? -1 : expected[i][target] / 10.0;
+                assertEquals(distance, graph.distance(nodes[sources[i]], nodes[target]), 1e-9);
+                assertEquals(distance, matrix[i][target], 1e-9);
+            }
+        }
+    }
+
+    @Test
+    void shouldKeepAtMostOneIdleSearchPerCore() throws Exception {
+        Path csv = directory.resolve("line.csv");
+        Files.write(csv, Arrays.asList(
+                "from_lat,from_lng,to_lat,to_lng,length,oneway",
+                "30.0,120.0,30.0,120.01,1000,",
+                "30.0,120.01,30.0,120.02,1000,"), StandardCharsets.UTF_8);
+        Path file = directory.resolve("line.graph");
+        RoadGraphBuilder.build(csv, file);
+        RoadGraph graph = RoadGraph.open(file);
+        int a = graph.nearest(30.0, 120.0, 10).getId();
+        int c = graph.nearest(30.0, 120.02, 10).getId();
+
+        // 并发查询数远超 CPU 核数，查询结束后空闲的工作区不超过核数
+        int threads = Runtime.getRuntime().availableProcessors() * 4;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            CyclicBarrier barrier = new CyclicBarrier(threads);
+            List<Future<Double>> results = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                results.add(executor.submit(() -> {
+                    barrier.await();
+                    return graph.distance(a, c);
+                }));
+            }
+            for (Future<Double> result : results) {
+                assertEquals(2000, result.get(), 1e-9);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertTrue(graph.idleSearches() <= Runtime.getRuntime().availableProcessors());
+    }
+
+    private static double lat(int y) {
+        return 30 + y * 0.001;
+    }
+
+    private static double lng(int x) {
+        return 120 + x * 0.001;
+    }
+
+    /**
+     * 被删除道路孤立的网格点不在道路网络中，以第 0 个路口代替，比较时跳过
+     */
+    private static int[] map(int[] points, int[] nodes) {
+        int[] result = new int[points.length];
+        for (int i = 0; i < points.length; i++) {
+            result[i] = Math.max(0, nodes[points[i]]);
+        }
+        return result;
+    }
+
+    private static long[] dijkstra(List<List<int[]>> edges, int source) {
+        long[] distances = new long[edges.size()];
+        Arrays.fill(distances, Long.MAX_VALUE);
+        distances[source] = 0;
+        PriorityQueue<long[]> queue = new PriorityQueue<>((x, y) -> Long.compare(x[0], y[0]));
+        queue.add(new long[]{0, source});
+        while (!queue.isEmpty()) {
+            long[] entry = queue.poll();
+            int node = (int) entry[1];
+            if (entry[0] > distances[node]) {
+                continue;
+            }
+            for (int[] edge : edges.get(node)) {
+                long candidate = entry[0] + edge[1];
+                if (candidate < distances[edge[0]]) {
+                    distances[edge[0]] = candidate;
+                    queue.add(new long[]{candidate, edge[0]});
+                }
+            }
+        }
+        return distances;
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.geoservice.service.local;
+
+import com.example.geoservice.config.MapServiceProperties;
+import com.example.geoservice.geo.CoordinateSystem;
+import com.example.geoservice.model.AddressInfo;
+import com.example.geoservice.model.Location;
+import com.example.geoservice.service.impl.BaiduMapService;
+import com.example.geoservice.service.impl.GoogleMapService;
+import com.example.geoservice.service.impl.TencentMapService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class RoadMapServiceTest {
+
+    @TempDir
+    Path directory;
+
+    private MapServiceProperties properties;
+    private GoogleMapService googleMapService;
+    private TencentMapService tencentMapService;
+    private BaiduMapService baiduMapService;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        Path csv = directory.resolve("roads.csv");
+        Files.write(csv, Arrays.asList(
+                "from_lat,from_lng,to_lat,to_lng,length,oneway",
+                "30.0,120.0,30.0,120.01,1000,"), StandardCharsets.UTF_8);
+        properties = new MapServiceProperties();
+        properties.setCoordinateSystem(CoordinateSystem.WGS84);
+        properties.getRoad().setImportFile(csv.toString());
+        properties.getRoad().setGraphFile(directory.resolve("road.graph").toString());
+        googleMapService = mock(GoogleMapService.class);
+        tencentMapService = mock(TencentMapService.class);
+        baiduMapService = mock(BaiduMapService.class);
+    }
+
+    @Test
+    void shouldDelegateGeocodingToConfiguredProvider() throws IOException {
+        properties.getRoad().setGeocodingProvider("Baidu");
+        RoadMapService service = create(Optional.empty());
+        List<AddressInfo> addresses = Collections.singletonList(new AddressInfo());
+        Location location = location(30.0, 120.0);
+        when(baiduMapService.geocodeAddress("杭州市西湖区")).thenReturn(addresses);
+        when(baiduMapService.reverseGeocodeAsync(location)).thenReturn(CompletableFuture.completedFuture(addresses));
+
+        assertSame(addresses, service.geocodeAddress("杭州市西湖区"));
+        assertSame(addresses, service.reverseGeocodeAsync(location).join());
+        // 驾车距离仍在本地道路网络上计算
+        assertEquals(1000, service.calculateDrivingDistance(location, location(30.0, 120.01)), 1);
+        verifyNoInteractions(googleMapService, tencentMapService);
+    }
+
+    @Test
+    void shouldDelegateGeocodingToLocalIndex() throws IOException {
+        properties.getRoad().setGeocodingProvider(LocalMapService.PROVIDER_NAME);
+        LocalMapService localMapService = mock(LocalMapService.class);
+        List<AddressInfo> addresses = Collections.singletonList(new AddressInfo());
+        when(localMapService.geocodeAddress("杭州市西湖区")).thenReturn(addresses);
+
+        assertSame(addresses, create(Optional.of(localMapService)).geocodeAddress("杭州市西湖区"));
+    }
+
+    @Test
+    void shouldFailStartupWithoutGeocodingProvider() {
+        properties.getRoad().setGeocodingProvider(LocalMapService.PROVIDER_NAME);
+        assertThrows(IllegalStateException.class, () -> create(Optional.empty()));
+
+        properties.getRoad().setGeocodingProvider(RoadMapService.PROVIDER_NAME);
+        assertThrows(IllegalStateException.class, () -> create(Optional.empty()));
+    }
+
+    private RoadMapService create(Optional<LocalMapService> localMapService) throws IOException {
+        return new RoadMapService(properties, new SimpleMeterRegistry(),
+                googleMapService, tencentMapService, baiduMapService, localMapService);
+    }
+
+    private static Location location(double lat, double lng) {
+        Location location = new Location();
+        location.setLat(lat);
+        location.setLng(lng);
+        return location;
+    }
+}
@@ -0,0 +1,99 @@
+package com.example.geoservice.service.nearby;
+
+import com.example.geoservice.geo.GeoMath;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LocationIndexTest {
+
+    @Test
+    void shouldMatchLinearScanAfterIncrementalUpdates() {
+        // 密集的城市区域和稀疏的全国范围混合，随机写入、移动和删除后与逐个计算距离的结果比较
+        Random random = new Random(42);
+        LocationIndex index = new LocationIndex();
+        Map<String, double[]> expected = new HashMap<>();
+        for (int round = 0; round < 3000; round++) {
+            String id = "d" + random.nextInt(1500);
+            if (random.nextInt(5) == 0) {
+                assertEquals(expected.remove(id) != null, index.remove(id));
+            } else {
+                double[] point = random.nextBoolean()
+                        ? new double[]{31.2 + random.nextDouble() * 0.3, 121.3 + random.nextDouble() * 0.3}
+                        : new double[]{20 + random.nextDouble() * 25, 100 + random.nextDouble() * 25};
+                assertEquals(!expected.containsKey(id), index.put(id, point[0], point[1]));
+                expected.put(id, point);
+            }
+        }
+        assertEquals(expected.size(), index.size());
+
+        for (int query = 0; query < 200; query++) {
+            double lat = 20 + random.nextDouble() * 25;
+            double lng = 100 + random.nextDouble() * 25;
+            if (query % 2 == 0) {
+                lat = 31.2 + random.nextDouble() * 0.3;
+                lng = 121.3 + random.nextDouble() * 0.3;
+            }
+            int count = 1 + random.nextInt(20);
+            List<LocationIndex.Neighbor> neighbors = index.nearest(lat, lng, count);
+            List<String> ids = new ArrayList<>(expected.keySet());
+            double finalLat = lat;
+            double finalLng = lng;
+            ids.sort((a, b) -> {
+                double da = GeoMath.haversine(finalLat, finalLng, expected.get(a)[0], expected.get(a)[1]);
+                double db = GeoMath.haversine(finalLat, finalLng, expected.get(b)[0], expected.get(b)[1]);
+                return da != db ? Double.compare(da, db) : a.compareTo(b);
+            });
+            assertEquals(count, neighbors.size());
+            for (int i = 0; i < count; i++) {
+                assertEquals(ids.get(i), neighbors.get(i).getId());
+                assertEquals(expected.get(ids.get(i))[0], neighbors.get(i).getLat(), 0);
+            }
+        }
+    }
+
+    @Test
+    void shouldSearchAcrossAntimeridianAndPoles() {
+        LocationIndex index = new LocationIndex();
+        index.put("fiji", -17.8, 179.9);
+        index.put("samoa", -13.8, -171.8);
+        index.put("pole", 89.95, 0);
+        index.put("svalbard", 78.2, 15.6);
+
+        assertEquals("fiji", index.nearest(-17.8, -179.9, 1).get(0).getId());
+        assertEquals(Arrays.asList("pole", "svalbard"), ids(index.nearest(89.99, 170, 2)));
+        assertEquals(4, index.nearest(0, 0, 10).size());
+        assertTrue(index.nearest(0, 0, 0).isEmpty());
+    }
+
+    @Test
+    void shouldRejectBatchExceedingLimitWithoutWriting() {
+        LocationIndex index = new LocationIndex();
+        index.put("a", 30, 120);
+        // 已存在的编号和批次内重复的编号不重复计数
+        assertEquals(1, index.putAll(Arrays.asList("a", "b", "b"), new double[]{30, 31, 31.1}, new double[]{120, 121, 121.1}, 2));
+        assertEquals(31.1, index.nearest(31.1, 121.1, 1).get(0).getLat(), 0);
+        assertThrows(IllegalArgumentException.class,
+                () -> index.putAll(Arrays.asList("c"), new double[]{32}, new double[]{122}, 2));
+        assertEquals(2, index.size());
+        assertFalse(index.remove("c"));
+    }
+
+    private static List<String> ids(List<LocationIndex.Neighbor> neighbors) {
+        List<String> result = new ArrayList<>();
+        for (LocationIndex.Neighbor neighbor : neighbors) {
+            result.add(neighbor.getId());
+        }
+        return result;
+    }
+}
@@ -0,0 +1,133 @@
+package com.example.geoservice.service.nearby;
+
+import com.example.geoservice.config.MapServiceProperties;
+import com.example.geoservice.geo.CoordinateSystem;
+import com.example.geoservice.model.Location;
+import com.example.geoservice.model.NamedLocation;
+import com.example.geoservice.model.NearbyLocation;
+import com.example.geoservice.service.MapService;
+import com.example.geoservice.service.MapServiceFactory;
+import com.example.geoservice.service.estimate.DistanceEstimator;
+import com.example.geoservice.service.estimate.DistanceMode;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class NearbySearchServiceTest {
+
+    @Mock
+    private MapServiceFactory mapServiceFactory;
+    @Mock
+    private MapService mapService;
+
+    private MapServiceProperties properties;
+    private NearbySearchService service;
+
+    @BeforeEach
+    void setUp() {
+        properties = new MapServiceProperties();
+        properties.getNearby().setCandidates(3);
+        service = new NearbySearchService(mapServiceFactory, new DistanceEstimator(properties, new SimpleMeterRegistry()),
+                properties, new SimpleMeterRegistry());
+        assertEquals(4, service.upsert("depots", Arrays.asList(
+                named("a", 31.200, 121.400),
+                named("b", 31.210, 121.410),
+                named("c", 31.230, 121.430),
+                named("far", 32.000, 122.000))));
+    }
+
+    private static NamedLocation named(String id, double lat, double lng) {
+        NamedLocation location = new NamedLocation();
+        location.setId(id);
+        location.setLat(lat);
+        location.setLng(lng);
+        return location;
+    }
+
+    private static Location location(double lat, double lng) {
+        Location location = new Location();
+        location.setLat(lat);
+        location.setLng(lng);
+        return location;
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void shouldRankStraightLineCandidatesByDrivingDistanceInOneCall() throws IOException {
+        when(mapServiceFactory.getMapService(any())).thenReturn(mapService);
+        // a 最近但需要绕行，c 无法到达
+        when(mapService.calculateDistanceMatrix(anyList(), anyList()))
+                .thenReturn(new double[][]{{9000, 3000, -1}});
+
+        List<NearbyLocation> result = service.nearest("depots", location(31.2, 121.4), 2, null, DistanceMode.EXACT);
+
+        ArgumentCaptor<List<Location>> destinations = ArgumentCaptor.forClass(List.class);
+        verify(mapService, times(1)).calculateDistanceMatrix(anyList(), destinations.capture());
+        assertEquals(3, destinations.getValue().size());
+        assertEquals(31.23, destinations.getValue().get(2).getLat(), 1e-9);
+        assertEquals(2, result.size());
+        assertEquals("b", result.get(0).getId());
+        assertEquals(3000, result.get(0).getDistance(), 0);
+        assertEquals("a", result.get(1).getId());
+        assertEquals(0, result.get(1).getStraightLineDistance(), 1e-6);
+    }
+
+    @Test
+    void shouldUpdateAndRemoveWithoutRebuilding() throws IOException {
+        NamedLocation moved = named("far", 31.2001, 121.4001);
+        assertEquals(4, service.upsert("depots", Collections.singletonList(moved)));
+        assertEquals(2, service.remove("depots", Arrays.asList("a", "missing", "b")));
+
+        List<NearbyLocation> result = service.nearest("depots", location(31.2, 121.4), 2, 2, DistanceMode.ESTIMATE);
+        assertEquals("far", result.get(0).getId());
+        assertEquals("c", result.get(1).getId());
+        verifyNoInteractions(mapServiceFactory);
+    }
+
+    @Test
+    void shouldConvertRegisteredLocationsToServiceCoordinateSystem() throws IOException {
+        NamedLocation wgs84 = named("wgs84", 31.2, 121.4);
+        wgs84.setCoordinateSystem(CoordinateSystem.WGS84);
+        service.upsert("converted", Collections.singletonList(wgs84));
+
+        NearbyLocation result = service.nearest("converted", location(31.2, 121.4), 1, 1, DistanceMode.ESTIMATE).get(0);
+        // 服务默认为 GCJ-02，上海附近 WGS-84 与 GCJ-02 相差约 500 米
+        assertEquals(CoordinateSystem.GCJ02, properties.getCoordinateSystem());
+        assertEquals(500, result.getStraightLineDistance(), 100);
+    }
+
+    @Test
+    void shouldRejectInvalidRequests() {
+        assertThrows(IllegalArgumentException.class,
+                () -> service.nearest("missing", location(31.2, 121.4), 1, null, DistanceMode.EXACT));
+        assertThrows(IllegalArgumentException.class,
+                () -> service.nearest("depots", location(31.2, 121.4), 0, null, DistanceMode.EXACT));
+        assertThrows(IllegalArgumentException.class,
+                () -> service.nearest("depots", location(31.2, 121.4), 1, 1000, DistanceMode.EXACT));
+        assertThrows(IllegalArgumentException.class,
+                () -> service.nearest("depots", location(31.2, 121.4), 1, null, DistanceMode.ESTIMATE_THEN_REFINE));
+        assertThrows(IllegalArgumentException.class,
+                () -> service.upsert("depots", Collections.singletonList(named(" ", 31.2, 121.4))));
+        assertThrows(IllegalArgumentException.class,
+                () -> service.upsert("depots", Collections.singletonList(named("x", 91, 121.4))));
+    }
+}
@@ -0,0 +1,135 @@
+package com.example.geoservice.service.ratelimit;
+
+import com.example.geoservice.config.MapServiceProperties;
+import com.example.geoservice.exception.MapServiceException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ProviderRateLimiterTest {
+
+    @TempDir
+    Path directory;
+
+    private MapServiceProperties.RateLimitProperties properties;
+    private ScheduledExecutorService scheduler;
+    private Clock clock;
+    private long now;
+
+    @BeforeEach
+    void setUp() {
+        properties = new MapServiceProperties.RateLimitProperties();
+        properties.setMaxWait(Duration.ofMillis(200));
+        scheduler = Executors.newSingleThreadScheduledExecutor();
+        clock = Clock.fixed(Instant.parse("2024-01-01T04:00:00Z"), ZoneOffset.UTC);
+        now = TimeUnit.HOURS.toNanos(1);
+    }
+
+    @AfterEach
+    void tearDown() {
+        scheduler.shutdownNow();
+    }
+
+    private ProviderRateLimiter createLimiter(double qps, int burst, long dailyLimit) {
+        MapServiceProperties.QuotaProperties limits = new MapServiceProperties.QuotaProperties(qps, burst, dailyLimit, "Asia/Shanghai");
+        return new ProviderRateLimiter("baidu", limits, properties, directory.resolve("baidu.quota"), scheduler,
+                new SimpleMeterRegistry(), () -> now, clock);
+    }
+
+    @Test
+    void shouldQueueInteractiveRequestsInOrderAndRejectBeyondMaxWait() throws Exception {
+        ProviderRateLimiter limiter = createLimiter(10, 2, 0);
+        assertTrue(limiter.acquireAsync().isDone());
+        assertTrue(limiter.acquireAsync().isDone());
+
+        // 令牌用完后按到达顺序排队，分别等待 100ms 和 200ms
+        CompletableFuture<Void> third = limiter.acquireAsync();
+        CompletableFuture<Void> fourth = limiter.acquireAsync();
+        assertFalse(third.isDone());
+        assertNull(third.get(1, TimeUnit.SECONDS));
+        assertNull(fourth.get(1, TimeUnit.SECONDS));
+
+        ExecutionException e = assertThrows(ExecutionException.class, () -> limiter.acquireAsync().get());
+        MapServiceException rejected = assertInstanceOf(MapServiceException.class, e.getCause());
+        assertEquals(MapServiceException.Reason.RATE_LIMITED, rejected.getReason());
+        assertFalse(rejected.isFromProvider());
+    }
+
+    @Test
+    void shouldLetBulkRequestsUseOnlySurplusTokens() {
+        TokenBucket bucket = new TokenBucket(10, 5, 0.2, () -> now);
+        for (int i = 0; i < 4; i++) {
+            assertEquals(0, bucket.tryAcquireSurplus());
+        }
+        // 最后一个突发令牌保留给交互请求
+        assertTrue(bucket.tryAcquireSurplus() > 0);
+        assertEquals(0, bucket.reserve(0));
+
+        // 有交互请求排队时，批量请求需要等到队列清空且保留令牌恢复
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(100), bucket.reserve(TimeUnit.SECONDS.toNanos(1)));
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(300), bucket.tryAcquireSurplus());
+        now += TimeUnit.MILLISECONDS.toNanos(300);
+        assertEquals(0, bucket.tryAcquireSurplus());
+    }
+
+    @Test
+    void shouldPersistDailyQuotaAndReserveShareForInteractiveRequests() throws IOException {
+        ProviderRateLimiter limiter = createLimiter(0, 0, 5);
+        limiter.acquire();
+        limiter.acquire();
+        limiter.flush();
+
+        // 重启后从持久化文件恢复当天用量
+        ProviderRateLimiter restarted = createLimiter(0, 0, 5);
+        assertEquals(3, restarted.getRemainingQuota());
+        RequestPriority.with(RequestPriority.BULK, () -> {
+            restarted.acquire();
+            restarted.acquire();
+            MapServiceException e = assertThrows(MapServiceException.class, restarted::acquire);
+            assertEquals(MapServiceException.Reason.QUOTA_EXCEEDED, e.getReason());
+            return null;
+        });
+        restarted.acquire();
+        assertEquals(0, restarted.getRemainingQuota());
+        assertThrows(MapServiceException.class, restarted::acquire);
+        restarted.flush();
+
+        // 按配额时区跨日后重新计数
+        clock = Clock.offset(clock, Duration.ofDays(1));
+        assertEquals(5, createLimiter(0, 0, 5).getRemainingQuota());
+    }
+
+    @Test
+    void shouldStopCallingProviderAfterItReportsQuotaExceeded() throws IOException {
+        ProviderRateLimiter limiter = createLimiter(0, 0, 0);
+        limiter.acquire();
+        assertEquals(-1, limiter.getRemainingQuota());
+
+        limiter.onQuotaExceeded();
+
+        assertEquals(0, limiter.getRemainingQuota());
+        MapServiceException e = assertThrows(MapServiceException.class, limiter::acquire);
+        assertEquals(MapServiceException.Reason.QUOTA_EXCEEDED, e.getReason());
+    }
+}
@@ -0,0 +1,263 @@
+package com.example.geoservice.service.resilience;
+
+import com.example.geoservice.config.MapServiceProperties;
+import com.example.geoservice.exception.MapServiceException;
+import com.example.geoservice.service.ratelimit.RequestPriority;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ProviderResilienceTest {
+
+    private MapServiceProperties.ResilienceProperties properties;
+    private ScheduledExecutorService scheduler;
+    private long now;
+
+    @BeforeEach
+    void setUp() {
+        properties = new MapServiceProperties.ResilienceProperties();
+        properties.getRetry().setInitialBackoff(Duration.ofMillis(1));
+        scheduler = Executors.newSingleThreadScheduledExecutor();
+        now = TimeUnit.HOURS.toNanos(1);
+    }
+
+    @AfterEach
+    void tearDown() {
+        scheduler.shutdownNow();
+    }
+
+    private ProviderResilience createResilience() {
+        return new ProviderResilience("baidu", properties, scheduler, new SimpleMeterRegistry(), () -> now);
+    }
+
+    private static MapServiceException failure(MapServiceException.Reason reason) {
+        return new MapServiceException("baidu", "1", reason, "API调用失败: " + reason);
+    }
+
+    @Test
+    void shouldRetryRetryableFailure() throws IOException {
+        ProviderResilience resilience = createResilience();
+        AtomicInteger calls = new AtomicInteger();
+
+        String result = resilience.execute(() -> {
+            if (calls.incrementAndGet() == 1) {
+                throw failure(MapServiceException.Reason.UNAVAILABLE);
+            }
+            return "ok";
+        });
+
+        assertEquals("ok", result);
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    void shouldNotRetryRejectedRequest() {
+        ProviderResilience resilience = createResilience();
+        AtomicInteger calls = new AtomicInteger();
+
+        MapServiceException exception = assertThrows(MapServiceException.class, () -> resilience.execute(() -> {
+            calls.incrementAndGet();
+            throw failure(MapServiceException.Reason.REJECTED);
+        }));
+
+        assertEquals(MapServiceException.Reason.REJECTED, exception.getReason());
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    void shouldFailFastWhenCircuitIsOpenAndCloseAfterSuccessfulProbes() throws IOException {
+        properties.getRetry().setMaxAttempts(1);
+        properties.getCircuitBreaker().setMinimumCalls(4);
+        properties.getCircuitBreaker().setHalfOpenCalls(1);
+        ProviderResilience resilience = createResilience();
+        for (int i = 0; i < 4; i++) {
+            assertThrows(IOException.class, () -> resilience.execute(() -> {
+                throw new IOException("connection reset");
+            }));
+        }
+        AtomicInteger calls = new AtomicInteger();
+
+        MapServiceException exception = assertThrows(MapServiceException.class,
+                () -> resilience.execute(calls::incrementAndGet));
+
+        assertEquals(MapServiceException.Reason.CIRCUIT_OPEN, exception.getReason());
+        assertEquals(0, calls.get());
+
+        now += properties.getCircuitBreaker().getOpenDuration().toNanos();
+        assertEquals(1, resilience.execute(calls::incrementAndGet));
+        assertEquals(2, resilience.execute(calls::incrementAndGet));
+    }
+
+    @Test
+    void shouldRejectWhenBulkheadIsFull() throws Exception {
+        properties.getBulkhead().setMaxConcurrentCalls(1);
+        ProviderResilience resilience = createResilience();
+        CompletableFuture<String> pending = new CompletableFuture<>();
+
+        CompletableFuture<String> first = resilience.executeAsync(() -> pending);
+        CompletableFuture<String> second = resilience.executeAsync(() -> CompletableFuture.completedFuture("ok"));
+
+        ExecutionException exception = assertThrows(ExecutionException.class, second::get);
+        assertInstanceOf(MapServiceException.class, exception.getCause());
+        assertEquals(MapServiceException.Reason.BULKHEAD_FULL, ((MapServiceException) exception.getCause()).getReason());
+
+        pending.complete("done");
+        assertEquals("done", first.get());
+        assertEquals("ok", resilience.executeAsync(() -> CompletableFuture.completedFuture("ok")).get());
+    }
+
+    @Test
+    void shouldNotHoldBulkheadWhileWaitingForPermit() throws Exception {
+        properties.getBulkhead().setMaxConcurrentCalls(1);
+        ProviderResilience resilience = createResilience();
+        CompletableFuture<Void> bulkPermit = new CompletableFuture<>();
+        AtomicInteger bulkCalls = new AtomicInteger();
+
+        // 批量请求正在等待令牌，尚未进入熔断器和舱壁
+        CompletableFuture<String> bulk = resilience.executeAsync(() -> bulkPermit, () -> {
+            bulkCalls.incrementAndGet();
+            return CompletableFuture.completedFuture("bulk");
+        });
+        CompletableFuture<String> interactive = resilience.executeAsync(
+                () -> CompletableFuture.completedFuture(null), () -> CompletableFuture.completedFuture("interactive"));
+
+        assertEquals("interactive", interactive.get());
+        assertEquals(0, bulkCalls.get());
+
+        bulkPermit.complete(null);
+        assertEquals("bulk", bulk.get());
+        assertEquals(1, bulkCalls.get());
+    }
+
+    @Test
+    void shouldRetryAsyncCallAndCancelPendingAttempt() throws Exception {
+        ProviderResilience resilience = createResilience();
+        AtomicInteger calls = new AtomicInteger();
+        CompletableFuture<String> retried = new CompletableFuture<>();
+
+        CompletableFuture<String> result = resilience.executeAsync(() -> {
+            if (calls.incrementAndGet() == 1) {
+                CompletableFuture<String> failed = new CompletableFuture<>();
+                failed.completeExceptionally(new IOException("connection reset"));
+                return failed;
+            }
+            return retried;
+        });
+
+        scheduler.submit(() -> null).get();
+        TimeUnit.MILLISECONDS.sleep(50);
+        assertEquals(2, calls.get());
+        result.cancel(true);
+        assertTrue(retried.isCancelled());
+    }
+
+    @Test
+    void shouldNotStartRetryCancelledDuringBackoff() throws Exception {
+        properties.getRetry().setInitialBackoff(Duration.ofMillis(20));
+        ScheduledThreadPoolExecutor retryScheduler = new ScheduledThreadPoolExecutor(1);
+        retryScheduler.setRemoveOnCancelPolicy(true);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch blocked = new CountDownLatch(1);
+        try {
+            // 占住定时线程，保证取消时重试仍在退避中，与随机的退避时间无关
+            retryScheduler.execute(() -> {
+                started.countDown();
+                try {
+                    blocked.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            started.await();
+            ProviderResilience resilience =
+                    new ProviderResilience("baidu", properties, retryScheduler, new SimpleMeterRegistry(), () -> now);
+            AtomicInteger calls = new AtomicInteger();
+
+            CompletableFuture<String> result = resilience.executeAsync(() -> {
+                calls.incrementAndGet();
+                CompletableFuture<String> failed = new CompletableFuture<>();
+                failed.completeExceptionally(new IOException("connection reset"));
+                return failed;
+            });
+            assertEquals(1, retryScheduler.getQueue().size());
+
+            result.cancel(true);
+            // 等待中的重试随结果一起取消
+            assertTrue(retryScheduler.getQueue().isEmpty());
+            blocked.countDown();
+            TimeUnit.MILLISECONDS.sleep(50);
+            retryScheduler.submit(() -> null).get();
+            assertEquals(1, calls.get());
+        } finally {
+            blocked.countDown();
+            retryScheduler.shutdownNow();
+        }
+    }
+
+    @Test
+    void shouldCancelRetryThatStartedBeforeBackoffWasRecorded() throws Exception {
+        // 退避为 0 时重试可能在登记定时任务之前就已开始，取消结果时仍要取消重试中的调用
+        properties.getRetry().setInitialBackoff(Duration.ZERO);
+        for (int i = 0; i < 200; i++) {
+            ProviderResilience resilience = createResilience();
+            AtomicInteger calls = new AtomicInteger();
+            CompletableFuture<String> retried = new CompletableFuture<>();
+            CompletableFuture<String> result = resilience.executeAsync(() -> {
+                if (calls.incrementAndGet() == 1) {
+                    CompletableFuture<String> failed = new CompletableFuture<>();
+                    failed.completeExceptionally(new IOException("connection reset"));
+                    return failed;
+                }
+                return retried;
+            });
+            scheduler.submit(() -> null).get();
+            assertEquals(2, calls.get());
+            result.cancel(true);
+            assertTrue(retried.isCancelled(), "第 " + i + " 次");
+        }
+    }
+
+    @Test
+    void shouldRetryAsyncCallWithCallerPriority() throws Exception {
+        ProviderResilience resilience = createResilience();
+        List<RequestPriority> priorities = new CopyOnWriteArrayList<>();
+
+        CompletableFuture<String> result = RequestPriority.with(RequestPriority.BULK,
+                () -> resilience.executeAsync(() -> {
+                    priorities.add(RequestPriority.current());
+                    return CompletableFuture.completedFuture(null);
+                }, () -> {
+                    if (priorities.size() == 1) {
+                        CompletableFuture<String> failed = new CompletableFuture<>();
+                        failed.completeExceptionally(new IOException("connection reset"));
+                        return failed;
+                    }
+                    return CompletableFuture.completedFuture("ok");
+                }));
+
+        assertEquals("ok", result.get(1, TimeUnit.SECONDS));
+        // 重试在定时线程中发起，仍然使用调用方的优先级
+        assertEquals(2, priorities.size());
+        assertEquals(RequestPriority.BULK, priorities.get(1));
+        assertEquals(RequestPriority.INTERACTIVE, RequestPriority.current());
+    }
+}
@@ -0,0 +1,145 @@
+package com.example.geoservice.service.routing;
+
+import com.example.geoservice.config.MapServiceProperties;
+import com.example.geoservice.geo.Region;
+import com.example.geoservice.metrics.ProviderMetrics;
+import com.example.geoservice.service.ProviderOperation;
+import com.example.geoservice.service.impl.AbstractMapService;
+import com.example.geoservice.service.impl.BaiduMapService;
+import com.example.geoservice.service.impl.GoogleMapService;
+import com.example.geoservice.service.impl.TencentMapService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ProviderRouterTest {
+
+    private MapServiceProperties properties;
+    private GoogleMapService googleMapService;
+    private TencentMapService tencentMapService;
+    private BaiduMapService baiduMapService;
+    private long now;
+    private ProviderRouter router;
+
+    @BeforeEach
+    void setUp() {
+        properties = new MapServiceProperties();
+        properties.setProvider("baidu");
+        properties.getRouting().setProviders(Arrays.asList("google", "tencent", "baidu"));
+        googleMapService = mock(GoogleMapService.class);
+        tencentMapService = mock(TencentMapService.class);
+        baiduMapService = mock(BaiduMapService.class);
+        when(googleMapService.getProviderName()).thenReturn("google");
+        when(tencentMapService.getProviderName()).thenReturn("tencent");
+        when(baiduMapService.getProviderName()).thenReturn("baidu");
+        when(googleMapService.getRemainingDailyQuota()).thenReturn(-1L);
+        when(tencentMapService.getRemainingDailyQuota()).thenReturn(-1L);
+        when(baiduMapService.getRemainingDailyQuota()).thenReturn(-1L);
+        now = TimeUnit.HOURS.toNanos(1);
+    }
+
+    private ProviderRouter createRouter() {
+        List<AbstractMapService> providers = Arrays.asList(googleMapService, tencentMapService, baiduMapService);
+        router = new ProviderRouter(properties, providers, new ProviderMetrics(new SimpleMeterRegistry()),
+                new SimpleMeterRegistry(), () -> now);
+        return router;
+    }
+
+    private void call(String provider, long millis, boolean success) {
+        now += TimeUnit.SECONDS.toNanos(1);
+        router.onCall(provider, ProviderOperation.DISTANCE, TimeUnit.MILLISECONDS.toNanos(millis), success);
+    }
+
+    @Test
+    void shouldRouteToFastestProviderAndAdaptWhenItSlowsDown() {
+        createRouter();
+        // 尚未测量的服务商先各自被选中一次，map.provider 排在最前
+        assertSame(baiduMapService, router.route(Region.UNKNOWN));
+        call("baidu", 100, true);
+        call("google", 300, true);
+        call("tencent", 200, true);
+        assertSame(baiduMapService, router.route(Region.UNKNOWN));
+
+        for (int i = 0; i < 3; i++) {
+            call("baidu", 1000, true);
+        }
+
+        assertSame(tencentMapService, router.route(Region.UNKNOWN));
+    }
+
+    @Test
+    void shouldEjectFailingProviderAndReadmitAfterEjectionTime() {
+        properties.getRouting().setProviders(Arrays.asList("baidu", "tencent"));
+        properties.getRouting().setEjectionTime(Duration.ofSeconds(10));
+        createRouter();
+        call("tencent", 200, true);
+        for (int i = 0; i < properties.getRouting().getMinRequests(); i++) {
+            call("baidu", 100, false);
+        }
+
+        assertSame(tencentMapService, router.route(Region.UNKNOWN));
+
+        // 摘除到期后不需要新样本，错误率随时间衰减，服务商逐渐恢复
+        now += TimeUnit.SECONDS.toNanos(10);
+        assertSame(tencentMapService, router.route(Region.UNKNOWN));
+        now += TimeUnit.SECONDS.toNanos(5);
+        assertSame(baiduMapService, router.route(Region.UNKNOWN));
+    }
+
+    @Test
+    void shouldProbeProvidersWithoutRecentSamples() {
+        properties.getRouting().setProbeInterval(Duration.ofSeconds(30));
+        createRouter();
+        call("baidu", 1000, true);
+        call("tencent", 300, true);
+        call("google", 200, true);
+        for (int i = 0; i < 20; i++) {
+            assertSame(googleMapService, router.route(Region.UNKNOWN));
+            call("google", 200, true);
+        }
+        now += TimeUnit.SECONDS.toNanos(10);
+
+        // 不再被选中的服务商超过探测间隔后各分配一个探测请求
+        assertSame(baiduMapService, router.route(Region.UNKNOWN));
+        assertSame(tencentMapService, router.route(Region.UNKNOWN));
+        assertSame(googleMapService, router.route(Region.UNKNOWN));
+
+        // 探测发现服务商已经恢复，之后切换回去
+        call("baidu", 100, true);
+        assertSame(baiduMapService, router.route(Region.UNKNOWN));
+    }
+
+    @Test
+    void shouldPreferRegionalProviders() {
+        createRouter();
+        call("google", 50, true);
+        call("tencent", 300, true);
+        call("baidu", 200, true);
+
+        assertSame(baiduMapService, router.route(Region.CHINA));
+        assertSame(googleMapService, router.route(Region.OVERSEAS));
+        assertSame(googleMapService, router.route(Region.UNKNOWN));
+    }
+
+    @Test
+    void shouldSkipProviderWhoseDailyQuotaIsUsedUp() {
+        createRouter();
+        call("google", 50, true);
+        call("tencent", 300, true);
+        call("baidu", 200, true);
+        assertSame(googleMapService, router.route(Region.UNKNOWN));
+
+        when(googleMapService.getRemainingDailyQuota()).thenReturn(0L);
+
+        assertSame(baiduMapService, router.route(Region.UNKNOWN));
+    }
+}